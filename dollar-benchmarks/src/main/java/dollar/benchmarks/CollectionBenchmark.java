@@ -0,0 +1,90 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.benchmarks;
+
+import dollar.api.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static dollar.api.DollarStatic.$;
+import static dollar.api.DollarStatic.$list;
+
+/**
+ * Grows and updates lists and maps one element at a time, which copied the whole collection on every change before
+ * the persistent collections were used.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class CollectionBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private Value list;
+
+    @Benchmark
+    public Value appendList() {
+        Value result = $list();
+        for (int i = 0; i < size; i++) {
+            result = result.$append($("item" + i));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public Value appendMap() {
+        Value result = $();
+        for (int i = 0; i < size; i++) {
+            result = result.$append($("key" + i, i));
+        }
+        return result;
+    }
+
+    @Setup
+    public void setUp() {
+        Value result = $list();
+        for (int i = 0; i < size; i++) {
+            result = result.$append($("item" + i));
+        }
+        list = result;
+    }
+
+    @Benchmark
+    public Value updateList() {
+        Value result = list;
+        for (int i = 0; i < size; i++) {
+            result = result.$set($(i), $(-i));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.benchmarks;
+
+import dollar.api.Value;
+import dollar.api.execution.DollarExecutor;
+import dollar.execution.simple.ScopeAwareDollarExecutor;
+import dollar.execution.simple.VirtualThreadDollarExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static dollar.api.DollarStatic.$;
+
+/**
+ * Forks many blocks which each block (sleep) before returning, as scripts forking HTTP or Redis reads do.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ForkBenchmark {
+
+    private static final int FORKS = 10000;
+    private static final long SLEEP_MILLIS = 50;
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    private DollarExecutor executor;
+
+    @Benchmark
+    public Value fork() throws Exception {
+        List<Future<Value>> futures = new ArrayList<>(FORKS);
+        for (int i = 0; i < FORKS; i++) {
+            final int n = i;
+            futures.add(executor.submit(() -> {
+                Thread.sleep(SLEEP_MILLIS);
+                return $(n);
+            }));
+        }
+        Value last = null;
+        for (Future<Value> future : futures) {
+            last = future.get();
+        }
+        return last;
+    }
+
+    @Setup
+    public void setUp() {
+        executor = "virtual".equals(threads) ? new VirtualThreadDollarExecutor() : new ScopeAwareDollarExecutor();
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.stop();
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dollar.benchmarks;
+
+import dollar.api.Value;
+import dollar.api.types.DollarGuard;
+import dollar.api.types.DollarGuardWrapper;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static dollar.api.DollarStatic.$;
+
+/**
+ * Compares the reflective {@link DollarGuard} proxy with the {@link DollarGuardWrapper} for the same values.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GuardBenchmark {
+
+    @Param({"proxy", "wrapper", "none"})
+    public String guard;
+
+    private Value index;
+    private Value integer;
+    private Value key;
+    private Value list;
+    private Value map;
+
+    @NotNull
+    private static Value guard(@NotNull String mode, @NotNull Value value) {
+        Value raw = value.$unwrap();
+        if ("proxy".equals(mode)) {
+            return (Value) Proxy.newProxyInstance(GuardBenchmark.class.getClassLoader(),
+                                                  new Class<?>[]{Value.class},
+                                                  new DollarGuard(raw));
+        } else if ("wrapper".equals(mode)) {
+            return new DollarGuardWrapper(raw, raw.getClass());
+        } else {
+            return raw;
+        }
+    }
+
+    @Benchmark
+    public Value integerPlus() {
+        return integer.$plus(integer);
+    }
+
+    @Benchmark
+    public Value listGet() {
+        return list.$get(index);
+    }
+
+    @Benchmark
+    public int listSize() {
+        return list.size();
+    }
+
+    @Benchmark
+    public Value mapGet() {
+        return map.$get(key);
+    }
+
+    @Setup
+    public void setup() {
+        integer = guard(guard, $(42));
+        index = guard(guard, $(3));
+        key = guard(guard, $("b"));
+        list = guard(guard, $(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8)));
+        map = guard(guard, $("a", 1).$("b", 2).$("c", 3));
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.benchmarks;
+
+import dollar.http.NanoHttpdServer;
+import dollar.http.NioHttpServer;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of the http plugin's server against localhost, each benchmark thread is a keep-alive client sending
+ * either one request at a time or a pipelined batch of ten.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(16)
+public class HttpServerBenchmark {
+
+    private static final int PIPELINE = 10;
+    @NotNull
+    private static final byte[] REQUEST = ("POST /echo HTTP/1.1\r\nHost: localhost\r\nContent-Length: 5\r\n\r\nhello")
+                                                  .getBytes(StandardCharsets.ISO_8859_1);
+
+    @Benchmark
+    public int pipelined(@NotNull Client client) throws IOException {
+        for (int i = 0; i < PIPELINE; i++) {
+            client.out.write(REQUEST);
+        }
+        client.out.flush();
+        int length = 0;
+        for (int i = 0; i < PIPELINE; i++) {
+            length += client.readResponse();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public int single(@NotNull Client client) throws IOException {
+        client.out.write(REQUEST);
+        client.out.flush();
+        return client.readResponse();
+    }
+
+    @State(Scope.Benchmark)
+    public static class Server {
+        NioHttpServer server;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            server = new NioHttpServer("localhost", 0) {
+                @NotNull
+                @Override
+                public NanoHttpdServer.Response serve(@NotNull NanoHttpdServer.IHTTPSession session) {
+                    try {
+                        InputStream body = session.getInputStream();
+                        StringBuilder echo = new StringBuilder();
+                        int b;
+                        while ((b = body.read()) >= 0) {
+                            echo.append((char) b);
+                        }
+                        return new NanoHttpdServer.Response(NanoHttpdServer.Response.Status.OK,
+                                                            NanoHttpdServer.MIME_PLAINTEXT, echo.toString());
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            };
+            server.start();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            server.stop();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        BufferedInputStream in;
+        OutputStream out;
+        Socket socket;
+
+        @Setup(Level.Trial)
+        public void setup(@NotNull Server server) throws IOException {
+            socket = new Socket("localhost", server.server.getListeningPort());
+            socket.setTcpNoDelay(true);
+            in = new BufferedInputStream(socket.getInputStream());
+            out = socket.getOutputStream();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            socket.close();
+        }
+
+        int readResponse() throws IOException {
+            int length = 0;
+            StringBuilder line = new StringBuilder();
+            while (true) {
+                int c = in.read();
+                if (c < 0) {
+                    throw new IOException("Connection closed");
+                }
+                if (c == '\n') {
+                    String header = line.toString().trim();
+                    line.setLength(0);
+                    if (header.isEmpty()) {
+                        break;
+                    }
+                    if (header.toLowerCase(Locale.US).startsWith("content-length:")) {
+                        length = Integer.parseInt(header.substring("content-length:".length()).trim());
+                    }
+                } else {
+                    line.append((char) c);
+                }
+            }
+            for (int i = 0; i < length; i++) {
+                in.read();
+            }
+            return length;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.benchmarks;
+
+import dollar.api.Value;
+import dollar.api.js.JSFileScript;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static dollar.api.DollarStatic.$;
+
+/**
+ * Pipes a stream of maps through a JavaScript transform.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JSBenchmark {
+
+    private static final int VALUES = 100000;
+
+    private final Value[] values = new Value[VALUES];
+    private JSFileScript script;
+
+    @Setup
+    public void setUp() throws IOException {
+        script = new JSFileScript(new ByteArrayInputStream(
+                "$.price * $.quantity".getBytes(StandardCharsets.UTF_8)));
+        for (int i = 0; i < VALUES; i++) {
+            values[i] = $("price", i % 100).$set($("quantity"), $(i % 7));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public Value transform() throws Exception {
+        Value result = null;
+        for (Value value : values) {
+            result = script.pipe(value);
+        }
+        return result;
+    }
+}
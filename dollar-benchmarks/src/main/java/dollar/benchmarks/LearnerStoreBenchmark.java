@@ -0,0 +1,103 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.benchmarks;
+
+import com.thoughtworks.xstream.XStream;
+import dollar.learner.simple.TypeScoreMap;
+import dollar.learner.simple.TypeScoreStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads the learnt types of the simple type learner at startup, from the binary store and from XML.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LearnerStoreBenchmark {
+
+    private static final String[] TYPES = {"Integer", "Decimal", "String", "List", "Map"};
+
+    @Param({"100000"})
+    public int keys;
+
+    private final XStream xstream = new XStream();
+    private File storeFile;
+    private File xmlFile;
+
+    @Benchmark
+    public Map<String, TypeScoreMap> binary() throws IOException {
+        Map<String, TypeScoreMap> map = new ConcurrentHashMap<>();
+        new TypeScoreStore(storeFile).load(map);
+        return map;
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        storeFile = File.createTempFile("scores", ".bin");
+        xmlFile = File.createTempFile("map", ".xml");
+        storeFile.delete();
+        long now = System.currentTimeMillis();
+        try (TypeScoreStore store = new TypeScoreStore(storeFile)) {
+            for (int i = 0; i < keys; i++) {
+                String key = "function" + i + "(Integer,String)";
+                store.increment(key, TYPES[i % TYPES.length], now);
+                store.increment(key, TYPES[(i + 1) % TYPES.length], now);
+            }
+        }
+        Map<String, TypeScoreMap> map = binary();
+        try (TypeScoreStore store = new TypeScoreStore(storeFile)) {
+            store.compact(map);
+        }
+        try (Writer writer = new FileWriter(xmlFile)) {
+            xstream.toXML(map, writer);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        storeFile.delete();
+        xmlFile.delete();
+    }
+
+    @Benchmark
+    public Object xml() {
+        return xstream.fromXML(xmlFile);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.benchmarks;
+
+import dollar.api.Value;
+import dollar.api.script.ParserOptions;
+import dollar.internal.runtime.script.parser.DollarParserImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static dollar.internal.runtime.script.DollarUtilFactory.util;
+
+/**
+ * Runs loop heavy scripts with source nodes executed through a proxy and directly.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LoopBenchmark {
+
+    private static final String EACH = "var total= 0\n" +
+                                       "[1..200] each { total= total + $1 }\n" +
+                                       "total <=> 20100\n";
+    private static final String FOR = "var total= 0\n" +
+                                      "for i in [1..200] {\n" +
+                                      "    total= total + i\n" +
+                                      "}\n" +
+                                      "total <=> 20100\n";
+    private static final String REDUCE = "var total= [1..200] reduce ($1 + $2)\n" +
+                                         "total <=> 20100\n";
+
+    @Param({"false", "true"})
+    public boolean directDispatch;
+
+    private ParserOptions options;
+
+    @Benchmark
+    public Value each() throws Exception {
+        return run(EACH);
+    }
+
+    @Benchmark
+    public Value forLoop() throws Exception {
+        return run(FOR);
+    }
+
+    @Benchmark
+    public Value reduce() throws Exception {
+        return run(REDUCE);
+    }
+
+    @Setup
+    public void setup() {
+        options = new ParserOptions();
+        options.setDirectDispatch(directDispatch);
+    }
+
+    private Value run(String script) throws Exception {
+        util().clearScopes();
+        return new DollarParserImpl(options).parse(script, false);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dollar.benchmarks;
+
+import dollar.api.Value;
+import dollar.api.uri.URI;
+import dollar.uri.mapdb.MapDBCircleURI;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static dollar.api.DollarStatic.$;
+
+/**
+ * One writer feeding three readers through a db:circular URI, comparing the in-memory {@code ArrayBlockingQueue}
+ * ({@code storage=memory}) with the memory-mapped ring ({@code storage=file}), reading one value at a time or draining.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class MapDBCircleBenchmark {
+
+    @Param({"memory", "file"})
+    public String storage;
+    private MapDBCircleURI circle;
+    private final Value value = $("message");
+
+    @Benchmark
+    @Group("drain")
+    @GroupThreads(3)
+    public Value drainAll() {
+        return circle.drain();
+    }
+
+    @Benchmark
+    @Group("read")
+    @GroupThreads(3)
+    public Value readOne() {
+        return circle.read(false, true);
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        File file = File.createTempFile("circle-benchmark", ".db");
+        file.delete();
+        file.deleteOnExit();
+        new File(file.getAbsolutePath() + ".bench.ring").deleteOnExit();
+        circle = new MapDBCircleURI("db", URI.parse("circular://bench" + file.getAbsolutePath() + "?size=1024&storage="
+                                                            + storage));
+    }
+
+    @Benchmark
+    @Group("drain")
+    @GroupThreads(1)
+    public Value writeForDrain() {
+        return circle.write(value, false, false);
+    }
+
+    @Benchmark
+    @Group("read")
+    @GroupThreads(1)
+    public Value writeForRead() {
+        return circle.write(value, false, false);
+    }
+}
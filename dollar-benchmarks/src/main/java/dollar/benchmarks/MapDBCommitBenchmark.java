@@ -0,0 +1,73 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dollar.benchmarks;
+
+import dollar.api.Value;
+import dollar.api.uri.URI;
+import dollar.uri.mapdb.MapDBMapURI;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static dollar.api.DollarStatic.$;
+
+/**
+ * Durable write throughput of a db:map URI shared by several writers, committing after every write ({@code sync})
+ * against joining a group commit ({@code group}).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class MapDBCommitBenchmark {
+
+    @Param({"sync", "group"})
+    public String commit;
+    private MapDBMapURI map;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        File file = File.createTempFile("commit-benchmark", ".db");
+        file.delete();
+        file.deleteOnExit();
+        map = new MapDBMapURI("db", URI.parse("map://bench" + file.getAbsolutePath() + "?commit=" + commit
+                                                      + "&maxDelayMs=2"));
+    }
+
+    @Benchmark
+    public Value write() {
+        return map.set($(ThreadLocalRandom.current().nextInt(10000)), $("value"));
+    }
+}
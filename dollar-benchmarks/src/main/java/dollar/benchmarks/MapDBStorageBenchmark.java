@@ -0,0 +1,79 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dollar.benchmarks;
+
+import dollar.api.Value;
+import dollar.api.uri.URI;
+import dollar.uri.mapdb.MapDBMapURI;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static dollar.api.DollarStatic.$;
+
+/**
+ * Random {@code get} throughput of a db:map URI holding 100,000 keys for each storage mode, with and without the read
+ * cache.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class MapDBStorageBenchmark {
+
+    private static final int KEYS = 100000;
+    @Param({"0", "10000", "100000"})
+    public int cache;
+    @Param({"file", "mmap", "memory"})
+    public String storage;
+    private MapDBMapURI map;
+
+    @Benchmark
+    public Value get() {
+        return map.get($(ThreadLocalRandom.current().nextInt(KEYS)));
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        File file = File.createTempFile("storage-benchmark", ".db");
+        file.delete();
+        file.deleteOnExit();
+        map = new MapDBMapURI("db", URI.parse("map://bench" + file.getAbsolutePath() + "?storage=" + storage
+                                                      + "&cache=" + cache));
+        for (int i = 0; i < KEYS; i++) {
+            map.set($(i), $("value-" + i));
+        }
+    }
+}
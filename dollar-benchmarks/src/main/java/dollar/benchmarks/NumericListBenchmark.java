@@ -0,0 +1,114 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.benchmarks;
+
+import dollar.api.Value;
+import dollar.api.types.DollarFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds and aggregates a list of integers held as primitives and the same integers held as values, run with {@code
+ * -prof gc} to compare the allocation of each. The {@code gc.alloc.rate.norm} of the build benchmarks is the memory a
+ * list of each kind holds.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NumericListBenchmark {
+
+    @Param({"1000", "1000000"})
+    public int size;
+
+    /**
+     * A sequence of the same values, which is aggregated value by value as lists were before they held primitives.
+     */
+    private Value boxed;
+    private Value primitive;
+    private long[] values;
+
+    @Benchmark
+    public Value boxedBuild() {
+        List<Value> list = new ArrayList<>(size);
+        for (long value : values) {
+            list.add(DollarFactory.fromValue(value));
+        }
+        return DollarFactory.fromStream(list, false);
+    }
+
+    @Benchmark
+    public Value boxedMax() {
+        return boxed.$max(false);
+    }
+
+    @Benchmark
+    public Value boxedSort() {
+        return boxed.$sort(false).$fix(false);
+    }
+
+    @Benchmark
+    public Value boxedSum() {
+        return boxed.$sum(false);
+    }
+
+    @Benchmark
+    public Value primitiveBuild() {
+        return DollarFactory.fromValue(values.clone());
+    }
+
+    @Benchmark
+    public Value primitiveMax() {
+        return primitive.$max(false);
+    }
+
+    @Benchmark
+    public Value primitiveSort() {
+        return primitive.$sort(false).$fix(false);
+    }
+
+    @Benchmark
+    public Value primitiveSum() {
+        return primitive.$sum(false);
+    }
+
+    @Setup
+    public void setUp() {
+        values = new long[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = (i * 7919L) % size;
+        }
+        primitive = primitiveBuild();
+        boxed = boxedBuild();
+    }
+}
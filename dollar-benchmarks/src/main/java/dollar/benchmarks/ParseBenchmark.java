@@ -0,0 +1,79 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.benchmarks;
+
+import dollar.api.Value;
+import dollar.api.script.ParserOptions;
+import dollar.internal.runtime.script.parser.DollarParserImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static dollar.internal.runtime.script.DollarUtilFactory.util;
+
+/**
+ * Parses per second for the kind of short rule expressions a service receives, each parse uses a new parser with
+ * the same options so the cost is dominated by grammar construction unless the grammar is shared.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+
+    private static final String ARITHMETIC = "var a= 10\n" +
+                                             "a * 2 + 1 <=> 21\n";
+    private static final String RULE = "var price= 120\n" +
+                                       "var discount= 0\n" +
+                                       "if (price > 100) {discount= price / 10}\n" +
+                                       "discount <=> 12\n";
+
+    private final ParserOptions options = new ParserOptions();
+
+    @Benchmark
+    public Value arithmetic() throws Exception {
+        return parse(ARITHMETIC);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Value arithmeticConcurrent() throws Exception {
+        return parse(ARITHMETIC);
+    }
+
+    @Benchmark
+    public Value rule() throws Exception {
+        return parse(RULE);
+    }
+
+    private Value parse(String source) throws Exception {
+        util().clearScopes();
+        return new DollarParserImpl(options).parse(source, false);
+    }
+}
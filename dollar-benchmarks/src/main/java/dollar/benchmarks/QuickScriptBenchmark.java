@@ -0,0 +1,63 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.benchmarks;
+
+import dollar.api.Value;
+import dollar.api.script.ParserOptions;
+import dollar.internal.runtime.script.parser.DollarParserImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import static dollar.internal.runtime.script.DollarUtilFactory.util;
+
+/**
+ * Runs some of the quick example scripts, run with {@code -prof gc} to see the allocation rate of a typical script.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class QuickScriptBenchmark {
+
+    @Param({"quick/test_arrays.ds", "quick/test_iteration.ds", "quick/test_logic.ds", "quick/test_numeric.ds",
+            "quick/test_ranges.ds", "quick/test_strings.ds"})
+    public String script;
+
+    private final ParserOptions options = new ParserOptions();
+
+    @Benchmark
+    public Value run() throws Exception {
+        util().clearScopes();
+        try (InputStream in = getClass().getResourceAsStream("/" + script)) {
+            return new DollarParserImpl(options).parse(in, script, false);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.benchmarks;
+
+import dollar.api.Value;
+import dollar.api.script.ParserOptions;
+import dollar.internal.runtime.script.parser.DollarParserImpl;
+import dollar.internal.runtime.script.parser.scope.ScriptScope;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static dollar.internal.runtime.script.DollarUtilFactory.util;
+
+/**
+ * Measures the cost of creating scopes, directly and through an each loop which creates one per element. Run with
+ * {@code -prof gc} to see the allocation rate per operation, and compare the {@code gc.alloc.rate.norm} of a build
+ * before lazy scope structures with one after to see what they save.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ScopeBenchmark {
+
+    private static final String EACH = "var total= 0\n" +
+                                       "[1..1000] each { total= total + $1 }\n" +
+                                       "total <=> 500500\n";
+
+    private ScriptScope root;
+
+    @Benchmark
+    public Value each() throws Exception {
+        util().clearScopes();
+        return new DollarParserImpl(new ParserOptions()).parse(EACH, false);
+    }
+
+    @Benchmark
+    public ScriptScope newScope() {
+        return new ScriptScope(root, "benchmark", "child", false, false);
+    }
+
+    @Setup
+    public void setup() {
+        root = new ScriptScope("benchmark", "root", true, false);
+    }
+}
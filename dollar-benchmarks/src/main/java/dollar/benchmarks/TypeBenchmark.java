@@ -0,0 +1,75 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.benchmarks;
+
+import dollar.api.Type;
+import dollar.api.Value;
+import dollar.api.script.ParserOptions;
+import dollar.internal.runtime.script.parser.DollarParserImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import static dollar.api.DollarStatic.$list;
+import static dollar.internal.runtime.script.DollarUtilFactory.util;
+
+/**
+ * Runs scripts which check and cast types, plus the type lookups they depend on.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TypeBenchmark {
+
+    @Param({"quick/test_casting.ds", "quick/test_types_1.ds"})
+    public String script;
+
+    private final ParserOptions options = new ParserOptions();
+    private final Value list = $list(1, 2, 3);
+
+    @Benchmark
+    public boolean is() {
+        return list.$type().is(Type._LIST);
+    }
+
+    @Benchmark
+    public Type parse() {
+        return Type.of("List:constrained");
+    }
+
+    @Benchmark
+    public Value run() throws Exception {
+        util().clearScopes();
+        try (InputStream in = getClass().getResourceAsStream("/" + script)) {
+            return new DollarParserImpl(options).parse(in, script, false);
+        }
+    }
+}
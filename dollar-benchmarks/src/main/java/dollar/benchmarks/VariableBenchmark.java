@@ -0,0 +1,82 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.benchmarks;
+
+import dollar.api.Value;
+import dollar.api.script.ParserOptions;
+import dollar.internal.runtime.script.parser.DollarParserImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static dollar.internal.runtime.script.DollarUtilFactory.util;
+
+/**
+ * Runs for and while loops which read and assign variables declared several scopes further out.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class VariableBenchmark {
+
+    private static final String NESTED_FOR = "var a= 1\n" +
+                                             "var b= 2\n" +
+                                             "var c= 3\n" +
+                                             "var total= 0\n" +
+                                             "for i in [1..20] {\n" +
+                                             "    for j in [1..20] {\n" +
+                                             "        total= total + a + b + c + i + j\n" +
+                                             "    }\n" +
+                                             "}\n" +
+                                             "total <=> 10800\n";
+    private static final String WHILE = "var step= 1\n" +
+                                        "var limit= 400\n" +
+                                        "var total= 0\n" +
+                                        "var n= 0\n" +
+                                        "while n < limit {\n" +
+                                        "    n= n + step\n" +
+                                        "    total= total + n\n" +
+                                        "}\n" +
+                                        "total <=> 80200\n";
+
+    @Benchmark
+    public Value nestedFor() throws Exception {
+        return run(NESTED_FOR);
+    }
+
+    @Benchmark
+    public Value whileLoop() throws Exception {
+        return run(WHILE);
+    }
+
+    private Value run(String script) throws Exception {
+        util().clearScopes();
+        return new DollarParserImpl(new ParserOptions()).parse(script, false);
+    }
+}
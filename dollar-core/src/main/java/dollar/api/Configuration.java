@@ -53,6 +53,14 @@ public interface Configuration {
 
     void failFast(boolean failFast);
 
+    /**
+     * The maximum number of short strings used as map keys which share a single {@link Value} instance, 0 disables
+     * interning.
+     *
+     * @return the size of the intern pool
+     */
+    int internPoolSize();
+
     /**
      * Returns true if we're running in a production environment
      *
@@ -23,6 +23,7 @@ public class SystemPropertyConfiguration implements Configuration {
     private final boolean debugExecution = Boolean.parseBoolean(System.getProperty("dollar.debug.execution", "false"));
     private final boolean debugParallel = Boolean.parseBoolean(System.getProperty("dollar.debug.parallel", "false"));
     private final boolean debugScope = Boolean.parseBoolean(System.getProperty("dollar.debug.scope", "false"));
+    private final int internPoolSize = Integer.parseInt(System.getProperty("dollar.intern.pool.size", "0"));
     private final boolean monitor = Boolean.parseBoolean(System.getProperty("dollar.monitor", "false"));
     private final boolean production = Boolean.parseBoolean(System.getProperty("dollar.production", "false"));
     private final boolean safe = Boolean.parseBoolean(System.getProperty("dollar.safe", "true"));
@@ -63,6 +64,11 @@ public class SystemPropertyConfiguration implements Configuration {
         this.failFast = failFast;
     }
 
+    @Override
+    public int internPoolSize() {
+        return internPoolSize;
+    }
+
     @Override
     public boolean production() {
         return production;
@@ -21,84 +21,99 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 public final class Type {
 
+    /**
+     * The registry and the parse cache stop growing at this size, after which new types are created each time.
+     */
+    private static final int MAX_TYPES = 4096;
+    /**
+     * Types which have been parsed by {@link #of(String)}, keyed by the string parsed.
+     */
+    @NotNull
+    private static final ConcurrentHashMap<String, Type> parsed = new ConcurrentHashMap<>();
+    /**
+     * Canonical types keyed by name and then constraint.
+     */
+    @NotNull
+    private static final ConcurrentHashMap<String, ConcurrentHashMap<String, Type>> registry = new ConcurrentHashMap<>();
 
     /**
      * The constant ANY.
      */
     @NotNull
-    public static final Type _ANY = new Type("Any");
+    public static final Type _ANY = of("Any", "");
     @NotNull
-    public static final Type _BLOCK = new Type("Block");
+    public static final Type _BLOCK = of("Block", "");
     /**
      * The constant BOOLEAN.
      */
     @NotNull
-    public static final Type _BOOLEAN = new Type("Boolean");
+    public static final Type _BOOLEAN = of("Boolean", "");
     /**
      * The constant DATE.
      */
     @NotNull
-    public static final Type _DATE = new Type("Date");
+    public static final Type _DATE = of("Date", "");
     /**
      * The constant DECIMAL.
      */
     @NotNull
-    public static final Type _DECIMAL = new Type("Decimal");
+    public static final Type _DECIMAL = of("Decimal", "");
     /**
      * The constant ERROR.
      */
     @NotNull
-    public static final Type _ERROR = new Type("Error");
+    public static final Type _ERROR = of("Error", "");
     /**
      * The constant INFINITY.
      */
     @NotNull
-    public static final Type _INFINITY = new Type("Infinity");
+    public static final Type _INFINITY = of("Infinity", "");
     /**
      * The constant INTEGER.
      */
     @NotNull
-    public static final Type _INTEGER = new Type("Integer");
+    public static final Type _INTEGER = of("Integer", "");
     /**
      * The constant LIST.
      */
     @NotNull
-    public static final Type _LIST = new Type("List");
+    public static final Type _LIST = of("List", "");
     /**
      * The constant MAP.
      */
     @NotNull
-    public static final Type _MAP = new Type("Map");
+    public static final Type _MAP = of("Map", "");
     @NotNull
-    public static final Type _QUEUE = new Type("Queue");
+    public static final Type _QUEUE = of("Queue", "");
     /**
      * The constant RANGE.
      */
     @NotNull
-    public static final Type _RANGE = new Type("Range");
+    public static final Type _RANGE = of("Range", "");
     /**
      * The constant STRING.
      */
     @NotNull
-    public static final Type _SEQUENCE = new Type("Sequence");
+    public static final Type _SEQUENCE = of("Sequence", "");
     /**
      * The constant STRING.
      */
     @NotNull
-    public static final Type _STRING = new Type("String");
+    public static final Type _STRING = of("String", "");
     /**
      * The constant URI.
      */
     @NotNull
-    public static final Type _URI = new Type("URI");
+    public static final Type _URI = of("URI", "");
     /**
      * The constant VOID.
      */
     @NotNull
-    public static final Type _VOID = new Type("Void");
+    public static final Type _VOID = of("Void", "");
     @NotNull
     private final String constraint;
     @NotNull
@@ -155,19 +170,65 @@ public final class Type {
     }
 
     /**
-     * Create a Type from a string
+     * Create a Type from a string of the form name or name:constraint
      *
      * @param name the name of the Type
      * @return the Type
      */
     @NotNull
     public static Type of(@NotNull String name) {
-        String[] split = name.split(":");
-        if (split.length == 2) {
-            return new Type(split[0], split[1]);
-        } else {
-            return new Type(name);
+        Type type = parsed.get(name);
+        if (type == null) {
+            String[] split = name.split(":");
+            if (split.length == 2) {
+                type = of(split[0], split[1]);
+            } else {
+                type = of(name, "");
+            }
+            if (parsed.size() < MAX_TYPES) {
+                parsed.putIfAbsent(name, type);
+            }
+        }
+        return type;
+    }
+
+    /**
+     * Returns the canonical Type for a name and constraint.
+     *
+     * @param name       the name of the Type
+     * @param constraint the constraint or null for none
+     * @return the Type
+     */
+    @NotNull
+    public static Type of(@NotNull String name, @Nullable String constraint) {
+        String key = (constraint != null) ? constraint : "";
+        ConcurrentHashMap<String, Type> constrained = registry.get(name);
+        if (constrained == null) {
+            if (registry.size() >= MAX_TYPES) {
+                return new Type(name, key);
+            }
+            constrained = registry.computeIfAbsent(name, k -> new ConcurrentHashMap<>());
+        }
+        Type type = constrained.get(key);
+        if (type == null) {
+            if (constrained.size() >= MAX_TYPES) {
+                return new Type(name, key);
+            }
+            type = constrained.computeIfAbsent(key, k -> new Type(name, k));
         }
+        return type;
+    }
+
+    /**
+     * Returns the canonical Type for a type with a constraint.
+     *
+     * @param type    the unconstrained type
+     * @param subType the constraint or null for none
+     * @return the Type
+     */
+    @NotNull
+    public static Type of(@NotNull Type type, @Nullable SubType subType) {
+        return of(type.name, (subType != null) ? subType.asString() : "");
     }
 
     /**
@@ -178,12 +239,7 @@ public final class Type {
      */
     @NotNull
     public static Type of(@NotNull Value name) {
-        String[] split = name.$S().split(":");
-        if (split.length == 2) {
-            return new Type(split[0], split[1]);
-        } else {
-            return new Type(name.$S());
-        }
+        return of(name.$S());
     }
 
     public boolean canBe(@NotNull Type type) {
@@ -223,6 +279,9 @@ public final class Type {
     }
 
     public boolean is(@Nullable Type t) {
+        if (t == this) {
+            return true;
+        }
         return name.equals((t != null) ? t.name : null);
 
     }
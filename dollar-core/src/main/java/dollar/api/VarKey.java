@@ -23,6 +23,8 @@ import java.util.UUID;
 
 public class VarKey {
 
+    @NotNull
+    public static final VarKey AGGREGATES = of("aggregates");
     @NotNull
     public static final VarKey COLLECTED = of("collected");
     @NotNull
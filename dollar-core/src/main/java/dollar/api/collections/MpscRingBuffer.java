@@ -0,0 +1,121 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.api.collections;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * A bounded, lock-free queue for many producers and a single consumer. Producers never wait, if the buffer is full the
+ * element is dropped and counted instead.
+ *
+ * @param <E> the element type
+ */
+public final class MpscRingBuffer<E> {
+
+    private final int capacity;
+    @NotNull
+    private final AtomicLong consumerIndex = new AtomicLong();
+    @NotNull
+    private final AtomicLong dropped = new AtomicLong();
+    private final int mask;
+    @NotNull
+    private final AtomicLong producerIndex = new AtomicLong();
+    @NotNull
+    private final AtomicReferenceArray<E> slots;
+
+    /**
+     * Create a ring buffer.
+     *
+     * @param capacity the minimum capacity, rounded up to a power of two
+     */
+    public MpscRingBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive but was " + capacity);
+        }
+        this.capacity = (capacity == 1) ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        mask = this.capacity - 1;
+        slots = new AtomicReferenceArray<>(this.capacity);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Removes and passes elements to the consumer, only one thread may drain a buffer.
+     *
+     * @param consumer receives each element
+     * @param limit    the maximum number of elements to drain
+     * @return the number of elements drained
+     */
+    public int drain(@NotNull Consumer<? super E> consumer, int limit) {
+        long index = consumerIndex.get();
+        int count = 0;
+        while (count < limit) {
+            int offset = (int) index & mask;
+            E element = slots.get(offset);
+            if (element == null) {
+                //Either empty or the producer has claimed the slot but not yet written it
+                break;
+            }
+            slots.lazySet(offset, null);
+            index++;
+            consumerIndex.lazySet(index);
+            consumer.accept(element);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of elements which were dropped because the buffer was full
+     */
+    public long dropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Adds an element unless the buffer is full.
+     *
+     * @param element the element
+     * @return true if added, false if the element was dropped
+     */
+    public boolean offer(@NotNull E element) {
+        long index;
+        do {
+            index = producerIndex.get();
+            if ((index - consumerIndex.get()) >= capacity) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        } while (!producerIndex.compareAndSet(index, index + 1));
+        slots.lazySet((int) index & mask, element);
+        return true;
+    }
+
+    /**
+     * @return the approximate number of elements waiting to be drained
+     */
+    public int size() {
+        return (int) Math.max(0, producerIndex.get() - consumerIndex.get());
+    }
+}
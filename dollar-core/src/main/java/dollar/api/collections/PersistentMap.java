@@ -0,0 +1,433 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.api.collections;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An immutable, insertion ordered, map which shares structure with the map it was derived from. Entries are found
+ * through a hash array mapped trie and their order is kept in a {@link PersistentVector}, so {@link #with(Object,
+ * Object)} and {@link #without(Object)} are O(log32 n) rather than the O(n) of copying a {@link
+ * java.util.LinkedHashMap}.
+ * <p>
+ * As with {@link java.util.LinkedHashMap} replacing the value of an existing key does not change its position.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class PersistentMap<K, V> extends AbstractMap<K, V> implements Serializable {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    @NotNull
+    private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(null, 0, PersistentVector.empty());
+    private static final long serialVersionUID = 1L;
+
+    @NotNull
+    private final PersistentVector<Leaf<K, V>> order;
+    @Nullable
+    private final Node root;
+    private final int size;
+
+    private PersistentMap(@Nullable Node root, int size, @NotNull PersistentVector<Leaf<K, V>> order) {
+        this.root = root;
+        this.size = size;
+        this.order = order;
+    }
+
+    @NotNull
+    public static <K, V> PersistentMap<K, V> copyOf(@NotNull Map<? extends K, ? extends V> map) {
+        if (map instanceof PersistentMap) {
+            return (PersistentMap<K, V>) map;
+        }
+        PersistentMap<K, V> result = empty();
+        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            result = result.with(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    @NotNull
+    public static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    private static int hash(@Nullable Object key) {
+        int h = (key == null) ? 0 : key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    @NotNull
+    private static Node merge(int shift, @NotNull Leaf<?, ?> a, @NotNull Leaf<?, ?> b) {
+        if (a.hash == b.hash) {
+            return new CollisionNode(a.hash, new Leaf[]{a, b});
+        }
+        int bitA = bit(a.hash, shift);
+        int bitB = bit(b.hash, shift);
+        if (bitA == bitB) {
+            return new BitmapNode(bitA, new Object[]{merge(shift + BITS, a, b)});
+        }
+        return new BitmapNode(bitA | bitB, (Integer.compareUnsigned(bitA, bitB) < 0) ? new Object[]{a, b} : new Object[]{b, a});
+    }
+
+    @Override
+    public boolean containsKey(@Nullable Object key) {
+        return find(key) != null;
+    }
+
+    /**
+     * The entry at a position in the insertion order, positions are stable for the life of an entry but the
+     * positions of removed entries are left empty until the map is compacted.
+     *
+     * @param position the position, from 0 to {@link #positions()} (exclusive)
+     * @return the entry or null if the entry at that position was removed
+     */
+    @Nullable
+    public Map.Entry<K, V> entryAt(int position) {
+        return order.get(position);
+    }
+
+    @NotNull
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new AbstractSet<Map.Entry<K, V>>() {
+            @NotNull
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    @Nullable
+    public V get(@Nullable Object key) {
+        Leaf<K, V> leaf = find(key);
+        return (leaf == null) ? null : leaf.getValue();
+    }
+
+    /**
+     * The position of a key in the insertion order.
+     *
+     * @param key the key
+     * @return the position or -1 if the key is not present
+     */
+    public int positionOf(@Nullable Object key) {
+        Leaf<K, V> leaf = find(key);
+        return (leaf == null) ? -1 : leaf.position;
+    }
+
+    /**
+     * The number of positions used by the insertion order, which includes the positions of removed entries until the
+     * map is compacted (which renumbers the positions).
+     *
+     * @return the number of positions
+     */
+    public int positions() {
+        return order.size();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a new map with the key mapped to the value.
+     *
+     * @param key   the key
+     * @param value the value
+     * @return the new map
+     */
+    @NotNull
+    public PersistentMap<K, V> with(@Nullable K key, @Nullable V value) {
+        int hash = hash(key);
+        Leaf<K, V> existing = find(key);
+        if (existing != null) {
+            if (existing.getValue() == value) {
+                return this;
+            }
+            Leaf<K, V> leaf = new Leaf<>(hash, key, value, existing.position);
+            return new PersistentMap<>(root.put(0, leaf), size, order.with(existing.position, leaf));
+        }
+        Leaf<K, V> leaf = new Leaf<>(hash, key, value, order.size());
+        Node newRoot = (root == null) ? new BitmapNode(bit(hash, 0), new Object[]{leaf}) : root.put(0, leaf);
+        return new PersistentMap<>(newRoot, size + 1, order.append(leaf));
+    }
+
+    /**
+     * Returns a new map without the key.
+     *
+     * @param key the key to remove
+     * @return the new map, or this map if the key was not present
+     */
+    @NotNull
+    public PersistentMap<K, V> without(@Nullable Object key) {
+        Leaf<K, V> existing = find(key);
+        if (existing == null) {
+            return this;
+        }
+        if (size == 1) {
+            return empty();
+        }
+        PersistentVector<Leaf<K, V>> newOrder = order.with(existing.position, null);
+        if ((newOrder.size() - (size - 1)) > Math.max(size - 1, 1 << BITS)) {
+            //More removed than live entries, so rebuild rather than carry the gaps around
+            PersistentMap<K, V> result = empty();
+            for (Leaf<K, V> leaf : newOrder) {
+                if (leaf != null) {
+                    result = result.with(leaf.getKey(), leaf.getValue());
+                }
+            }
+            return result;
+        }
+        return new PersistentMap<>(root.remove(0, existing.hash, key), size - 1, newOrder);
+    }
+
+    @Nullable
+    private Leaf<K, V> find(@Nullable Object key) {
+        return (root == null) ? null : (Leaf<K, V>) root.find(0, hash(key), key);
+    }
+
+    private abstract static class Node implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        @Nullable
+        abstract Leaf<?, ?> find(int shift, int hash, @Nullable Object key);
+
+        @NotNull
+        abstract Node put(int shift, @NotNull Leaf<?, ?> leaf);
+
+        @Nullable
+        abstract Node remove(int shift, int hash, @Nullable Object key);
+    }
+
+    private static final class BitmapNode extends Node {
+        private static final long serialVersionUID = 1L;
+        @NotNull
+        private final Object[] array;
+        private final int bitmap;
+
+        BitmapNode(int bitmap, @NotNull Object[] array) {
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        @Nullable
+        @Override
+        Leaf<?, ?> find(int shift, int hash, @Nullable Object key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            Object child = array[index(bit)];
+            if (child instanceof Node) {
+                return ((Node) child).find(shift + BITS, hash, key);
+            }
+            Leaf<?, ?> leaf = (Leaf<?, ?>) child;
+            return ((leaf.hash == hash) && Objects.equals(leaf.getKey(), key)) ? leaf : null;
+        }
+
+        @NotNull
+        @Override
+        Node put(int shift, @NotNull Leaf<?, ?> leaf) {
+            int bit = bit(leaf.hash, shift);
+            int index = index(bit);
+            if ((bitmap & bit) == 0) {
+                Object[] newArray = new Object[array.length + 1];
+                System.arraycopy(array, 0, newArray, 0, index);
+                newArray[index] = leaf;
+                System.arraycopy(array, index, newArray, index + 1, array.length - index);
+                return new BitmapNode(bitmap | bit, newArray);
+            }
+            Object child = array[index];
+            Object newChild;
+            if (child instanceof Node) {
+                newChild = ((Node) child).put(shift + BITS, leaf);
+            } else {
+                Leaf<?, ?> existing = (Leaf<?, ?>) child;
+                if ((existing.hash == leaf.hash) && Objects.equals(existing.getKey(), leaf.getKey())) {
+                    newChild = leaf;
+                } else {
+                    newChild = merge(shift + BITS, existing, leaf);
+                }
+            }
+            Object[] newArray = array.clone();
+            newArray[index] = newChild;
+            return new BitmapNode(bitmap, newArray);
+        }
+
+        @Nullable
+        @Override
+        Node remove(int shift, int hash, @Nullable Object key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int index = index(bit);
+            Object child = array[index];
+            if (child instanceof Node) {
+                Node newChild = ((Node) child).remove(shift + BITS, hash, key);
+                if (newChild == child) {
+                    return this;
+                }
+                if (newChild != null) {
+                    Object[] newArray = array.clone();
+                    newArray[index] = newChild;
+                    return new BitmapNode(bitmap, newArray);
+                }
+            } else {
+                Leaf<?, ?> leaf = (Leaf<?, ?>) child;
+                if ((leaf.hash != hash) || !Objects.equals(leaf.getKey(), key)) {
+                    return this;
+                }
+            }
+            if (array.length == 1) {
+                return null;
+            }
+            Object[] newArray = new Object[array.length - 1];
+            System.arraycopy(array, 0, newArray, 0, index);
+            System.arraycopy(array, index + 1, newArray, index, array.length - index - 1);
+            return new BitmapNode(bitmap & ~bit, newArray);
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+    }
+
+    private static final class CollisionNode extends Node {
+        private static final long serialVersionUID = 1L;
+        private final int hash;
+        @NotNull
+        private final Leaf<?, ?>[] leaves;
+
+        CollisionNode(int hash, @NotNull Leaf<?, ?>[] leaves) {
+            this.hash = hash;
+            this.leaves = leaves;
+        }
+
+        @Nullable
+        @Override
+        Leaf<?, ?> find(int shift, int hash, @Nullable Object key) {
+            int index = indexOf(key);
+            return ((this.hash == hash) && (index >= 0)) ? leaves[index] : null;
+        }
+
+        @NotNull
+        @Override
+        Node put(int shift, @NotNull Leaf<?, ?> leaf) {
+            if (leaf.hash != hash) {
+                return new BitmapNode(bit(hash, shift), new Object[]{this}).put(shift, leaf);
+            }
+            int index = indexOf(leaf.getKey());
+            Leaf<?, ?>[] newLeaves;
+            if (index >= 0) {
+                newLeaves = leaves.clone();
+                newLeaves[index] = leaf;
+            } else {
+                newLeaves = Arrays.copyOf(leaves, leaves.length + 1);
+                newLeaves[leaves.length] = leaf;
+            }
+            return new CollisionNode(hash, newLeaves);
+        }
+
+        @Nullable
+        @Override
+        Node remove(int shift, int hash, @Nullable Object key) {
+            int index = (this.hash == hash) ? indexOf(key) : -1;
+            if (index < 0) {
+                return this;
+            }
+            if (leaves.length == 1) {
+                return null;
+            }
+            Leaf<?, ?>[] newLeaves = new Leaf[leaves.length - 1];
+            System.arraycopy(leaves, 0, newLeaves, 0, index);
+            System.arraycopy(leaves, index + 1, newLeaves, index, leaves.length - index - 1);
+            return new CollisionNode(hash, newLeaves);
+        }
+
+        private int indexOf(@Nullable Object key) {
+            for (int i = 0; i < leaves.length; i++) {
+                if (Objects.equals(leaves[i].getKey(), key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private static final class Leaf<K, V> extends AbstractMap.SimpleImmutableEntry<K, V> {
+        private static final long serialVersionUID = 1L;
+        private final int hash;
+        private final int position;
+
+        Leaf(int hash, @Nullable K key, @Nullable V value, int position) {
+            super(key, value);
+            this.hash = hash;
+            this.position = position;
+        }
+    }
+
+    private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+        @NotNull
+        private final Iterator<Leaf<K, V>> positions = order.iterator();
+        @Nullable
+        private Leaf<K, V> next;
+
+        @Override
+        public boolean hasNext() {
+            while ((next == null) && positions.hasNext()) {
+                next = positions.next();
+            }
+            return next != null;
+        }
+
+        @NotNull
+        @Override
+        public Map.Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Leaf<K, V> result = next;
+            next = null;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.api.collections;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * An immutable list which shares structure with the list it was derived from. Elements are held in a 32 way trie
+ * with the last (partial) leaf kept separately as the tail, so {@link #append(Object)} and {@link #with(int, Object)}
+ * copy at most one path through the trie, that is O(log32 n) rather than the O(n) of copying the whole list.
+ * <p>
+ * The {@link java.util.List} mutators are not supported, use {@link #append(Object)} and {@link #with(int, Object)}
+ * instead which return a new vector.
+ *
+ * @param <E> the element type
+ */
+public final class PersistentVector<E> extends AbstractList<E> implements RandomAccess, Serializable {
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    @NotNull
+    private static final PersistentVector<?> EMPTY = new PersistentVector<>(0, BITS, new Object[WIDTH], new Object[0]);
+    private static final long serialVersionUID = 1L;
+
+    @NotNull
+    private final Object[] root;
+    private final int shift;
+    private final int size;
+    @NotNull
+    private final Object[] tail;
+
+    private PersistentVector(int size, int shift, @NotNull Object[] root, @NotNull Object[] tail) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    @NotNull
+    public static <E> PersistentVector<E> copyOf(@NotNull Iterable<? extends E> elements) {
+        if (elements instanceof PersistentVector) {
+            return (PersistentVector<E>) elements;
+        }
+        PersistentVector<E> result = empty();
+        for (E element : elements) {
+            result = result.append(element);
+        }
+        return result;
+    }
+
+    @NotNull
+    public static <E> PersistentVector<E> empty() {
+        return (PersistentVector<E>) EMPTY;
+    }
+
+    @NotNull
+    private static Object[] newPath(int level, @NotNull Object[] node) {
+        if (level == 0) {
+            return node;
+        }
+        Object[] result = new Object[WIDTH];
+        result[0] = newPath(level - BITS, node);
+        return result;
+    }
+
+    @NotNull
+    private static Object[] set(int level, @NotNull Object[] node, int index, @Nullable Object value) {
+        Object[] result = node.clone();
+        if (level == 0) {
+            result[index & MASK] = value;
+        } else {
+            int child = (index >>> level) & MASK;
+            result[child] = set(level - BITS, (Object[]) node[child], index, value);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a new vector with the element added to the end.
+     *
+     * @param element the element to add
+     * @return the new vector
+     */
+    @NotNull
+    public PersistentVector<E> append(@Nullable E element) {
+        if ((size - tailOffset()) < WIDTH) {
+            Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+            newTail[tail.length] = element;
+            return new PersistentVector<>(size + 1, shift, root, newTail);
+        }
+        Object[] newRoot;
+        int newShift = shift;
+        if ((size >>> BITS) > (1 << shift)) {
+            newRoot = new Object[WIDTH];
+            newRoot[0] = root;
+            newRoot[1] = newPath(shift, tail);
+            newShift += BITS;
+        } else {
+            newRoot = pushTail(shift, root);
+        }
+        return new PersistentVector<>(size + 1, newShift, newRoot, new Object[]{element});
+    }
+
+    @Override
+    public E get(int index) {
+        return (E) leafFor(index)[index & MASK];
+    }
+
+    @NotNull
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int index;
+            @Nullable
+            private Object[] leaf;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public E next() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                if ((leaf == null) || ((index & MASK) == 0)) {
+                    leaf = leafFor(index);
+                }
+                return (E) leaf[index++ & MASK];
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a new vector with the element at the index replaced.
+     *
+     * @param index   the index of the element to replace
+     * @param element the new element
+     * @return the new vector
+     */
+    @NotNull
+    public PersistentVector<E> with(int index, @Nullable E element) {
+        if ((index < 0) || (index >= size)) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        if (index >= tailOffset()) {
+            Object[] newTail = tail.clone();
+            newTail[index & MASK] = element;
+            return new PersistentVector<>(size, shift, root, newTail);
+        }
+        return new PersistentVector<>(size, shift, set(shift, root, index, element), tail);
+    }
+
+    @NotNull
+    private Object[] leafFor(int index) {
+        if ((index < 0) || (index >= size)) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        if (index >= tailOffset()) {
+            return tail;
+        }
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(index >>> level) & MASK];
+        }
+        return node;
+    }
+
+    @NotNull
+    private Object[] pushTail(int level, @NotNull Object[] parent) {
+        int child = ((size - 1) >>> level) & MASK;
+        Object[] result = parent.clone();
+        if (level == BITS) {
+            result[child] = tail;
+        } else {
+            Object[] node = (Object[]) parent[child];
+            result[child] = (node == null) ? newPath(level - BITS, tail) : pushTail(level - BITS, node);
+        }
+        return result;
+    }
+
+    private int tailOffset() {
+        return (size < WIDTH) ? 0 : (((size - 1) >>> BITS) << BITS);
+    }
+}
@@ -18,10 +18,14 @@ package dollar.api.execution;
 
 import dollar.api.DollarException;
 import dollar.api.Value;
+import dollar.api.VarKey;
 import dollar.api.script.Source;
+import dollar.api.types.DollarFactory;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -42,6 +46,11 @@ public class DefaultDollarExecutor implements DollarExecutor {
 
     @NotNull
     private ExecutorService backgroundExecutor;
+    /**
+     * The forks started by {@link #forkAndReturnId(Source, Value, Function)} which have not completed, by id.
+     */
+    @NotNull
+    private final ConcurrentHashMap<String, CompletableFuture<Value>> forks = new ConcurrentHashMap<>();
     @NotNull
     private ScheduledExecutorService scheduledExecutor;
 
@@ -78,6 +87,7 @@ public class DefaultDollarExecutor implements DollarExecutor {
 
     @Override
     public void forceStop() {
+        forks.values().forEach(fork -> fork.cancel(true));
         backgroundExecutor.shutdownNow();
         forkJoinPool.shutdownNow();
         scheduledExecutor.shutdownNow();
@@ -96,7 +106,11 @@ public class DefaultDollarExecutor implements DollarExecutor {
     @NotNull
     @Override
     public Value forkAndReturnId(@NotNull Source source, @NotNull Value in, @NotNull Function<Value, Value> call) {
-        throw new UnsupportedOperationException();
+        String id = VarKey.random().asString();
+        CompletableFuture<Value> fork = submitAsync(() -> call.apply(in));
+        forks.put(id, fork);
+        fork.whenComplete((value, failure) -> forks.remove(id));
+        return DollarFactory.fromStringValue(id);
     }
 
     @Override
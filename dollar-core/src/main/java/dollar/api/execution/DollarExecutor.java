@@ -21,7 +21,10 @@ import dollar.api.plugin.ExtensionPoint;
 import dollar.api.script.Source;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Collections;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
 import java.util.function.Function;
 
@@ -62,7 +65,7 @@ public interface DollarExecutor extends ExtensionPoint<DollarExecutor> {
     @NotNull Value fork(@NotNull Source source, @NotNull Value in, @NotNull Function<Value, Value> call);
 
     /**
-     * Fork and returns the id which can be used to cancel later.
+     * Fork and returns the id which can be used to cancel later, rather than the value the fork produces.
      *
      * @param source
      * @param in
@@ -71,6 +74,15 @@ public interface DollarExecutor extends ExtensionPoint<DollarExecutor> {
      */
     @NotNull Value forkAndReturnId(@NotNull Source source, @NotNull Value in, @NotNull Function<Value, Value> call);
 
+    /**
+     * @return counts describing the executor's thread pools and the jobs run on them, keyed by name, empty if the
+     *         executor keeps none
+     */
+    @NotNull
+    default Map<String, Long> metrics() {
+        return Collections.emptyMap();
+    }
+
     /**
      * Stop the execution processing and restart it.
      */
@@ -94,4 +106,43 @@ public interface DollarExecutor extends ExtensionPoint<DollarExecutor> {
      * @return the fork/join task
      */
     @NotNull <T> Future<T> submit(@NotNull Callable<T> callable);
+
+    /**
+     * Submit a job for execution in an unspecified manner, returning a future which can be composed and which cancels
+     * the job when cancelled.
+     *
+     * @param <T>      the return type
+     * @param callable the job to perform
+     * @return the future result
+     */
+    @NotNull
+    default <T> CompletableFuture<T> submitAsync(@NotNull Callable<T> callable) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Future<?> task = submit(() -> {
+            try {
+                future.complete(callable.call());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+            return null;
+        });
+        future.whenComplete((result, t) -> {
+            if (future.isCancelled()) {
+                task.cancel(true);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Captures the calling thread's execution context, so that the job runs in that context on whichever thread
+     * later executes it.
+     *
+     * @param runnable the job
+     * @return the job to execute
+     */
+    @NotNull
+    default Runnable wrap(@NotNull Runnable runnable) {
+        return runnable;
+    }
 }
@@ -0,0 +1,288 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.api.execution;
+
+import dollar.api.Value;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Proxy;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Executor;
+
+/**
+ * Schedules reactive notifications so that each dependent is recomputed once per change, after everything it depends
+ * on.
+ * <p>
+ * Rather than calling listeners recursively, a notification is queued against its {@link Node} and the queue is
+ * drained in order of node height. A node notified while another is firing is placed at least one level above it, the
+ * heights are kept on the nodes so the dependency graph learnt from one propagation orders the next, and edges
+ * recorded with {@link #dependency(Value, Value)} as listeners are registered order even the first. A node notified
+ * several times before it fires, as the bottom of a diamond is, fires just once with the latest action.
+ * <p>
+ * A node which notifies itself, directly or through the nodes it caused to fire, is a loop. Loops are an error unless
+ * the node {@link Node#ignoresLoops()}, in which case the notification that would close the loop is dropped.
+ * <p>
+ * Notifications made inside {@link #batch(Runnable)} are held until the outermost batch completes, so a burst of
+ * assignments results in a single propagation. Each thread has its own queue, see {@link #current()}.
+ */
+public final class Propagation {
+
+    /**
+     * The number of times a single node may fire within one propagation before it is treated as a notification loop.
+     */
+    private static final int MAX_FIRINGS = 100;
+    @NotNull
+    private static final ThreadLocal<Propagation> current = ThreadLocal.withInitial(Propagation::new);
+    @NotNull
+    private final Map<Node, Integer> firings = new IdentityHashMap<>();
+    @NotNull
+    private final Map<Node, Entry> pending = new IdentityHashMap<>();
+    @NotNull
+    private final TreeSet<Entry> queue = new TreeSet<>(Comparator.<Entry>comparingInt(e -> e.height)
+                                                               .thenComparingLong(e -> e.sequence));
+    private int batchDepth;
+    private long coalesced;
+    @Nullable
+    private Entry firing;
+    private long fired;
+    private long sequence;
+
+    @NotNull
+    public static Propagation current() {
+        return current.get();
+    }
+
+    /**
+     * Records that the downstream node is notified by the upstream one, so that it is placed above it.
+     *
+     * @param upstream   the node notifying
+     * @param downstream the node notified
+     */
+    public static void dependency(@NotNull Node upstream, @NotNull Node downstream) {
+        if (downstream.height() <= upstream.height()) {
+            downstream.height(upstream.height() + 1);
+        }
+    }
+
+    /**
+     * As {@link #dependency(Node, Node)} for the nodes behind two values, values which are not nodes are ignored.
+     *
+     * @param upstream   the value being listened to
+     * @param downstream the value which the listener notifies
+     */
+    public static void dependency(@NotNull Value upstream, @NotNull Value downstream) {
+        Node from = node(upstream);
+        Node to = node(downstream);
+        if ((from != null) && (to != null)) {
+            dependency(from, to);
+        }
+    }
+
+    /**
+     * Returns the node behind a value, looking through any guard or monitoring wrappers around it.
+     *
+     * @param value the value
+     * @return the node or null if the value is not a node
+     */
+    @Nullable
+    public static Node node(@NotNull Value value) {
+        Object unwrapped = value.$unwrap();
+        if (unwrapped instanceof Node) {
+            return (Node) unwrapped;
+        }
+        if ((unwrapped != null) && Proxy.isProxyClass(unwrapped.getClass())
+                    && (Proxy.getInvocationHandler(unwrapped) instanceof Node)) {
+            return (Node) Proxy.getInvocationHandler(unwrapped);
+        }
+        return null;
+    }
+
+    /**
+     * Runs the work with notifications held back until it, and any enclosing batch, completes.
+     *
+     * @param work the updates to make
+     */
+    public void batch(@NotNull Runnable work) {
+        batchDepth++;
+        try {
+            work.run();
+        } finally {
+            batchDepth--;
+        }
+        if ((batchDepth == 0) && (firing == null)) {
+            drain();
+        }
+    }
+
+    /**
+     * As {@link #batch(Runnable)} but the resulting propagation is run on the supplied executor rather than the calling
+     * thread. Within an enclosing batch this behaves as {@link #batch(Runnable)}.
+     *
+     * @param work     the updates to make
+     * @param executor where to run the propagation
+     */
+    public void batch(@NotNull Runnable work, @NotNull Executor executor) {
+        batchDepth++;
+        try {
+            work.run();
+        } finally {
+            batchDepth--;
+        }
+        if ((batchDepth == 0) && (firing == null) && !queue.isEmpty()) {
+            Propagation detached = new Propagation();
+            for (Entry entry : queue) {
+                detached.queue.add(entry);
+                detached.pending.put(entry.node, entry);
+            }
+            detached.sequence = sequence;
+            queue.clear();
+            pending.clear();
+            executor.execute(() -> {
+                Propagation previous = current.get();
+                current.set(detached);
+                try {
+                    detached.drain();
+                } finally {
+                    current.set(previous);
+                }
+            });
+        }
+    }
+
+    /**
+     * @return the number of notifications which were merged into one already queued for the same node
+     */
+    public long coalesced() {
+        return coalesced;
+    }
+
+    /**
+     * @return the number of notifications which have fired
+     */
+    public long fired() {
+        return fired;
+    }
+
+    /**
+     * Queue a notification for the node, if no propagation or batch is in progress it runs before this returns.
+     *
+     * @param node   the node being notified
+     * @param action what to do when the node fires, typically recompute and notify its listeners
+     * @return false if the node is the one currently firing, that is it has notified itself, or it ignores loops and
+     *         caused the node currently firing to fire
+     */
+    public boolean schedule(@NotNull Node node, @NotNull Runnable action) {
+        if ((firing != null) && (firing.node == node)) {
+            return false;
+        }
+        if (node.ignoresLoops()) {
+            for (Entry cause = firing; cause != null; cause = cause.cause) {
+                if (cause.node == node) {
+                    return false;
+                }
+            }
+        }
+        int minHeight = (firing == null) ? 0 : (firing.height + 1);
+        if (node.height() < minHeight) {
+            node.height(minHeight);
+        }
+        Entry entry = pending.get(node);
+        if (entry == null) {
+            entry = new Entry(node, node.height(), sequence++, action, firing);
+            pending.put(node, entry);
+            queue.add(entry);
+        } else {
+            coalesced++;
+            entry.action = action;
+            entry.cause = firing;
+            if (entry.height != node.height()) {
+                queue.remove(entry);
+                entry.height = node.height();
+                queue.add(entry);
+            }
+        }
+        if ((batchDepth == 0) && (firing == null)) {
+            drain();
+        }
+        return true;
+    }
+
+    private void drain() {
+        try {
+            Entry entry;
+            while ((entry = queue.pollFirst()) != null) {
+                pending.remove(entry.node);
+                if (firings.merge(entry.node, 1, Integer::sum) > MAX_FIRINGS) {
+                    throw new IllegalStateException("Recursive notify loop detected on " + entry.node);
+                }
+                firing = entry;
+                fired++;
+                entry.action.run();
+            }
+        } finally {
+            firing = null;
+            firings.clear();
+            queue.clear();
+            pending.clear();
+        }
+    }
+
+    /**
+     * Anything which can be notified through a {@link Propagation}, the height is maintained by the propagation and
+     * must start at zero.
+     */
+    public interface Node {
+
+        int height();
+
+        void height(int height);
+
+        /**
+         * @return true if a notification which would make this node fire in a loop should be dropped rather than fail
+         */
+        default boolean ignoresLoops() {
+            return false;
+        }
+    }
+
+    private static final class Entry {
+        @NotNull
+        final Node node;
+        final long sequence;
+        @NotNull
+        Runnable action;
+        /**
+         * The entry which was firing when this was scheduled.
+         */
+        @Nullable
+        Entry cause;
+        int height;
+
+        Entry(@NotNull Node node, int height, long sequence, @NotNull Runnable action, @Nullable Entry cause) {
+            this.node = node;
+            this.height = height;
+            this.sequence = sequence;
+            this.action = action;
+            this.cause = cause;
+        }
+    }
+}
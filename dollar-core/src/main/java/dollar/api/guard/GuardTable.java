@@ -0,0 +1,183 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dollar.api.guard;
+
+import dollar.api.DollarException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@link Guard}s that apply to each method of a guarded class, resolved once from the {@link Guarded} annotations
+ * on the interface method and on the implementing method of the concrete class.
+ * <p>
+ * Guards are stateless so a single instance of each {@link Guard} class is shared by every table.
+ */
+public final class GuardTable {
+
+    @NotNull
+    private static final ConcurrentHashMap<Class<? extends Guard>, Guard> guards = new ConcurrentHashMap<>();
+
+    @NotNull
+    private final Site[] sites;
+
+    /**
+     * Resolve the guards for each of the supplied interface methods as implemented by the supplied class.
+     *
+     * @param type       the concrete class being guarded
+     * @param signatures the interface methods, a site is created for each one at the same index
+     */
+    public GuardTable(@NotNull Class<?> type, @NotNull Method[] signatures) {
+        sites = new Site[signatures.length];
+        for (int i = 0; i < signatures.length; i++) {
+            sites[i] = new Site(signatures[i], resolve(type, signatures[i]));
+        }
+    }
+
+    /**
+     * Returns the shared instance of a guard class.
+     *
+     * @param guardClass the guard class
+     * @return the singleton guard
+     */
+    @NotNull
+    public static Guard guard(@NotNull Class<? extends Guard> guardClass) {
+        return guards.computeIfAbsent(guardClass, c -> {
+            try {
+                return c.newInstance();
+            } catch (InstantiationException | IllegalAccessException e) {
+                throw new DollarException(e);
+            }
+        });
+    }
+
+    /**
+     * Look up an interface method, failing if it doesn't exist.
+     *
+     * @param type           the interface
+     * @param name           the method name
+     * @param parameterTypes the parameter types
+     * @return the method
+     */
+    @NotNull
+    public static Method method(@NotNull Class<?> type, @NotNull String name, @NotNull Class<?>... parameterTypes) {
+        try {
+            return type.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @NotNull
+    private static Guard[] resolve(@NotNull Class<?> type, @NotNull Method signature) {
+        List<Class<? extends Guard>> classes = new ArrayList<>();
+        add(classes, signature);
+        try {
+            Method implementation = type.getMethod(signature.getName(), signature.getParameterTypes());
+            if (!implementation.equals(signature)) {
+                add(classes, implementation);
+            }
+        } catch (NoSuchMethodException e) {
+            //Not implemented by the concrete class, only the interface guards apply
+        }
+        if (classes.isEmpty()) {
+            return new Guard[0];
+        }
+        Guard[] result = new Guard[classes.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = guard(classes.get(i));
+        }
+        return result;
+    }
+
+    private static void add(@NotNull List<Class<? extends Guard>> classes, @NotNull Method method) {
+        for (Guarded guarded : method.getAnnotationsByType(Guarded.class)) {
+            if (!classes.contains(guarded.value())) {
+                classes.add(guarded.value());
+            }
+        }
+    }
+
+    /**
+     * Returns the guards for the method at the supplied index.
+     *
+     * @param index the index of the method in the signatures supplied to the constructor
+     * @return the site
+     */
+    @NotNull
+    public Site site(int index) {
+        return sites[index];
+    }
+
+    /**
+     * The guards for a single method.
+     */
+    public static final class Site {
+        @NotNull
+        private final Guard[] guards;
+        @NotNull
+        private final Method method;
+
+        Site(@NotNull Method method, @NotNull Guard[] guards) {
+            this.method = method;
+            this.guards = guards;
+        }
+
+        @NotNull
+        public Method method() {
+            return method;
+        }
+
+        /**
+         * Call the post conditions of each guard.
+         *
+         * @param guarded the guarded object
+         * @param args    the arguments that were passed in
+         * @param result  the result of the method
+         */
+        public void post(@NotNull Object guarded, @NotNull Object[] args, @Nullable Object result) {
+            for (Guard guard : guards) {
+                guard.postCondition(guarded, method, args, result);
+            }
+        }
+
+        /**
+         * Call the pre conditions of each guard.
+         *
+         * @param guarded the guarded object
+         * @param args    the arguments being passed in
+         */
+        public void pre(@NotNull Object guarded, @NotNull Object[] args) {
+            for (Guard guard : guards) {
+                guard.preCondition(guarded, method, args);
+            }
+        }
+
+        /**
+         * Returns true if no guards apply to this method.
+         *
+         * @return true if unguarded
+         */
+        public boolean unguarded() {
+            return guards.length == 0;
+        }
+    }
+}
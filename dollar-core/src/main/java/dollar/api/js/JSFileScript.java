@@ -16,6 +16,7 @@
 
 package dollar.api.js;
 
+import dollar.api.DollarException;
 import dollar.api.DollarStatic;
 import dollar.api.Pipeable;
 import dollar.api.Value;
@@ -23,8 +24,13 @@ import dollar.api.collections.CollectionUtil;
 import dollar.api.types.DollarFactory;
 import org.jetbrains.annotations.NotNull;
 
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
 import javax.script.SimpleScriptContext;
 import java.io.File;
 import java.io.IOException;
@@ -33,12 +39,20 @@ import java.nio.charset.Charset;
 import java.nio.file.Files;
 
 public class JSFileScript implements Pipeable {
-    private static
     @NotNull
-    final
-    ScriptEngine nashorn = new ScriptEngineManager().getEngineByName("nashorn");
-
+    private static final String INPUT = "__dollarInput";
+    /**
+     * One engine per thread, so that concurrent pipes do not share (and contend on) a global.
+     */
+    @NotNull
+    private static final ThreadLocal<Engine> engines = ThreadLocal.withInitial(Engine::new);
 
+    /**
+     * The script compiled by the current thread's engine, with its own globals so that scripts sharing the engine do not
+     * see each other's variables.
+     */
+    @NotNull
+    private final ThreadLocal<Compiled> compiled = new ThreadLocal<>();
     @NotNull
     private final String script;
 
@@ -56,13 +70,59 @@ public class JSFileScript implements Pipeable {
     @NotNull
     @Override
     public Value pipe(Value... in) throws Exception {
-        SimpleScriptContext context = new SimpleScriptContext();
-        nashorn.eval("var $=" + in[0].toJsonObject() + ";", context);
+        Engine engine = engines.get();
+        Compiled compiledScript = compiled.get();
+        if (compiledScript == null) {
+            compiledScript = new Compiled(engine, engine.compile(script));
+            compiled.set(compiledScript);
+        }
+        compiledScript.bindings.put(INPUT, in[0].toJsonObject().toString());
         try {
-            Object result = nashorn.eval(script, context);
+            engine.input.eval(compiledScript.context);
+            Object result = compiledScript.script.eval(compiledScript.context);
             return DollarFactory.fromValue(result);
         } catch (Exception e) {
             return DollarStatic.handleError(e, in[0]);
+        } finally {
+            compiledScript.bindings.remove(INPUT);
+        }
+    }
+
+    private static final class Compiled {
+        @NotNull
+        final Bindings bindings;
+        @NotNull
+        final ScriptContext context = new SimpleScriptContext();
+        @NotNull
+        final CompiledScript script;
+
+        Compiled(@NotNull Engine engine, @NotNull CompiledScript script) {
+            this.script = script;
+            bindings = engine.engine.createBindings();
+            context.setBindings(bindings, ScriptContext.ENGINE_SCOPE);
+        }
+    }
+
+    private static final class Engine {
+        @NotNull
+        final ScriptEngine engine = new ScriptEngineManager().getEngineByName("nashorn");
+        /**
+         * Sets $ to the input, parsing the bound JSON rather than compiling a new script for every input.
+         */
+        @NotNull
+        final CompiledScript input;
+
+        Engine() {
+            try {
+                input = compile("var $=JSON.parse(" + INPUT + ");");
+            } catch (ScriptException e) {
+                throw new DollarException(e);
+            }
+        }
+
+        @NotNull
+        CompiledScript compile(@NotNull String script) throws ScriptException {
+            return ((Compilable) engine).compile(script);
         }
     }
 }
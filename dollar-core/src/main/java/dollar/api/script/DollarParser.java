@@ -23,12 +23,22 @@ import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
 import java.io.InputStream;
+import java.util.function.BiConsumer;
 
 public interface DollarParser {
 
 
     void export(@NotNull VarKey name, @NotNull Value export);
 
+    /**
+     * Nodes which export capture this while they are parsed, so an export made later or on another thread still goes
+     * to the parse that built the node.
+     *
+     * @return the exports of the parse running on the calling thread
+     */
+    @NotNull
+    BiConsumer<VarKey, Value> exporter();
+
     @NotNull
     ParserOptions options();
 
@@ -35,11 +35,15 @@ public class ParserOptions {
     private boolean debugParallel;
     @Parameter(names = "--debug-scope", description = "(Internal) Debug scope usage")
     private boolean debugScope;
+    @Parameter(names = "--direct-dispatch", description = "(Experimental) Execute source nodes directly rather than through a proxy")
+    private boolean directDispatch;
     @Parameter(names = {"--fail-fast", "-e"}, description = "Fail on error")
     private boolean failFast;
     @NotNull
     @Parameter(description = "The file to execute")
     private List<File> files;
+    @Parameter(names = "--intern-pool-size", description = "(Experimental) The maximum number of short map keys to share instances of, 0 disables the pool")
+    private int internPoolSize;
     @Parameter(names = "--usage", description = "Record usage metrics")
     private boolean monitor;
     private boolean production;
@@ -90,6 +94,14 @@ public class ParserOptions {
         return debugScope && !isProduction();
     }
 
+    public boolean isDirectDispatch() {
+        return directDispatch;
+    }
+
+    public void setDirectDispatch(boolean directDispatch) {
+        this.directDispatch = directDispatch;
+    }
+
     public boolean isDevelopment() {
         return "dev".equalsIgnoreCase(profile);
     }
@@ -102,6 +114,14 @@ public class ParserOptions {
         this.failFast = failFast;
     }
 
+    public int getInternPoolSize() {
+        return internPoolSize;
+    }
+
+    public void setInternPoolSize(int internPoolSize) {
+        this.internPoolSize = internPoolSize;
+    }
+
     public boolean isMonitor() {
         return monitor;
     }
@@ -20,18 +20,29 @@ import dollar.api.DollarException;
 import dollar.api.DollarStatic;
 import dollar.api.Pipeable;
 import dollar.api.execution.DollarExecutor;
+import dollar.api.execution.Propagation;
 import dollar.api.plugin.Plugins;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Future;
+
+import static java.lang.Runtime.getRuntime;
 
 public final class Scheduler {
 
+    /**
+     * The number of buckets in the timing wheel.
+     */
+    private static final int WHEEL_SIZE = 512;
+    /**
+     * The resolution of scheduled tasks.
+     */
+    private static final long TICK_MILLIS = Long.getLong("dollar.scheduler.tick.millis", 10);
     @NotNull
     private static final Logger log = LoggerFactory.getLogger("Scheduler");
 
@@ -39,27 +50,85 @@ public final class Scheduler {
     @Nullable
     private static final DollarExecutor executor = Plugins.sharedInstance(DollarExecutor.class);
     @NotNull
-    private static final ConcurrentHashMap<String, Future> scheduledTasks = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, TimingWheel.Timer> scheduledTasks = new ConcurrentHashMap<>();
+    @NotNull
+    private static final TimingWheel wheel = new TimingWheel(TICK_MILLIS, WHEEL_SIZE, Scheduler::dispatch);
+
+    static {
+        getRuntime().addShutdownHook(new Thread(Scheduler::shutdown));
+    }
 
     @NotNull
     public static String schedule(@NotNull Pipeable task, long duration) {
+        return schedule(task, duration, false);
+    }
 
+    /**
+     * Runs a task every period until it is cancelled or fails.
+     *
+     * @param task     the task, which is passed the id of the schedule
+     * @param duration the period in milliseconds
+     * @param coalesce align the task with other coalesced tasks of the same period, so they run together
+     * @return the id of the schedule
+     */
+    @NotNull
+    public static String schedule(@NotNull Pipeable task, long duration, boolean coalesce) {
+        assert executor != null;
         String id = UUID.randomUUID().toString();
-        scheduledTasks.put(id, executor.scheduleEvery(duration, () -> {
+        Runnable job = executor.wrap(() -> {
             try {
-                assert executor != null;
-                task.pipe(DollarStatic.$(id));
+                //everything the task notifies is propagated once the run completes
+                Propagation.current().batch(() -> {
+                    try {
+                        task.pipe(DollarStatic.$(id));
+                    } catch (RuntimeException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        throw new DollarException(e);
+                    }
+                });
             } catch (Exception e) {
-                throw new DollarException(e);
+                log.error("Cancelling scheduled task {} after error: {}", id, e.getMessage(), e);
+                cancel(id);
             }
-        }));
+        });
+        TimingWheel.Timer timer = wheel.timer(job, duration, coalesce);
+        scheduledTasks.put(id, timer);
+        wheel.add(timer);
         return id;
     }
 
     public static void cancel(@NotNull String id) {
-        Future future = scheduledTasks.get(id);
-        if (future != null) {
-            future.cancel(false);
+        TimingWheel.Timer timer = scheduledTasks.remove(id);
+        if (timer != null) {
+            wheel.cancel(timer);
+        }
+    }
+
+    /**
+     * @return the number of scheduled tasks, how often they have run (or been skipped as still running) and how late
+     *         they ran
+     */
+    @NotNull
+    public static Map<String, Long> metrics() {
+        return wheel.metrics();
+    }
+
+    /**
+     * Cancels every scheduled task and stops the timing wheel, this is run when the JVM shuts down.
+     */
+    public static void shutdown() {
+        for (String id : scheduledTasks.keySet()) {
+            cancel(id);
         }
+        wheel.stop();
+    }
+
+    private static void dispatch(@NotNull Runnable job) {
+        assert executor != null;
+        executor.executeInBackground(() -> {
+            job.run();
+            return null;
+        });
     }
 }
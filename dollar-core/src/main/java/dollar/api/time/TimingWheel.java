@@ -0,0 +1,330 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.api.time;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * A hashed timing wheel of repeating timers. Adding and cancelling a timer is O(1), other threads only queue the
+ * change and the wheel's own thread applies it on the next tick. Expired timers are handed to a dispatcher to run, a
+ * timer which is still running when it next expires is skipped rather than run concurrently. The wheel's thread runs
+ * until {@link #stop()}.
+ * <p>
+ * Timers which coalesce are aligned to a multiple of their period, so timers with the same period expire on the same
+ * tick and are dispatched together as a single job.
+ */
+final class TimingWheel {
+
+    private static final int CANCELLED = 1;
+    private static final int WAITING = 0;
+    @NotNull
+    private static final Logger log = LoggerFactory.getLogger(TimingWheel.class);
+    @NotNull
+    private final Queue<Timer> added = new ConcurrentLinkedQueue<>();
+    @NotNull
+    private final Queue<Timer> cancelled = new ConcurrentLinkedQueue<>();
+    @NotNull
+    private final Consumer<Runnable> dispatcher;
+    @NotNull
+    private final LongAdder fired = new LongAdder();
+    private final long mask;
+    @NotNull
+    private final AtomicLong maxLag = new AtomicLong();
+    @NotNull
+    private final AtomicInteger pending = new AtomicInteger();
+    @NotNull
+    private final LongAdder skipped = new LongAdder();
+    @NotNull
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final long startTime = System.nanoTime();
+    private volatile boolean stopped;
+    private final long tickNanos;
+    @NotNull
+    private final LongAdder totalLag = new LongAdder();
+    @NotNull
+    private final Bucket[] wheel;
+    private long tick;
+    @Nullable
+    private volatile Thread worker;
+
+    /**
+     * @param tickMillis the resolution of the wheel
+     * @param size       the number of buckets, rounded up to a power of two
+     * @param dispatcher runs the expired timers' tasks
+     */
+    TimingWheel(long tickMillis, int size, @NotNull Consumer<Runnable> dispatcher) {
+        tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, tickMillis));
+        int buckets = Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+        wheel = new Bucket[buckets];
+        for (int i = 0; i < buckets; i++) {
+            wheel[i] = new Bucket();
+        }
+        mask = buckets - 1;
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Starts a timer created by {@link #timer(Runnable, long, boolean)}.
+     */
+    void add(@NotNull Timer timer) {
+        if (stopped) {
+            throw new IllegalStateException("The timing wheel has been stopped");
+        }
+        if (started.compareAndSet(false, true)) {
+            Thread thread = new Thread(this::run, "dollar-timing-wheel");
+            thread.setDaemon(true);
+            worker = thread;
+            thread.start();
+        }
+        pending.incrementAndGet();
+        added.add(timer);
+    }
+
+    void cancel(@NotNull Timer timer) {
+        if (timer.state.compareAndSet(WAITING, CANCELLED)) {
+            cancelled.add(timer);
+        }
+    }
+
+    /**
+     * @return the number of timers, the number of times they have fired and been skipped, and how late they fired
+     */
+    @NotNull
+    Map<String, Long> metrics() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        long firedCount = fired.sum();
+        metrics.put("timers", (long) pending.get());
+        metrics.put("fired", firedCount);
+        metrics.put("skipped", skipped.sum());
+        metrics.put("maxLagMillis", TimeUnit.NANOSECONDS.toMillis(maxLag.get()));
+        metrics.put("meanLagMillis",
+                    (firedCount == 0) ? 0 : TimeUnit.NANOSECONDS.toMillis(totalLag.sum() / firedCount));
+        return metrics;
+    }
+
+    /**
+     * Stops the wheel's thread, no timer fires afterwards.
+     */
+    void stop() {
+        stopped = true;
+        Thread thread = worker;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Creates a timer which is not yet running.
+     *
+     * @param task         the task to run each period
+     * @param periodMillis the period
+     * @param coalesce     align the timer with others of the same period
+     * @return the timer
+     */
+    @NotNull
+    Timer timer(@NotNull Runnable task, long periodMillis, boolean coalesce) {
+        long period = TimeUnit.MILLISECONDS.toNanos(Math.max(1, periodMillis));
+        long now = System.nanoTime() - startTime;
+        long deadline = coalesce ? (((now / period) + 1) * period) : (now + period);
+        return new Timer(task, period, deadline, coalesce);
+    }
+
+    /**
+     * Hands a job to the dispatcher, a dispatcher which fails must not stop the wheel or the other timers. If the job
+     * was never run the timers are marked as no longer running, so they are not skipped from then on.
+     */
+    private void dispatch(@NotNull Runnable job, @NotNull List<Timer> timers) {
+        try {
+            dispatcher.accept(job);
+        } catch (RuntimeException e) {
+            log.error("Timer failed: {}", e.getMessage(), e);
+            for (Timer timer : timers) {
+                timer.running.set(false);
+            }
+        }
+    }
+
+    private void expire(@NotNull Bucket bucket, long now) {
+        List<Timer> expired = new ArrayList<>();
+        Timer timer = bucket.head;
+        while (timer != null) {
+            Timer next = timer.next;
+            if (timer.state.get() == CANCELLED) {
+                bucket.remove(timer);
+            } else if (timer.rounds <= 0) {
+                bucket.remove(timer);
+                expired.add(timer);
+            } else {
+                timer.rounds--;
+            }
+            timer = next;
+        }
+        Map<Long, List<Timer>> coalesced = new LinkedHashMap<>();
+        for (Timer t : expired) {
+            long lag = Math.max(0, now - t.deadline);
+            totalLag.add(lag);
+            maxLag.accumulateAndGet(lag, Math::max);
+            fired.increment();
+            if (!t.running.compareAndSet(false, true)) {
+                skipped.increment();
+            } else if (t.coalesce) {
+                coalesced.computeIfAbsent(t.period, p -> new ArrayList<>()).add(t);
+            } else {
+                dispatch(t::run, Collections.singletonList(t));
+            }
+            t.deadline = Math.max(t.deadline + t.period, now);
+            place(t, tick + 1);
+        }
+        for (List<Timer> timers : coalesced.values()) {
+            dispatch(() -> {
+                for (Timer t : timers) {
+                    try {
+                        t.run();
+                    } catch (RuntimeException e) {
+                        log.error("Timer failed: {}", e.getMessage(), e);
+                    }
+                }
+            }, timers);
+        }
+    }
+
+    private void place(@NotNull Timer timer, long earliest) {
+        //the first tick which ends at or after the deadline
+        long expiresAt = Math.max((timer.deadline - 1) / tickNanos, earliest);
+        timer.rounds = (expiresAt - earliest) / wheel.length;
+        wheel[(int) (expiresAt & mask)].add(timer);
+    }
+
+    private void run() {
+        while (!stopped) {
+            long deadline = tickNanos * (tick + 1);
+            long sleep = deadline - (System.nanoTime() - startTime);
+            if (sleep > 0) {
+                LockSupport.parkNanos(sleep);
+                continue;
+            }
+            Timer timer;
+            while ((timer = cancelled.poll()) != null) {
+                if (timer.bucket != null) {
+                    timer.bucket.remove(timer);
+                }
+                pending.decrementAndGet();
+            }
+            while ((timer = added.poll()) != null) {
+                if (timer.state.get() == WAITING) {
+                    place(timer, tick);
+                }
+            }
+            expire(wheel[(int) (tick & mask)], System.nanoTime() - startTime);
+            tick++;
+        }
+    }
+
+    private static final class Bucket {
+        @Nullable
+        private Timer head;
+        @Nullable
+        private Timer tail;
+
+        void add(@NotNull Timer timer) {
+            timer.bucket = this;
+            timer.prev = tail;
+            timer.next = null;
+            if (tail == null) {
+                head = timer;
+            } else {
+                tail.next = timer;
+            }
+            tail = timer;
+        }
+
+        void remove(@NotNull Timer timer) {
+            if (timer.prev == null) {
+                head = timer.next;
+            } else {
+                timer.prev.next = timer.next;
+            }
+            if (timer.next == null) {
+                tail = timer.prev;
+            } else {
+                timer.next.prev = timer.prev;
+            }
+            timer.prev = null;
+            timer.next = null;
+            timer.bucket = null;
+        }
+    }
+
+    static final class Timer {
+        private final boolean coalesce;
+        private final long period;
+        @NotNull
+        private final AtomicBoolean running = new AtomicBoolean();
+        @NotNull
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        @NotNull
+        private final Runnable task;
+        @Nullable
+        private Bucket bucket;
+        private long deadline;
+        @Nullable
+        private Timer next;
+        @Nullable
+        private Timer prev;
+        private long rounds;
+
+        private Timer(@NotNull Runnable task, long period, long deadline, boolean coalesce) {
+            this.task = task;
+            this.period = period;
+            this.deadline = deadline;
+            this.coalesce = coalesce;
+        }
+
+        /**
+         * Runs the task unless the timer has been cancelled, the wheel marks the timer as running before it is
+         * dispatched.
+         */
+        private void run() {
+            try {
+                if (state.get() == WAITING) {
+                    task.run();
+                }
+            } finally {
+                running.set(false);
+            }
+        }
+    }
+}
@@ -25,6 +25,7 @@ import dollar.api.MetaKey;
 import dollar.api.Pipeable;
 import dollar.api.Signal;
 import dollar.api.SubType;
+import dollar.api.Type;
 import dollar.api.TypePrediction;
 import dollar.api.Value;
 import dollar.api.exceptions.DollarFailureException;
@@ -51,6 +52,16 @@ public abstract class AbstractDollar implements Value {
 
     @NotNull
     private final ConcurrentHashMap<MetaKey, Object> meta = new ConcurrentHashMap<>();
+    /**
+     * The type including the constraint label together with the label it was built for, see
+     * {@link #constrainedType(Type)}.
+     */
+    @Nullable
+    private volatile ConstrainedType constrainedType;
+    /**
+     * Set on the canonical instances handed out by {@link DollarFactory}, see {@link #share()}.
+     */
+    private volatile boolean shared;
 
     protected AbstractDollar() {
 
@@ -108,7 +119,9 @@ public abstract class AbstractDollar implements Value {
             return this;
         }
         SubType thisConstraintFingerprint = constraintLabel();
-        if (thisConstraintFingerprint == null) {
+        if ((thisConstraintFingerprint == null) && shared) {
+            return DollarFactory.wrap(fresh()).$constrain(constraint, constraintFingerprint);
+        } else if (thisConstraintFingerprint == null) {
             meta(CONSTRAINT_FINGERPRINT, constraintFingerprint);
             return this;
         } else if (thisConstraintFingerprint.equals(constraintFingerprint)) {
@@ -363,6 +376,49 @@ public abstract class AbstractDollar implements Value {
         return false;
     }
 
+    /**
+     * Returns the type of this value with its constraint label. The registry lookup is remembered together with the
+     * label it was made for, so it is only reused while the value still carries that same label, and never on shared
+     * instances.
+     *
+     * @param type the unconstrained type of this value
+     * @return the canonical type
+     */
+    @NotNull
+    protected Type constrainedType(@NotNull Type type) {
+        SubType label = constraintLabel();
+        if (label == null) {
+            return type;
+        }
+        if (shared) {
+            return Type.of(type, label);
+        }
+        ConstrainedType cached = constrainedType;
+        if ((cached == null) || (cached.label != label)) {
+            cached = new ConstrainedType(label, Type.of(type, label));
+            constrainedType = cached;
+        }
+        return cached.type;
+    }
+
+    /**
+     * Returns a new instance equal to this one, values that can be shared override this so that a shared instance is
+     * copied rather than given meta data.
+     *
+     * @return a new unshared instance
+     */
+    @NotNull
+    AbstractDollar fresh() {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " instances are never shared");
+    }
+
+    /**
+     * @return true if any meta data has been attached to this value
+     */
+    boolean hasMeta() {
+        return !meta.isEmpty();
+    }
+
     @Nullable
     @Override
     public <T> T meta(@NotNull MetaKey key) {
@@ -371,12 +427,15 @@ public abstract class AbstractDollar implements Value {
 
     @Override
     public void meta(@NotNull MetaKey key, @NotNull Object value) {
+        if (shared) {
+            throw new DollarFailureException(ErrorType.METADATA_IMMUTABLE);
+        }
         meta.put(key, value);
     }
 
     @Override
     public void metaAttribute(@NotNull MetaKey key, @NotNull String value) {
-        if (meta.containsKey(key)) {
+        if (shared || meta.containsKey(key)) {
             @NotNull Value result;
             throw new DollarFailureException(ErrorType.METADATA_IMMUTABLE);
         }
@@ -389,6 +448,26 @@ public abstract class AbstractDollar implements Value {
         return (String) meta.get(key);
     }
 
+    /**
+     * @return true if this is a canonical instance, see {@link #share()}
+     */
+    boolean shared() {
+        return shared;
+    }
+
+    /**
+     * Marks this as a canonical instance used by many holders at once. Constraining a shared instance constrains a
+     * {@link #fresh()} copy instead, and attaching any other meta data to it fails, use {@link
+     * DollarFactory#unshared(Value)} to get a copy that can be annotated.
+     *
+     * @return this
+     */
+    @NotNull
+    AbstractDollar share() {
+        shared = true;
+        return this;
+    }
+
     @Override
     public boolean number() {
         return false;
@@ -570,4 +649,19 @@ public abstract class AbstractDollar implements Value {
     public String toString() {
         return toHumanString();
     }
+
+    /**
+     * An immutable pairing of a constraint label with the type looked up for it.
+     */
+    private static final class ConstrainedType {
+        @NotNull
+        private final SubType label;
+        @NotNull
+        private final Type type;
+
+        ConstrainedType(@NotNull SubType label, @NotNull Type type) {
+            this.label = label;
+            this.type = type;
+        }
+    }
 }
@@ -90,10 +90,16 @@ public class DollarBoolean extends AbstractDollarSingleValue<Boolean> {
         return DollarFactory.fromValue(!value);
     }
 
+    @NotNull
+    @Override
+    DollarBoolean fresh() {
+        return new DollarBoolean(value);
+    }
+
     @NotNull
     @Override
     public Type $type() {
-        return new Type(Type._BOOLEAN, constraintLabel());
+        return constrainedType(Type._BOOLEAN);
     }
 
     @Override
@@ -106,7 +106,7 @@ public class DollarDate extends AbstractDollarSingleValue<Instant> {
     @NotNull
     @Override
     public Type $type() {
-        return new Type(Type._DATE, constraintLabel());
+        return constrainedType(Type._DATE);
     }
 
     @Override
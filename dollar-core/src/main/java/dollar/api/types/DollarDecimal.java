@@ -114,7 +114,7 @@ public class DollarDecimal extends AbstractDollarSingleValue<Double> {
     @NotNull
     @Override
     public Type $type() {
-        return new Type(Type._DECIMAL, constraintLabel());
+        return constrainedType(Type._DECIMAL);
     }
 
     @Override
@@ -62,8 +62,11 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingDeque;
+import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
 public final class DollarFactory {
@@ -77,14 +80,14 @@ public final class DollarFactory {
      * The constant FALSE.
      */
     @NotNull
-    public static final Value FALSE = wrap(new DollarBoolean(false));
+    public static final Value FALSE = wrap(new DollarBoolean(false).share());
     @NotNull
     public static final Value INFINITY = wrap(new DollarInfinity(true));
     /**
      * The constant INTEGER_ZERO.
      */
     @NotNull
-    public static final Value INTEGER_ZERO = wrap(new DollarInteger(0L));
+    public static final Value INTEGER_ZERO = wrap(new DollarInteger(0L).share());
     /**
      * The constant LOWERBOUND_KEY.
      */
@@ -97,6 +100,11 @@ public final class DollarFactory {
     public static final String MILLISECOND_KEY = "millis";
     @NotNull
     public static final Value NEGATIVE_INFINITY = wrap(new DollarInfinity(false));
+    /**
+     * Lists and maps with at least this many elements are stored in persistent (structurally shared) collections, so
+     * that appending to and updating them does not copy the whole collection.
+     */
+    public static final int PERSISTENT_THRESHOLD = 32;
     /**
      * The constant VALUE_KEY.
      */
@@ -111,7 +119,7 @@ public final class DollarFactory {
      * The constant TRUE.
      */
     @NotNull
-    public static final Value TRUE = wrap(new DollarBoolean(true));
+    public static final Value TRUE = wrap(new DollarBoolean(true).share());
     /**
      * The constant TYPE_KEY.
      */
@@ -144,6 +152,43 @@ public final class DollarFactory {
      */
     @NotNull
     static StateTracer tracer = DollarStatic.tracer();
+    @NotNull
+    private static final Pattern ALPHANUMERIC = Pattern.compile("^[a-zA-Z0-9]+$");
+    @NotNull
+    private static final Pattern JSON_ARRAY = Pattern.compile("^\\s*\\[.*");
+    @NotNull
+    private static final Pattern JSON_OBJECT = Pattern.compile("^\\s*\\{.*");
+    /**
+     * Canonical instances of false and true, indexed by 0 and 1.
+     */
+    @NotNull
+    private static final Value[] BOOLEANS = {FALSE, TRUE};
+    /**
+     * Canonical instances of the empty string, values are shared so that common results are not allocated each time.
+     */
+    @NotNull
+    private static final Value EMPTY_STRING = wrap(new DollarString("").share());
+    /**
+     * Canonical instances of single character (ASCII) strings, indexed by the character.
+     */
+    @NotNull
+    private static final Value[] CHARACTERS = characters();
+    private static final int INTEGER_CACHE_HIGH = 1024;
+    private static final int INTEGER_CACHE_LOW = -128;
+    /**
+     * Canonical instances of the integers from {@link #INTEGER_CACHE_LOW} to {@link #INTEGER_CACHE_HIGH}.
+     */
+    @NotNull
+    private static final Value[] INTEGERS = integers();
+    /**
+     * Strings longer than this are never interned.
+     */
+    private static final int INTERN_MAX_LENGTH = 32;
+    /**
+     * Shared instances of short strings used as map keys, bounded by {@link dollar.api.Configuration#internPoolSize()}.
+     */
+    @NotNull
+    private static final ConcurrentHashMap<String, Value> interned = new ConcurrentHashMap<>();
 
     private DollarFactory() {
     }
@@ -159,6 +204,92 @@ public final class DollarFactory {
         return wrap(new DollarBlockCollection(Value));
     }
 
+    @NotNull
+    private static Value[] characters() {
+        Value[] result = new Value[128];
+        for (char c = 0; c < result.length; c++) {
+            result[c] = wrap(new DollarString(String.valueOf(c)).share());
+        }
+        return result;
+    }
+
+    @NotNull
+    private static Value[] integers() {
+        Value[] result = new Value[(INTEGER_CACHE_HIGH - INTEGER_CACHE_LOW) + 1];
+        for (int i = 0; i < result.length; i++) {
+            long value = (long) i + INTEGER_CACHE_LOW;
+            result[i] = (value == 0) ? INTEGER_ZERO : wrap(new DollarInteger(value).share());
+        }
+        return result;
+    }
+
+    /**
+     * Returns an instance that meta data can be attached to, that is the value itself unless it is one of the shared
+     * canonical instances handed out by this factory, in which case it is a new equal instance.
+     *
+     * @param value the value to be annotated
+     * @return the value or an unshared copy of it
+     */
+    @NotNull
+    public static Value unshared(@NotNull Value value) {
+        Value unwrapped = value.$unwrap();
+        if ((unwrapped instanceof AbstractDollar) && ((AbstractDollar) unwrapped).shared()) {
+            return wrap(((AbstractDollar) unwrapped).fresh());
+        }
+        return value;
+    }
+
+    @NotNull
+    private static Value fromLong(long value) {
+        if ((value >= INTEGER_CACHE_LOW) && (value <= INTEGER_CACHE_HIGH)) {
+            return INTEGERS[(int) (value - INTEGER_CACHE_LOW)];
+        }
+        return wrap(new DollarInteger(value));
+    }
+
+    /**
+     * Returns the canonical instance of the empty string or of a single ASCII character string.
+     *
+     * @param s the string
+     * @return the shared value or null if there isn't one for this string
+     */
+    @Nullable
+    private static Value cachedString(@NotNull String s) {
+        if (s.isEmpty()) {
+            return EMPTY_STRING;
+        } else if ((s.length() == 1) && (s.charAt(0) < CHARACTERS.length)) {
+            return CHARACTERS[s.charAt(0)];
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Creates a value for use as a map key, short strings are shared through the intern pool when it is enabled (see
+     * {@link dollar.api.Configuration#internPoolSize()}).
+     *
+     * @param key the key
+     * @return the Value
+     */
+    @NotNull
+    static Value internKey(@Nullable Object key) {
+        int poolSize = DollarStatic.getConfig().internPoolSize();
+        if ((poolSize <= 0) || !(key instanceof String) || (((String) key).length() > INTERN_MAX_LENGTH)) {
+            return create(key);
+        }
+        Value existing = interned.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        Value value = create(key);
+        if (value.string() && (value.$unwrap() instanceof AbstractDollar) && (interned.size() < poolSize)) {
+            ((AbstractDollar) value.$unwrap()).share();
+            existing = interned.putIfAbsent((String) key, value);
+            return (existing != null) ? existing : value;
+        }
+        return value;
+    }
+
     @NotNull
     private static Value create(@Nullable Object o) {
         if (o == null) {
@@ -168,7 +299,7 @@ public final class DollarFactory {
             return (Value) o;
         }
         if (o instanceof Boolean) {
-            return wrap(new DollarBoolean((Boolean) o));
+            return BOOLEANS[((Boolean) o) ? 1 : 0];
         }
 
         if (o instanceof Pipeable) {
@@ -213,6 +344,12 @@ public final class DollarFactory {
         if (o instanceof Collection) {
             return wrap(new DollarList(ImmutableList.copyOf(new ArrayList<>((Collection<?>) o))));
         }
+        if (o instanceof long[]) {
+            return wrap(new DollarList(NumericList.of((long[]) o)));
+        }
+        if (o instanceof double[]) {
+            return wrap(new DollarList(NumericList.of((double[]) o)));
+        }
         if (o.getClass().isArray()) {
             return wrap(new DollarList((Object[]) o));
         }
@@ -250,22 +387,13 @@ public final class DollarFactory {
             return wrap(new DollarDecimal(((Float) o).doubleValue()));
         }
         if (o instanceof Long) {
-            if (((Long) o == 0)) {
-                return INTEGER_ZERO;
-            }
-            return wrap(new DollarInteger((Long) o));
+            return fromLong((Long) o);
         }
         if (o instanceof Integer) {
-            if (((Integer) o == 0)) {
-                return INTEGER_ZERO;
-            }
-            return wrap(new DollarInteger(((Integer) o).longValue()));
+            return fromLong(((Integer) o).longValue());
         }
         if (o instanceof Short) {
-            if (((Short) o == 0)) {
-                return INTEGER_ZERO;
-            }
-            return wrap(new DollarInteger(((Short) o).longValue()));
+            return fromLong(((Short) o).longValue());
         }
         if (o instanceof Range) {
             return wrap(new DollarRange((Range) o, false));
@@ -281,12 +409,18 @@ public final class DollarFactory {
             }
         }
         if (o instanceof String) {
-            if (((String) o).matches("^[a-zA-Z0-9]+$")) {
+            if ((((String) o).length() <= 1) && !"[".equals(o) && !"{".equals(o)) {
+                Value cached = cachedString((String) o);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+            if (ALPHANUMERIC.matcher((String) o).matches()) {
                 return wrap(new DollarString((String) o));
 
-            } else if (((String) o).matches("^\\s*\\[.*")) {
+            } else if (JSON_ARRAY.matcher((String) o).matches()) {
                 return wrap(new DollarList(new JsonArray(o.toString())));
-            } else if (((String) o).matches("^\\s*\\{.*")) {
+            } else if (JSON_OBJECT.matcher((String) o).matches()) {
                 try {
                     return wrap(new DollarMap(new JsonObject((String) o)));
                 } catch (DecodeException de) {
@@ -429,6 +563,21 @@ public final class DollarFactory {
         }
     }
 
+    /**
+     * An asynchronous value, operations on which are composed on the future rather than waiting for it.
+     *
+     * @param future the future
+     * @return the Value
+     * @see DollarFuture
+     */
+    @NotNull
+    public static Value fromFuture(@NotNull CompletableFuture<Value> future) {
+        return wrap((Value) java.lang.reflect.Proxy.newProxyInstance(
+                DollarStatic.class.getClassLoader(),
+                new Class<?>[]{Value.class},
+                new DollarFuture(future)));
+    }
+
     /**
      * From future.
      *
@@ -590,7 +739,7 @@ public final class DollarFactory {
     }
 
     public static Value fromPair(@NotNull Object k, @NotNull Object v) {
-        return wrap(new DollarMap(ImmutableMap.of(create(k), create(v))));
+        return wrap(new DollarMap(ImmutableMap.of(internKey(k), create(v))));
     }
 
     @NotNull
@@ -611,6 +760,18 @@ public final class DollarFactory {
         return wrap(new DollarRange(from, to));
     }
 
+    /**
+     * From range.
+     *
+     * @param range    the range, which may be open or unbounded at either end
+     * @param reversed true if the range runs from its upper bound down to its lower bound
+     * @return the Value
+     */
+    @NotNull
+    public static Value fromRange(@NotNull Range<Value> range, boolean reversed) {
+        return wrap(new DollarRange(range, reversed));
+    }
+
     public static Value fromSet(@NotNull Set<Value> Values) {
         return wrap(new DollarList(ImmutableList.of(Values)));
     }
@@ -631,6 +792,12 @@ public final class DollarFactory {
      */
     @NotNull
     public static Value fromStringValue(@NotNull String body) {
+        if (body.length() <= 1) {
+            Value cached = cachedString(body);
+            if (cached != null) {
+                return cached;
+            }
+        }
         return wrap(new DollarString(body));
     }
 
@@ -856,10 +1023,7 @@ public final class DollarFactory {
             val = value;
         }
         if (DollarStatic.getConfig().wrapForGuards()) {
-            return (Value) java.lang.reflect.Proxy.newProxyInstance(
-                    DollarStatic.class.getClassLoader(),
-                    new Class<?>[]{Value.class},
-                    new DollarGuard(val));
+            return new DollarGuardWrapper(val, value.getClass());
         } else {
             return val;
         }
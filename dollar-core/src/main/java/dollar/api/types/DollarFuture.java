@@ -16,31 +16,107 @@
 
 package dollar.api.types;
 
+import dollar.api.DollarStatic;
 import dollar.api.Value;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Future;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 
+/**
+ * The handler behind an asynchronous value (see {@link DollarFactory#fromFuture(CompletableFuture)}). Arithmetic,
+ * comparison, {@code $get} and {@code $pipe} on an asynchronous value return another asynchronous value composed on
+ * the future, combining the futures when the argument is also asynchronous. Only the other methods, including {@code
+ * $fix} and {@code $fixDeep}, wait for the result. {@code $cancel} cancels the future.
+ */
 public class DollarFuture implements java.lang.reflect.InvocationHandler {
 
     @NotNull
-    private Future<Value> value = new CompletableFuture<>();
+    private static final Set<String> COMPOSABLE = new HashSet<>(Arrays.asList(
+            "$abs", "$and", "$dec", "$divide", "$get", "$gt", "$gte", "$inc", "$lt", "$lte", "$minus", "$modulus",
+            "$multiply", "$negate", "$not", "$or", "$pipe", "$plus"));
+
+    @NotNull
+    private final CompletableFuture<Value> value;
 
     /**
      * Instantiates a new DollarFuture
      *
      * @param value the value
      */
-    public DollarFuture(@NotNull Future<Value> value) {
+    public DollarFuture(@NotNull CompletableFuture<Value> value) {
         this.value = value;
     }
 
+    /**
+     * Returns the future behind an asynchronous value, looking through any guard or monitoring wrappers around it.
+     *
+     * @param value the value
+     * @return the future or null if the value is not asynchronous
+     */
+    @Nullable
+    public static CompletableFuture<Value> future(@Nullable Object value) {
+        Object unwrapped = (value instanceof Value) ? ((Value) value).$unwrap() : value;
+        if ((unwrapped != null) && Proxy.isProxyClass(unwrapped.getClass()) && (Proxy.getInvocationHandler(
+                unwrapped) instanceof DollarFuture)) {
+            return ((DollarFuture) Proxy.getInvocationHandler(unwrapped)).value;
+        }
+        return null;
+    }
+
+    @Nullable
+    private static Object apply(@NotNull Method method, @NotNull Value target, @Nullable Object[] args) {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw new CompletionException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    @NotNull
+    private Value compose(@NotNull Method method, @Nullable Object[] args) {
+        CompletableFuture<Value> other = ((args != null) && (args.length == 1)) ? future(args[0]) : null;
+        if (other == null) {
+            return DollarFactory.fromFuture(value.thenApply(v -> (Value) apply(method, v, args)));
+        } else {
+            return DollarFactory.fromFuture(value.thenCombine(other, (v, arg) -> (Value) apply(method, v, new Object[]{arg})));
+        }
+    }
+
     @Nullable
     @Override
     public Object invoke(@NotNull Object proxy, @NotNull Method method, @Nullable Object[] args) throws Throwable {
-        return method.invoke(value.get(), args);
+        String name = method.getName();
+        if ("dynamic".equals(name)) {
+            return !value.isDone();
+        } else if ("$unwrap".equals(name) || "$copy".equals(name) || "copy".equals(name)) {
+            return proxy;
+        } else if ("$cancel".equals(name)) {
+            return DollarStatic.$(value.cancel(true));
+        } else if (COMPOSABLE.contains(name) && Objects.equals(method.getReturnType(), Value.class)) {
+            return compose(method, args);
+        }
+        final Value result;
+        try {
+            result = value.get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+        try {
+            return method.invoke(result, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
     }
 }
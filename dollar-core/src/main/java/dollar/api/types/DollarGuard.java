@@ -28,6 +28,10 @@ import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.Objects;
 
+/**
+ * Reflective proxy implementation of the {@link Guarded} checks, {@link DollarGuardWrapper} is used by {@link
+ * DollarFactory} instead.
+ */
 public class DollarGuard implements java.lang.reflect.InvocationHandler {
 
     @NotNull
@@ -0,0 +1,2482 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dollar.api.types;
+
+import com.github.oxo42.stateless4j.StateMachine;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import dollar.api.MetaKey;
+import dollar.api.Pipeable;
+import dollar.api.Signal;
+import dollar.api.SubType;
+import dollar.api.Type;
+import dollar.api.TypePrediction;
+import dollar.api.Value;
+import dollar.api.guard.Guard;
+import dollar.api.guard.GuardTable;
+import dollar.api.guard.Guarded;
+import dollar.api.json.ImmutableJsonObject;
+import dollar.api.json.JsonArray;
+import dollar.api.script.Source;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.stream.Stream;
+
+/**
+ * Applies the {@link Guard}s declared with {@link Guarded} to a {@link Value} without reflection.
+ * <p>
+ * This is the replacement for the {@link DollarGuard} proxy. Each method is delegated directly, the guards for the
+ * concrete class being wrapped are resolved once into a {@link GuardTable} and shared by every instance of that
+ * class. As with {@link DollarGuard} the fix, notify and unwrap methods are never guarded.
+ */
+public final class DollarGuardWrapper implements Value {
+
+    @NotNull
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private static final int D = 0;
+    private static final int D_S = 1;
+    private static final int D_ABS = 2;
+    private static final int D_ALL = 3;
+    private static final int D_APPEND = 4;
+    private static final int D_AS = 5;
+    private static final int D_AVG = 6;
+    private static final int D_CANCEL = 7;
+    private static final int D_CHOOSE = 8;
+    private static final int D_CONSTRAIN = 9;
+    private static final int D_CONTAINS = 10;
+    private static final int D_CONTAINS_KEY = 11;
+    private static final int D_CONTAINS_VALUE = 12;
+    private static final int D_COPY_0 = 13;
+    private static final int D_COPY_1 = 14;
+    private static final int D_CREATE = 15;
+    private static final int D_DEC = 16;
+    private static final int D_DEFAULT = 17;
+    private static final int D_DESTROY = 18;
+    private static final int D_DISPATCH = 19;
+    private static final int D_DIVIDE = 20;
+    private static final int D_DRAIN = 21;
+    private static final int D_EACH = 22;
+    private static final int D_EQUALS = 23;
+    private static final int D_GET = 24;
+    private static final int D_GIVE = 25;
+    private static final int D_HAS_STRING = 26;
+    private static final int D_HAS_VALUE = 27;
+    private static final int D_INC = 28;
+    private static final int D_INSERT = 29;
+    private static final int D_IS_EMPTY = 30;
+    private static final int D_LIST = 31;
+    private static final int D_LISTEN_1 = 32;
+    private static final int D_LISTEN_2 = 33;
+    private static final int D_MAP = 34;
+    private static final int D_MAX = 35;
+    private static final int D_MIME_TYPE = 36;
+    private static final int D_MIN = 37;
+    private static final int D_MINUS = 38;
+    private static final int D_MODULUS = 39;
+    private static final int D_MULTIPLY = 40;
+    private static final int D_NEGATE = 41;
+    private static final int D_NOT_EQUALS = 42;
+    private static final int D_PAIR_KEY = 43;
+    private static final int D_PAIR_VALUE = 44;
+    private static final int D_PAUSE = 45;
+    private static final int D_PEEK = 46;
+    private static final int D_PLUS = 47;
+    private static final int D_POLL = 48;
+    private static final int D_POP = 49;
+    private static final int D_PREPEND = 50;
+    private static final int D_PRODUCT = 51;
+    private static final int D_PUBLISH = 52;
+    private static final int D_PUSH = 53;
+    private static final int D_READ_0 = 54;
+    private static final int D_READ_2 = 55;
+    private static final int D_REMOVE = 56;
+    private static final int D_REMOVE_BY_KEY = 57;
+    private static final int D_REVERSE = 58;
+    private static final int D_SERIALIZED = 59;
+    private static final int D_SET = 60;
+    private static final int D_SIGNAL = 61;
+    private static final int D_SIZE = 62;
+    private static final int D_SORT = 63;
+    private static final int D_SPLIT = 64;
+    private static final int D_START = 65;
+    private static final int D_STATE = 66;
+    private static final int D_STOP = 67;
+    private static final int D_STREAM = 68;
+    private static final int D_SUBSCRIBE_1 = 69;
+    private static final int D_SUBSCRIBE_2 = 70;
+    private static final int D_SUM = 71;
+    private static final int D_TYPE = 72;
+    private static final int D_UNIQUE = 73;
+    private static final int D_UNPAUSE = 74;
+    private static final int D_WRITE_1 = 75;
+    private static final int D_WRITE_3 = 76;
+    private static final int COLLECTION = 77;
+    private static final int COMPARE_TO = 78;
+    private static final int CONSTRAINT_LABEL = 79;
+    private static final int DEBUG_0 = 80;
+    private static final int DEBUG_1 = 81;
+    private static final int DEBUGF = 82;
+    private static final int DECIMAL = 83;
+    private static final int DYNAMIC = 84;
+    private static final int EQUALS_STRING = 85;
+    private static final int ERR = 86;
+    private static final int ERROR_0 = 87;
+    private static final int ERROR_THROWABLE = 88;
+    private static final int ERROR_OBJECT = 89;
+    private static final int ERRORF = 90;
+    private static final int GET_STATE_MACHINE = 91;
+    private static final int INFINITE = 92;
+    private static final int INFO_0 = 93;
+    private static final int INFO_1 = 94;
+    private static final int INFOF = 95;
+    private static final int INTEGER = 96;
+    private static final int IS = 97;
+    private static final int IS_BOOLEAN = 98;
+    private static final int IS_EMPTY = 99;
+    private static final int IS_FALSE = 100;
+    private static final int IS_NULL = 101;
+    private static final int IS_TRUE = 102;
+    private static final int IS_VOID = 103;
+    private static final int JSON_ARRAY = 104;
+    private static final int LIST = 105;
+    private static final int MAP = 106;
+    private static final int META_1 = 107;
+    private static final int META_2 = 108;
+    private static final int META_ATTRIBUTE_1 = 109;
+    private static final int META_ATTRIBUTE_2 = 110;
+    private static final int NEGATIVE = 111;
+    private static final int NEITHER_TRUE_NOR_FALSE = 112;
+    private static final int NUMBER = 113;
+    private static final int OUT = 114;
+    private static final int PAIR = 115;
+    private static final int POSITIVE = 116;
+    private static final int PREDICT_TYPE = 117;
+    private static final int QUEUE = 118;
+    private static final int RANGE = 119;
+    private static final int REMOVE = 120;
+    private static final int SIGN = 121;
+    private static final int SINGLE_VALUE = 122;
+    private static final int SIZE = 123;
+    private static final int SOURCE = 124;
+    private static final int STREAM = 125;
+    private static final int STRING = 126;
+    private static final int TO_DOLLAR_SCRIPT = 127;
+    private static final int TO_DOUBLE = 128;
+    private static final int TO_HUMAN_STRING = 129;
+    private static final int TO_INTEGER = 130;
+    private static final int TO_JAVA_MAP = 131;
+    private static final int TO_JAVA_OBJECT = 132;
+    private static final int TO_JSON_OBJECT = 133;
+    private static final int TO_JSON_STRING = 134;
+    private static final int TO_JSON_TYPE = 135;
+    private static final int TO_LIST = 136;
+    private static final int TO_LONG = 137;
+    private static final int TO_NUMBER = 138;
+    private static final int TO_STREAM = 139;
+    private static final int TO_STRINGS = 140;
+    private static final int TO_VAR_LIST = 141;
+    private static final int TO_VAR_MAP = 142;
+    private static final int TO_YAML = 143;
+    private static final int TRUTHY = 144;
+    private static final int TYPE = 145;
+    private static final int URI = 146;
+    private static final int ZERO = 147;
+
+    @NotNull
+    private static final Method[] SIGNATURES = {
+            GuardTable.method(Value.class, "$", String.class, Object.class),
+            GuardTable.method(Value.class, "$S"),
+            GuardTable.method(Value.class, "$abs"),
+            GuardTable.method(Value.class, "$all"),
+            GuardTable.method(Value.class, "$append", Value.class),
+            GuardTable.method(Value.class, "$as", Type.class),
+            GuardTable.method(Value.class, "$avg", boolean.class),
+            GuardTable.method(Value.class, "$cancel", Value.class),
+            GuardTable.method(Value.class, "$choose", Value.class),
+            GuardTable.method(Value.class, "$constrain", Value.class, SubType.class),
+            GuardTable.method(Value.class, "$contains", Value.class),
+            GuardTable.method(Value.class, "$containsKey", Value.class),
+            GuardTable.method(Value.class, "$containsValue", Value.class),
+            GuardTable.method(Value.class, "$copy"),
+            GuardTable.method(Value.class, "$copy", ImmutableList.class),
+            GuardTable.method(Value.class, "$create"),
+            GuardTable.method(Value.class, "$dec"),
+            GuardTable.method(Value.class, "$default", Value.class),
+            GuardTable.method(Value.class, "$destroy"),
+            GuardTable.method(Value.class, "$dispatch", Value.class),
+            GuardTable.method(Value.class, "$divide", Value.class),
+            GuardTable.method(Value.class, "$drain"),
+            GuardTable.method(Value.class, "$each", Pipeable.class),
+            GuardTable.method(Value.class, "$equals", Value.class),
+            GuardTable.method(Value.class, "$get", Value.class),
+            GuardTable.method(Value.class, "$give", Value.class),
+            GuardTable.method(Value.class, "$has", String.class),
+            GuardTable.method(Value.class, "$has", Value.class),
+            GuardTable.method(Value.class, "$inc"),
+            GuardTable.method(Value.class, "$insert", Value.class, int.class),
+            GuardTable.method(Value.class, "$isEmpty"),
+            GuardTable.method(Value.class, "$list"),
+            GuardTable.method(Value.class, "$listen", Pipeable.class),
+            GuardTable.method(Value.class, "$listen", Pipeable.class, String.class),
+            GuardTable.method(Value.class, "$map"),
+            GuardTable.method(Value.class, "$max", boolean.class),
+            GuardTable.method(Value.class, "$mimeType"),
+            GuardTable.method(Value.class, "$min", boolean.class),
+            GuardTable.method(Value.class, "$minus", Value.class),
+            GuardTable.method(Value.class, "$modulus", Value.class),
+            GuardTable.method(Value.class, "$multiply", Value.class),
+            GuardTable.method(Value.class, "$negate"),
+            GuardTable.method(Value.class, "$notEquals", Value.class),
+            GuardTable.method(Value.class, "$pairKey"),
+            GuardTable.method(Value.class, "$pairValue"),
+            GuardTable.method(Value.class, "$pause"),
+            GuardTable.method(Value.class, "$peek"),
+            GuardTable.method(Value.class, "$plus", Value.class),
+            GuardTable.method(Value.class, "$poll"),
+            GuardTable.method(Value.class, "$pop"),
+            GuardTable.method(Value.class, "$prepend", Value.class),
+            GuardTable.method(Value.class, "$product", boolean.class),
+            GuardTable.method(Value.class, "$publish", Value.class),
+            GuardTable.method(Value.class, "$push", Value.class),
+            GuardTable.method(Value.class, "$read"),
+            GuardTable.method(Value.class, "$read", boolean.class, boolean.class),
+            GuardTable.method(Value.class, "$remove", Value.class),
+            GuardTable.method(Value.class, "$removeByKey", String.class),
+            GuardTable.method(Value.class, "$reverse", boolean.class),
+            GuardTable.method(Value.class, "$serialized"),
+            GuardTable.method(Value.class, "$set", Value.class, Object.class),
+            GuardTable.method(Value.class, "$signal", Signal.class),
+            GuardTable.method(Value.class, "$size"),
+            GuardTable.method(Value.class, "$sort", boolean.class),
+            GuardTable.method(Value.class, "$split", boolean.class),
+            GuardTable.method(Value.class, "$start"),
+            GuardTable.method(Value.class, "$state"),
+            GuardTable.method(Value.class, "$stop"),
+            GuardTable.method(Value.class, "$stream", boolean.class),
+            GuardTable.method(Value.class, "$subscribe", Pipeable.class),
+            GuardTable.method(Value.class, "$subscribe", Pipeable.class, String.class),
+            GuardTable.method(Value.class, "$sum", boolean.class),
+            GuardTable.method(Value.class, "$type"),
+            GuardTable.method(Value.class, "$unique", boolean.class),
+            GuardTable.method(Value.class, "$unpause"),
+            GuardTable.method(Value.class, "$write", Value.class),
+            GuardTable.method(Value.class, "$write", Value.class, boolean.class, boolean.class),
+            GuardTable.method(Value.class, "collection"),
+            GuardTable.method(Value.class, "compareTo", Object.class),
+            GuardTable.method(Value.class, "constraintLabel"),
+            GuardTable.method(Value.class, "debug"),
+            GuardTable.method(Value.class, "debug", Object.class),
+            GuardTable.method(Value.class, "debugf", String.class, Object[].class),
+            GuardTable.method(Value.class, "decimal"),
+            GuardTable.method(Value.class, "dynamic"),
+            GuardTable.method(Value.class, "equalsString", String.class),
+            GuardTable.method(Value.class, "err"),
+            GuardTable.method(Value.class, "error"),
+            GuardTable.method(Value.class, "error", Throwable.class),
+            GuardTable.method(Value.class, "error", Object.class),
+            GuardTable.method(Value.class, "errorf", String.class, Object[].class),
+            GuardTable.method(Value.class, "getStateMachine"),
+            GuardTable.method(Value.class, "infinite"),
+            GuardTable.method(Value.class, "info"),
+            GuardTable.method(Value.class, "info", Object.class),
+            GuardTable.method(Value.class, "infof", String.class, Object[].class),
+            GuardTable.method(Value.class, "integer"),
+            GuardTable.method(Value.class, "is", Type[].class),
+            GuardTable.method(Value.class, "isBoolean"),
+            GuardTable.method(Value.class, "isEmpty"),
+            GuardTable.method(Value.class, "isFalse"),
+            GuardTable.method(Value.class, "isNull"),
+            GuardTable.method(Value.class, "isTrue"),
+            GuardTable.method(Value.class, "isVoid"),
+            GuardTable.method(Value.class, "jsonArray"),
+            GuardTable.method(Value.class, "list"),
+            GuardTable.method(Value.class, "map"),
+            GuardTable.method(Value.class, "meta", MetaKey.class),
+            GuardTable.method(Value.class, "meta", MetaKey.class, Object.class),
+            GuardTable.method(Value.class, "metaAttribute", MetaKey.class),
+            GuardTable.method(Value.class, "metaAttribute", MetaKey.class, String.class),
+            GuardTable.method(Value.class, "negative"),
+            GuardTable.method(Value.class, "neitherTrueNorFalse"),
+            GuardTable.method(Value.class, "number"),
+            GuardTable.method(Value.class, "out"),
+            GuardTable.method(Value.class, "pair"),
+            GuardTable.method(Value.class, "positive"),
+            GuardTable.method(Value.class, "predictType"),
+            GuardTable.method(Value.class, "queue"),
+            GuardTable.method(Value.class, "range"),
+            GuardTable.method(Value.class, "remove", Object.class),
+            GuardTable.method(Value.class, "sign"),
+            GuardTable.method(Value.class, "singleValue"),
+            GuardTable.method(Value.class, "size"),
+            GuardTable.method(Value.class, "source"),
+            GuardTable.method(Value.class, "stream", boolean.class),
+            GuardTable.method(Value.class, "string"),
+            GuardTable.method(Value.class, "toDollarScript"),
+            GuardTable.method(Value.class, "toDouble"),
+            GuardTable.method(Value.class, "toHumanString"),
+            GuardTable.method(Value.class, "toInteger"),
+            GuardTable.method(Value.class, "toJavaMap"),
+            GuardTable.method(Value.class, "toJavaObject"),
+            GuardTable.method(Value.class, "toJsonObject"),
+            GuardTable.method(Value.class, "toJsonString"),
+            GuardTable.method(Value.class, "toJsonType"),
+            GuardTable.method(Value.class, "toList"),
+            GuardTable.method(Value.class, "toLong"),
+            GuardTable.method(Value.class, "toNumber"),
+            GuardTable.method(Value.class, "toStream"),
+            GuardTable.method(Value.class, "toStrings"),
+            GuardTable.method(Value.class, "toVarList"),
+            GuardTable.method(Value.class, "toVarMap"),
+            GuardTable.method(Value.class, "toYaml"),
+            GuardTable.method(Value.class, "truthy"),
+            GuardTable.method(Value.class, "type"),
+            GuardTable.method(Value.class, "uri"),
+            GuardTable.method(Value.class, "zero")
+    };
+
+    @NotNull
+    private static final ClassValue<GuardTable> tables = new ClassValue<GuardTable>() {
+        @NotNull
+        @Override
+        protected GuardTable computeValue(@NotNull Class<?> type) {
+            return new GuardTable(type, SIGNATURES);
+        }
+    };
+
+    @NotNull
+    private final Value in;
+    @NotNull
+    private final Class<?> type;
+    @Nullable
+    private transient GuardTable table;
+
+    /**
+     * Guard a value.
+     *
+     * @param in   the value to guard, this may already be wrapped by a {@link DollarWrapper}
+     * @param type the concrete class of the value, used to find the {@link Guarded} annotations
+     */
+    public DollarGuardWrapper(@NotNull Value in, @NotNull Class<?> type) {
+        this.in = in;
+        this.type = type;
+        table = tables.get(type);
+    }
+
+    @NotNull
+    @Override
+    public Value $(@NotNull String key, @Nullable Object value) {
+        GuardTable.Site site = table().site(D);
+        if (site.unguarded()) {
+            return in.$(key, value);
+        }
+        Object[] args = {key, value};
+        site.pre(in, args);
+        Value result = in.$(key, value);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public String $S() {
+        GuardTable.Site site = table().site(D_S);
+        if (site.unguarded()) {
+            return in.$S();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        String result = in.$S();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $abs() {
+        GuardTable.Site site = table().site(D_ABS);
+        if (site.unguarded()) {
+            return in.$abs();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        Value result = in.$abs();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $all() {
+        GuardTable.Site site = table().site(D_ALL);
+        if (site.unguarded()) {
+            return in.$all();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        Value result = in.$all();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $append(@NotNull Value value) {
+        GuardTable.Site site = table().site(D_APPEND);
+        if (site.unguarded()) {
+            return in.$append(value);
+        }
+        Object[] args = {value};
+        site.pre(in, args);
+        Value result = in.$append(value);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $as(@NotNull Type type) {
+        GuardTable.Site site = table().site(D_AS);
+        if (site.unguarded()) {
+            return in.$as(type);
+        }
+        Object[] args = {type};
+        site.pre(in, args);
+        Value result = in.$as(type);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $avg(boolean parallel) {
+        GuardTable.Site site = table().site(D_AVG);
+        if (site.unguarded()) {
+            return in.$avg(parallel);
+        }
+        Object[] args = {parallel};
+        site.pre(in, args);
+        Value result = in.$avg(parallel);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $cancel(@NotNull Value id) {
+        GuardTable.Site site = table().site(D_CANCEL);
+        if (site.unguarded()) {
+            return in.$cancel(id);
+        }
+        Object[] args = {id};
+        site.pre(in, args);
+        Value result = in.$cancel(id);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $choose(@NotNull Value map) {
+        GuardTable.Site site = table().site(D_CHOOSE);
+        if (site.unguarded()) {
+            return in.$choose(map);
+        }
+        Object[] args = {map};
+        site.pre(in, args);
+        Value result = in.$choose(map);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $constrain(@NotNull Value constraint, @Nullable SubType label) {
+        GuardTable.Site site = table().site(D_CONSTRAIN);
+        if (site.unguarded()) {
+            return in.$constrain(constraint, label);
+        }
+        Object[] args = {constraint, label};
+        site.pre(in, args);
+        Value result = in.$constrain(constraint, label);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $contains(@NotNull Value value) {
+        GuardTable.Site site = table().site(D_CONTAINS);
+        if (site.unguarded()) {
+            return in.$contains(value);
+        }
+        Object[] args = {value};
+        site.pre(in, args);
+        Value result = in.$contains(value);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $containsKey(@NotNull Value value) {
+        GuardTable.Site site = table().site(D_CONTAINS_KEY);
+        if (site.unguarded()) {
+            return in.$containsKey(value);
+        }
+        Object[] args = {value};
+        site.pre(in, args);
+        Value result = in.$containsKey(value);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $containsValue(@NotNull Value value) {
+        GuardTable.Site site = table().site(D_CONTAINS_VALUE);
+        if (site.unguarded()) {
+            return in.$containsValue(value);
+        }
+        Object[] args = {value};
+        site.pre(in, args);
+        Value result = in.$containsValue(value);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $copy() {
+        GuardTable.Site site = table().site(D_COPY_0);
+        if (site.unguarded()) {
+            return in.$copy();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        Value result = in.$copy();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $copy(@NotNull ImmutableList<Throwable> errors) {
+        GuardTable.Site site = table().site(D_COPY_1);
+        if (site.unguarded()) {
+            return in.$copy(errors);
+        }
+        Object[] args = {errors};
+        site.pre(in, args);
+        Value result = in.$copy(errors);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $create() {
+        GuardTable.Site site = table().site(D_CREATE);
+        if (site.unguarded()) {
+            return in.$create();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        Value result = in.$create();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $dec() {
+        GuardTable.Site site = table().site(D_DEC);
+        if (site.unguarded()) {
+            return in.$dec();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        Value result = in.$dec();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $default(@NotNull Value v) {
+        GuardTable.Site site = table().site(D_DEFAULT);
+        if (site.unguarded()) {
+            return in.$default(v);
+        }
+        Object[] args = {v};
+        site.pre(in, args);
+        Value result = in.$default(v);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $destroy() {
+        GuardTable.Site site = table().site(D_DESTROY);
+        if (site.unguarded()) {
+            return in.$destroy();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        Value result = in.$destroy();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $dispatch(@NotNull Value lhs) {
+        GuardTable.Site site = table().site(D_DISPATCH);
+        if (site.unguarded()) {
+            return in.$dispatch(lhs);
+        }
+        Object[] args = {lhs};
+        site.pre(in, args);
+        Value result = in.$dispatch(lhs);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $divide(@NotNull Value rhs) {
+        GuardTable.Site site = table().site(D_DIVIDE);
+        if (site.unguarded()) {
+            return in.$divide(rhs);
+        }
+        Object[] args = {rhs};
+        site.pre(in, args);
+        Value result = in.$divide(rhs);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $drain() {
+        GuardTable.Site site = table().site(D_DRAIN);
+        if (site.unguarded()) {
+            return in.$drain();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        Value result = in.$drain();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $each(@NotNull Pipeable pipe) {
+        GuardTable.Site site = table().site(D_EACH);
+        if (site.unguarded()) {
+            return in.$each(pipe);
+        }
+        Object[] args = {pipe};
+        site.pre(in, args);
+        Value result = in.$each(pipe);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $equals(@Nullable Value other) {
+        GuardTable.Site site = table().site(D_EQUALS);
+        if (site.unguarded()) {
+            return in.$equals(other);
+        }
+        Object[] args = {other};
+        site.pre(in, args);
+        Value result = in.$equals(other);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $fix(boolean parallel) {
+        return in.$fix(parallel);
+    }
+
+    @NotNull
+    @Override
+    public Value $fix(int depth, boolean parallel) {
+        return in.$fix(depth, parallel);
+    }
+
+    @NotNull
+    @Override
+    public Value $fixDeep() {
+        return in.$fixDeep();
+    }
+
+    @NotNull
+    @Override
+    public Value $fixDeep(boolean parallel) {
+        return in.$fixDeep(parallel);
+    }
+
+    @NotNull
+    @Override
+    public Value $get(@NotNull Value rhs) {
+        GuardTable.Site site = table().site(D_GET);
+        if (site.unguarded()) {
+            return in.$get(rhs);
+        }
+        Object[] args = {rhs};
+        site.pre(in, args);
+        Value result = in.$get(rhs);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $give(@NotNull Value lhs) {
+        GuardTable.Site site = table().site(D_GIVE);
+        if (site.unguarded()) {
+            return in.$give(lhs);
+        }
+        Object[] args = {lhs};
+        site.pre(in, args);
+        Value result = in.$give(lhs);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $has(@NotNull String key) {
+        GuardTable.Site site = table().site(D_HAS_STRING);
+        if (site.unguarded()) {
+            return in.$has(key);
+        }
+        Object[] args = {key};
+        site.pre(in, args);
+        Value result = in.$has(key);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $has(@NotNull Value key) {
+        GuardTable.Site site = table().site(D_HAS_VALUE);
+        if (site.unguarded()) {
+            return in.$has(key);
+        }
+        Object[] args = {key};
+        site.pre(in, args);
+        Value result = in.$has(key);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $inc() {
+        GuardTable.Site site = table().site(D_INC);
+        if (site.unguarded()) {
+            return in.$inc();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        Value result = in.$inc();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $insert(@NotNull Value value, int position) {
+        GuardTable.Site site = table().site(D_INSERT);
+        if (site.unguarded()) {
+            return in.$insert(value, position);
+        }
+        Object[] args = {value, position};
+        site.pre(in, args);
+        Value result = in.$insert(value, position);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $isEmpty() {
+        GuardTable.Site site = table().site(D_IS_EMPTY);
+        if (site.unguarded()) {
+            return in.$isEmpty();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        Value result = in.$isEmpty();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $list() {
+        GuardTable.Site site = table().site(D_LIST);
+        if (site.unguarded()) {
+            return in.$list();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        Value result = in.$list();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $listen(@NotNull Pipeable pipeable) {
+        GuardTable.Site site = table().site(D_LISTEN_1);
+        if (site.unguarded()) {
+            return in.$listen(pipeable);
+        }
+        Object[] args = {pipeable};
+        site.pre(in, args);
+        Value result = in.$listen(pipeable);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $listen(@NotNull Pipeable pipeable, @NotNull String id) {
+        GuardTable.Site site = table().site(D_LISTEN_2);
+        if (site.unguarded()) {
+            return in.$listen(pipeable, id);
+        }
+        Object[] args = {pipeable, id};
+        site.pre(in, args);
+        Value result = in.$listen(pipeable, id);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $map() {
+        GuardTable.Site site = table().site(D_MAP);
+        if (site.unguarded()) {
+            return in.$map();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        Value result = in.$map();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $max(boolean parallel) {
+        GuardTable.Site site = table().site(D_MAX);
+        if (site.unguarded()) {
+            return in.$max(parallel);
+        }
+        Object[] args = {parallel};
+        site.pre(in, args);
+        Value result = in.$max(parallel);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $mimeType() {
+        GuardTable.Site site = table().site(D_MIME_TYPE);
+        if (site.unguarded()) {
+            return in.$mimeType();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        Value result = in.$mimeType();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $min(boolean parallel) {
+        GuardTable.Site site = table().site(D_MIN);
+        if (site.unguarded()) {
+            return in.$min(parallel);
+        }
+        Object[] args = {parallel};
+        site.pre(in, args);
+        Value result = in.$min(parallel);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $minus(@NotNull Value rhs) {
+        GuardTable.Site site = table().site(D_MINUS);
+        if (site.unguarded()) {
+            return in.$minus(rhs);
+        }
+        Object[] args = {rhs};
+        site.pre(in, args);
+        Value result = in.$minus(rhs);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $modulus(@NotNull Value rhs) {
+        GuardTable.Site site = table().site(D_MODULUS);
+        if (site.unguarded()) {
+            return in.$modulus(rhs);
+        }
+        Object[] args = {rhs};
+        site.pre(in, args);
+        Value result = in.$modulus(rhs);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $multiply(@NotNull Value v) {
+        GuardTable.Site site = table().site(D_MULTIPLY);
+        if (site.unguarded()) {
+            return in.$multiply(v);
+        }
+        Object[] args = {v};
+        site.pre(in, args);
+        Value result = in.$multiply(v);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $negate() {
+        GuardTable.Site site = table().site(D_NEGATE);
+        if (site.unguarded()) {
+            return in.$negate();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        Value result = in.$negate();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $notEquals(@Nullable Value other) {
+        GuardTable.Site site = table().site(D_NOT_EQUALS);
+        if (site.unguarded()) {
+            return in.$notEquals(other);
+        }
+        Object[] args = {other};
+        site.pre(in, args);
+        Value result = in.$notEquals(other);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $notify(@NotNull NotificationType type, @Nullable Value value) {
+        return in.$notify(type, value);
+    }
+
+    @NotNull
+    @Override
+    public Value $pairKey() {
+        GuardTable.Site site = table().site(D_PAIR_KEY);
+        if (site.unguarded()) {
+            return in.$pairKey();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        Value result = in.$pairKey();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $pairValue() {
+        GuardTable.Site site = table().site(D_PAIR_VALUE);
+        if (site.unguarded()) {
+            return in.$pairValue();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        Value result = in.$pairValue();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $pause() {
+        GuardTable.Site site = table().site(D_PAUSE);
+        if (site.unguarded()) {
+            return in.$pause();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        Value result = in.$pause();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $peek() {
+        GuardTable.Site site = table().site(D_PEEK);
+        if (site.unguarded()) {
+            return in.$peek();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        Value result = in.$peek();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $plus(@NotNull Value rhs) {
+        GuardTable.Site site = table().site(D_PLUS);
+        if (site.unguarded()) {
+            return in.$plus(rhs);
+        }
+        Object[] args = {rhs};
+        site.pre(in, args);
+        Value result = in.$plus(rhs);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $poll() {
+        GuardTable.Site site = table().site(D_POLL);
+        if (site.unguarded()) {
+            return in.$poll();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        Value result = in.$poll();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $pop() {
+        GuardTable.Site site = table().site(D_POP);
+        if (site.unguarded()) {
+            return in.$pop();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        Value result = in.$pop();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $prepend(@NotNull Value value) {
+        GuardTable.Site site = table().site(D_PREPEND);
+        if (site.unguarded()) {
+            return in.$prepend(value);
+        }
+        Object[] args = {value};
+        site.pre(in, args);
+        Value result = in.$prepend(value);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $product(boolean parallel) {
+        GuardTable.Site site = table().site(D_PRODUCT);
+        if (site.unguarded()) {
+            return in.$product(parallel);
+        }
+        Object[] args = {parallel};
+        site.pre(in, args);
+        Value result = in.$product(parallel);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $publish(@NotNull Value lhs) {
+        GuardTable.Site site = table().site(D_PUBLISH);
+        if (site.unguarded()) {
+            return in.$publish(lhs);
+        }
+        Object[] args = {lhs};
+        site.pre(in, args);
+        Value result = in.$publish(lhs);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $push(@NotNull Value lhs) {
+        GuardTable.Site site = table().site(D_PUSH);
+        if (site.unguarded()) {
+            return in.$push(lhs);
+        }
+        Object[] args = {lhs};
+        site.pre(in, args);
+        Value result = in.$push(lhs);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $read() {
+        GuardTable.Site site = table().site(D_READ_0);
+        if (site.unguarded()) {
+            return in.$read();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        Value result = in.$read();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $read(boolean blocking, boolean mutating) {
+        GuardTable.Site site = table().site(D_READ_2);
+        if (site.unguarded()) {
+            return in.$read(blocking, mutating);
+        }
+        Object[] args = {blocking, mutating};
+        site.pre(in, args);
+        Value result = in.$read(blocking, mutating);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $remove(@NotNull Value valueToRemove) {
+        GuardTable.Site site = table().site(D_REMOVE);
+        if (site.unguarded()) {
+            return in.$remove(valueToRemove);
+        }
+        Object[] args = {valueToRemove};
+        site.pre(in, args);
+        Value result = in.$remove(valueToRemove);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $removeByKey(@NotNull String key) {
+        GuardTable.Site site = table().site(D_REMOVE_BY_KEY);
+        if (site.unguarded()) {
+            return in.$removeByKey(key);
+        }
+        Object[] args = {key};
+        site.pre(in, args);
+        Value result = in.$removeByKey(key);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $reverse(boolean parallel) {
+        GuardTable.Site site = table().site(D_REVERSE);
+        if (site.unguarded()) {
+            return in.$reverse(parallel);
+        }
+        Object[] args = {parallel};
+        site.pre(in, args);
+        Value result = in.$reverse(parallel);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public String $serialized() {
+        GuardTable.Site site = table().site(D_SERIALIZED);
+        if (site.unguarded()) {
+            return in.$serialized();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        String result = in.$serialized();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $set(@NotNull Value key, @NotNull Object value) {
+        GuardTable.Site site = table().site(D_SET);
+        if (site.unguarded()) {
+            return in.$set(key, value);
+        }
+        Object[] args = {key, value};
+        site.pre(in, args);
+        Value result = in.$set(key, value);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Override
+    public void $signal(@NotNull Signal signal) {
+        GuardTable.Site site = table().site(D_SIGNAL);
+        if (site.unguarded()) {
+            in.$signal(signal);
+            return;
+        }
+        Object[] args = {signal};
+        site.pre(in, args);
+        in.$signal(signal);
+        site.post(in, args, null);
+    }
+
+    @NotNull
+    @Override
+    public Value $size() {
+        GuardTable.Site site = table().site(D_SIZE);
+        if (site.unguarded()) {
+            return in.$size();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        Value result = in.$size();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $sort(boolean parallel) {
+        GuardTable.Site site = table().site(D_SORT);
+        if (site.unguarded()) {
+            return in.$sort(parallel);
+        }
+        Object[] args = {parallel};
+        site.pre(in, args);
+        Value result = in.$sort(parallel);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $split(boolean parallel) {
+        GuardTable.Site site = table().site(D_SPLIT);
+        if (site.unguarded()) {
+            return in.$split(parallel);
+        }
+        Object[] args = {parallel};
+        site.pre(in, args);
+        Value result = in.$split(parallel);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $start() {
+        GuardTable.Site site = table().site(D_START);
+        if (site.unguarded()) {
+            return in.$start();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        Value result = in.$start();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $state() {
+        GuardTable.Site site = table().site(D_STATE);
+        if (site.unguarded()) {
+            return in.$state();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        Value result = in.$state();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $stop() {
+        GuardTable.Site site = table().site(D_STOP);
+        if (site.unguarded()) {
+            return in.$stop();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        Value result = in.$stop();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $stream(boolean parallel) {
+        GuardTable.Site site = table().site(D_STREAM);
+        if (site.unguarded()) {
+            return in.$stream(parallel);
+        }
+        Object[] args = {parallel};
+        site.pre(in, args);
+        Value result = in.$stream(parallel);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $subscribe(@NotNull Pipeable subscription) {
+        GuardTable.Site site = table().site(D_SUBSCRIBE_1);
+        if (site.unguarded()) {
+            return in.$subscribe(subscription);
+        }
+        Object[] args = {subscription};
+        site.pre(in, args);
+        Value result = in.$subscribe(subscription);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $subscribe(@NotNull Pipeable subscription, @NotNull String key) {
+        GuardTable.Site site = table().site(D_SUBSCRIBE_2);
+        if (site.unguarded()) {
+            return in.$subscribe(subscription, key);
+        }
+        Object[] args = {subscription, key};
+        site.pre(in, args);
+        Value result = in.$subscribe(subscription, key);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $sum(boolean parallel) {
+        GuardTable.Site site = table().site(D_SUM);
+        if (site.unguarded()) {
+            return in.$sum(parallel);
+        }
+        Object[] args = {parallel};
+        site.pre(in, args);
+        Value result = in.$sum(parallel);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Type $type() {
+        GuardTable.Site site = table().site(D_TYPE);
+        if (site.unguarded()) {
+            return in.$type();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        Type result = in.$type();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $unique(boolean parallel) {
+        GuardTable.Site site = table().site(D_UNIQUE);
+        if (site.unguarded()) {
+            return in.$unique(parallel);
+        }
+        Object[] args = {parallel};
+        site.pre(in, args);
+        Value result = in.$unique(parallel);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $unpause() {
+        GuardTable.Site site = table().site(D_UNPAUSE);
+        if (site.unguarded()) {
+            return in.$unpause();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        Value result = in.$unpause();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Nullable
+    @Override
+    public Value $unwrap() {
+        return in.$unwrap();
+    }
+
+    @NotNull
+    @Override
+    public Value $write(@NotNull Value value) {
+        GuardTable.Site site = table().site(D_WRITE_1);
+        if (site.unguarded()) {
+            return in.$write(value);
+        }
+        Object[] args = {value};
+        site.pre(in, args);
+        Value result = in.$write(value);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value $write(@NotNull Value value, boolean blocking, boolean mutating) {
+        GuardTable.Site site = table().site(D_WRITE_3);
+        if (site.unguarded()) {
+            return in.$write(value, blocking, mutating);
+        }
+        Object[] args = {value, blocking, mutating};
+        site.pre(in, args);
+        Value result = in.$write(value, blocking, mutating);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Override
+    public boolean collection() {
+        GuardTable.Site site = table().site(COLLECTION);
+        if (site.unguarded()) {
+            return in.collection();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        boolean result = in.collection();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Override
+    public int compareTo(@NotNull Value o) {
+        GuardTable.Site site = table().site(COMPARE_TO);
+        if (site.unguarded()) {
+            return in.compareTo(o);
+        }
+        Object[] args = {o};
+        site.pre(in, args);
+        int result = in.compareTo(o);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Nullable
+    @Override
+    public SubType constraintLabel() {
+        GuardTable.Site site = table().site(CONSTRAINT_LABEL);
+        if (site.unguarded()) {
+            return in.constraintLabel();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        SubType result = in.constraintLabel();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value debug() {
+        GuardTable.Site site = table().site(DEBUG_0);
+        if (site.unguarded()) {
+            return in.debug();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        Value result = in.debug();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value debug(@NotNull Object message) {
+        GuardTable.Site site = table().site(DEBUG_1);
+        if (site.unguarded()) {
+            return in.debug(message);
+        }
+        Object[] args = {message};
+        site.pre(in, args);
+        Value result = in.debug(message);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value debugf(@NotNull String message, Object... values) {
+        GuardTable.Site site = table().site(DEBUGF);
+        if (site.unguarded()) {
+            return in.debugf(message, values);
+        }
+        Object[] args = {message, values};
+        site.pre(in, args);
+        Value result = in.debugf(message, values);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Override
+    public boolean decimal() {
+        GuardTable.Site site = table().site(DECIMAL);
+        if (site.unguarded()) {
+            return in.decimal();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        boolean result = in.decimal();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Override
+    public boolean dynamic() {
+        GuardTable.Site site = table().site(DYNAMIC);
+        if (site.unguarded()) {
+            return in.dynamic();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        boolean result = in.dynamic();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Override
+    public boolean equalsString(@NotNull String s) {
+        GuardTable.Site site = table().site(EQUALS_STRING);
+        if (site.unguarded()) {
+            return in.equalsString(s);
+        }
+        Object[] args = {s};
+        site.pre(in, args);
+        boolean result = in.equalsString(s);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value err() {
+        GuardTable.Site site = table().site(ERR);
+        if (site.unguarded()) {
+            return in.err();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        Value result = in.err();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value error() {
+        GuardTable.Site site = table().site(ERROR_0);
+        if (site.unguarded()) {
+            return in.error();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        Value result = in.error();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value error(@NotNull Throwable exception) {
+        GuardTable.Site site = table().site(ERROR_THROWABLE);
+        if (site.unguarded()) {
+            return in.error(exception);
+        }
+        Object[] args = {exception};
+        site.pre(in, args);
+        Value result = in.error(exception);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value error(@NotNull Object message) {
+        GuardTable.Site site = table().site(ERROR_OBJECT);
+        if (site.unguarded()) {
+            return in.error(message);
+        }
+        Object[] args = {message};
+        site.pre(in, args);
+        Value result = in.error(message);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value errorf(@NotNull String message, Object... values) {
+        GuardTable.Site site = table().site(ERRORF);
+        if (site.unguarded()) {
+            return in.errorf(message, values);
+        }
+        Object[] args = {message, values};
+        site.pre(in, args);
+        Value result = in.errorf(message, values);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public StateMachine<ResourceState, Signal> getStateMachine() {
+        GuardTable.Site site = table().site(GET_STATE_MACHINE);
+        if (site.unguarded()) {
+            return in.getStateMachine();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        StateMachine<ResourceState, Signal> result = in.getStateMachine();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Override
+    public boolean infinite() {
+        GuardTable.Site site = table().site(INFINITE);
+        if (site.unguarded()) {
+            return in.infinite();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        boolean result = in.infinite();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value info() {
+        GuardTable.Site site = table().site(INFO_0);
+        if (site.unguarded()) {
+            return in.info();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        Value result = in.info();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value info(@NotNull Object message) {
+        GuardTable.Site site = table().site(INFO_1);
+        if (site.unguarded()) {
+            return in.info(message);
+        }
+        Object[] args = {message};
+        site.pre(in, args);
+        Value result = in.info(message);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value infof(@NotNull String message, Object... values) {
+        GuardTable.Site site = table().site(INFOF);
+        if (site.unguarded()) {
+            return in.infof(message, values);
+        }
+        Object[] args = {message, values};
+        site.pre(in, args);
+        Value result = in.infof(message, values);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Override
+    public boolean integer() {
+        GuardTable.Site site = table().site(INTEGER);
+        if (site.unguarded()) {
+            return in.integer();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        boolean result = in.integer();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Override
+    public boolean is(@NotNull Type... types) {
+        GuardTable.Site site = table().site(IS);
+        if (site.unguarded()) {
+            return in.is(types);
+        }
+        Object[] args = {types};
+        site.pre(in, args);
+        boolean result = in.is(types);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Override
+    public boolean isBoolean() {
+        GuardTable.Site site = table().site(IS_BOOLEAN);
+        if (site.unguarded()) {
+            return in.isBoolean();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        boolean result = in.isBoolean();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        GuardTable.Site site = table().site(IS_EMPTY);
+        if (site.unguarded()) {
+            return in.isEmpty();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        boolean result = in.isEmpty();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Override
+    public boolean isFalse() {
+        GuardTable.Site site = table().site(IS_FALSE);
+        if (site.unguarded()) {
+            return in.isFalse();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        boolean result = in.isFalse();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Override
+    public boolean isNull() {
+        GuardTable.Site site = table().site(IS_NULL);
+        if (site.unguarded()) {
+            return in.isNull();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        boolean result = in.isNull();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Override
+    public boolean isTrue() {
+        GuardTable.Site site = table().site(IS_TRUE);
+        if (site.unguarded()) {
+            return in.isTrue();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        boolean result = in.isTrue();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Override
+    public boolean isVoid() {
+        GuardTable.Site site = table().site(IS_VOID);
+        if (site.unguarded()) {
+            return in.isVoid();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        boolean result = in.isVoid();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public JsonArray jsonArray() {
+        GuardTable.Site site = table().site(JSON_ARRAY);
+        if (site.unguarded()) {
+            return in.jsonArray();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        JsonArray result = in.jsonArray();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Override
+    public boolean list() {
+        GuardTable.Site site = table().site(LIST);
+        if (site.unguarded()) {
+            return in.list();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        boolean result = in.list();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Override
+    public boolean map() {
+        GuardTable.Site site = table().site(MAP);
+        if (site.unguarded()) {
+            return in.map();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        boolean result = in.map();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Nullable
+    @Override
+    public <T> T meta(@NotNull MetaKey key) {
+        GuardTable.Site site = table().site(META_1);
+        if (site.unguarded()) {
+            return in.meta(key);
+        }
+        Object[] args = {key};
+        site.pre(in, args);
+        T result = in.meta(key);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Override
+    public <T> void meta(@NotNull MetaKey key, @NotNull T value) {
+        GuardTable.Site site = table().site(META_2);
+        if (site.unguarded()) {
+            in.meta(key, value);
+            return;
+        }
+        Object[] args = {key, value};
+        site.pre(in, args);
+        in.meta(key, value);
+        site.post(in, args, null);
+    }
+
+    @Nullable
+    @Override
+    public String metaAttribute(@NotNull MetaKey key) {
+        GuardTable.Site site = table().site(META_ATTRIBUTE_1);
+        if (site.unguarded()) {
+            return in.metaAttribute(key);
+        }
+        Object[] args = {key};
+        site.pre(in, args);
+        String result = in.metaAttribute(key);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Override
+    public void metaAttribute(@NotNull MetaKey key, @NotNull String value) {
+        GuardTable.Site site = table().site(META_ATTRIBUTE_2);
+        if (site.unguarded()) {
+            in.metaAttribute(key, value);
+            return;
+        }
+        Object[] args = {key, value};
+        site.pre(in, args);
+        in.metaAttribute(key, value);
+        site.post(in, args, null);
+    }
+
+    @Override
+    public boolean negative() {
+        GuardTable.Site site = table().site(NEGATIVE);
+        if (site.unguarded()) {
+            return in.negative();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        boolean result = in.negative();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Override
+    public boolean neitherTrueNorFalse() {
+        GuardTable.Site site = table().site(NEITHER_TRUE_NOR_FALSE);
+        if (site.unguarded()) {
+            return in.neitherTrueNorFalse();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        boolean result = in.neitherTrueNorFalse();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Override
+    public boolean number() {
+        GuardTable.Site site = table().site(NUMBER);
+        if (site.unguarded()) {
+            return in.number();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        boolean result = in.number();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Value out() {
+        GuardTable.Site site = table().site(OUT);
+        if (site.unguarded()) {
+            return in.out();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        Value result = in.out();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Override
+    public boolean pair() {
+        GuardTable.Site site = table().site(PAIR);
+        if (site.unguarded()) {
+            return in.pair();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        boolean result = in.pair();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Override
+    public boolean positive() {
+        GuardTable.Site site = table().site(POSITIVE);
+        if (site.unguarded()) {
+            return in.positive();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        boolean result = in.positive();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Nullable
+    @Override
+    public TypePrediction predictType() {
+        GuardTable.Site site = table().site(PREDICT_TYPE);
+        if (site.unguarded()) {
+            return in.predictType();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        TypePrediction result = in.predictType();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Override
+    public boolean queue() {
+        GuardTable.Site site = table().site(QUEUE);
+        if (site.unguarded()) {
+            return in.queue();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        boolean result = in.queue();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Override
+    public boolean range() {
+        GuardTable.Site site = table().site(RANGE);
+        if (site.unguarded()) {
+            return in.range();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        boolean result = in.range();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Nullable
+    @Override
+    public <R> R remove(@NotNull Object valueToRemove) {
+        GuardTable.Site site = table().site(REMOVE);
+        if (site.unguarded()) {
+            return in.remove(valueToRemove);
+        }
+        Object[] args = {valueToRemove};
+        site.pre(in, args);
+        R result = in.remove(valueToRemove);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Override
+    public int sign() {
+        GuardTable.Site site = table().site(SIGN);
+        if (site.unguarded()) {
+            return in.sign();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        int result = in.sign();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Override
+    public boolean singleValue() {
+        GuardTable.Site site = table().site(SINGLE_VALUE);
+        if (site.unguarded()) {
+            return in.singleValue();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        boolean result = in.singleValue();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Override
+    public int size() {
+        GuardTable.Site site = table().site(SIZE);
+        if (site.unguarded()) {
+            return in.size();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        int result = in.size();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Nullable
+    @Override
+    public Source source() {
+        GuardTable.Site site = table().site(SOURCE);
+        if (site.unguarded()) {
+            return in.source();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        Source result = in.source();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Stream<Value> stream(boolean parallel) {
+        GuardTable.Site site = table().site(STREAM);
+        if (site.unguarded()) {
+            return in.stream(parallel);
+        }
+        Object[] args = {parallel};
+        site.pre(in, args);
+        Stream<Value> result = in.stream(parallel);
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Override
+    public boolean string() {
+        GuardTable.Site site = table().site(STRING);
+        if (site.unguarded()) {
+            return in.string();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        boolean result = in.string();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public String toDollarScript() {
+        GuardTable.Site site = table().site(TO_DOLLAR_SCRIPT);
+        if (site.unguarded()) {
+            return in.toDollarScript();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        String result = in.toDollarScript();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Override
+    public double toDouble() {
+        GuardTable.Site site = table().site(TO_DOUBLE);
+        if (site.unguarded()) {
+            return in.toDouble();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        double result = in.toDouble();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public String toHumanString() {
+        GuardTable.Site site = table().site(TO_HUMAN_STRING);
+        if (site.unguarded()) {
+            return in.toHumanString();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        String result = in.toHumanString();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Override
+    public int toInteger() {
+        GuardTable.Site site = table().site(TO_INTEGER);
+        if (site.unguarded()) {
+            return in.toInteger();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        int result = in.toInteger();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public <K extends Comparable<K>, V> ImmutableMap<K, V> toJavaMap() {
+        GuardTable.Site site = table().site(TO_JAVA_MAP);
+        if (site.unguarded()) {
+            return in.toJavaMap();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        ImmutableMap<K, V> result = in.toJavaMap();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Nullable
+    @Override
+    public <R> R toJavaObject() {
+        GuardTable.Site site = table().site(TO_JAVA_OBJECT);
+        if (site.unguarded()) {
+            return in.toJavaObject();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        R result = in.toJavaObject();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Nullable
+    @Override
+    public ImmutableJsonObject toJsonObject() {
+        GuardTable.Site site = table().site(TO_JSON_OBJECT);
+        if (site.unguarded()) {
+            return in.toJsonObject();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        ImmutableJsonObject result = in.toJsonObject();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public String toJsonString() {
+        GuardTable.Site site = table().site(TO_JSON_STRING);
+        if (site.unguarded()) {
+            return in.toJsonString();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        String result = in.toJsonString();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Nullable
+    @Override
+    public Object toJsonType() {
+        GuardTable.Site site = table().site(TO_JSON_TYPE);
+        if (site.unguarded()) {
+            return in.toJsonType();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        Object result = in.toJsonType();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public <T> ImmutableList<T> toList() {
+        GuardTable.Site site = table().site(TO_LIST);
+        if (site.unguarded()) {
+            return in.toList();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        ImmutableList<T> result = in.toList();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public long toLong() {
+        GuardTable.Site site = table().site(TO_LONG);
+        if (site.unguarded()) {
+            return in.toLong();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        long result = in.toLong();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Nullable
+    @Override
+    public Number toNumber() {
+        GuardTable.Site site = table().site(TO_NUMBER);
+        if (site.unguarded()) {
+            return in.toNumber();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        Number result = in.toNumber();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public InputStream toStream() {
+        GuardTable.Site site = table().site(TO_STREAM);
+        if (site.unguarded()) {
+            return in.toStream();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        InputStream result = in.toStream();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        return in.toString();
+    }
+
+    @Nullable
+    @Override
+    public ImmutableList<String> toStrings() {
+        GuardTable.Site site = table().site(TO_STRINGS);
+        if (site.unguarded()) {
+            return in.toStrings();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        ImmutableList<String> result = in.toStrings();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public ImmutableList<Value> toVarList() {
+        GuardTable.Site site = table().site(TO_VAR_LIST);
+        if (site.unguarded()) {
+            return in.toVarList();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        ImmutableList<Value> result = in.toVarList();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public ImmutableMap<Value, Value> toVarMap() {
+        GuardTable.Site site = table().site(TO_VAR_MAP);
+        if (site.unguarded()) {
+            return in.toVarMap();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        ImmutableMap<Value, Value> result = in.toVarMap();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public String toYaml() {
+        GuardTable.Site site = table().site(TO_YAML);
+        if (site.unguarded()) {
+            return in.toYaml();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        String result = in.toYaml();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Override
+    public boolean truthy() {
+        GuardTable.Site site = table().site(TRUTHY);
+        if (site.unguarded()) {
+            return in.truthy();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        boolean result = in.truthy();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @NotNull
+    @Deprecated
+    @Override
+    public Type type() {
+        GuardTable.Site site = table().site(TYPE);
+        if (site.unguarded()) {
+            return in.type();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        Type result = in.type();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Override
+    public boolean uri() {
+        GuardTable.Site site = table().site(URI);
+        if (site.unguarded()) {
+            return in.uri();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        boolean result = in.uri();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Override
+    public boolean zero() {
+        GuardTable.Site site = table().site(ZERO);
+        if (site.unguarded()) {
+            return in.zero();
+        }
+        Object[] args = NO_ARGS;
+        site.pre(in, args);
+        boolean result = in.zero();
+        site.post(in, args, result);
+        return result;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object obj) {
+        return in.equals(obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return in.hashCode();
+    }
+
+    @NotNull
+    private GuardTable table() {
+        GuardTable result = table;
+        if (result == null) {
+            result = tables.get(type);
+            table = result;
+        }
+        return result;
+    }
+}
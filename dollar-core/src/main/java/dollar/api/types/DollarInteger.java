@@ -121,10 +121,16 @@ public class DollarInteger extends AbstractDollarSingleValue<Long> {
         return DollarFactory.fromValue(-value);
     }
 
+    @NotNull
+    @Override
+    DollarInteger fresh() {
+        return new DollarInteger(value);
+    }
+
     @NotNull
     @Override
     public Type $type() {
-        return new Type(Type._INTEGER, constraintLabel());
+        return constrainedType(Type._INTEGER);
     }
 
     @Override
@@ -16,6 +16,7 @@
 
 package dollar.api.types;
 
+import dollar.api.DollarException;
 import dollar.api.DollarStatic;
 import dollar.api.MetaKey;
 import dollar.api.Pipeable;
@@ -23,6 +24,7 @@ import dollar.api.SubType;
 import dollar.api.Value;
 import dollar.api.exceptions.LambdaRecursionException;
 import dollar.api.execution.DollarExecutor;
+import dollar.api.execution.Propagation;
 import dollar.api.plugin.Plugins;
 import dollar.api.types.meta.MetaConstants;
 import org.jetbrains.annotations.NotNull;
@@ -36,14 +38,12 @@ import java.util.Objects;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
-public class DollarLambda implements java.lang.reflect.InvocationHandler {
+public class DollarLambda implements java.lang.reflect.InvocationHandler, Propagation.Node {
 
     private static final int MAX_STACK_DEPTH = 100;
     @Nullable
     private static final DollarExecutor executor = Plugins.sharedInstance(DollarExecutor.class);
     @NotNull
-    private static final ThreadLocal<List<DollarLambda>> notifyStack = ThreadLocal.withInitial(ArrayList::new);
-    @NotNull
     private static final ThreadLocal<List<DollarLambda>> stack = ThreadLocal.withInitial(() -> new ArrayList<>());
     @NotNull
     protected final Pipeable lambda;
@@ -54,6 +54,7 @@ public class DollarLambda implements java.lang.reflect.InvocationHandler {
     private final Value in;
     @NotNull
     private final ConcurrentHashMap<String, Pipeable> listeners = new ConcurrentHashMap<>();
+    private volatile int height;
 
     public DollarLambda(@NotNull Pipeable lambda) {
         this(lambda, true);
@@ -86,6 +87,25 @@ public class DollarLambda implements java.lang.reflect.InvocationHandler {
         }
     }
 
+    @Override
+    public int height() {
+        return height;
+    }
+
+    @Override
+    public void height(int height) {
+        this.height = height;
+    }
+
+    /**
+     * A lambda notified in a loop ignores the notification rather than failing, so lambdas listening to each other
+     * settle after one pass.
+     */
+    @Override
+    public boolean ignoresLoops() {
+        return true;
+    }
+
     @NotNull
     public Value execute() throws Exception {return executor.executeNow(() -> lambda.pipe(in)).get();}
 
@@ -174,16 +194,19 @@ public class DollarLambda implements java.lang.reflect.InvocationHandler {
                 listeners.put(listenerId, (Pipeable) args[0]);
                 return DollarStatic.$(listenerId);
             } else if ("$notify".equals(method.getName())) {
-                if (notifyStack.get().contains(this)) {
-                    //throw new IllegalStateException("Recursive notify loop detected");
-                    return proxy;
-                }
-                notifyStack.get().add(this);
-                final Value value = execute();
-                for (Pipeable listener : listeners.values()) {
-                    listener.pipe(value);
-                }
-                notifyStack.get().remove(this);
+                //A lambda notified in a loop is ignored, see ignoresLoops()
+                Propagation.current().schedule(this, () -> {
+                    try {
+                        final Value value = execute();
+                        for (Pipeable listener : listeners.values()) {
+                            listener.pipe(value);
+                        }
+                    } catch (RuntimeException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        throw new DollarException(e);
+                    }
+                });
                 return proxy;
             } else if ("$remove".equals(method.getName())) {
                 listeners.remove(args[0].toString());
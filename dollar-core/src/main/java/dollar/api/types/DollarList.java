@@ -23,7 +23,9 @@ import dollar.api.DollarStatic;
 import dollar.api.Pipeable;
 import dollar.api.Type;
 import dollar.api.Value;
+import dollar.api.collections.PersistentVector;
 import dollar.api.exceptions.DollarFailureException;
+import dollar.api.execution.Propagation;
 import dollar.api.guard.Guarded;
 import dollar.api.guard.NotNullGuard;
 import dollar.api.json.ImmutableJsonObject;
@@ -50,13 +52,35 @@ public class DollarList extends AbstractDollar {
     @NotNull
     private static final Logger log = LoggerFactory.getLogger(DollarList.class);
 
+    /**
+     * A {@link NumericList} if every element is an integer or every element is a decimal, otherwise either an {@link
+     * ImmutableList} or, for lists of {@link DollarFactory#PERSISTENT_THRESHOLD} or more elements, a {@link
+     * PersistentVector} which can be appended to and updated without copying.
+     */
     @NotNull
-    private final ImmutableList<Value> list;
+    private final List<Value> list;
+    /**
+     * The number of leading elements which are known to be fixed, only maintained for persistent lists so that
+     * appending does not need to fix (i.e. visit) every element.
+     */
+    private final int fixed;
 
     DollarList(@NotNull JsonArray array) {
         this(ImmutableList.copyOf(array.toList()));
     }
 
+    private DollarList(@NotNull PersistentVector<Value> list, int fixed) {
+        super();
+        this.list = list;
+        this.fixed = fixed;
+    }
+
+    DollarList(@NotNull NumericList list) {
+        super();
+        this.list = list;
+        fixed = 0;
+    }
+
     DollarList(@NotNull ImmutableList<?> list) {
         super();
         List<Value> l = new ArrayList<>();
@@ -71,7 +95,8 @@ public class DollarList extends AbstractDollar {
                 l.add(DollarFactory.fromValue(value));
             }
         }
-        this.list = ImmutableList.copyOf(l);
+        this.list = store(l);
+        fixed = 0;
     }
 
     DollarList(@NotNull Object[] values) {
@@ -88,7 +113,24 @@ public class DollarList extends AbstractDollar {
                 l.add(DollarFactory.fromValue(value));
             }
         }
-        list = ImmutableList.copyOf(l);
+        list = store(l);
+        fixed = 0;
+    }
+
+    @NotNull
+    private static List<Value> store(@NotNull List<Value> values) {
+        NumericList numeric = NumericList.copyOf(values);
+        if (numeric != null) {
+            return numeric;
+        } else if (values.size() >= DollarFactory.PERSISTENT_THRESHOLD) {
+            return PersistentVector.copyOf(values);
+        } else {
+            return ImmutableList.copyOf(values);
+        }
+    }
+
+    private static boolean retained(@NotNull Value value) {
+        return value.dynamic() || !value.isVoid();
     }
 
     @NotNull
@@ -101,6 +143,18 @@ public class DollarList extends AbstractDollar {
     @NotNull
     @Override
     public Value $append(@NotNull Value value) {
+        if (list instanceof NumericList) {
+            NumericList newList = ((NumericList) list).append(value);
+            if (newList != null) {
+                return DollarFactory.wrap(new DollarList(newList));
+            }
+        }
+        if (list instanceof PersistentVector) {
+            Value result = appendPersistent(value);
+            if (result != null) {
+                return result;
+            }
+        }
 
         final ArrayList<Value> newList = new ArrayList<>(toVarList());
         if (value.list()) {
@@ -111,6 +165,35 @@ public class DollarList extends AbstractDollar {
         return DollarFactory.fromValue(newList);
     }
 
+    /**
+     * Gives the same result as {@link #$append(Value)} without copying, only the elements added since the last append
+     * need fixing.
+     *
+     * @return the new list or null if an element fixed to void, in which case the list must be rebuilt
+     */
+    @Nullable
+    private Value appendPersistent(@NotNull Value value) {
+        PersistentVector<Value> newList = (PersistentVector<Value>) list;
+        for (int i = fixed; i < newList.size(); i++) {
+            Value fixedValue = newList.get(i).$fix(1, false);
+            if (!retained(fixedValue)) {
+                return null;
+            }
+            newList = newList.with(i, fixedValue);
+        }
+        int newFixed = newList.size();
+        if (value.list()) {
+            for (Value v : value.toVarList()) {
+                if (retained(v)) {
+                    newList = newList.append(v);
+                }
+            }
+        } else if (retained(value)) {
+            newList = newList.append(value);
+        }
+        return DollarFactory.wrap(new DollarList(newList, newFixed));
+    }
+
     @NotNull
     @Override
     public Value $as(@NotNull Type type) {
@@ -129,6 +212,18 @@ public class DollarList extends AbstractDollar {
         }
     }
 
+    @NotNull
+    @Override
+    public Value $avg(boolean parallel) {
+        if (list instanceof NumericList) {
+            Value result = ((NumericList) list).avg();
+            if (result != null) {
+                return result;
+            }
+        }
+        return super.$avg(parallel);
+    }
+
     @NotNull
     @Override
     public Value $containsKey(@NotNull Value value) {
@@ -220,6 +315,30 @@ public class DollarList extends AbstractDollar {
         return DollarStatic.$(key);
     }
 
+    @NotNull
+    @Override
+    public Value $max(boolean parallel) {
+        if (list instanceof NumericList) {
+            Value result = ((NumericList) list).max();
+            if (result != null) {
+                return result;
+            }
+        }
+        return super.$max(parallel);
+    }
+
+    @NotNull
+    @Override
+    public Value $min(boolean parallel) {
+        if (list instanceof NumericList) {
+            Value result = ((NumericList) list).min();
+            if (result != null) {
+                return result;
+            }
+        }
+        return super.$min(parallel);
+    }
+
     @NotNull
     @Override
     public Value $minus(@NotNull Value rhs) {
@@ -305,12 +424,17 @@ public class DollarList extends AbstractDollar {
     @NotNull
     @Override
     public Value $set(@NotNull Value key, @NotNull Object value) {
-        ArrayList<Value> newVal = new ArrayList<>(list);
-        if (key.integer()) {
-            newVal.set(key.toInteger(), DollarFactory.fromValue(value));
-        } else {
+        if (!key.integer()) {
             throw new DollarFailureException(ErrorType.INVALID_LIST_OPERATION);
         }
+        Value newValue = DollarFactory.fromValue(value);
+        if ((list instanceof PersistentVector) && retained(newValue)) {
+            int index = key.toInteger();
+            return DollarFactory.wrap(new DollarList(((PersistentVector<Value>) list).with(index, newValue),
+                                                     Math.min(fixed, index)));
+        }
+        ArrayList<Value> newVal = new ArrayList<>(list);
+        newVal.set(key.toInteger(), newValue);
         return DollarFactory.fromValue(newVal);
     }
 
@@ -320,6 +444,15 @@ public class DollarList extends AbstractDollar {
         return DollarStatic.$(list.size());
     }
 
+    @NotNull
+    @Override
+    public Value $sort(boolean parallel) {
+        if (list instanceof NumericList) {
+            return DollarFactory.fromStream(((NumericList) list).sorted().stream());
+        }
+        return super.$sort(parallel);
+    }
+
     @NotNull
     @Override
     public Value $stream(boolean parallel) {
@@ -332,10 +465,22 @@ public class DollarList extends AbstractDollar {
         return DollarFactory.fromStream(stream);
     }
 
+    @NotNull
+    @Override
+    public Value $sum(boolean parallel) {
+        if (list instanceof NumericList) {
+            Value result = ((NumericList) list).sum();
+            if (result != null) {
+                return result;
+            }
+        }
+        return super.$sum(parallel);
+    }
+
     @NotNull
     @Override
     public Type $type() {
-        return new Type(Type._LIST, constraintLabel());
+        return constrainedType(Type._LIST);
     }
 
     @Override
@@ -500,7 +645,7 @@ public class DollarList extends AbstractDollar {
     @NotNull
     @Override
     public Value $fix(int depth, boolean parallel) {
-        if (depth < 1) {
+        if ((depth < 1) || (list instanceof NumericList)) {
             if (DollarStatic.getConfig().debugParallel()) {
                 log.info("Fixing done in {}", parallel ? "parallel" : "serial");
             }
@@ -533,18 +678,31 @@ public class DollarList extends AbstractDollar {
 
     @Override
     public Value $notify(NotificationType type, Value value) {
-        list.forEach(member -> member.$notify(NotificationType.UNARY_VALUE_CHANGE, value));
+        Propagation.current().batch(
+                () -> list.forEach(member -> member.$notify(NotificationType.UNARY_VALUE_CHANGE, value)));
         return this;
     }
 
     @NotNull
     @Override
     public Value $reverse(boolean parallel) {
+        if (list instanceof NumericList) {
+            return DollarFactory.wrap(new DollarList(((NumericList) list).reversed()));
+        }
         ArrayList<Value> newList = new ArrayList<>(list);
         Collections.reverse(newList);
         return DollarFactory.wrap(new DollarList(ImmutableList.copyOf(newList)));
     }
 
+    @NotNull
+    @Override
+    public Value $unique(boolean parallel) {
+        if (list instanceof NumericList) {
+            return DollarFactory.fromStream(((NumericList) list).unique().stream());
+        }
+        return super.$unique(parallel);
+    }
+
     @NotNull
     @Override
     public Value $write(@NotNull Value value, boolean blocking, boolean mutating) {
@@ -565,8 +723,6 @@ public class DollarList extends AbstractDollar {
     public boolean equals(@Nullable Object obj) {
         if (obj == null) {
             return false;
-        } else if (obj instanceof ImmutableList) {
-            return list.equals(obj);
         } else if (obj instanceof List) {
             return list.equals(obj);
         } else if (obj instanceof Value) {
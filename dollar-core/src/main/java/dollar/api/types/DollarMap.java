@@ -22,7 +22,9 @@ import dollar.api.DollarStatic;
 import dollar.api.Pipeable;
 import dollar.api.Type;
 import dollar.api.Value;
+import dollar.api.collections.PersistentMap;
 import dollar.api.exceptions.DollarFailureException;
+import dollar.api.execution.Propagation;
 import dollar.api.json.ImmutableJsonObject;
 import dollar.api.json.JsonObject;
 import org.jetbrains.annotations.NotNull;
@@ -51,7 +53,12 @@ public class DollarMap extends AbstractDollar {
      */
     protected final
     @NotNull
-    LinkedHashMap<Value, Value> map;
+    Map<Value, Value> map;
+    /**
+     * The number of leading positions (see {@link PersistentMap#positions()}) whose values are known to be fixed, only
+     * maintained for persistent maps so that appending does not need to fix (i.e. visit) every value.
+     */
+    private final int fixed;
 
 
     /**
@@ -64,32 +71,53 @@ public class DollarMap extends AbstractDollar {
      */
     DollarMap(@NotNull JsonObject o) {
         super();
-        map = mapToVarMap(o.toMap());
+        map = store(mapToVarMap(o.toMap()));
+        fixed = 0;
     }
 
     public DollarMap(@NotNull Map<?, ?> o) {
         super();
-        map = mapToVarMap(o);
+        map = store(mapToVarMap(o));
+        fixed = 0;
     }
 
     public DollarMap(@NotNull LinkedHashMap<Value, Value> o) {
         super();
-        map = deepClone(o);
+        map = store(deepClone(o));
+        fixed = 0;
     }
 
     public DollarMap(@NotNull ImmutableMap<Value, Value> o) {
         super();
-        map = mapToVarMap(o);
+        map = store(mapToVarMap(o));
+        fixed = 0;
     }
 
     public DollarMap(@NotNull ImmutableJsonObject immutableJsonObject) {
         super();
-        map = mapToVarMap(immutableJsonObject.toMap());
+        map = store(mapToVarMap(immutableJsonObject.toMap()));
+        fixed = 0;
     }
 
     public DollarMap() {
         super();
         map = new LinkedHashMap<>();
+        fixed = 0;
+    }
+
+    private DollarMap(@NotNull PersistentMap<Value, Value> map, int fixed) {
+        super();
+        this.map = map;
+        this.fixed = fixed;
+    }
+
+    @NotNull
+    private static Map<Value, Value> store(@NotNull LinkedHashMap<Value, Value> values) {
+        if (values.size() >= DollarFactory.PERSISTENT_THRESHOLD) {
+            return PersistentMap.copyOf(values);
+        } else {
+            return values;
+        }
     }
 
     @NotNull
@@ -101,6 +129,17 @@ public class DollarMap extends AbstractDollar {
     @NotNull
     @Override
     public Value $append(@NotNull Value value) {
+        if (map instanceof PersistentMap) {
+            //Same result as below, but only the values added since the last append need fixing
+            PersistentMap<Value, Value> newMap = (PersistentMap<Value, Value>) map;
+            for (int i = fixed; i < newMap.positions(); i++) {
+                Map.Entry<Value, Value> entry = newMap.entryAt(i);
+                if (entry != null) {
+                    newMap = newMap.with(entry.getKey(), entry.getValue().$fix(false));
+                }
+            }
+            return with(newMap, value.$pairKey(), value.$pairValue(), newMap.positions());
+        }
         final LinkedHashMap<Value, Value> newMap = new LinkedHashMap<>(toVarMap());
         newMap.put(value.$pairKey(), value.$pairValue());
         return DollarFactory.fromValue(newMap);
@@ -211,6 +250,13 @@ public class DollarMap extends AbstractDollar {
     @Override
     public Value $minus(@NotNull Value rhs) {
         Value rhsFix = rhs.$fixDeep();
+        if (map instanceof PersistentMap) {
+            if (rhsFix.map()) {
+                return without(rhsFix.toVarMap().keySet());
+            } else {
+                return without(Collections.singletonList(rhsFix));
+            }
+        }
         if (rhsFix.map()) {
             LinkedHashMap<Value, Value> copy = copyMap();
             for (Map.Entry<Value, Value> entry : rhsFix.toVarMap().entrySet()) {
@@ -252,6 +298,18 @@ public class DollarMap extends AbstractDollar {
     @Override
     public Value $plus(@NotNull Value rhs) {
         Value rhsFix = rhs.$fixDeep();
+        if ((map instanceof PersistentMap) && !rhsFix.string()) {
+            //Both branches add fixed values, so the fixed count is unaffected
+            PersistentMap<Value, Value> newMap = (PersistentMap<Value, Value>) map;
+            if (rhsFix.map()) {
+                for (Map.Entry<Value, Value> entry : rhsFix.toVarMap().entrySet()) {
+                    newMap = newMap.with(entry.getKey(), entry.getValue());
+                }
+            } else {
+                newMap = newMap.with(DollarFactory.fromValue("_" + newMap.size()), rhsFix);
+            }
+            return wrap(new DollarMap(newMap, fixed));
+        }
         if (rhsFix.map()) {
             LinkedHashMap<Value, Value> copy = copyMap();
             copy.putAll(rhsFix.toVarMap());
@@ -277,6 +335,9 @@ public class DollarMap extends AbstractDollar {
     @NotNull
     @Override
     public Value $remove(@NotNull Value key) {
+        if (map instanceof PersistentMap) {
+            return without(Collections.singletonList(key));
+        }
         final LinkedHashMap<Value, Value> newMap = new LinkedHashMap<>(map);
         newMap.remove(key);
         return DollarFactory.fromValue(newMap);
@@ -285,6 +346,9 @@ public class DollarMap extends AbstractDollar {
     @NotNull
     @Override
     public Value $removeByKey(@NotNull String key) {
+        if (map instanceof PersistentMap) {
+            return without(Collections.singletonList(DollarStatic.$(key)));
+        }
         final LinkedHashMap<Value, Value> newMap = new LinkedHashMap<>(map);
         newMap.remove(DollarStatic.$(key));
         return DollarFactory.fromValue(newMap);
@@ -293,6 +357,9 @@ public class DollarMap extends AbstractDollar {
     @NotNull
     @Override
     public Value $set(@NotNull Value key, @NotNull Object value) {
+        if (map instanceof PersistentMap) {
+            return with((PersistentMap<Value, Value>) map, key, DollarFactory.fromValue(value), fixed);
+        }
         LinkedHashMap<Value, Value> copyMap = copyMap();
         copyMap.put(key, DollarFactory.fromValue(value));
         return wrap(new DollarMap(copyMap));
@@ -308,7 +375,7 @@ public class DollarMap extends AbstractDollar {
     @NotNull
     @Override
     public Type $type() {
-        return new Type(Type._MAP, constraintLabel());
+        return constrainedType(Type._MAP);
     }
 
     @Override
@@ -493,7 +560,8 @@ public class DollarMap extends AbstractDollar {
 
     @Override
     public Value $notify(NotificationType type, Value newValue) {
-        map.values().forEach(member -> member.$notify(NotificationType.UNARY_VALUE_CHANGE, newValue));
+        Propagation.current().batch(
+                () -> map.values().forEach(member -> member.$notify(NotificationType.UNARY_VALUE_CHANGE, newValue)));
         return this;
     }
 
@@ -522,7 +590,7 @@ public class DollarMap extends AbstractDollar {
     }
 
     @NotNull
-    private LinkedHashMap<Value, Value> deepClone(@NotNull LinkedHashMap<Value, Value> o) {
+    private LinkedHashMap<Value, Value> deepClone(@NotNull Map<Value, Value> o) {
         LinkedHashMap<Value, Value> result = new LinkedHashMap<>();
         for (Map.Entry<Value, Value> entry : o.entrySet()) {
             result.put(entry.getKey(), entry.getValue());
@@ -530,11 +598,37 @@ public class DollarMap extends AbstractDollar {
         return result;
     }
 
+    /**
+     * Adds an entry to a persistent map keeping track of which values are fixed.
+     */
+    @NotNull
+    private Value with(@NotNull PersistentMap<Value, Value> newMap, @NotNull Value key, @NotNull Value value,
+                       int fixed) {
+        int position = newMap.positionOf(key);
+        return wrap(new DollarMap(newMap.with(key, value), (position < 0) ? fixed : Math.min(fixed, position)));
+    }
+
+    /**
+     * Removes keys from a persistent map, if removing compacted the map the positions of the fixed values are no
+     * longer known.
+     */
+    @NotNull
+    private Value without(@NotNull Iterable<Value> keys) {
+        PersistentMap<Value, Value> newMap = (PersistentMap<Value, Value>) map;
+        boolean compacted = false;
+        for (Value key : keys) {
+            int positions = newMap.positions();
+            newMap = newMap.without(key);
+            compacted = compacted || (newMap.positions() < positions);
+        }
+        return wrap(new DollarMap(newMap, compacted ? 0 : fixed));
+    }
+
     @NotNull
     private LinkedHashMap<Value, Value> mapToVarMap(@NotNull Map<?, ?> stringObjectMap) {
         LinkedHashMap<Value, Value> result = new LinkedHashMap<>();
         for (Map.Entry<?, ?> entry : stringObjectMap.entrySet()) {
-            result.put(DollarFactory.fromValue(entry.getKey()), DollarFactory.fromValue(entry.getValue()));
+            result.put(DollarFactory.internKey(entry.getKey()), DollarFactory.fromValue(entry.getValue()));
         }
         return result;
     }
@@ -195,7 +195,7 @@ public class DollarQueue extends AbstractDollar {
     @Override
     @NotNull
     public Type $type() {
-        return new Type(Type._QUEUE, constraintLabel());
+        return constrainedType(Type._QUEUE);
     }
 
     @Override
@@ -287,7 +287,7 @@ public class DollarQueue extends AbstractDollar {
     @Override
     @Guarded(NotNullGuard.class)
     public ImmutableList<Value> toVarList() {
-        return ImmutableList.copyOf(Arrays.asList((Value[]) queue.toArray()));
+        return ImmutableList.copyOf(queue);
     }
 
     @NotNull
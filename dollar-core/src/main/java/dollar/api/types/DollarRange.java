@@ -359,7 +359,7 @@ public class DollarRange extends AbstractDollar {
     @NotNull
     @Override
     public Type $type() {
-        return new Type(Type._RANGE, constraintLabel());
+        return constrainedType(Type._RANGE);
     }
 
     @Override
@@ -437,6 +437,13 @@ public class DollarRange extends AbstractDollar {
         return null;
     }
 
+    /**
+     * @return true if this range runs from its upper bound down to its lower bound
+     */
+    public boolean isReversed() {
+        return reversed;
+    }
+
     @NotNull
     @Override
     public Range toJavaObject() {
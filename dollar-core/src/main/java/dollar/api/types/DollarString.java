@@ -171,10 +171,16 @@ public class DollarString extends AbstractDollarSingleValue<String> {
         return DollarFactory.fromValue(new StringBuilder(value).reverse().toString());
     }
 
+    @NotNull
+    @Override
+    DollarString fresh() {
+        return new DollarString(value);
+    }
+
     @NotNull
     @Override
     public Type $type() {
-        return new Type(Type._STRING, constraintLabel());
+        return constrainedType(Type._STRING);
     }
 
     @Override
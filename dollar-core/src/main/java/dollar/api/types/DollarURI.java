@@ -237,7 +237,7 @@ public class DollarURI extends AbstractDollar {
     @NotNull
     @Override
     public Type $type() {
-        return new Type(Type._URI, constraintLabel());
+        return constrainedType(Type._URI);
     }
 
     @Override
@@ -0,0 +1,332 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.api.types;
+
+import dollar.api.Value;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A list of integers or decimals held in a {@code long[]} or {@code double[]}, {@link Value} objects are only created
+ * when elements are accessed so that aggregate operations work on the primitive values.
+ * <p>
+ * Lists that were appended to share their backing array, the first list to append to an array claims the next slot
+ * while any other list appending from the same position copies the array instead.
+ */
+final class NumericList extends AbstractList<Value> implements RandomAccess {
+
+    private static final int MIN_CAPACITY = 16;
+
+    @NotNull
+    private final AtomicInteger claimed;
+    @Nullable
+    private final double[] doubles;
+    @Nullable
+    private final long[] longs;
+    private final int size;
+
+    private NumericList(@Nullable long[] longs, @Nullable double[] doubles, int size, @NotNull AtomicInteger claimed) {
+        this.longs = longs;
+        this.doubles = doubles;
+        this.size = size;
+        this.claimed = claimed;
+    }
+
+    @NotNull
+    static NumericList of(@NotNull long[] values) {
+        return new NumericList(values.clone(), null, values.length, new AtomicInteger(values.length));
+    }
+
+    @NotNull
+    static NumericList of(@NotNull double[] values) {
+        return new NumericList(null, values.clone(), values.length, new AtomicInteger(values.length));
+    }
+
+    /**
+     * Creates a numeric list from a list where every element is an integer or every element is a decimal.
+     *
+     * @param values the values
+     * @return the numeric list or null if the values cannot be held as primitives without losing anything
+     */
+    @Nullable
+    static NumericList copyOf(@NotNull List<Value> values) {
+        if (values.isEmpty()) {
+            return null;
+        }
+        Class<?> kind = kind(values.get(0));
+        if (kind == DollarInteger.class) {
+            long[] result = new long[values.size()];
+            for (int i = 0; i < result.length; i++) {
+                Value value = values.get(i);
+                if (kind(value) != kind) {
+                    return null;
+                }
+                result[i] = value.toLong();
+            }
+            return new NumericList(result, null, result.length, new AtomicInteger(result.length));
+        } else if (kind == DollarDecimal.class) {
+            double[] result = new double[values.size()];
+            for (int i = 0; i < result.length; i++) {
+                Value value = values.get(i);
+                if (kind(value) != kind) {
+                    return null;
+                }
+                result[i] = value.toDouble();
+            }
+            return new NumericList(null, result, result.length, new AtomicInteger(result.length));
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Returns {@link DollarInteger} or {@link DollarDecimal} for plain numbers, i.e. numbers which are not dynamic and
+     * carry no meta data, anything else returns null.
+     */
+    @Nullable
+    private static Class<?> kind(@NotNull Value value) {
+        if (value.dynamic()) {
+            return null;
+        }
+        Value unwrapped = value.$unwrap();
+        if (((unwrapped instanceof DollarInteger) || (unwrapped instanceof DollarDecimal))
+                    && !((AbstractDollar) unwrapped).hasMeta()) {
+            return unwrapped.getClass();
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Appends a value sharing the backing array where possible.
+     *
+     * @param value the value to append
+     * @return the new list or null if the value is not of the same kind as the elements of this list
+     */
+    @Nullable
+    NumericList append(@NotNull Value value) {
+        Class<?> kind = kind(value);
+        if ((longs != null) && (kind == DollarInteger.class)) {
+            long[] array = longs;
+            AtomicInteger owner = claimed;
+            if ((size == array.length) || !claimed.compareAndSet(size, size + 1)) {
+                array = Arrays.copyOf(array, Math.max(MIN_CAPACITY, size * 2));
+                owner = new AtomicInteger(size + 1);
+            }
+            array[size] = value.toLong();
+            return new NumericList(array, null, size + 1, owner);
+        } else if ((doubles != null) && (kind == DollarDecimal.class)) {
+            double[] array = doubles;
+            AtomicInteger owner = claimed;
+            if ((size == array.length) || !claimed.compareAndSet(size, size + 1)) {
+                array = Arrays.copyOf(array, Math.max(MIN_CAPACITY, size * 2));
+                owner = new AtomicInteger(size + 1);
+            }
+            array[size] = value.toDouble();
+            return new NumericList(null, array, size + 1, owner);
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * The average, using the same arithmetic as dividing the sum by the size.
+     *
+     * @return the average or null if the list is empty or the sum cannot be calculated with primitives
+     */
+    @Nullable
+    Value avg() {
+        if (size == 0) {
+            return null;
+        } else if (longs != null) {
+            Long sum = longSum();
+            return (sum == null) ? null : DollarFactory.fromValue(sum / size);
+        } else {
+            Double sum = doubleSum();
+            return (sum == null) ? null : DollarFactory.fromValue(sum / size);
+        }
+    }
+
+    @NotNull
+    @Override
+    public Value get(int index) {
+        if ((index < 0) || (index >= size)) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        if (longs != null) {
+            return DollarFactory.fromValue(longs[index]);
+        } else {
+            return DollarFactory.fromValue(doubles[index]);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the largest element, the first one if there are several, or null if the list is empty
+     */
+    @Nullable
+    Value max() {
+        if (size == 0) {
+            return null;
+        }
+        int result = 0;
+        for (int i = 1; i < size; i++) {
+            if ((longs != null) ? (longs[i] > longs[result]) : (doubles[i] > doubles[result])) {
+                result = i;
+            }
+        }
+        return get(result);
+    }
+
+    /**
+     * @return the smallest element, the first one if there are several, or null if the list is empty
+     */
+    @Nullable
+    Value min() {
+        if (size == 0) {
+            return null;
+        }
+        int result = 0;
+        for (int i = 1; i < size; i++) {
+            if ((longs != null) ? (longs[i] < longs[result]) : (doubles[i] < doubles[result])) {
+                result = i;
+            }
+        }
+        return get(result);
+    }
+
+    @NotNull
+    NumericList reversed() {
+        if (longs != null) {
+            long[] result = new long[size];
+            for (int i = 0; i < size; i++) {
+                result[i] = longs[size - 1 - i];
+            }
+            return new NumericList(result, null, size, new AtomicInteger(size));
+        } else {
+            double[] result = new double[size];
+            for (int i = 0; i < size; i++) {
+                result[i] = doubles[size - 1 - i];
+            }
+            return new NumericList(null, result, size, new AtomicInteger(size));
+        }
+    }
+
+    @NotNull
+    NumericList sorted() {
+        if (longs != null) {
+            long[] result = Arrays.copyOf(longs, size);
+            Arrays.sort(result);
+            return new NumericList(result, null, size, new AtomicInteger(size));
+        } else {
+            double[] result = Arrays.copyOf(doubles, size);
+            Arrays.sort(result);
+            return new NumericList(null, result, size, new AtomicInteger(size));
+        }
+    }
+
+    /**
+     * The sum, using the same arithmetic as adding the elements one at a time.
+     *
+     * @return the sum or null if the list is empty or the sum overflows, in which case the elements must be added as
+     * values
+     */
+    @Nullable
+    Value sum() {
+        if (size == 0) {
+            return null;
+        } else if (longs != null) {
+            Long sum = longSum();
+            return (sum == null) ? null : DollarFactory.fromValue(sum);
+        } else {
+            Double sum = doubleSum();
+            return (sum == null) ? null : DollarFactory.fromValue(sum);
+        }
+    }
+
+    /**
+     * @return the elements in order of first occurrence without duplicates
+     */
+    @NotNull
+    NumericList unique() {
+        long[] bits = new long[size];
+        for (int i = 0; i < size; i++) {
+            bits[i] = (longs != null) ? longs[i] : Double.doubleToLongBits(doubles[i]);
+        }
+        //Open addressing set of the indexes (plus one) of the elements kept so far
+        int[] table = new int[Integer.highestOneBit(Math.max(size, 1) * 2) * 2];
+        int mask = table.length - 1;
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int slot = Long.hashCode(bits[i] * 0x9E3779B97F4A7C15L) & mask;
+            boolean seen = false;
+            while (table[slot] != 0) {
+                if (bits[table[slot] - 1] == bits[i]) {
+                    seen = true;
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (!seen) {
+                bits[count] = bits[i];
+                table[slot] = count + 1;
+                count++;
+            }
+        }
+        if (longs != null) {
+            return new NumericList(Arrays.copyOf(bits, count), null, count, new AtomicInteger(count));
+        } else {
+            double[] result = new double[count];
+            for (int i = 0; i < count; i++) {
+                result[i] = Double.longBitsToDouble(bits[i]);
+            }
+            return new NumericList(null, result, count, new AtomicInteger(count));
+        }
+    }
+
+    @Nullable
+    private Double doubleSum() {
+        double sum = doubles[0];
+        for (int i = 1; i < size; i++) {
+            sum += doubles[i];
+        }
+        return Double.isInfinite(sum) ? null : sum;
+    }
+
+    @Nullable
+    private Long longSum() {
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            if ((Math.abs(sum) >= (Long.MAX_VALUE / 2)) || (Math.abs(longs[i]) >= (Long.MAX_VALUE / 2))) {
+                return null;
+            }
+            sum += longs[i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar;
+
+import dollar.api.Configuration;
+import dollar.api.DollarStatic;
+import dollar.api.SystemPropertyConfiguration;
+import dollar.api.Value;
+import dollar.api.types.DollarFactory;
+import dollar.api.types.DollarFuture;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static dollar.api.DollarStatic.$;
+import static dollar.api.DollarStatic.$void;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+public class DollarFutureTest {
+
+    @Test
+    public void testCancel() {
+        CompletableFuture<Value> future = new CompletableFuture<>();
+        Value value = DollarFactory.fromFuture(future);
+        assertTrue(value.$cancel($void()).isTrue());
+        assertTrue(future.isCancelled());
+    }
+
+    @Test
+    public void testCombine() {
+        CompletableFuture<Value> lhs = new CompletableFuture<>();
+        CompletableFuture<Value> rhs = new CompletableFuture<>();
+        Value sum = DollarFactory.fromFuture(lhs).$plus(DollarFactory.fromFuture(rhs));
+        lhs.complete($(40));
+        CompletableFuture<Value> result = DollarFuture.future(sum);
+        assertNotNull(result);
+        assertFalse(result.isDone());
+        rhs.complete($(2));
+        assertEquals(42, sum.toInteger());
+    }
+
+    @Test
+    public void testCombineWhenWrapped() {
+        Configuration config = DollarStatic.getConfig();
+        System.setProperty("dollar.safe", "true");
+        System.setProperty("dollar.monitor", "true");
+        try {
+            DollarStatic.setConfig(new SystemPropertyConfiguration());
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                CompletableFuture<Value> lhs = new CompletableFuture<>();
+                CompletableFuture<Value> rhs = new CompletableFuture<>();
+                Value sum = DollarFactory.fromFuture(lhs).$plus(DollarFactory.fromFuture(rhs));
+                CompletableFuture<Value> result = DollarFuture.future(sum);
+                assertNotNull(result);
+                lhs.complete($(40));
+                assertFalse(result.isDone());
+                rhs.complete($(2));
+                assertEquals(42, result.get().toInteger());
+            });
+        } finally {
+            System.clearProperty("dollar.safe");
+            System.clearProperty("dollar.monitor");
+            DollarStatic.setConfig(config);
+        }
+    }
+
+    @Test
+    public void testComposeDoesNotBlock() {
+        CompletableFuture<Value> future = new CompletableFuture<>();
+        Value value = DollarFactory.fromFuture(future);
+        Value result = value.$plus($(1)).$multiply($(2));
+        CompletableFuture<Value> composed = DollarFuture.future(result);
+        assertNotNull(composed);
+        assertFalse(composed.isDone());
+        future.complete($(20));
+        assertEquals(42, result.$fix(false).toInteger());
+    }
+
+    @Test
+    public void testGet() {
+        Value value = DollarFactory.fromFuture(CompletableFuture.completedFuture($("a", 1)));
+        assertEquals(1, value.$get($("a")).toInteger());
+    }
+}
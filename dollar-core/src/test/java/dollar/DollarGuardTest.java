@@ -0,0 +1,228 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dollar;
+
+import com.google.common.collect.ImmutableList;
+import dollar.api.DollarException;
+import dollar.api.MetaKey;
+import dollar.api.Type;
+import dollar.api.Value;
+import dollar.api.guard.ChainGuard;
+import dollar.api.guard.GuardTable;
+import dollar.api.types.DollarGuard;
+import dollar.api.types.DollarGuardWrapper;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static dollar.api.DollarStatic.$;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class DollarGuardTest {
+
+    /**
+     * Methods which both {@link DollarGuard} and {@link DollarGuardWrapper} pass straight through.
+     */
+    private static final Set<String> PASS_THROUGH = new HashSet<>(Arrays.asList("$fix", "$fixDeep", "$notify",
+                                                                                 "$unwrap"));
+
+    @Test
+    public void testDelegates() {
+        Value raw = $(Arrays.asList(1, 2, 3)).$unwrap();
+        Value guarded = new DollarGuardWrapper(raw, raw.getClass());
+        assertEquals(3, guarded.size());
+        assertEquals(2, guarded.$get($(1)).toInteger());
+        assertTrue(guarded.list());
+        assertEquals(guarded, raw);
+        assertEquals(raw.hashCode(), guarded.hashCode());
+    }
+
+    @Test
+    public void testGuardsApplied() {
+        Value raw = $(Arrays.asList(1, 2, 3)).$unwrap();
+        Value guarded = new DollarGuardWrapper(raw, raw.getClass());
+        assertThrows(AssertionError.class, () -> guarded.$containsValue(null));
+    }
+
+    @Test
+    public void testSingletonGuards() {
+        assertSame(GuardTable.guard(ChainGuard.class), GuardTable.guard(ChainGuard.class));
+    }
+
+    @Test
+    public void testEveryMethodWrapped() throws Exception {
+        for (Method method : valueMethods()) {
+            Method wrapped = DollarGuardWrapper.class.getMethod(method.getName(), method.getParameterTypes());
+            assertEquals(method.toString(), DollarGuardWrapper.class, wrapped.getDeclaringClass());
+        }
+    }
+
+    /**
+     * Calls every {@link Value} method through both the wrapper and the {@link DollarGuard} proxy around a recording
+     * value. The recording value returns nulls and defaults, so the post conditions fail naming the method they were
+     * resolved for; null arguments do the same for the pre conditions.
+     */
+    @Test
+    public void testGuardsMatchDollarGuard() throws Exception {
+        for (Method method : valueMethods()) {
+            for (boolean nulls : new boolean[]{false, true}) {
+                Object[] args = arguments(method, nulls);
+
+                List<String> proxyCalls = new ArrayList<>();
+                Value proxied = (Value) Proxy.newProxyInstance(Value.class.getClassLoader(), new Class<?>[]{Value.class},
+                                                               new DollarGuard(recorder(proxyCalls)));
+                String expected = outcome(method, proxied, args);
+
+                List<String> wrapperCalls = new ArrayList<>();
+                Value in = recorder(wrapperCalls);
+                String actual = outcome(method, new DollarGuardWrapper(in, in.getClass()), args);
+
+                String site = signature(method) + (nulls ? " with nulls" : "");
+                assertEquals(site, expected, actual);
+                assertEquals(site, proxyCalls, wrapperCalls);
+                if ("returned".equals(actual) || PASS_THROUGH.contains(method.getName())) {
+                    assertTrue(site, wrapperCalls.contains(signature(method)));
+                }
+            }
+        }
+    }
+
+    @NotNull
+    private static Object[] arguments(@NotNull Method method, boolean nulls) {
+        Class<?>[] types = method.getParameterTypes();
+        Object[] args = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            args[i] = argument(types[i], nulls);
+        }
+        return args;
+    }
+
+    @Nullable
+    private static Object argument(@NotNull Class<?> type, boolean nulls) {
+        if (type.isPrimitive()) {
+            return defaultValue(type);
+        }
+        if (nulls) {
+            return null;
+        }
+        if (type.isArray()) {
+            return Array.newInstance(type.getComponentType(), 0);
+        }
+        if (type.isEnum()) {
+            return type.getEnumConstants()[0];
+        }
+        if (type == Value.class) {
+            return $("test");
+        }
+        if (type.isInterface()) {
+            return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                                          (proxy, method, args) -> defaultValue(method.getReturnType()));
+        }
+        if ((type == String.class) || (type == Object.class)) {
+            return "test";
+        }
+        if (type == Type.class) {
+            return Type._ANY;
+        }
+        if (type == MetaKey.class) {
+            return MetaKey.of("test");
+        }
+        if (type == ImmutableList.class) {
+            return ImmutableList.of();
+        }
+        if (Throwable.class.isAssignableFrom(type)) {
+            return new Exception("test");
+        }
+        throw new AssertionError("No test argument for " + type);
+    }
+
+    @Nullable
+    private static Object defaultValue(@NotNull Class<?> type) {
+        if (type.isPrimitive() && (type != void.class)) {
+            return Array.get(Array.newInstance(type, 1), 0);
+        }
+        return null;
+    }
+
+    /**
+     * What happened when calling the method: either that it returned, or the type and message of what it threw.
+     */
+    @NotNull
+    private static String outcome(@NotNull Method method, @NotNull Value target, @NotNull Object[] args) {
+        try {
+            method.invoke(target, args);
+            return "returned";
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            while (((cause instanceof DollarException) || (cause instanceof InvocationTargetException))
+                           && (cause.getCause() != null)) {
+                cause = cause.getCause();
+            }
+            return cause.getClass().getName() + ": " + cause.getMessage();
+        } catch (IllegalAccessException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    @NotNull
+    private static Value recorder(@NotNull List<String> calls) {
+        return (Value) Proxy.newProxyInstance(Value.class.getClassLoader(), new Class<?>[]{Value.class},
+                                              (proxy, method, args) -> {
+                                                  calls.add(signature(method));
+                                                  return defaultValue(method.getReturnType());
+                                              });
+    }
+
+    @NotNull
+    private static String signature(@NotNull Method method) {
+        return method.getName() + Arrays.toString(method.getParameterTypes());
+    }
+
+    /**
+     * The instance methods of {@link Value}, leaving out those {@link Object} also declares as neither the proxy nor
+     * the wrapper guards them.
+     */
+    @NotNull
+    private static List<Method> valueMethods() {
+        List<Method> methods = new ArrayList<>();
+        for (Method method : Value.class.getMethods()) {
+            if (Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            try {
+                Object.class.getMethod(method.getName(), method.getParameterTypes());
+            } catch (NoSuchMethodException e) {
+                methods.add(method);
+            }
+        }
+        return methods;
+    }
+}
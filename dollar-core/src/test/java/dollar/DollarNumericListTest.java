@@ -0,0 +1,90 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar;
+
+import dollar.api.Value;
+import dollar.api.types.DollarFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static dollar.api.DollarStatic.$;
+import static dollar.api.DollarStatic.$list;
+import static org.junit.Assert.assertEquals;
+
+public class DollarNumericListTest {
+
+    @Test
+    public void testDecimalAggregates() {
+        List<Value> values = new ArrayList<>();
+        Value list = $list();
+        for (int i = 0; i < 500; i++) {
+            Value value = $(((i * 31) % 97) / 4.0);
+            values.add(value);
+            list = list.$append(value);
+        }
+        assertAggregates(values, list);
+    }
+
+    @Test
+    public void testIntegerAggregates() {
+        List<Value> values = new ArrayList<>();
+        long[] longs = new long[500];
+        for (int i = 0; i < longs.length; i++) {
+            longs[i] = ((i * 31) % 97) - 40;
+            values.add($(longs[i]));
+        }
+        assertAggregates(values, DollarFactory.fromValue(longs));
+        assertAggregates(values, DollarFactory.fromValue(values));
+        assertEquals(DollarFactory.fromStream(values, false).$sort(false).toVarList(),
+                     DollarFactory.fromValue(longs).$sort(false).toVarList());
+    }
+
+    @Test
+    public void testMixedListAppend() {
+        Value list = $list(1, 2, 3);
+        Value decimals = list.$append($(4.5));
+        Value strings = list.$append($("four"));
+        Value integers = list.$append($(4));
+        assertEquals($list(1, 2, 3, 4.5), decimals);
+        assertEquals($list(1, 2, 3, "four"), strings);
+        assertEquals($list(1, 2, 3, 4), integers);
+        assertEquals($list(1, 2, 3, 5), list.$append($(5)));
+        assertEquals(3, list.size());
+        assertEquals($(4), integers.$get($(3)));
+    }
+
+    @Test
+    public void testOverflow() {
+        Value list = DollarFactory.fromValue(new long[]{Long.MAX_VALUE - 1, Long.MAX_VALUE - 1});
+        assertEquals(DollarFactory.fromStream(list.toVarList(), false).$sum(false), list.$sum(false));
+    }
+
+    private void assertAggregates(List<Value> values, Value list) {
+        Value sequence = DollarFactory.fromStream(values, false);
+        assertEquals(values.size(), list.size());
+        assertEquals(values, list.toVarList());
+        assertEquals(sequence.$sum(false), list.$sum(false));
+        assertEquals(sequence.$avg(false), list.$avg(false));
+        assertEquals(sequence.$max(false), list.$max(false));
+        assertEquals(sequence.$min(false), list.$min(false));
+        assertEquals(sequence.$unique(false).toVarList(), list.$unique(false).toVarList());
+        assertEquals(sequence.$reverse(false).toVarList(), list.$reverse(false).toVarList());
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar;
+
+import dollar.api.Value;
+import dollar.api.types.DollarFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static dollar.api.DollarStatic.$;
+import static dollar.api.DollarStatic.$list;
+import static org.junit.Assert.assertEquals;
+
+public class DollarPersistentCollectionTest {
+    private static final int SIZE = DollarFactory.PERSISTENT_THRESHOLD * 40;
+
+    @Test
+    public void testListAppendAndSet() {
+        Value list = $list();
+        List<Value> expected = new ArrayList<>();
+        for (int i = 0; i < SIZE; i++) {
+            list = list.$append($("item" + i));
+            expected.add($("item" + i));
+        }
+        assertEquals(SIZE, list.size());
+        assertEquals(expected, list.toVarList());
+        assertEquals(DollarFactory.fromValue(expected), list);
+
+        Value updated = list.$set($(SIZE / 2), $("middle"));
+        assertEquals($("middle"), updated.$get($(SIZE / 2)));
+        assertEquals($("item" + (SIZE / 2)), list.$get($(SIZE / 2)));
+        assertEquals(SIZE, updated.size());
+
+        Value appended = updated.$append($("last"));
+        assertEquals($("last"), appended.$get($(SIZE)));
+        assertEquals($("middle"), appended.$get($(SIZE / 2)));
+        assertEquals(SIZE, updated.size());
+    }
+
+    @Test
+    public void testMapAppendSetAndRemove() {
+        Value map = $();
+        LinkedHashMap<Value, Value> expected = new LinkedHashMap<>();
+        for (int i = 0; i < SIZE; i++) {
+            map = map.$append($("key" + i, i));
+            expected.put($("key" + i), $(i));
+        }
+        assertEquals(SIZE, map.size());
+        assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(map.toVarMap().keySet()));
+        assertEquals(DollarFactory.fromValue(expected), map);
+
+        Value updated = map.$set($("key0"), $("first"));
+        assertEquals($("key0"), updated.toVarMap().keySet().iterator().next());
+        assertEquals($("first"), updated.$get($("key0")));
+        assertEquals($(0), map.$get($("key0")));
+
+        Value removed = updated;
+        for (int i = 0; i < SIZE; i += 2) {
+            removed = removed.$remove($("key" + i));
+            expected.remove($("key" + i));
+        }
+        assertEquals(SIZE / 2, removed.size());
+        assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(removed.toVarMap().keySet()));
+        assertEquals(SIZE, updated.size());
+
+        Value appended = removed.$append($("extra", "value"));
+        assertEquals(SIZE / 2 + 1, appended.size());
+        assertEquals($("value"), appended.$get($("extra")));
+    }
+}
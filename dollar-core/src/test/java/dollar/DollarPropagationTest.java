@@ -0,0 +1,206 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar;
+
+import dollar.api.execution.Propagation;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DollarPropagationTest {
+
+    private static final int NODES = 10000;
+
+    @Test
+    public void testBatchCoalesces() {
+        TestNode source = new TestNode();
+        TestNode sink = new TestNode();
+        source.dependents.add(sink);
+        Propagation.current().batch(() -> {
+            for (int i = 0; i < 100; i++) {
+                source.notifyNode();
+            }
+        });
+        assertEquals(1, source.fired);
+        assertEquals(1, sink.fired);
+    }
+
+    @Test
+    public void testBatchOnExecutor() throws Exception {
+        TestNode source = new TestNode();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Propagation.current().batch(source::notifyNode, executor);
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+            assertEquals(1, source.fired);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testDiamond() {
+        TestNode source = new TestNode();
+        TestNode sink = new TestNode();
+        for (int i = 0; i < NODES; i++) {
+            TestNode middle = new TestNode();
+            source.dependents.add(middle);
+            middle.dependents.add(sink);
+        }
+        source.notifyNode();
+        assertEquals(1, source.fired);
+        assertEquals(1, sink.fired);
+    }
+
+    @Test
+    public void testFanOut() {
+        TestNode source = new TestNode();
+        List<TestNode> leaves = new ArrayList<>();
+        for (int i = 0; i < NODES; i++) {
+            TestNode leaf = new TestNode();
+            source.dependents.add(leaf);
+            leaves.add(leaf);
+        }
+        source.notifyNode();
+        source.notifyNode();
+        for (TestNode leaf : leaves) {
+            assertEquals(2, leaf.fired);
+        }
+    }
+
+    @Test
+    public void testLoop() {
+        TestNode a = new TestNode();
+        TestNode b = new TestNode();
+        a.dependents.add(b);
+        b.dependents.add(a);
+        try {
+            a.notifyNode();
+            fail("Expected a notify loop to be detected");
+        } catch (IllegalStateException e) {
+            //expected
+        }
+    }
+
+    @Test
+    public void testLambdaLoopIgnored() {
+        TestNode a = new TestNode();
+        TestNode b = new TestNode();
+        TestNode c = new TestNode();
+        a.ignoresLoops = true;
+        b.ignoresLoops = true;
+        c.ignoresLoops = true;
+        a.dependents.add(b);
+        b.dependents.add(c);
+        c.dependents.add(a);
+        a.notifyNode();
+        assertEquals(1, a.fired);
+        assertEquals(1, b.fired);
+        assertEquals(1, c.fired);
+        a.notifyNode();
+        assertEquals(2, a.fired);
+        assertEquals(2, c.fired);
+    }
+
+    @Test
+    public void testUnevenDiamond() {
+        //source -> sink directly and through a chain of NODES nodes, with the edges recorded as they are made the sink
+        //should fire after the whole chain and only once, even the first time
+        TestNode source = new TestNode();
+        TestNode sink = new TestNode();
+        source.listenedToBy(sink);
+        TestNode previous = source;
+        for (int i = 0; i < NODES; i++) {
+            TestNode next = new TestNode();
+            previous.listenedToBy(next);
+            previous = next;
+        }
+        previous.listenedToBy(sink);
+        assertEquals(NODES + 1, sink.height());
+        source.notifyNode();
+        assertEquals(1, sink.fired);
+        assertEquals(NODES + 1, sink.height());
+    }
+
+    @Test
+    public void testUnevenDiamondLearnt() {
+        //as above but without the edges recorded, once the heights have been learnt the sink
+        //should fire after the whole chain and only once
+        TestNode source = new TestNode();
+        TestNode sink = new TestNode();
+        source.dependents.add(sink);
+        TestNode previous = source;
+        for (int i = 0; i < NODES; i++) {
+            TestNode next = new TestNode();
+            previous.dependents.add(next);
+            previous = next;
+        }
+        previous.dependents.add(sink);
+        source.notifyNode();
+        sink.fired = 0;
+        source.notifyNode();
+        assertEquals(1, sink.fired);
+        assertEquals(NODES + 1, sink.height());
+    }
+
+    private static final class TestNode implements Propagation.Node {
+        final List<TestNode> dependents = new ArrayList<>();
+        int fired;
+        boolean ignoresLoops;
+        private int height;
+
+        @Override
+        public int height() {
+            return height;
+        }
+
+        @Override
+        public void height(int height) {
+            this.height = height;
+        }
+
+        @Override
+        public boolean ignoresLoops() {
+            return ignoresLoops;
+        }
+
+        void listenedToBy(@NotNull TestNode dependent) {
+            dependents.add(dependent);
+            Propagation.dependency(this, dependent);
+        }
+
+        void notifyNode() {
+            Propagation.current().schedule(this, () -> {
+                fired++;
+                for (TestNode dependent : dependents) {
+                    dependent.notifyNode();
+                }
+            });
+        }
+    }
+}
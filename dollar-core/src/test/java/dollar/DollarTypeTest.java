@@ -0,0 +1,90 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar;
+
+import dollar.api.SubType;
+import dollar.api.Type;
+import dollar.api.Value;
+import dollar.api.types.meta.MetaConstants;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import static dollar.api.DollarStatic.$;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DollarTypeTest {
+
+    @NotNull
+    private static SubType label(@NotNull String name) {
+        return new SubType() {
+            @NotNull
+            @Override
+            public String asString() {
+                return name;
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return false;
+            }
+        };
+    }
+
+    @Test
+    public void testConstrainedValueType() {
+        SubType label = new SubType() {
+            @NotNull
+            @Override
+            public String asString() {
+                return "positive";
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return false;
+            }
+        };
+        Value value = $("constrained value");
+        assertSame(Type._STRING, value.$type());
+        Value constrained = value.$constrain($(true), label);
+        assertSame(Type.of("String:positive"), constrained.$type());
+        assertSame(constrained.$type(), constrained.$type());
+        assertTrue(constrained.$type().is(Type._STRING));
+    }
+
+    @Test
+    public void testConstrainedTypeFollowsLabel() {
+        Value constrained = $(2).$constrain($(true), label("even"));
+        assertSame(Type.of("Integer:even"), constrained.$type());
+        assertSame(Type._INTEGER, $(2).$type());
+        constrained.meta(MetaConstants.CONSTRAINT_FINGERPRINT, label("small"));
+        assertSame(Type.of("Integer:small"), constrained.$type());
+    }
+
+    @Test
+    public void testRegistry() {
+        assertSame(Type._INTEGER, Type.of("Integer"));
+        assertSame(Type._INTEGER, Type.of($("Integer")));
+        assertSame(Type.of("List:small"), Type.of("List", "small"));
+        assertEquals(new Type("List", "small"), Type.of("List:small"));
+        assertEquals("small", Type.of("List:small").constraint());
+        assertTrue(Type.of("List:small").is(Type._LIST));
+    }
+}
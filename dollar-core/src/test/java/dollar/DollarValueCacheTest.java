@@ -0,0 +1,127 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar;
+
+import dollar.api.Configuration;
+import dollar.api.DollarStatic;
+import dollar.api.MetaKey;
+import dollar.api.SubType;
+import dollar.api.SystemPropertyConfiguration;
+import dollar.api.Type;
+import dollar.api.Value;
+import dollar.api.exceptions.DollarFailureException;
+import dollar.api.types.DollarFactory;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static dollar.api.DollarStatic.$;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class DollarValueCacheTest {
+
+    @NotNull
+    private static final SubType POSITIVE = new SubType() {
+        @NotNull
+        @Override
+        public String asString() {
+            return "positive";
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return false;
+        }
+    };
+
+    @Test
+    public void testBooleans() {
+        assertSame(DollarFactory.TRUE, $(true));
+        assertSame(DollarFactory.FALSE, $(false));
+        assertSame(DollarFactory.TRUE, $(1).$equals($(1)));
+    }
+
+    @Test
+    public void testConstrainedLiteralsAreCopied() {
+        Value constrained = $(1).$constrain($(true), POSITIVE);
+        assertSame(POSITIVE, constrained.constraintLabel());
+        assertEquals(Type.of("Integer:positive"), constrained.$type());
+        assertNull($(1).constraintLabel());
+        assertSame(Type._INTEGER, $(1).$type());
+        assertNotSame(constrained, $(1));
+
+        Value constrainedTrue = $(true).$constrain($(true), POSITIVE);
+        assertSame(POSITIVE, constrainedTrue.constraintLabel());
+        assertNull(DollarFactory.TRUE.constraintLabel());
+        assertSame(POSITIVE, $("a").$constrain($(true), POSITIVE).constraintLabel());
+        assertNull($("a").constraintLabel());
+    }
+
+    @Test
+    public void testIntegers() {
+        assertSame(DollarFactory.INTEGER_ZERO, $(0));
+        assertSame($(-128), $(-128));
+        assertSame($(1024), $(1000).$plus($(24)));
+        assertNotSame($(1025), $(1025));
+        assertEquals($(1025), $(1025));
+        assertEquals($(-129), $(-128).$dec());
+    }
+
+    @Test
+    public void testInternedKeys() {
+        Configuration config = DollarStatic.getConfig();
+        System.setProperty("dollar.intern.pool.size", "2");
+        try {
+            DollarStatic.setConfig(new SystemPropertyConfiguration());
+            Value first = DollarFactory.fromValue(Collections.singletonMap("interned", 1));
+            Value second = DollarFactory.fromValue(Collections.singletonMap("interned", 2));
+            assertSame(first.$pairKey(), second.$pairKey());
+            assertEquals($(2), second.$get($("interned")));
+        } finally {
+            System.clearProperty("dollar.intern.pool.size");
+            DollarStatic.setConfig(config);
+        }
+    }
+
+    @Test
+    public void testSharedInstancesRefuseMeta() {
+        MetaKey key = MetaKey.of("dollar.test.cache");
+        assertThrows(DollarFailureException.class, () -> $(7).metaAttribute(key, "stamped"));
+        assertThrows(DollarFailureException.class, () -> $("a").meta(key, "stamped"));
+        Value annotated = DollarFactory.unshared($(7));
+        annotated.metaAttribute(key, "stamped");
+        assertNotSame($(7), annotated);
+        assertEquals($(7), annotated);
+        assertEquals("stamped", annotated.metaAttribute(key));
+        assertNull($(7).metaAttribute(key));
+        assertSame(annotated, DollarFactory.unshared(annotated));
+    }
+
+    @Test
+    public void testStrings() {
+        assertSame($(""), $(""));
+        assertSame($("a"), $("a"));
+        assertSame($("a"), DollarFactory.fromStringValue("a"));
+        assertEquals($("ab"), $("a").$plus($("b")));
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.api.time;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TimingWheelTest {
+
+    private static final long TICK_MILLIS = 5;
+    /**
+     * Four buckets of five milliseconds, so any period over 20ms needs more than one revolution of the wheel.
+     */
+    private static final int WHEEL_SIZE = 4;
+
+    @Test
+    public void testRoundsAcrossRevolutions() throws InterruptedException {
+        TimingWheel wheel = new TimingWheel(TICK_MILLIS, WHEEL_SIZE, Runnable::run);
+        try {
+            long[] periods = {15, 35, 70, 110};
+            List<List<Long>> fires = new ArrayList<>();
+            List<CountDownLatch> latches = new ArrayList<>();
+            long start = System.nanoTime();
+            for (long period : periods) {
+                List<Long> times = new CopyOnWriteArrayList<>();
+                CountDownLatch latch = new CountDownLatch(3);
+                fires.add(times);
+                latches.add(latch);
+                wheel.add(wheel.timer(() -> {
+                    times.add(System.nanoTime());
+                    latch.countDown();
+                }, period, false));
+            }
+            for (CountDownLatch latch : latches) {
+                assertTrue(latch.await(10, TimeUnit.SECONDS));
+            }
+            for (int i = 0; i < periods.length; i++) {
+                List<Long> times = fires.get(i);
+                for (int k = 0; k < times.size(); k++) {
+                    long due = start + TimeUnit.MILLISECONDS.toNanos(periods[i] * (k + 1));
+                    assertTrue("Period " + periods[i] + " fired early on run " + (k + 1), times.get(k) >= due);
+                }
+            }
+        } finally {
+            wheel.stop();
+        }
+    }
+
+    @Test
+    public void testCancel() throws InterruptedException {
+        TimingWheel wheel = new TimingWheel(TICK_MILLIS, WHEEL_SIZE, Runnable::run);
+        try {
+            AtomicInteger count = new AtomicInteger();
+            CountDownLatch latch = new CountDownLatch(2);
+            TimingWheel.Timer timer = wheel.timer(() -> {
+                count.incrementAndGet();
+                latch.countDown();
+            }, 10, false);
+            wheel.add(timer);
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            wheel.cancel(timer);
+            Thread.sleep(50);
+            int cancelledAt = count.get();
+            Thread.sleep(200);
+            assertEquals(cancelledAt, count.get());
+            assertEquals(0L, (long) wheel.metrics().get("timers"));
+        } finally {
+            wheel.stop();
+        }
+    }
+
+    @Test
+    public void testPeriodicTimerSkipsWhileRunning() throws InterruptedException {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        TimingWheel wheel = new TimingWheel(TICK_MILLIS, WHEEL_SIZE, executor::execute);
+        try {
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+            CountDownLatch latch = new CountDownLatch(5);
+            wheel.add(wheel.timer(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(30);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    running.decrementAndGet();
+                    latch.countDown();
+                }
+            }, 10, false));
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            assertEquals(1, maxRunning.get());
+            assertTrue(wheel.metrics().get("skipped") > 0);
+        } finally {
+            wheel.stop();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFailingTimerDoesNotStopOthers() throws InterruptedException {
+        TimingWheel wheel = new TimingWheel(TICK_MILLIS, WHEEL_SIZE, Runnable::run);
+        try {
+            AtomicInteger failures = new AtomicInteger();
+            CountDownLatch latch = new CountDownLatch(5);
+            wheel.add(wheel.timer(() -> {
+                failures.incrementAndGet();
+                throw new IllegalStateException("Expected");
+            }, 10, false));
+            wheel.add(wheel.timer(latch::countDown, 10, false));
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            assertTrue(failures.get() > 1);
+        } finally {
+            wheel.stop();
+        }
+    }
+
+    @Test
+    public void testCoalescedTimersRunTogether() throws InterruptedException {
+        AtomicInteger dispatched = new AtomicInteger();
+        TimingWheel wheel = new TimingWheel(TICK_MILLIS, WHEEL_SIZE, job -> {
+            dispatched.incrementAndGet();
+            job.run();
+        });
+        try {
+            List<List<Integer>> runs = new ArrayList<>();
+            CountDownLatch latch = new CountDownLatch(8);
+            for (int i = 0; i < 4; i++) {
+                List<Integer> dispatches = new CopyOnWriteArrayList<>();
+                runs.add(dispatches);
+                boolean coalesce = i < 3;
+                wheel.add(wheel.timer(() -> {
+                    if (coalesce) {
+                        //one failing task must not stop the rest of its group
+                        dispatches.add(dispatched.get());
+                        latch.countDown();
+                        throw new IllegalStateException("Expected");
+                    }
+                    dispatches.add(dispatched.get());
+                    latch.countDown();
+                }, 40, coalesce));
+            }
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            int first = runs.get(0).get(0);
+            assertEquals(first, (int) runs.get(1).get(0));
+            assertEquals(first, (int) runs.get(2).get(0));
+            assertNotEquals(first, (int) runs.get(3).get(0));
+        } finally {
+            wheel.stop();
+        }
+    }
+
+    @Test
+    public void testRejectedDispatchDoesNotLeaveTimerRunning() throws InterruptedException {
+        AtomicInteger rejections = new AtomicInteger();
+        TimingWheel wheel = new TimingWheel(TICK_MILLIS, WHEEL_SIZE, job -> {
+            if (rejections.incrementAndGet() <= 2) {
+                throw new RejectedExecutionException("Expected");
+            }
+            job.run();
+        });
+        try {
+            CountDownLatch latch = new CountDownLatch(3);
+            wheel.add(wheel.timer(latch::countDown, 10, false));
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            assertEquals(0L, (long) wheel.metrics().get("skipped"));
+        } finally {
+            wheel.stop();
+        }
+    }
+
+    @Test
+    public void testStop() throws InterruptedException {
+        TimingWheel wheel = new TimingWheel(TICK_MILLIS, WHEEL_SIZE, Runnable::run);
+        AtomicInteger count = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(1);
+        wheel.add(wheel.timer(() -> {
+            count.incrementAndGet();
+            latch.countDown();
+        }, 10, false));
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        wheel.stop();
+        Thread.sleep(50);
+        int stoppedAt = count.get();
+        Thread.sleep(200);
+        assertEquals(stoppedAt, count.get());
+        assertThrows(IllegalStateException.class, () -> wheel.add(wheel.timer(count::incrementAndGet, 10, false)));
+    }
+}
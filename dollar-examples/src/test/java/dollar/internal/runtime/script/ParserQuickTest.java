@@ -19,6 +19,8 @@ package dollar.internal.runtime.script;
 import com.google.common.io.CharStreams;
 import dollar.api.DollarException;
 import dollar.api.DollarStatic;
+import dollar.api.Value;
+import dollar.api.VarKey;
 import dollar.api.script.ParserOptions;
 import dollar.internal.runtime.script.api.exceptions.DollarExitError;
 import dollar.internal.runtime.script.parser.DollarParserImpl;
@@ -30,6 +32,7 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,14 +40,19 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static dollar.internal.runtime.script.DollarUtilFactory.util;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -54,6 +62,20 @@ public class ParserQuickTest {
     private static final String[] files = {
     };
     @NotNull
+    private static final String[] QUICK_SCRIPTS = {
+//            "bulletin.ds",
+//            "example.ds",
+            "quick/test_pipe1.ds", "quick/test_emit.ds", "quick/test_variable_declarations.ds", "quick/test_print1.ds", "quick/test_classes.ds", "quick/test_variables1.ds", "quick/test_variables2.ds", "quick/test_variables3.ds", "quick/test_variables4.ds", "quick/test_variables5.ds", "quick/test_date.ds", "quick/test_block_closure.ds", "quick/test_list_closure.ds", "quick/test_map_closure.ds", "quick/test_scopes.ds",
+            "quick/test1.ds",
+            "quick/test_arrays.ds", "quick/test_builtins.ds", "quick/test_casting.ds", "quick/test_date.ds", "quick/test_fix1.ds",
+            "quick/test_fix2.ds", "quick/test_fix3.ds", "quick/test_iteration.ds", "quick/test_java.ds", "quick/test_logic.ds",
+            "quick/test_numeric.ds", "quick/test_parameters.ds", "quick/test_pure1.ds", "quick/test_pure2.ds", "quick/test_pure3.ds", "quick/test_pure4.ds", "quick/test_ranges.ds", "quick/test_reactive1.ds",
+            "quick/test_reactive2.ds", "quick/test_reactive3.ds", "quick/test_reactive4.ds", "quick/test_reactive5.ds",
+            "quick/test_reactive6.ds", "quick/test_reactive7.ds", "quick/test_reactive8.ds", "quick/test_strings.ds",
+            "quick/test_control_flow.ds",
+            "quick/test3.ds", "quick/test_types_1.ds"
+    };
+    @NotNull
     private static final Logger log = LoggerFactory.getLogger(ParserQuickTest.class);
     @NotNull
     private final ParserOptions options = new ParserOptions();
@@ -76,6 +98,10 @@ public class ParserQuickTest {
         return Stream.of(files);
     }
 
+    public static Stream<String> quickScripts() {
+        return Stream.of(QUICK_SCRIPTS);
+    }
+
     public static List<String> operatorList() {
         return Symbols.OPERATORS.stream().map(i -> {
             String file = "/examples/op/" + i.name() + ".ds";
@@ -264,6 +290,34 @@ public class ParserQuickTest {
         }
     }
 
+    @Test
+    public void testConcurrentParses() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Value>> results = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                String source = "export var a = " + i + "\n";
+                results.add(executor.submit(() -> new DollarParserImpl(options).parse(source, parallel)));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(i, results.get(i).get().$get(DollarStatic.$("a")).toInteger());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testExportOutsideParseIsNotShared() throws Exception {
+        DollarParserImpl parser = new DollarParserImpl(options);
+        Thread thread = new Thread(() -> parser.export(VarKey.of("late"), DollarStatic.$(1)));
+        thread.start();
+        thread.join();
+        Value exports = new DollarParserImpl(options).parse("export var a = 2\n", parallel);
+        assertFalse(exports.$has(DollarStatic.$("late")).isTrue());
+        assertEquals(2, exports.$get(DollarStatic.$("a")).toInteger());
+    }
+
     @Test
     public void testMarkdown1() throws IOException {
         new DollarParserImpl(options).parseMarkdown(
@@ -286,22 +340,20 @@ public class ParserQuickTest {
     }
 
     @ParameterizedTest
-    @ValueSource(
-//            "bulletin.ds",
-//            "example.ds",
-            strings = {"quick/test_pipe1.ds", "quick/test_emit.ds", "quick/test_variable_declarations.ds", "quick/test_print1.ds", "quick/test_classes.ds", "quick/test_variables1.ds", "quick/test_variables2.ds", "quick/test_variables3.ds", "quick/test_variables4.ds", "quick/test_variables5.ds", "quick/test_date.ds", "quick/test_block_closure.ds", "quick/test_list_closure.ds", "quick/test_map_closure.ds", "quick/test_scopes.ds",
-                              "quick/test1.ds",
-                              "quick/test_arrays.ds", "quick/test_builtins.ds", "quick/test_casting.ds", "quick/test_date.ds", "quick/test_fix1.ds",
-                              "quick/test_fix2.ds", "quick/test_fix3.ds", "quick/test_iteration.ds", "quick/test_java.ds", "quick/test_logic.ds",
-                              "quick/test_numeric.ds", "quick/test_parameters.ds", "quick/test_pure1.ds", "quick/test_pure2.ds", "quick/test_pure3.ds", "quick/test_pure4.ds", "quick/test_ranges.ds", "quick/test_reactive1.ds",
-                              "quick/test_reactive2.ds", "quick/test_reactive3.ds", "quick/test_reactive4.ds", "quick/test_reactive5.ds",
-                              "quick/test_reactive6.ds", "quick/test_reactive7.ds", "quick/test_reactive8.ds", "quick/test_strings.ds",
-                              "quick/test_control_flow.ds",
-                              "quick/test3.ds", "quick/test_types_1.ds"})
-
+    @MethodSource("quickScripts")
     public void testScript(@NotNull String filename) throws Exception {
         util().clearScopes();
         System.out.println("Testing " + filename);
         new DollarParserImpl(options).parse(getClass().getResourceAsStream("/" + filename), filename, parallel);
     }
+
+    @ParameterizedTest
+    @MethodSource("quickScripts")
+    public void testScriptDirectDispatch(@NotNull String filename) throws Exception {
+        util().clearScopes();
+        System.out.println("Testing " + filename + " (direct dispatch)");
+        ParserOptions directOptions = new ParserOptions();
+        directOptions.setDirectDispatch(true);
+        new DollarParserImpl(directOptions).parse(getClass().getResourceAsStream("/" + filename), filename, parallel);
+    }
 }
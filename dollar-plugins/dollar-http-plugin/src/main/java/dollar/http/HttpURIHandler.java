@@ -16,6 +16,9 @@
 
 package dollar.http;
 
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.io.CharStreams;
 import com.mashape.unirest.http.Unirest;
 import com.mashape.unirest.http.exceptions.UnirestException;
 import dollar.api.DollarException;
@@ -31,7 +34,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -178,10 +182,10 @@ public class HttpURIHandler implements URIHandler {
         throw new UnsupportedOperationException();
     }
 
-    public static class RouteableNanoHttpd extends NanoHttpdServer {
+    public static class RouteableNanoHttpd extends NioHttpServer {
 
         @NotNull
-        private final Map<String, RequestHandler> handlers = new HashMap<>();
+        private final Map<String, RequestHandler> handlers = new ConcurrentHashMap<>();
 
         public RouteableNanoHttpd(@NotNull String hostname, int port) {
             super(hostname, port);
@@ -217,6 +221,22 @@ public class HttpURIHandler implements URIHandler {
             this.consumer = consumer;
         }
 
+        /**
+         * The request body is only read from the connection if the consumer uses it, and then only once.
+         */
+        @NotNull
+        private Value body(@NotNull NanoHttpdServer.IHTTPSession session) {
+            Supplier<Value> body = Suppliers.memoize(() -> {
+                try {
+                    return $(CharStreams.toString(new InputStreamReader(session.getInputStream(),
+                                                                        StandardCharsets.UTF_8)));
+                } catch (IOException e) {
+                    throw new DollarException(e);
+                }
+            });
+            return DollarFactory.fromLambda(in -> body.get());
+        }
+
         @NotNull
         public NanoHttpdServer.Response invoke(@NotNull NanoHttpdServer.IHTTPSession session) {
             try {
@@ -226,8 +246,7 @@ public class HttpURIHandler implements URIHandler {
                                    .$set($("uri"), session.getUri())
                                    .$set($("query"), session.getQueryParameterString())
                                    .$set($("method"), session.getMethod().name())
-                                   .$set($("body"), "");
-//                session.getInputStream().close();
+                                   .$set($("body"), body(session));
                 Value out = consumer.pipe(in);
                 Value body = out.$get($("body"));
                 NanoHttpdServer.Response
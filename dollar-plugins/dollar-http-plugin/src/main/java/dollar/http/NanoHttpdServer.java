@@ -47,6 +47,7 @@ import java.nio.channels.FileChannel;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -624,6 +625,11 @@ public abstract class NanoHttpdServer {
             return header.get(name);
         }
 
+        @NotNull
+        public Map<String, String> getHeaders() {
+            return Collections.unmodifiableMap(header);
+        }
+
         @NotNull
         public String getMimeType() {
             return mimeType;
@@ -651,6 +657,10 @@ public abstract class NanoHttpdServer {
             this.status = status;
         }
 
+        public boolean isChunkedTransfer() {
+            return chunkedTransfer;
+        }
+
         public void setChunkedTransfer(boolean chunkedTransfer) {
             this.chunkedTransfer = chunkedTransfer;
         }
@@ -1373,7 +1383,7 @@ public abstract class NanoHttpdServer {
      *
      * @author LordFokas
      */
-    public class CookieHandler implements Iterable<String> {
+    public static class CookieHandler implements Iterable<String> {
         @NotNull private final HashMap<String, String> cookies = new HashMap<>();
         @NotNull private final ArrayList<Cookie> queue = new ArrayList<>();
 
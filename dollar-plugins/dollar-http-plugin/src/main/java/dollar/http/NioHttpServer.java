@@ -0,0 +1,794 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.http;
+
+import dollar.http.NanoHttpdServer.CookieHandler;
+import dollar.http.NanoHttpdServer.IHTTPSession;
+import dollar.http.NanoHttpdServer.Method;
+import dollar.http.NanoHttpdServer.Response;
+import dollar.http.NanoHttpdServer.ResponseException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.StringTokenizer;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An HTTP/1.1 server which waits for requests on a single selector thread and serves them on a pool of workers.
+ * <p>
+ * Idle keep-alive connections cost nothing but a selection key, a worker is only taken once a complete request header
+ * has arrived. The worker then switches the connection to blocking mode so the request body can be streamed to the
+ * handler through {@link IHTTPSession#getInputStream()}, and serves any further requests already pipelined in the
+ * connection's buffer before handing the connection back to the selector. Responses whose data is a {@link
+ * FileInputStream} are sent with {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}.
+ * <p>
+ * The worker pool size is taken from {@code dollar.http.workers}, defaulting to twice the number of processors, or a
+ * pool can be supplied with {@link #setWorkers(ExecutorService)}. Connections idle for longer than {@code
+ * dollar.http.idle.millis} are closed.
+ */
+public abstract class NioHttpServer {
+
+    /**
+     * The largest request header accepted, the same 8KB limit NanoHttpdServer applies.
+     */
+    public static final int HEADER_LIMIT = 8192;
+    private static final long IDLE_MILLIS = Long.getLong("dollar.http.idle.millis", 30000L);
+    @NotNull
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final int WORKERS = Integer.getInteger("dollar.http.workers",
+                                                          2 * Runtime.getRuntime().availableProcessors());
+    @NotNull
+    private static final Logger log = LoggerFactory.getLogger(NioHttpServer.class);
+    @NotNull
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    @Nullable
+    private final String hostname;
+    private final int port;
+    @NotNull
+    private final Queue<Connection> resumed = new ConcurrentLinkedQueue<>();
+    private volatile boolean running;
+    @Nullable
+    private Selector selector;
+    @Nullable
+    private ServerSocketChannel serverChannel;
+    @Nullable
+    private Thread selectorThread;
+    @Nullable
+    private ExecutorService workers;
+
+    public NioHttpServer(@Nullable String hostname, int port) {
+        this.hostname = hostname;
+        this.port = port;
+    }
+
+    private static void safeClose(@Nullable Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                log.debug(e.getMessage(), e);
+            }
+        }
+    }
+
+    @Nullable
+    private static String decodePercent(@NotNull String str) {
+        try {
+            return URLDecoder.decode(str, "UTF8");
+        } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public final int getListeningPort() {
+        ServerSocketChannel channel = serverChannel;
+        return (channel == null) ? -1 : channel.socket().getLocalPort();
+    }
+
+    public final boolean isAlive() {
+        Thread thread = selectorThread;
+        return running && (thread != null) && thread.isAlive();
+    }
+
+    /**
+     * Pluggable pool for serving requests, must be set before the server is started.
+     *
+     * @param workers the pool to serve requests on, it is shut down when the server stops.
+     */
+    public void setWorkers(@NotNull ExecutorService workers) {
+        this.workers = workers;
+    }
+
+    @NotNull
+    public abstract Response serve(@NotNull IHTTPSession session);
+
+    /**
+     * Start the server.
+     *
+     * @throws IOException if the socket is in use.
+     */
+    public void start() throws IOException {
+        if (workers == null) {
+            AtomicInteger count = new AtomicInteger();
+            workers = Executors.newFixedThreadPool(WORKERS, r -> {
+                Thread thread = new Thread(r, "dollar-http-worker-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind((hostname != null) ? new InetSocketAddress(hostname, port) : new InetSocketAddress(port));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        running = true;
+        selectorThread = new Thread(this::select, "dollar-http-selector-" + getListeningPort());
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+    }
+
+    /**
+     * Stop the server, closing all connections.
+     */
+    public void stop() {
+        running = false;
+        if (selector != null) {
+            selector.wakeup();
+        }
+        try {
+            if (selectorThread != null) {
+                selectorThread.join(TimeUnit.SECONDS.toMillis(5));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        safeClose(serverChannel);
+        safeClose(selector);
+        for (Connection connection : connections) {
+            connection.close();
+        }
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            Connection connection = new Connection(channel);
+            connections.add(connection);
+            channel.register(selector, SelectionKey.OP_READ, connection);
+        }
+    }
+
+    private void select() {
+        List<Connection> ready = new ArrayList<>();
+        while (running) {
+            try {
+                if (selector.selectedKeys().isEmpty()) {
+                    selector.select(Math.max(1, IDLE_MILLIS / 4));
+                } else {
+                    selector.selectNow();
+                }
+                Connection connection;
+                while ((connection = resumed.poll()) != null) {
+                    connection.resume();
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else if (key.isReadable()) {
+                        Connection readable = (Connection) key.attachment();
+                        if (readable.readAvailable()) {
+                            key.cancel();
+                            ready.add(readable);
+                        }
+                    }
+                }
+                if (!ready.isEmpty()) {
+                    //Flush the cancelled keys so the channels can be put into blocking mode by the workers
+                    selector.selectNow();
+                    for (Connection readyConnection : ready) {
+                        workers.execute(readyConnection::serveRequests);
+                    }
+                    ready.clear();
+                }
+                closeIdle();
+            } catch (IOException e) {
+                if (running) {
+                    log.warn(e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    private void closeIdle() {
+        long now = System.currentTimeMillis();
+        for (Connection connection : connections) {
+            if (!connection.busy && ((now - connection.lastActive) > IDLE_MILLIS)) {
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * A client connection and the bytes read from it which have not yet been consumed.
+     */
+    private final class Connection {
+        @NotNull
+        private final SocketChannel channel;
+        @NotNull
+        private final byte[] buffer = new byte[HEADER_LIMIT];
+        private volatile boolean busy;
+        private int end;
+        private volatile long lastActive = System.currentTimeMillis();
+        private int start;
+
+        Connection(@NotNull SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void close() {
+            connections.remove(this);
+            safeClose(channel);
+        }
+
+        /**
+         * Reads what is available without blocking.
+         *
+         * @return true if a complete request header is buffered and the connection should be served
+         */
+        boolean readAvailable() {
+            try {
+                compact();
+                int read = channel.read(ByteBuffer.wrap(buffer, end, buffer.length - end));
+                if (read < 0) {
+                    close();
+                    return false;
+                }
+                end += read;
+                lastActive = System.currentTimeMillis();
+                if (headerEnd() >= 0) {
+                    busy = true;
+                    return true;
+                }
+                if (end - start == buffer.length) {
+                    //Header too large, there is no worker involved so reply without blocking as best we can
+                    channel.write(ByteBuffer.wrap(
+                            "HTTP/1.1 400 Bad Request\r\nContent-Length: 0\r\nConnection: close\r\n\r\n"
+                                    .getBytes(StandardCharsets.ISO_8859_1)));
+                    close();
+                }
+                return false;
+            } catch (IOException e) {
+                log.debug(e.getMessage(), e);
+                close();
+                return false;
+            }
+        }
+
+        /**
+         * Called on the selector thread once a worker has finished with the connection.
+         */
+        void resume() {
+            try {
+                channel.configureBlocking(false);
+                channel.register(selector, SelectionKey.OP_READ, this);
+                lastActive = System.currentTimeMillis();
+                busy = false;
+            } catch (IOException e) {
+                log.debug(e.getMessage(), e);
+                close();
+            }
+        }
+
+        void serveRequests() {
+            try {
+                channel.configureBlocking(true);
+                boolean keepAlive = true;
+                while (keepAlive && (headerEnd() >= 0)) {
+                    keepAlive = serveRequest();
+                }
+                if (keepAlive && channel.isOpen()) {
+                    resumed.add(this);
+                    selector.wakeup();
+                } else {
+                    close();
+                }
+            } catch (ClosedChannelException e) {
+                close();
+            } catch (Exception e) {
+                log.debug(e.getMessage(), e);
+                close();
+            }
+        }
+
+        private void compact() {
+            if (start > 0) {
+                System.arraycopy(buffer, start, buffer, 0, end - start);
+                end -= start;
+                start = 0;
+            }
+        }
+
+        /**
+         * Blocking read of at least one more byte into the buffer.
+         *
+         * @return false at end of stream
+         */
+        private boolean fill() throws IOException {
+            compact();
+            if (end == buffer.length) {
+                return true;
+            }
+            int read = channel.read(ByteBuffer.wrap(buffer, end, buffer.length - end));
+            if (read < 0) {
+                return false;
+            }
+            end += read;
+            return true;
+        }
+
+        private int headerEnd() {
+            for (int i = start; (i + 3) < end; i++) {
+                if ((buffer[i] == '\r') && (buffer[i + 1] == '\n') && (buffer[i + 2] == '\r') && (buffer[i + 3] == '\n')) {
+                    return i + 4;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Serves the request at the start of the buffer.
+         *
+         * @return true if the connection should be kept open
+         */
+        private boolean serveRequest() throws IOException {
+            int headerEnd = headerEnd();
+            String header = new String(buffer, start, headerEnd - start, StandardCharsets.ISO_8859_1);
+            start = headerEnd;
+            Session session;
+            try {
+                session = new Session(header, this);
+            } catch (ResponseException e) {
+                send(new Response(e.getStatus(), NanoHttpdServer.MIME_PLAINTEXT, e.getMessage()), null, false);
+                return false;
+            }
+            Response response;
+            try {
+                response = serve(session);
+            } catch (RuntimeException e) {
+                log.debug(e.getMessage(), e);
+                response = new Response(Response.Status.INTERNAL_ERROR, NanoHttpdServer.MIME_PLAINTEXT,
+                                        "SERVER INTERNAL ERROR: " + e.getMessage());
+            }
+            session.getCookies().unloadQueue(response);
+            response.setRequestMethod(session.getMethod());
+            boolean keepAlive = session.keepAlive() && !"close".equalsIgnoreCase(response.getHeader("Connection"));
+            //Whatever the handler left unread must be skipped to reach the next pipelined request
+            if (keepAlive && !session.body.skipRemaining()) {
+                keepAlive = false;
+            }
+            send(response, session.getMethod(), keepAlive);
+            lastActive = System.currentTimeMillis();
+            return keepAlive;
+        }
+
+        private void send(@NotNull Response response, @Nullable Method method, boolean keepAlive) throws IOException {
+            InputStream data = response.getData();
+            StringBuilder head = new StringBuilder(256);
+            //Handler supplied statuses may describe only the reason, so make sure the code is in the status line
+            String code = String.valueOf(response.getStatus().getRequestStatus());
+            String description = response.getStatus().getDescription();
+            head.append("HTTP/1.1 ").append(description.startsWith(code) ? description : (code + " " + description))
+                .append(" \r\n");
+            if (response.getMimeType() != null) {
+                head.append("Content-Type: ").append(response.getMimeType()).append("\r\n");
+            }
+            Map<String, String> headers = response.getHeaders();
+            if (!hasHeader(headers, "date")) {
+                SimpleDateFormat format = new SimpleDateFormat("E, d MMM yyyy HH:mm:ss 'GMT'", Locale.US);
+                format.setTimeZone(TimeZone.getTimeZone("GMT"));
+                head.append("Date: ").append(format.format(new Date())).append("\r\n");
+            }
+            for (Map.Entry<String, String> entry : headers.entrySet()) {
+                if (!"connection".equalsIgnoreCase(entry.getKey())) {
+                    head.append(entry.getKey()).append(": ").append(entry.getValue()).append("\r\n");
+                }
+            }
+            head.append("Connection: ").append(keepAlive ? "keep-alive" : "close").append("\r\n");
+            boolean sendBody = (method != Method.HEAD) && (data != null);
+            try {
+                if (sendBody && (data instanceof FileInputStream)) {
+                    FileChannel file = ((FileInputStream) data).getChannel();
+                    long position = file.position();
+                    long length = file.size() - position;
+                    contentLength(head, headers, length);
+                    write(head);
+                    while (length > 0) {
+                        long sent = file.transferTo(position, length, channel);
+                        position += sent;
+                        length -= sent;
+                    }
+                } else if (sendBody && response.isChunkedTransfer()) {
+                    head.append("Transfer-Encoding: chunked\r\n\r\n");
+                    write(head);
+                    byte[] chunk = new byte[16 * 1024];
+                    int read;
+                    while ((read = data.read(chunk)) > 0) {
+                        writeFully(ByteBuffer.wrap(Integer.toHexString(read).getBytes(StandardCharsets.ISO_8859_1)),
+                                   ByteBuffer.wrap(CRLF), ByteBuffer.wrap(chunk, 0, read), ByteBuffer.wrap(CRLF));
+                    }
+                    writeFully(ByteBuffer.wrap("0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1)));
+                } else {
+                    byte[] body = (data != null) ? readAll(data) : new byte[0];
+                    contentLength(head, headers, body.length);
+                    head.append("\r\n");
+                    ByteBuffer headBuffer = ByteBuffer.wrap(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+                    if (method == Method.HEAD) {
+                        writeFully(headBuffer);
+                    } else {
+                        writeFully(headBuffer, ByteBuffer.wrap(body));
+                    }
+                }
+            } finally {
+                safeClose(data);
+            }
+        }
+
+        private void contentLength(@NotNull StringBuilder head, @NotNull Map<String, String> headers, long length) {
+            if (!hasHeader(headers, "content-length")) {
+                head.append("Content-Length: ").append(length).append("\r\n");
+            }
+        }
+
+        private boolean hasHeader(@NotNull Map<String, String> headers, @NotNull String name) {
+            for (String key : headers.keySet()) {
+                if (key.equalsIgnoreCase(name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @NotNull
+        private byte[] readAll(@NotNull InputStream data) throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] chunk = new byte[16 * 1024];
+            int read;
+            while ((read = data.read(chunk)) > 0) {
+                out.write(chunk, 0, read);
+            }
+            return out.toByteArray();
+        }
+
+        private void write(@NotNull StringBuilder head) throws IOException {
+            head.append("\r\n");
+            writeFully(ByteBuffer.wrap(head.toString().getBytes(StandardCharsets.ISO_8859_1)));
+        }
+
+        private void writeFully(@NotNull ByteBuffer... buffers) throws IOException {
+            //The last buffer may be empty (an empty body) so every buffer must be checked
+            for (ByteBuffer buffer : buffers) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffers);
+                }
+            }
+        }
+    }
+
+    /**
+     * Streams a request body out of the connection, either the number of bytes given by Content-Length or a chunked
+     * body.
+     */
+    private static final class BodyStream extends InputStream {
+        private final boolean chunked;
+        @NotNull
+        private final Connection connection;
+        private boolean finished;
+        private long remaining;
+
+        BodyStream(@NotNull Connection connection, long length, boolean chunked) {
+            this.connection = connection;
+            this.chunked = chunked;
+            remaining = chunked ? 0 : length;
+            finished = !chunked && (length <= 0);
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(remaining, connection.end - connection.start);
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            int read = read(single, 0, 1);
+            return (read < 0) ? -1 : (single[0] & 0xFF);
+        }
+
+        @Override
+        public int read(@NotNull byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if ((remaining == 0) && !nextChunk()) {
+                return -1;
+            }
+            if ((connection.end == connection.start) && !connection.fill()) {
+                throw new IOException("Connection closed before the request body was complete");
+            }
+            int count = (int) Math.min(Math.min(len, remaining), connection.end - connection.start);
+            System.arraycopy(connection.buffer, connection.start, b, off, count);
+            connection.start += count;
+            remaining -= count;
+            return count;
+        }
+
+        /**
+         * @return false if the body could not be read to the end
+         */
+        boolean skipRemaining() {
+            try {
+                byte[] discard = new byte[4096];
+                while (read(discard, 0, discard.length) >= 0) {
+                    //Discard
+                }
+                return true;
+            } catch (IOException e) {
+                log.debug(e.getMessage(), e);
+                return false;
+            }
+        }
+
+        private boolean nextChunk() throws IOException {
+            if (finished) {
+                return false;
+            }
+            if (!chunked) {
+                finished = true;
+                return false;
+            }
+            String line = readLine();
+            if (line.isEmpty()) {
+                //The CRLF which ends the previous chunk
+                line = readLine();
+            }
+            int extension = line.indexOf(';');
+            long size;
+            try {
+                size = Long.parseLong(((extension >= 0) ? line.substring(0, extension) : line).trim(), 16);
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid chunk size " + line);
+            }
+            if (size == 0) {
+                //Skip any trailers
+                while (!readLine().isEmpty()) {
+                    //Discard
+                }
+                finished = true;
+                return false;
+            }
+            remaining = size;
+            return true;
+        }
+
+        @NotNull
+        private String readLine() throws IOException {
+            StringBuilder line = new StringBuilder();
+            while (true) {
+                if ((connection.end == connection.start) && !connection.fill()) {
+                    throw new IOException("Connection closed before the request body was complete");
+                }
+                byte b = connection.buffer[connection.start++];
+                if (b == '\n') {
+                    int length = line.length();
+                    if ((length > 0) && (line.charAt(length - 1) == '\r')) {
+                        line.setLength(length - 1);
+                    }
+                    return line.toString();
+                }
+                line.append((char) b);
+            }
+        }
+    }
+
+    private static final class Session implements IHTTPSession {
+        @NotNull
+        private final BodyStream body;
+        @NotNull
+        private final CookieHandler cookies;
+        @NotNull
+        private final Map<String, String> headers = new HashMap<>();
+        @NotNull
+        private final Method method;
+        @NotNull
+        private final Map<String, String> parms = new HashMap<>();
+        @NotNull
+        private final String protocol;
+        @NotNull
+        private final String queryParameterString;
+        @NotNull
+        private final String uri;
+
+        Session(@NotNull String header, @NotNull Connection connection) throws ResponseException {
+            String[] lines = header.split("\r\n");
+            StringTokenizer st = new StringTokenizer(lines[0]);
+            if (st.countTokens() < 2) {
+                throw new ResponseException(Response.Status.BAD_REQUEST,
+                                            "BAD REQUEST: Syntax error. Usage: GET /example/file.html");
+            }
+            Method lookup = Method.lookup(st.nextToken());
+            if (lookup == null) {
+                throw new ResponseException(Response.Status.BAD_REQUEST, "BAD REQUEST: Syntax error.");
+            }
+            method = lookup;
+            String target = st.nextToken();
+            protocol = st.hasMoreTokens() ? st.nextToken() : "HTTP/1.0";
+            int qmi = target.indexOf('?');
+            queryParameterString = (qmi >= 0) ? target.substring(qmi + 1) : "";
+            String path = decodePercent((qmi >= 0) ? target.substring(0, qmi) : target);
+            if (path == null) {
+                throw new ResponseException(Response.Status.BAD_REQUEST, "BAD REQUEST: Invalid URI.");
+            }
+            uri = path;
+            StringTokenizer params = new StringTokenizer(queryParameterString, "&");
+            while (params.hasMoreTokens()) {
+                String e = params.nextToken();
+                int sep = e.indexOf('=');
+                String key = decodePercent((sep >= 0) ? e.substring(0, sep) : e);
+                String value = (sep >= 0) ? decodePercent(e.substring(sep + 1)) : "";
+                if ((key != null) && (value != null)) {
+                    parms.put(key.trim(), value);
+                }
+            }
+            for (int i = 1; i < lines.length; i++) {
+                int p = lines[i].indexOf(':');
+                if (p >= 0) {
+                    headers.put(lines[i].substring(0, p).trim().toLowerCase(Locale.US), lines[i].substring(p + 1).trim());
+                }
+            }
+            String remoteIp = remoteAddress(connection.channel);
+            headers.put("remote-addr", remoteIp);
+            headers.put("http-client-ip", remoteIp);
+            cookies = new CookieHandler(headers);
+            boolean chunked = "chunked".equalsIgnoreCase(headers.get("transfer-encoding"));
+            long length = 0;
+            if (!chunked && headers.containsKey("content-length")) {
+                try {
+                    length = Long.parseLong(headers.get("content-length"));
+                } catch (NumberFormatException e) {
+                    throw new ResponseException(Response.Status.BAD_REQUEST, "BAD REQUEST: Invalid Content-Length.");
+                }
+            }
+            body = new BodyStream(connection, length, chunked);
+        }
+
+        @NotNull
+        private static String remoteAddress(@NotNull SocketChannel channel) {
+            java.net.InetAddress address = channel.socket().getInetAddress();
+            if ((address == null) || address.isLoopbackAddress() || address.isAnyLocalAddress()) {
+                return "127.0.0.1";
+            }
+            return address.getHostAddress();
+        }
+
+        @Override
+        public void execute() {
+            throw new UnsupportedOperationException("Requests are executed by the server");
+        }
+
+        @NotNull
+        @Override
+        public CookieHandler getCookies() {
+            return cookies;
+        }
+
+        @NotNull
+        @Override
+        public Map<String, String> getHeaders() {
+            return headers;
+        }
+
+        @NotNull
+        @Override
+        public InputStream getInputStream() {
+            return body;
+        }
+
+        @NotNull
+        @Override
+        public Method getMethod() {
+            return method;
+        }
+
+        @NotNull
+        @Override
+        public Map<String, String> getParms() {
+            return parms;
+        }
+
+        @NotNull
+        @Override
+        public String getQueryParameterString() {
+            return queryParameterString;
+        }
+
+        @NotNull
+        @Override
+        public String getUri() {
+            return uri;
+        }
+
+        @Override
+        public void parseBody(@NotNull Map<String, String> files) throws ResponseException {
+            throw new ResponseException(Response.Status.INTERNAL_ERROR,
+                                        "Read the request body from the session's input stream");
+        }
+
+        boolean keepAlive() {
+            String connection = headers.get("connection");
+            if ("HTTP/1.0".equalsIgnoreCase(protocol)) {
+                return "keep-alive".equalsIgnoreCase(connection);
+            }
+            return !"close".equalsIgnoreCase(connection);
+        }
+    }
+}
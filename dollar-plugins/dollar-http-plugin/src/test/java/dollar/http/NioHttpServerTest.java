@@ -0,0 +1,217 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.http;
+
+import dollar.http.NanoHttpdServer.IHTTPSession;
+import dollar.http.NanoHttpdServer.Response;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class NioHttpServerTest {
+
+    @NotNull
+    private final NioHttpServer server = new NioHttpServer("127.0.0.1", 0) {
+        @NotNull
+        @Override
+        public Response serve(@NotNull IHTTPSession session) {
+            switch (session.getUri()) {
+                case "/empty":
+                    return new Response(Response.Status.OK, NanoHttpdServer.MIME_PLAINTEXT, (String) null);
+                case "/blank":
+                    return new Response(Response.Status.OK, NanoHttpdServer.MIME_PLAINTEXT, "");
+                case "/echo":
+                    try {
+                        return new Response(Response.Status.OK, NanoHttpdServer.MIME_PLAINTEXT,
+                                            new String(readAll(session.getInputStream()), StandardCharsets.UTF_8));
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                default:
+                    return new Response(Response.Status.OK, NanoHttpdServer.MIME_PLAINTEXT, "hello");
+            }
+        }
+    };
+    private InputStream in;
+    private OutputStream out;
+    private Socket socket;
+
+    @NotNull
+    private static byte[] readAll(@NotNull InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] chunk = new byte[1024];
+        int read;
+        while ((read = in.read(chunk)) > 0) {
+            bytes.write(chunk, 0, read);
+        }
+        return bytes.toByteArray();
+    }
+
+    @NotNull
+    private static String readLine(@NotNull InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\n') {
+            if (c < 0) {
+                throw new IOException("Connection closed");
+            }
+            if (c != '\r') {
+                line.append((char) c);
+            }
+        }
+        return line.toString();
+    }
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server.start();
+        socket = new Socket("127.0.0.1", server.getListeningPort());
+        //A response which never arrives fails the test rather than hanging it
+        socket.setSoTimeout(5000);
+        in = new BufferedInputStream(socket.getInputStream());
+        out = socket.getOutputStream();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        socket.close();
+        server.stop();
+    }
+
+    @Test
+    public void testEmptyBody() throws IOException {
+        send("GET /empty HTTP/1.1\r\nHost: localhost\r\n\r\n");
+        HttpResult empty = read(true);
+        assertEquals(200, empty.status);
+        assertEquals("0", empty.headers.get("content-length"));
+        assertEquals("", empty.body);
+
+        send("GET /blank HTTP/1.1\r\nHost: localhost\r\n\r\n");
+        assertEquals("", read(true).body);
+
+        send("GET /hello HTTP/1.1\r\nHost: localhost\r\n\r\n");
+        assertEquals("hello", read(true).body);
+    }
+
+    @Test
+    public void testPipelinedRequests() throws IOException {
+        send("GET /first HTTP/1.1\r\nHost: localhost\r\n\r\n"
+                     + "POST /echo HTTP/1.1\r\nHost: localhost\r\nContent-Length: 6\r\n\r\nsecond");
+        assertEquals("hello", read(true).body);
+        assertEquals("second", read(true).body);
+    }
+
+    @Test
+    public void testChunkedUpload() throws IOException {
+        send("POST /echo HTTP/1.1\r\nHost: localhost\r\nTransfer-Encoding: chunked\r\n\r\n"
+                     + "5\r\nhello\r\n6;name=value\r\n world\r\n0\r\nX-Trailer: ignored\r\n\r\n");
+        assertEquals("hello world", read(true).body);
+        send("GET /hello HTTP/1.1\r\nHost: localhost\r\n\r\n");
+        assertEquals("hello", read(true).body);
+    }
+
+    @Test
+    public void testUnreadBodyKeepsConnectionAlive() throws IOException {
+        send("POST /ignore HTTP/1.1\r\nHost: localhost\r\nContent-Length: 10\r\n\r\n0123456789");
+        HttpResult ignored = read(true);
+        assertEquals("hello", ignored.body);
+        assertEquals("keep-alive", ignored.headers.get("connection"));
+        send("GET /hello HTTP/1.1\r\nHost: localhost\r\n\r\n");
+        assertEquals("hello", read(true).body);
+    }
+
+    @Test
+    public void testHeaderTooLarge() throws IOException {
+        StringBuilder big = new StringBuilder();
+        while (big.length() <= NioHttpServer.HEADER_LIMIT) {
+            big.append('a');
+        }
+        send("GET /hello HTTP/1.1\r\nHost: localhost\r\nX-Big: " + big + "\r\n\r\n");
+        HttpResult result = read(true);
+        assertEquals(400, result.status);
+        assertEquals("close", result.headers.get("connection"));
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    public void testHead() throws IOException {
+        send("HEAD /hello HTTP/1.1\r\nHost: localhost\r\n\r\n");
+        HttpResult head = read(false);
+        assertEquals(200, head.status);
+        assertEquals("5", head.headers.get("content-length"));
+        send("GET /hello HTTP/1.1\r\nHost: localhost\r\n\r\n");
+        HttpResult get = read(true);
+        assertEquals("hello", get.body);
+        assertNull(get.headers.get("transfer-encoding"));
+    }
+
+    @NotNull
+    private HttpResult read(boolean body) throws IOException {
+        String[] status = readLine(in).split(" ");
+        Map<String, String> headers = new HashMap<>();
+        String line;
+        while (!(line = readLine(in)).isEmpty()) {
+            int colon = line.indexOf(':');
+            headers.put(line.substring(0, colon).trim().toLowerCase(Locale.US), line.substring(colon + 1).trim());
+        }
+        byte[] bytes = new byte[body ? Integer.parseInt(headers.get("content-length")) : 0];
+        int read = 0;
+        while (read < bytes.length) {
+            int n = in.read(bytes, read, bytes.length - read);
+            if (n < 0) {
+                throw new IOException("Connection closed");
+            }
+            read += n;
+        }
+        return new HttpResult(Integer.parseInt(status[1]), headers, new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    private void send(@NotNull String request) throws IOException {
+        out.write(request.getBytes(StandardCharsets.ISO_8859_1));
+        out.flush();
+    }
+
+    private static final class HttpResult {
+        @NotNull
+        final String body;
+        @NotNull
+        final Map<String, String> headers;
+        final int status;
+
+        HttpResult(int status, @NotNull Map<String, String> headers, @NotNull String body) {
+            this.status = status;
+            this.headers = headers;
+            this.body = body;
+        }
+    }
+}
@@ -30,8 +30,12 @@ import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  */
@@ -65,34 +69,36 @@ public final class Java9ScriptingLanguage implements ScriptingLanguage {
     public static final String REJECTED_DESC = "The snippet is inactive because it failed compilation on initial evaluation and it is not capable of becoming valid with further changes to the JShell state.\n" +
                                                        "The snippet is not visible to other snippets (isDefined() == false) and thus cannot be referenced or executed.\n" +
                                                        "The snippet will not update as dependents change (isActive() == false), its Status will never change again.";
+    /**
+     * The number of idle JShell sessions kept for snippets which cannot be compiled.
+     */
+    private static final int POOL_SIZE = 2;
+    @NotNull
+    private static final SnippetCompiler compiler = new SnippetCompiler();
     @NotNull
     private static final Logger log = LoggerFactory.getLogger("ScriptingSupport");
+    @NotNull
+    private static final BlockingQueue<JShell> shells = new ArrayBlockingQueue<>(POOL_SIZE);
 
     @Override
     @NotNull
     public Value compile(@NotNull String script, @NotNull Scope scope) throws Exception {
+        Function<List<Value>, Value> snippet = compiler.compile(script.trim());
+        if (snippet != null) {
+            try {
+                return snippet.apply(new ArrayList<>(scope.parametersAsVars()));
+            } catch (Exception e) {
+                log.debug(e.getMessage(), e);
+                return scope.handleError(e);
+            }
+        }
 
         Value result;
-        try (JShell shell = JShell.builder()
-
-                                    .out(System.out)
-                                    .err(System.err)
-                                    .build()) {
-
-            List<String> imports = Arrays.asList("dollar.lang.*", "dollar.internal.runtime.script.api.*", "dollar.api.*",
-                                                 "dollar.api.types.*", "java.io.*",
-                                                 "java.math.*", "java.net.*", "java.nio.file.*", "java.util.*",
-                                                 "java.util.concurrent.*",
-                                                 "java.util.function.*", "java.util.prefs.*", "java.util.regex.*",
-                                                 "java.util.stream.*");
-            List<String> staticImports = Arrays.asList("dollar.api.DollarStatic.*", "dollar.java.JavaScriptingStaticImports.*");
-            shell.addToClasspath(System.getProperty("java.class.path"));
-            shell.addToClasspath(System.getProperty("user.home") + "/.dollar/tmp/classes");
-            for (String anImport : imports) {
-                jshell(shell, "import " + anImport + ";", false);
-            }
-            for (String anImport : staticImports) {
-                jshell(shell, "import static " + anImport + ";", false);
+        JShell shell = null;
+        try {
+            shell = shells.poll();
+            if (shell == null) {
+                shell = newShell();
             }
             jshell(shell, "java.util.List<dollar.api.Value> in= new java.util.ArrayList<dollar.api.Value>();", true);
             for (Value var : scope.parametersAsVars()) {
@@ -107,14 +113,48 @@ public final class Java9ScriptingLanguage implements ScriptingLanguage {
             String resultStr = out.get(0).value();
             log.debug(resultStr);
             result = DollarFactory.deserialize64(resultStr.substring(1, resultStr.length() - 1));
-
+            release(shell);
         } catch (Exception e) {
             log.debug(e.getMessage(), e);
+            if (shell != null) {
+                shell.close();
+            }
             return scope.handleError(e);
         }
         return result;
     }
 
+    @NotNull
+    private JShell newShell() throws JShellException {
+        JShell shell = JShell.builder()
+                               .out(System.out)
+                               .err(System.err)
+                               .build();
+        shell.addToClasspath(SnippetCompiler.classPath());
+        for (String anImport : SnippetCompiler.IMPORTS) {
+            jshell(shell, "import " + anImport + ";", false);
+        }
+        for (String anImport : SnippetCompiler.STATIC_IMPORTS) {
+            jshell(shell, "import static " + anImport + ";", false);
+        }
+        return shell;
+    }
+
+    /**
+     * Drops everything but the imports from the session and returns it to the pool.
+     */
+    private void release(@NotNull JShell shell) {
+        List<Snippet> snippets = shell.snippets()
+                                         .filter(snippet -> snippet.kind() != Snippet.Kind.IMPORT)
+                                         .collect(Collectors.toList());
+        for (Snippet snippet : snippets) {
+            shell.drop(snippet);
+        }
+        if (!shells.offer(shell)) {
+            shell.close();
+        }
+    }
+
     @Override
     public boolean provides(@NotNull String language) {
         return "java".equals(language);
@@ -207,6 +247,9 @@ public final class Java9ScriptingLanguage implements ScriptingLanguage {
 
     @Override
     public void stop() throws Exception {
-
+        JShell shell;
+        while ((shell = shells.poll()) != null) {
+            shell.close();
+        }
     }
 }
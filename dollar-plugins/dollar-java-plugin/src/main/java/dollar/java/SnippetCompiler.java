@@ -0,0 +1,188 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.java;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import dollar.api.Value;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+/**
+ * Compiles each distinct Java snippet once into a class whose method body is the snippet, so it can be run against
+ * the live parameter values. Snippets which are not valid as a method body (such as JShell declarations or bare
+ * expressions) cannot be compiled and are left for JShell.
+ * <p>
+ * Each compiled snippet holds a class loader of its own, so only the {@link #MAX_COMPILED} most recently used are
+ * kept, any other is compiled again when next used.
+ */
+final class SnippetCompiler {
+
+    @NotNull
+    static final List<String> IMPORTS = Arrays.asList("dollar.lang.*", "dollar.internal.runtime.script.api.*",
+                                                      "dollar.api.*", "dollar.api.types.*", "java.io.*",
+                                                      "java.math.*", "java.net.*", "java.nio.file.*", "java.util.*",
+                                                      "java.util.concurrent.*",
+                                                      "java.util.function.*", "java.util.prefs.*",
+                                                      "java.util.regex.*",
+                                                      "java.util.stream.*");
+    @NotNull
+    static final List<String> STATIC_IMPORTS = Arrays.asList("dollar.api.DollarStatic.*",
+                                                             "dollar.java.JavaScriptingStaticImports.*");
+    private static final int MAX_COMPILED = 1000;
+    @NotNull
+    private static final String PACKAGE = "dollar.java.snippet";
+    @NotNull
+    private static final Logger log = LoggerFactory.getLogger(SnippetCompiler.class);
+    @NotNull
+    private final Cache<String, Optional<Function<List<Value>, Value>>> compiled = CacheBuilder.newBuilder()
+                                                                                     .maximumSize(MAX_COMPILED)
+                                                                                     .build();
+
+    @NotNull
+    static String classPath() {
+        return System.getProperty("java.class.path") + File.pathSeparator + System.getProperty("user.home") +
+                       "/.dollar/tmp/classes";
+    }
+
+    /**
+     * Returns the compiled snippet, compiling it on first use.
+     *
+     * @param script the snippet
+     * @return the compiled snippet, or null if it could not be compiled
+     */
+    @Nullable
+    Function<List<Value>, Value> compile(@NotNull String script) {
+        String hash = Hashing.sha256().hashString(script, StandardCharsets.UTF_8).toString();
+        try {
+            return compiled.get(hash, () -> Optional.ofNullable(compile(script, "Snippet_" + hash))).orElse(null);
+        } catch (ExecutionException e) {
+            log.debug(e.getMessage(), e);
+            return null;
+        }
+    }
+
+    @Nullable
+    private Function<List<Value>, Value> compile(@NotNull String script, @NotNull String className) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            log.debug("No Java compiler available, snippets will be run by JShell");
+            return null;
+        }
+        StringBuilder source = new StringBuilder("package " + PACKAGE + ";\n");
+        for (String anImport : IMPORTS) {
+            source.append("import ").append(anImport).append(";\n");
+        }
+        for (String anImport : STATIC_IMPORTS) {
+            source.append("import static ").append(anImport).append(";\n");
+        }
+        source.append("public final class ").append(className)
+                .append(" implements java.util.function.Function<java.util.List<dollar.api.Value>, dollar.api.Value> {\n")
+                .append("public dollar.api.Value apply(java.util.List<dollar.api.Value> in) {\n")
+                .append("dollar.api.Value out = dollar.api.DollarStatic.$void();\n")
+                .append(script).append("\n")
+                .append("return out;\n}\n}\n");
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        Map<String, ByteArrayOutputStream> classes = new HashMap<>();
+        StandardJavaFileManager standardFileManager = compiler.getStandardFileManager(diagnostics, null,
+                                                                                      StandardCharsets.UTF_8);
+        try (ForwardingJavaFileManager<StandardJavaFileManager> fileManager = new ForwardingJavaFileManager<StandardJavaFileManager>(
+                standardFileManager) {
+            @NotNull
+            @Override
+            public JavaFileObject getJavaFileForOutput(@NotNull Location location, @NotNull String name,
+                                                       @NotNull JavaFileObject.Kind kind,
+                                                       @Nullable FileObject sibling) {
+                return new SimpleJavaFileObject(URI.create("mem:///" + name.replace('.', '/') + kind.extension),
+                                                kind) {
+                    @NotNull
+                    @Override
+                    public OutputStream openOutputStream() {
+                        return classes.computeIfAbsent(name, n -> new ByteArrayOutputStream());
+                    }
+                };
+            }
+        }) {
+            JavaFileObject sourceFile = new SimpleJavaFileObject(
+                    URI.create("string:///" + PACKAGE.replace('.', '/') + "/" + className + JavaFileObject.Kind.SOURCE.extension),
+                    JavaFileObject.Kind.SOURCE) {
+                @NotNull
+                @Override
+                public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                    return source;
+                }
+            };
+            Boolean success = compiler.getTask(null, fileManager, diagnostics,
+                                               Arrays.asList("-classpath", classPath(), "-nowarn"), null,
+                                               Collections.singletonList(sourceFile)).call();
+            if (!Boolean.TRUE.equals(success)) {
+                for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                    log.debug("{}", diagnostic);
+                }
+                return null;
+            }
+            ClassLoader loader = new ClassLoader(SnippetCompiler.class.getClassLoader()) {
+                @NotNull
+                @Override
+                protected Class<?> findClass(@NotNull String name) throws ClassNotFoundException {
+                    ByteArrayOutputStream bytes = classes.get(name);
+                    if (bytes == null) {
+                        throw new ClassNotFoundException(name);
+                    }
+                    byte[] b = bytes.toByteArray();
+                    return defineClass(name, b, 0, b.length);
+                }
+            };
+            @SuppressWarnings("unchecked")
+            Function<List<Value>, Value> snippet = (Function<List<Value>, Value>) loader.loadClass(
+                    PACKAGE + "." + className).getDeclaredConstructor().newInstance();
+            return snippet;
+        } catch (IOException | ReflectiveOperationException e) {
+            log.debug(e.getMessage(), e);
+            return null;
+        }
+    }
+}
@@ -16,6 +16,7 @@
 
 package dollar.uri.mapdb;
 
+import dollar.api.DollarException;
 import dollar.api.uri.URI;
 import dollar.api.uri.URIHandler;
 import dollar.internal.mapdb.DB;
@@ -25,36 +26,92 @@ import org.jetbrains.annotations.NotNull;
 import java.io.File;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Base for the db: URIs, every URI on the same path shares one {@link DB}. The {@code commit} query parameter picks
+ * durability per URI: {@code none} (the default) leaves writes to be committed by a later drain, {@code sync} commits
+ * after every write and {@code group} joins the path's {@link GroupCommitter} waiting at most {@code maxDelayMs}
+ * (default 5) for other writers, e.g. {@code db:map://users/tmp/users.db?commit=group&maxDelayMs=5}. The
+ * {@code storage} parameter picks how the first URI opened on a path stores it: {@code file} (the default),
+ * {@code mmap} for a memory-mapped file or {@code memory} for an off-heap direct memory store that the path only names.
+ */
 public abstract class AbstractMapDBURI implements URIHandler {
+    @NotNull
+    private static final ConcurrentHashMap<String, GroupCommitter> committers = new ConcurrentHashMap<>();
     @NotNull
     private static final ConcurrentHashMap<String, DB> txs = new ConcurrentHashMap<>();
     @NotNull
+    private final String commit;
+    @NotNull
+    private final String host;
+    private final long maxDelayMillis;
+    @NotNull
+    private final String path;
+    @NotNull
     protected final String scheme;
-    @NotNull protected final URI uri;
     @NotNull
     protected final DB tx;
-    @NotNull
-    private final String host;
+    @NotNull protected final URI uri;
 
     public AbstractMapDBURI(
                                    @NotNull URI uri, @NotNull String scheme) {
         this.uri = uri;
         this.scheme = scheme;
-        tx = getDB(uri.path());
+        path = uri.path();
+        tx = getDB(path, uri.paramWithDefault("storage", "file").get(0));
         host = uri.host();
+        commit = uri.paramWithDefault("commit", "none").get(0);
+        if (!"none".equals(commit) && !"sync".equals(commit) && !"group".equals(commit)) {
+            throw new DollarException("Unknown commit mode '" + commit + "', expected none, sync or group");
+        }
+        String maxDelay = uri.paramWithDefault("maxDelayMs", "5").get(0);
+        try {
+            maxDelayMillis = Long.parseLong(maxDelay);
+        } catch (NumberFormatException e) {
+            throw new DollarException("maxDelayMs must be a number of milliseconds, was '" + maxDelay + "'");
+        }
+        if (maxDelayMillis < 0) {
+            throw new DollarException("maxDelayMs must not be negative, was " + maxDelayMillis);
+        }
     }
 
     @NotNull
-    protected static DB getDB(@NotNull String path) {
-
-        final DB newDb = DBMaker.fileDB(new File(path))
-                                 .executorEnable()
-                                 .closeOnJvmShutdown()
-                                 .transactionEnable()
-                                 .make();
-        txs.putIfAbsent(path, newDb);
-        return newDb;
+    protected static DB getDB(@NotNull String path, @NotNull String storage) {
+        return txs.computeIfAbsent(path, p -> {
+            final DBMaker.Maker maker;
+            switch (storage) {
+                case "file":
+                    maker = DBMaker.fileDB(new File(p));
+                    break;
+                case "mmap":
+                    maker = DBMaker.fileDB(new File(p)).fileMmapEnable();
+                    break;
+                case "memory":
+                    maker = DBMaker.memoryDirectDB();
+                    break;
+                default:
+                    throw new DollarException("Unknown storage '" + storage + "', expected file, mmap or memory");
+            }
+            return maker.executorEnable()
+                           .closeOnJvmShutdown()
+                           .transactionEnable()
+                           .make();
+        });
+    }
 
+    /**
+     * Makes the writes this thread has just made durable according to the URI's commit mode.
+     */
+    protected void committed() {
+        switch (commit) {
+            case "sync":
+                tx.commit();
+                break;
+            case "group":
+                committers.computeIfAbsent(path, p -> new GroupCommitter(tx, p)).await(maxDelayMillis);
+                break;
+            default:
+                break;
+        }
     }
 
     @Override public void destroy() {
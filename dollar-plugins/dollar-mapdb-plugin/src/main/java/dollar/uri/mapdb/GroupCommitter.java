@@ -0,0 +1,184 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dollar.uri.mapdb;
+
+import dollar.api.DollarException;
+import dollar.internal.mapdb.DB;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Commits a transactional {@link DB} on behalf of every writer sharing it. Writers take a ticket after their write
+ * and block until a commit covers it; the committer thread waits for the earliest writer deadline and then commits
+ * everything written so far with a single fsync, so latency is bounded by the smallest requested delay.
+ * <p>
+ * The committer thread stops once the database is closed, even while waiting for a deadline, or a commit throws an
+ * {@link Error}, any writers still waiting then fail, as do later writers.
+ */
+final class GroupCommitter {
+
+    /**
+     * How often waiting threads check whether the database has been closed.
+     */
+    private static final long CLOSED_CHECK_MILLIS = 100;
+    @NotNull
+    private static final Logger log = LoggerFactory.getLogger(GroupCommitter.class);
+    private long batches;
+    @NotNull
+    private final BooleanSupplier closed;
+    @NotNull
+    private final Runnable commit;
+    private long committed;
+    private long deadline = Long.MAX_VALUE;
+    private long failedThrough;
+    @Nullable
+    private DollarException failure;
+    @NotNull
+    private final Object lock = new Object();
+    @NotNull
+    private final String path;
+    private long requested;
+    private boolean stopped;
+
+    GroupCommitter(@NotNull DB db, @NotNull String path) {
+        this(path, db::commit, db::isClosed);
+    }
+
+    /**
+     * @param commit makes every write so far durable
+     * @param closed whether the store has been closed, after which no commit is attempted
+     */
+    GroupCommitter(@NotNull String path, @NotNull Runnable commit, @NotNull BooleanSupplier closed) {
+        this.path = path;
+        this.commit = commit;
+        this.closed = closed;
+        Thread thread = new Thread(this::run, "mapdb-group-commit-" + path);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Blocks until the writes made by the calling thread before this call are durable.
+     *
+     * @param maxDelayMillis the longest this write may wait for other writers to join its commit
+     * @throws DollarException if the commit failed or the database is closed
+     */
+    void await(long maxDelayMillis) {
+        synchronized (lock) {
+            if (stopped || closed.getAsBoolean()) {
+                throw new DollarException("The database at " + path + " is closed or its group commits have stopped, "
+                                                  + "the write may not be durable");
+            }
+            long ticket = ++requested;
+            long due = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+            if (due < deadline) {
+                deadline = due;
+                lock.notifyAll();
+            }
+            boolean interrupted = false;
+            while (committed < ticket) {
+                try {
+                    lock.wait(CLOSED_CHECK_MILLIS);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (ticket <= failedThrough) {
+                assert failure != null;
+                throw new DollarException(failure, failure.getMessage());
+            }
+        }
+    }
+
+    /**
+     * The number of commits made so far, each of which may cover many writes.
+     */
+    long batches() {
+        synchronized (lock) {
+            return batches;
+        }
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                long target;
+                synchronized (lock) {
+                    try {
+                        while (requested == committed) {
+                            if (closed.getAsBoolean()) {
+                                return;
+                            }
+                            lock.wait(CLOSED_CHECK_MILLIS);
+                        }
+                        long remaining;
+                        while (((remaining = deadline - System.nanoTime()) > 0) && !closed.getAsBoolean()) {
+                            TimeUnit.NANOSECONDS.timedWait(lock, Math.min(remaining,
+                                                                          TimeUnit.MILLISECONDS.toNanos(
+                                                                                  CLOSED_CHECK_MILLIS)));
+                        }
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    if (closed.getAsBoolean()) {
+                        return;
+                    }
+                    target = requested;
+                    deadline = Long.MAX_VALUE;
+                }
+                Throwable error = null;
+                try {
+                    commit.run();
+                } catch (Exception | Error e) {
+                    log.error("Group commit failed: {}", e.getMessage(), e);
+                    error = e;
+                }
+                synchronized (lock) {
+                    if (error != null) {
+                        failure = new DollarException("Group commit of " + path + " failed: " + error);
+                        failure.initCause(error);
+                        failedThrough = target;
+                    }
+                    committed = target;
+                    batches++;
+                    lock.notifyAll();
+                }
+                if (error instanceof Error) {
+                    throw (Error) error;
+                }
+            }
+        } finally {
+            synchronized (lock) {
+                stopped = true;
+                if (committed < requested) {
+                    failure = new DollarException("The database at " + path + " closed before the write was committed");
+                    failedThrough = requested;
+                    committed = requested;
+                }
+                lock.notifyAll();
+            }
+        }
+    }
+}
@@ -16,6 +16,7 @@
 
 package dollar.uri.mapdb;
 
+import dollar.api.DollarException;
 import dollar.api.DollarStatic;
 import dollar.api.Pipeable;
 import dollar.api.Value;
@@ -23,13 +24,12 @@ import dollar.api.execution.DollarExecutor;
 import dollar.api.plugin.Plugins;
 import dollar.api.types.DollarFactory;
 import dollar.api.uri.URI;
-import dollar.internal.mapdb.BTreeMap;
-import dollar.internal.mapdb.MapModificationListener;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.concurrent.ArrayBlockingQueue;
@@ -38,25 +38,43 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
-public class MapDBCircleURI extends AbstractMapDBURI implements MapModificationListener<Value, Value> {
+/**
+ * A bounded circular buffer of {@code size} values (default 100). Unless the URI asks for {@code storage=memory} the
+ * values are kept in a memory-mapped file next to the database, {@code <path>.<host>.ring}, in slots of
+ * {@code slotSize} bytes (default 1024), e.g. {@code db:circular://messages/tmp/messages.db?size=10}.
+ * <p>
+ * Values in the file are written with {@link VarSerializer} and each must fit in {@code slotSize - 4} bytes, a larger
+ * value fails the write. Only the in-memory buffer supports {@link #removeValue(Value)}, the file-backed buffer throws
+ * a {@link DollarException} as values can only be taken from its head.
+ */
+public class MapDBCircleURI extends AbstractMapDBURI {
     @Nullable
     private static final DollarExecutor executor = Plugins.sharedInstance(DollarExecutor.class);
     @NotNull
     private static final Logger log = LoggerFactory.getLogger(MapDBCircleURI.class);
     @NotNull
+    private static final ConcurrentHashMap<String, MappedRingQueue> rings = new ConcurrentHashMap<>();
+    @NotNull
     private static final ConcurrentHashMap<String, Future> subscribers = new ConcurrentHashMap<>();
     @NotNull
-    private final ArrayBlockingQueue<Value> queue;
+    private final BlockingQueue<Value> queue;
 
 
     public MapDBCircleURI(@NotNull String scheme, @NotNull URI uri) {
         super(uri, scheme);
-        try (BTreeMap<Value, Value> bTreeMap = tx.treeMap(getHost(), new VarSerializer(), new VarSerializer()).modificationListener(
-                this).createOrOpen()) {
-
-        }
         int size = Integer.parseInt(uri.paramWithDefault("size", "100").get(0));
-        queue = new ArrayBlockingQueue<>(size);
+        if ("memory".equals(uri.paramWithDefault("storage", "file").get(0))) {
+            queue = new ArrayBlockingQueue<>(size);
+        } else {
+            int slotSize = Integer.parseInt(uri.paramWithDefault("slotSize", "1024").get(0));
+            queue = rings.computeIfAbsent(uri.path() + "." + getHost() + ".ring", file -> {
+                try {
+                    return new MappedRingQueue(new File(file), size, slotSize);
+                } catch (IOException e) {
+                    throw new DollarException(e);
+                }
+            });
+        }
     }
 
     @NotNull
@@ -175,11 +193,4 @@ public class MapDBCircleURI extends AbstractMapDBURI implements MapModificationL
     private BlockingQueue<Value> getQueue() {
         return queue;
     }
-
-    @Override
-    public void modify(@NotNull Value key, @Nullable Value oldValue, @Nullable Value newValue, boolean triggered) {
-        if (newValue != null) {
-            queue.offer(newValue.$fixDeep());
-        }
-    }
 }
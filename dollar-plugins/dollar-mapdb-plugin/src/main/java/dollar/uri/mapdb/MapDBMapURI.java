@@ -36,16 +36,30 @@ import static dollar.api.DollarStatic.$;
 
 public class MapDBMapURI extends AbstractMapDBURI implements MapModificationListener<Value, Value> {
 
+    @NotNull
+    private static final ConcurrentHashMap<String, ValueCache> caches = new ConcurrentHashMap<>();
     @NotNull
     private static final ConcurrentHashMap<String, MapListener<Value, Value, Value>>
             subscribers =
             new ConcurrentHashMap<>();
     @NotNull
     private final BTreeMap<Value, Value> bTreeMap;
+    @Nullable
+    private final ValueCache cache;
 
+    /**
+     * A {@code cache} query parameter greater than zero puts a read cache of that many deserialized values in front of
+     * the map, shared by every URI on the same map, e.g. {@code db:map://lookup/tmp/lookup.db?storage=mmap&cache=100000}.
+     */
     public MapDBMapURI(@NotNull String scheme, @NotNull URI uri) {
         super(uri, scheme);
         bTreeMap = tx.treeMap(getHost(), new VarSerializer(), new VarSerializer()).modificationListener(this).createOrOpen();
+        long cacheSize = Long.parseLong(uri.paramWithDefault("cache", "0").get(0));
+        if (cacheSize > 0) {
+            cache = caches.computeIfAbsent(uri.path() + "#" + getHost(), k -> new ValueCache(cacheSize));
+        } else {
+            cache = caches.get(uri.path() + "#" + getHost());
+        }
     }
 
     @NotNull
@@ -60,6 +74,9 @@ public class MapDBMapURI extends AbstractMapDBURI implements MapModificationList
     public Value drain() {
         HashMap<Value, Value> result = new HashMap<>(bTreeMap);
         bTreeMap.clear();
+        if (cache != null) {
+            cache.invalidateAll();
+        }
         tx.commit();
         return DollarFactory.fromValue(result);
 
@@ -67,6 +84,9 @@ public class MapDBMapURI extends AbstractMapDBURI implements MapModificationList
 
     @Override
     public Value get(@NotNull Value key) {
+        if (cache != null) {
+            return cache.get(key.$fixDeep(), bTreeMap);
+        }
         return bTreeMap.get(key.$fixDeep());
     }
 
@@ -78,8 +98,12 @@ public class MapDBMapURI extends AbstractMapDBURI implements MapModificationList
 
     @Override
     public Value remove(@NotNull Value v) {
-        return bTreeMap.remove(v.$fixDeep());
-
+        Value removed = bTreeMap.remove(v.$fixDeep());
+        if (cache != null) {
+            cache.invalidate(v.$fixDeep());
+        }
+        committed();
+        return removed;
     }
 
     @NotNull
@@ -91,7 +115,12 @@ public class MapDBMapURI extends AbstractMapDBURI implements MapModificationList
     @Override
     public Value set(@NotNull Value key, @NotNull Value value) {
         if (!value.isVoid()) {
-            return bTreeMap.put(key, value.$fixDeep());
+            Value previous = bTreeMap.put(key, value.$fixDeep());
+            if (cache != null) {
+                cache.invalidate(key);
+            }
+            committed();
+            return previous;
         } else {
             return DollarStatic.$void();
         }
@@ -137,6 +166,10 @@ public class MapDBMapURI extends AbstractMapDBURI implements MapModificationList
 
     @Override
     public void modify(@NotNull Value key, @Nullable Value oldValue, @Nullable Value newValue, boolean triggered) {
+        ValueCache shared = caches.get(uri.path() + "#" + getHost());
+        if (shared != null) {
+            shared.invalidate(key);
+        }
         for (MapListener<Value, Value, Value> listener : subscribers.values()) {
             listener.apply(key, oldValue, newValue);
         }
@@ -0,0 +1,357 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dollar.uri.mapdb;
+
+import dollar.api.DollarException;
+import dollar.api.Value;
+import dollar.internal.mapdb.DataInput2;
+import dollar.internal.mapdb.DataOutput2;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded queue of values kept in fixed size slots of a memory-mapped file, so its contents survive a restart.
+ * <p>
+ * The head (next sequence to write) and tail (next sequence to read) are counters mirrored into the file's header.
+ * Writers are serialized with each other and publish a slot by advancing the head; readers never lock, they copy a
+ * slot (or a run of slots when draining) out of the mapped region and then claim it by advancing the tail with a
+ * compare-and-set, discarding the copy if another reader got there first. A crash between a read and the tail reaching
+ * the header can hand that value out again after a restart.
+ */
+final class MappedRingQueue extends AbstractQueue<Value> implements BlockingQueue<Value> {
+
+    private static final int HEAD = 16;
+    private static final int HEADER = 64;
+    private static final int MAGIC = 0x44524E47;
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final int SLOT_SIZE = 8;
+    private static final int SLOTS = 4;
+    private static final int SPINS = 100;
+    private static final int TAIL = 24;
+    @NotNull
+    private final MappedByteBuffer buffer;
+    @NotNull
+    private final AtomicLong head;
+    @NotNull
+    private final Object producer = new Object();
+    @NotNull
+    private final VarSerializer serializer = new VarSerializer();
+    private final int slotSize;
+    private final int slots;
+    @NotNull
+    private final AtomicLong tail;
+
+    MappedRingQueue(@NotNull File file, int slots, int slotSize) throws IOException {
+        if ((slots <= 0) || (slotSize <= 4)) {
+            throw new DollarException("A circular buffer needs at least one slot of more than four bytes");
+        }
+        final long length = HEADER + ((long) slots * slotSize);
+        if (length > Integer.MAX_VALUE) {
+            throw new DollarException("A circular buffer of " + slots + " slots of " + slotSize + " bytes is too large");
+        }
+        this.slots = slots;
+        this.slotSize = slotSize;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                                    StandardOpenOption.WRITE)) {
+            final boolean created = channel.size() == 0;
+            if (!created) {
+                final MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER);
+                if ((header.getInt(0) != MAGIC) || (header.getInt(SLOTS) != slots) || (header.getInt(SLOT_SIZE) != slotSize)) {
+                    throw new DollarException(file + " is not a circular buffer of " + slots + " slots of " + slotSize
+                                                      + " bytes");
+                }
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            if (created) {
+                buffer.putInt(SLOTS, slots);
+                buffer.putInt(SLOT_SIZE, slotSize);
+                buffer.putLong(HEAD, 0);
+                buffer.putLong(TAIL, 0);
+                buffer.putInt(0, MAGIC);
+            }
+        }
+        head = new AtomicLong(buffer.getLong(HEAD));
+        tail = new AtomicLong(buffer.getLong(TAIL));
+    }
+
+    @Override
+    public int drainTo(@NotNull Collection<? super Value> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(@NotNull Collection<? super Value> c, int maxElements) {
+        while (true) {
+            final long t = tail.get();
+            final int n = (int) Math.min(head.get() - t, maxElements);
+            if (n <= 0) {
+                return 0;
+            }
+            final List<byte[]> copies = new ArrayList<>(n);
+            for (long seq = t; seq < (t + n); seq++) {
+                final byte[] bytes = copy(seq);
+                if (bytes == null) {
+                    break;
+                }
+                copies.add(bytes);
+            }
+            if ((copies.size() == n) && tail.compareAndSet(t, t + n)) {
+                persistTail();
+                for (byte[] bytes : copies) {
+                    c.add(deserialize(bytes));
+                }
+                return n;
+            }
+        }
+    }
+
+    /**
+     * A snapshot of the values in the ring. As with {@link #drainTo(Collection, int)} the slots are copied first and
+     * only deserialized once the tail shows no writer can have reused them while they were copied.
+     */
+    @NotNull
+    @Override
+    public Iterator<Value> iterator() {
+        while (true) {
+            final long t = tail.get();
+            final long h = head.get();
+            final List<byte[]> copies = new ArrayList<>((int) Math.min(h - t, slots));
+            for (long seq = t; seq < h; seq++) {
+                final byte[] bytes = copy(seq);
+                if (bytes == null) {
+                    break;
+                }
+                copies.add(bytes);
+            }
+            if ((copies.size() == (h - t)) && (tail.get() == t)) {
+                final List<Value> snapshot = new ArrayList<>(copies.size());
+                for (byte[] bytes : copies) {
+                    snapshot.add(deserialize(bytes));
+                }
+                return Collections.unmodifiableList(snapshot).iterator();
+            }
+        }
+    }
+
+    @Override
+    public boolean offer(@NotNull Value value) {
+        final byte[] bytes = serialize(value);
+        synchronized (producer) {
+            final long h = head.get();
+            if ((h - tail.get()) >= slots) {
+                return false;
+            }
+            final ByteBuffer slot = buffer.duplicate();
+            slot.position(offset(h));
+            slot.putInt(bytes.length);
+            slot.put(bytes);
+            head.set(h + 1);
+            buffer.putLong(HEAD, h + 1);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean offer(@NotNull Value value, long timeout, @NotNull TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (int attempt = 0; !offer(value); attempt++) {
+            if (!pause(attempt, deadline)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Nullable
+    @Override
+    public Value peek() {
+        while (true) {
+            final long t = tail.get();
+            if (t >= head.get()) {
+                return null;
+            }
+            final byte[] bytes = copy(t);
+            if ((bytes != null) && (tail.get() == t)) {
+                return deserialize(bytes);
+            }
+        }
+    }
+
+    @Nullable
+    @Override
+    public Value poll() {
+        while (true) {
+            final long t = tail.get();
+            if (t >= head.get()) {
+                return null;
+            }
+            final byte[] bytes = copy(t);
+            if ((bytes != null) && tail.compareAndSet(t, t + 1)) {
+                persistTail();
+                return deserialize(bytes);
+            }
+        }
+    }
+
+    @Nullable
+    @Override
+    public Value poll(long timeout, @NotNull TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        Value value;
+        for (int attempt = 0; (value = poll()) == null; attempt++) {
+            if (!pause(attempt, deadline)) {
+                return null;
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public void put(@NotNull Value value) throws InterruptedException {
+        for (int attempt = 0; !offer(value); attempt++) {
+            pause(attempt, Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Only the oldest value can be taken from the ring, values can't be removed from the middle of it.
+     *
+     * @throws DollarException always
+     */
+    @Override
+    public boolean remove(Object o) {
+        throw new DollarException("Values can't be removed from the middle of a circular buffer kept in a file, "
+                                          + "use storage=memory for one which supports this");
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return slots - size();
+    }
+
+    @Override
+    public int size() {
+        final long t = tail.get();
+        return (int) Math.min(head.get() - t, slots);
+    }
+
+    @NotNull
+    @Override
+    public Value take() throws InterruptedException {
+        Value value;
+        for (int attempt = 0; (value = poll()) == null; attempt++) {
+            pause(attempt, Long.MAX_VALUE);
+        }
+        return value;
+    }
+
+    /**
+     * Copies the value stored for a sequence out of the mapped region, or returns null if the slot was torn by the
+     * writer reusing it, which can only happen once another reader has claimed the sequence.
+     */
+    @Nullable
+    private byte[] copy(long seq) {
+        final int offset = offset(seq);
+        final int length = buffer.getInt(offset);
+        if ((length < 0) || (length > (slotSize - 4))) {
+            if (tail.get() == seq) {
+                throw new DollarException("Corrupt circular buffer slot for sequence " + seq);
+            }
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        final ByteBuffer slot = buffer.duplicate();
+        slot.position(offset + 4);
+        slot.get(bytes);
+        return bytes;
+    }
+
+    @NotNull
+    private Value deserialize(@NotNull byte[] bytes) {
+        try {
+            return serializer.deserialize(new DataInput2.ByteArray(bytes), bytes.length);
+        } catch (IOException e) {
+            throw new DollarException(e);
+        }
+    }
+
+    private int offset(long seq) {
+        return HEADER + ((int) (seq % slots) * slotSize);
+    }
+
+    /**
+     * Spins briefly and then parks, returning false once the deadline has passed.
+     */
+    private boolean pause(int attempt, long deadline) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        if ((deadline != Long.MAX_VALUE) && ((deadline - System.nanoTime()) <= 0)) {
+            return false;
+        }
+        if (attempt < SPINS) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+        return true;
+    }
+
+    /**
+     * Readers advance the tail concurrently, so each keeps writing the latest tail to the header until no reader has
+     * moved it in the meantime.
+     */
+    private void persistTail() {
+        long t;
+        do {
+            t = tail.get();
+            buffer.putLong(TAIL, t);
+        } while (tail.get() != t);
+    }
+
+    @NotNull
+    private byte[] serialize(@NotNull Value value) {
+        final DataOutput2 out = new DataOutput2();
+        try {
+            serializer.serialize(out, value);
+        } catch (IOException e) {
+            throw new DollarException(e);
+        }
+        final byte[] bytes = out.copyBytes();
+        if (bytes.length > (slotSize - 4)) {
+            throw new DollarException("A value of " + bytes.length + " bytes doesn't fit a " + slotSize + " byte slot");
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dollar.uri.mapdb;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import dollar.api.Value;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A size-bounded cache of deserialized values in front of a MapDB map. A lookup only stores what it read if no
+ * invalidation happened while it was reading or storing, so a racing write can't leave a stale value behind.
+ */
+final class ValueCache {
+
+    @NotNull
+    private final Cache<Value, Value> cache;
+    @NotNull
+    private final AtomicLong generation = new AtomicLong();
+
+    ValueCache(long maximumSize) {
+        cache = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+    }
+
+    @Nullable
+    Value get(@NotNull Value key, @NotNull Map<Value, Value> map) {
+        Value cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        long before = generation.get();
+        Value value = map.get(key);
+        if (value != null) {
+            cache.put(key, value);
+            if (generation.get() != before) {
+                cache.invalidate(key);
+            }
+        }
+        return value;
+    }
+
+    void invalidate(@NotNull Value key) {
+        generation.incrementAndGet();
+        cache.invalidate(key);
+    }
+
+    void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+}
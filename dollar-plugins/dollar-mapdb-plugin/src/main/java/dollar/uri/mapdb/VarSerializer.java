@@ -16,10 +16,17 @@
 
 package dollar.uri.mapdb;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.BoundType;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Range;
 import dollar.api.DollarStatic;
 import dollar.api.Type;
 import dollar.api.Value;
+import dollar.api.json.JsonObject;
 import dollar.api.types.DollarFactory;
+import dollar.api.types.DollarRange;
+import dollar.api.types.ErrorType;
 import dollar.internal.mapdb.DataInput2;
 import dollar.internal.mapdb.DataOutput2;
 import dollar.internal.mapdb.serializer.GroupSerializerObjectArray;
@@ -28,23 +35,266 @@ import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingDeque;
 
+/**
+ * Stores values in a tagged binary format, each stored value (or B-tree node of values) starts with a format version
+ * byte. Values stored by earlier versions, as a type name followed by JSON, start with a zero byte and are still read,
+ * any other version is rejected.
+ */
 public class VarSerializer extends GroupSerializerObjectArray<Value> implements Serializable {
-    @Override
-    public void serialize(@NotNull DataOutput2 out, @Nullable Value value) throws IOException {
-        if ((value != null) && !value.isVoid()) {
-            out.writeUTF(value.$type().name());
-            out.writeUTF(DollarFactory.serialize(value));
+
+    private static final byte BOOLEAN = 3;
+    private static final byte DATE = 7;
+    private static final byte DECIMAL = 5;
+    private static final byte ERROR = 13;
+    private static final byte INFINITY = 12;
+    private static final byte INTEGER = 4;
+    /**
+     * Any type without a binary encoding of its own is stored as JSON.
+     */
+    private static final byte JSON = 14;
+    /**
+     * The high byte of the type name length that started values in the JSON format, type names are always shorter
+     * than 256 bytes.
+     */
+    private static final byte LEGACY = 0;
+    private static final byte LIST = 8;
+    private static final byte MAP = 9;
+    private static final byte NULL = 2;
+    private static final byte QUEUE = 15;
+    private static final byte RANGE = 10;
+    private static final int RANGE_LOWER = 1;
+    private static final int RANGE_LOWER_CLOSED = 2;
+    private static final int RANGE_REVERSED = 16;
+    private static final int RANGE_UPPER = 4;
+    private static final int RANGE_UPPER_CLOSED = 8;
+    private static final byte STRING = 6;
+    private static final byte URI = 11;
+    private static final byte VERSION = 1;
+    private static final byte VOID = 1;
+
+    @NotNull
+    private static String readString(@NotNull DataInput2 in) throws IOException {
+        byte[] bytes = new byte[in.unpackInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @NotNull
+    private static Value readRange(@NotNull DataInput2 in) throws IOException {
+        final int flags = in.readUnsignedByte();
+        final Value lower = ((flags & RANGE_LOWER) != 0) ? readValue(in).$unwrap() : null;
+        final Value upper = ((flags & RANGE_UPPER) != 0) ? readValue(in).$unwrap() : null;
+        final BoundType lowerType = ((flags & RANGE_LOWER_CLOSED) != 0) ? BoundType.CLOSED : BoundType.OPEN;
+        final BoundType upperType = ((flags & RANGE_UPPER_CLOSED) != 0) ? BoundType.CLOSED : BoundType.OPEN;
+        final Range<Value> range;
+        if ((lower != null) && (upper != null)) {
+            range = Range.range(lower, lowerType, upper, upperType);
+        } else if (lower != null) {
+            range = Range.downTo(lower, lowerType);
+        } else if (upper != null) {
+            range = Range.upTo(upper, upperType);
+        } else {
+            range = Range.all();
+        }
+        return DollarFactory.fromRange(range, (flags & RANGE_REVERSED) != 0);
+    }
+
+    @NotNull
+    private static Value readValue(@NotNull DataInput2 in) throws IOException {
+        final byte tag = in.readByte();
+        switch (tag) {
+            case VOID:
+                return DollarStatic.$void();
+            case NULL:
+                return DollarFactory.newNull(Type.of(readString(in)));
+            case BOOLEAN:
+                return DollarFactory.fromValue(in.readBoolean());
+            case INTEGER:
+                long zigzag = in.unpackLong();
+                return DollarFactory.fromValue((zigzag >>> 1) ^ -(zigzag & 1));
+            case DECIMAL:
+                return DollarFactory.fromValue(in.readDouble());
+            case STRING:
+                return DollarFactory.fromValue(readString(in));
+            case DATE:
+                long seconds = in.readLong();
+                return DollarFactory.fromValue(Instant.ofEpochSecond(seconds, in.unpackInt()));
+            case LIST:
+                int size = in.unpackInt();
+                ImmutableList.Builder<Value> list = ImmutableList.builder();
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                return DollarFactory.fromList(list.build());
+            case QUEUE:
+                int length = in.unpackInt();
+                LinkedBlockingDeque<Value> queue = new LinkedBlockingDeque<>();
+                for (int i = 0; i < length; i++) {
+                    queue.add(readValue(in));
+                }
+                return DollarFactory.fromQueue(queue);
+            case MAP:
+                int entries = in.unpackInt();
+                ImmutableMap.Builder<Value, Value> map = ImmutableMap.builder();
+                for (int i = 0; i < entries; i++) {
+                    map.put(readValue(in), readValue(in));
+                }
+                return DollarFactory.fromMap(map.build());
+            case RANGE:
+                return readRange(in);
+            case URI:
+                return DollarFactory.fromURI(readString(in));
+            case INFINITY:
+                return DollarFactory.infinity(in.readBoolean());
+            case ERROR:
+                ErrorType errorType = ErrorType.valueOf(readString(in));
+                if (!in.readBoolean()) {
+                    //the error was built from an exception without a message
+                    return DollarFactory.failure(errorType, new Exception(), true);
+                }
+                return DollarFactory.failure(errorType, readString(in), true);
+            case JSON:
+                return DollarFactory.deserialize(readString(in));
+            default:
+                throw new IOException("Unrecognized value tag " + tag);
+        }
+    }
+
+    private static int readVersion(@NotNull DataInput2 in) throws IOException {
+        final int version = in.readUnsignedByte();
+        if ((version != LEGACY) && (version != VERSION)) {
+            throw new IOException("Unrecognized value format version " + version);
+        }
+        return version;
+    }
+
+    private static void writeString(@NotNull DataOutput2 out, @NotNull String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.packInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeValue(@NotNull DataOutput2 out, @Nullable Value value) throws IOException {
+        if ((value == null) || value.isVoid()) {
+            out.writeByte(VOID);
+            return;
+        }
+        final Type type = value.$type();
+        if (value.isNull()) {
+            out.writeByte(NULL);
+            writeString(out, type.name());
+        } else if (type.is(Type._ERROR)) {
+            JsonObject json = (JsonObject) value.toJsonType();
+            String message = json.getString("errorMessage");
+            out.writeByte(ERROR);
+            writeString(out, json.getString("errorType"));
+            out.writeBoolean(message != null);
+            if (message != null) {
+                writeString(out, message);
+            }
+        } else if (type.is(Type._BOOLEAN)) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean(value.isTrue());
+        } else if (type.is(Type._INTEGER)) {
+            long l = value.toLong();
+            out.writeByte(INTEGER);
+            out.packLong((l << 1) ^ (l >> 63));
+        } else if (type.is(Type._DECIMAL)) {
+            out.writeByte(DECIMAL);
+            out.writeDouble(value.toDouble());
+        } else if (type.is(Type._STRING)) {
+            out.writeByte(STRING);
+            writeString(out, value.$S());
+        } else if (type.is(Type._DATE)) {
+            Instant instant = Instant.parse(value.toJavaObject());
+            out.writeByte(DATE);
+            out.writeLong(instant.getEpochSecond());
+            out.packInt(instant.getNano());
+        } else if (type.is(Type._QUEUE)) {
+            ImmutableList<Value> list = value.toVarList();
+            out.writeByte(QUEUE);
+            out.packInt(list.size());
+            for (Value v : list) {
+                writeValue(out, v);
+            }
+        } else if (type.is(Type._LIST)) {
+            ImmutableList<Value> list = value.toVarList();
+            out.writeByte(LIST);
+            out.packInt(list.size());
+            for (Value v : list) {
+                writeValue(out, v);
+            }
+        } else if (type.is(Type._MAP)) {
+            ImmutableMap<Value, Value> map = value.toVarMap();
+            out.writeByte(MAP);
+            out.packInt(map.size());
+            for (Map.Entry<Value, Value> entry : map.entrySet()) {
+                writeValue(out, entry.getKey());
+                writeValue(out, entry.getValue());
+            }
+        } else if (type.is(Type._RANGE)) {
+            Range<Value> range = value.toJavaObject();
+            Value unwrapped = value.$unwrap();
+            int flags = 0;
+            if (range.hasLowerBound()) {
+                flags |= RANGE_LOWER | ((range.lowerBoundType() == BoundType.CLOSED) ? RANGE_LOWER_CLOSED : 0);
+            }
+            if (range.hasUpperBound()) {
+                flags |= RANGE_UPPER | ((range.upperBoundType() == BoundType.CLOSED) ? RANGE_UPPER_CLOSED : 0);
+            }
+            if ((unwrapped instanceof DollarRange) && ((DollarRange) unwrapped).isReversed()) {
+                flags |= RANGE_REVERSED;
+            }
+            out.writeByte(RANGE);
+            out.writeByte(flags);
+            if (range.hasLowerBound()) {
+                writeValue(out, range.lowerEndpoint());
+            }
+            if (range.hasUpperBound()) {
+                writeValue(out, range.upperEndpoint());
+            }
+        } else if (type.is(Type._URI)) {
+            out.writeByte(URI);
+            writeString(out, value.$S());
+        } else if (type.is(Type._INFINITY)) {
+            out.writeByte(INFINITY);
+            out.writeBoolean(value.positive());
         } else {
-            out.writeUTF(Type._VOID.name());
-            out.writeUTF("");
+            String json = DollarFactory.serialize(value);
+            if (json == null) {
+                out.writeByte(VOID);
+            } else {
+                out.writeByte(JSON);
+                writeString(out, json);
+            }
         }
     }
 
     @NotNull
     @Override
     public Value deserialize(@NotNull DataInput2 in, int available) throws IOException {
-        final Type type = Type.of(in.readUTF());
+        final int version = readVersion(in);
+        if (version == LEGACY) {
+            return deserializeLegacy(in, version);
+        } else {
+            return readValue(in);
+        }
+    }
+
+    /**
+     * Reads a value stored as a type name and JSON with {@link java.io.DataOutput#writeUTF(String)}, the first byte of
+     * the type name's length having already been read.
+     */
+    @NotNull
+    private Value deserializeLegacy(@NotNull DataInput2 in, int lengthHigh) throws IOException {
+        byte[] name = new byte[(lengthHigh << 8) | in.readUnsignedByte()];
+        in.readFully(name);
+        final Type type = Type.of(new String(name, StandardCharsets.UTF_8));
         if (type.is(Type._VOID)) {
             in.readUTF();
             return DollarStatic.$void();
@@ -54,9 +304,48 @@ public class VarSerializer extends GroupSerializerObjectArray<Value> implements
         }
     }
 
-
     @Override
     public int fixedSize() {
         return -1;
     }
+
+    @Override
+    public void serialize(@NotNull DataOutput2 out, @Nullable Value value) throws IOException {
+        out.writeByte(VERSION);
+        writeValue(out, (value == null) ? null : value.$fixDeep());
+    }
+
+    @NotNull
+    @Override
+    public Object[] valueArrayDeserialize(@NotNull DataInput2 in, int size) throws IOException {
+        final Object[] values = new Object[size];
+        if (size == 0) {
+            return values;
+        }
+        final int version = readVersion(in);
+        for (int i = 0; i < size; i++) {
+            if (version != LEGACY) {
+                values[i] = readValue(in);
+            } else {
+                //each value in a legacy node has its own type name
+                values[i] = deserializeLegacy(in, (i == 0) ? version : in.readUnsignedByte());
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Writes the version once for the whole node rather than once per value.
+     */
+    @Override
+    public void valueArraySerialize(@NotNull DataOutput2 out, @NotNull Object vals) throws IOException {
+        final Object[] values = (Object[]) vals;
+        if (values.length == 0) {
+            return;
+        }
+        out.writeByte(VERSION);
+        for (Object value : values) {
+            writeValue(out, (value == null) ? null : ((Value) value).$fixDeep());
+        }
+    }
 }
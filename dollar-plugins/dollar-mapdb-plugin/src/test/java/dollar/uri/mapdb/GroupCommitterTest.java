@@ -0,0 +1,178 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.uri.mapdb;
+
+import dollar.api.DollarException;
+import dollar.api.uri.URI;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static dollar.api.DollarStatic.$;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+public class GroupCommitterTest {
+
+    @NotNull
+    private static MapDBMapURI map(@NotNull String query) {
+        return new MapDBMapURI("db", URI.parse("map://test/group-commit-" + UUID.randomUUID() + "?storage=memory&"
+                                                       + query));
+    }
+
+    @Test
+    public void testWritersShareACommit() throws Exception {
+        AtomicInteger commits = new AtomicInteger();
+        GroupCommitter committer = new GroupCommitter("test", commits::incrementAndGet, () -> false);
+        ExecutorService writers = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(writers.submit(() -> {
+                start.await();
+                committer.await(500);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get();
+        }
+        writers.shutdown();
+        assertEquals(1, committer.batches());
+        assertEquals(1, commits.get());
+
+        //a later ticket needs a commit of its own
+        committer.await(0);
+        assertEquals(2, committer.batches());
+        assertEquals(2, commits.get());
+    }
+
+    @Test
+    public void testEarliestDeadlineWins() {
+        AtomicInteger commits = new AtomicInteger();
+        GroupCommitter committer = new GroupCommitter("test", commits::incrementAndGet, () -> false);
+        ExecutorService writers = Executors.newSingleThreadExecutor();
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            Future<?> patient = writers.submit(() -> committer.await(60000));
+            Thread.sleep(50);
+            committer.await(0);
+            patient.get();
+        });
+        writers.shutdown();
+        assertEquals(1, committer.batches());
+        assertEquals(1, commits.get());
+    }
+
+    @Test
+    public void testFailureOnlyReachesItsBatch() {
+        AtomicBoolean fail = new AtomicBoolean(true);
+        GroupCommitter committer = new GroupCommitter("test", () -> {
+            if (fail.getAndSet(false)) {
+                throw new IllegalStateException("disk full");
+            }
+        }, () -> false);
+        DollarException failure = assertThrows(DollarException.class, () -> committer.await(0));
+        assertTrue(failure.getMessage().contains("disk full"));
+        committer.await(0);
+        assertEquals(2, committer.batches());
+    }
+
+    @Test
+    public void testErrorStopsCommits() {
+        GroupCommitter committer = new GroupCommitter("test", () -> {
+            throw new IllegalAccessError("DB was already closed");
+        }, () -> false);
+        assertThrows(DollarException.class, () -> committer.await(0));
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            while (true) {
+                try {
+                    committer.await(0);
+                } catch (DollarException e) {
+                    if (e.getMessage().contains("stopped")) {
+                        return;
+                    }
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testCloseWhileWaiting() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        AtomicInteger commits = new AtomicInteger();
+        GroupCommitter committer = new GroupCommitter("test", commits::incrementAndGet, closed::get);
+        ExecutorService writers = Executors.newSingleThreadExecutor();
+        Future<?> waiting = writers.submit(() -> committer.await(60000));
+        Thread.sleep(50);
+        closed.set(true);
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            ExecutionException failure = assertThrows(ExecutionException.class, waiting::get);
+            assertSame(DollarException.class, failure.getCause().getClass());
+        });
+        writers.shutdown();
+        assertEquals(0, commits.get());
+        assertThrows(DollarException.class, () -> committer.await(0));
+    }
+
+    @Test
+    public void testCommitModes() {
+        //a rollback only loses writes which have not been committed, the map's creation is committed first
+        MapDBMapURI none = map("commit=none");
+        none.tx.commit();
+        none.set($("a"), $(1));
+        none.tx.rollback();
+        assertNull(none.get($("a")));
+
+        MapDBMapURI sync = map("commit=sync");
+        sync.tx.commit();
+        sync.set($("a"), $(1));
+        sync.tx.rollback();
+        assertEquals($(1), sync.get($("a")));
+
+        MapDBMapURI group = map("commit=group&maxDelayMs=0");
+        group.tx.commit();
+        group.set($("a"), $(1));
+        group.tx.rollback();
+        assertEquals($(1), group.get($("a")));
+    }
+
+    @Test
+    public void testBadParameters() {
+        assertThrows(DollarException.class, () -> map("commit=later"));
+        assertThrows(DollarException.class, () -> map("commit=group&maxDelayMs=-1"));
+        assertThrows(DollarException.class, () -> map("commit=group&maxDelayMs=soon"));
+        assertThrows(DollarException.class, () -> new MapDBMapURI("db", URI.parse(
+                "map://test/group-commit-" + UUID.randomUUID() + "?storage=tape")));
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.uri.mapdb;
+
+import dollar.api.DollarException;
+import dollar.api.Value;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static dollar.api.DollarStatic.$;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+public class MappedRingQueueTest {
+
+    @NotNull
+    private static File file() throws IOException {
+        File file = File.createTempFile("dollar-ring", ".ring");
+        file.deleteOnExit();
+        return file;
+    }
+
+    @Test
+    public void testNonBlockingReads() throws IOException {
+        MappedRingQueue ring = new MappedRingQueue(file(), 3, 64);
+        assertNull(ring.poll());
+        assertNull(ring.peek());
+        assertTrue(ring.offer($(1)));
+        assertTrue(ring.offer($("two")));
+        assertTrue(ring.offer($(3)));
+        assertFalse(ring.offer($(4)));
+        assertEquals(3, ring.size());
+        assertEquals(0, ring.remainingCapacity());
+        assertEquals($(1), ring.peek());
+        assertEquals(3, ring.size());
+        assertEquals($(1), ring.poll());
+        assertEquals($("two"), ring.poll());
+        assertEquals($(3), ring.poll());
+        assertNull(ring.poll());
+    }
+
+    @Test
+    public void testBlockingReads() throws Exception {
+        MappedRingQueue ring = new MappedRingQueue(file(), 1, 64);
+        assertNull(ring.poll(10, TimeUnit.MILLISECONDS));
+        assertTrue(ring.offer($(0)));
+        assertFalse(ring.offer($(1), 10, TimeUnit.MILLISECONDS));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                Future<?> put = executor.submit(() -> {
+                    ring.put($(1));
+                    return null;
+                });
+                assertEquals($(0), ring.take());
+                put.get();
+                assertEquals($(1), ring.take());
+                Future<Value> take = executor.submit(ring::take);
+                Thread.sleep(20);
+                assertFalse(take.isDone());
+                ring.put($(2));
+                assertEquals($(2), take.get());
+            });
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testWrapAround() throws IOException {
+        MappedRingQueue ring = new MappedRingQueue(file(), 3, 64);
+        for (int i = 0; i < 20; i++) {
+            assertTrue(ring.offer($(i)));
+            assertTrue(ring.offer($(i + 100)));
+            assertEquals($(i), ring.poll());
+            assertEquals($(i + 100), ring.poll());
+        }
+        assertTrue(ring.isEmpty());
+    }
+
+    @Test
+    public void testDrainTo() throws IOException {
+        MappedRingQueue ring = new MappedRingQueue(file(), 4, 64);
+        for (int i = 0; i < 4; i++) {
+            ring.offer($(i));
+        }
+        List<Value> drained = new ArrayList<>();
+        assertEquals(2, ring.drainTo(drained, 2));
+        assertEquals(Arrays.asList($(0), $(1)), drained);
+        ring.offer($(4));
+        assertEquals(3, ring.drainTo(drained));
+        assertEquals(Arrays.asList($(0), $(1), $(2), $(3), $(4)), drained);
+        assertEquals(0, ring.drainTo(drained));
+    }
+
+    @Test
+    public void testConcurrentConsumers() throws Exception {
+        MappedRingQueue ring = new MappedRingQueue(file(), 16, 64);
+        int count = 5000;
+        int consumers = 4;
+        ConcurrentHashMap<Integer, AtomicInteger> seen = new ConcurrentHashMap<>();
+        AtomicInteger received = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(consumers + 1);
+        try {
+            assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+                List<Future<?>> futures = new ArrayList<>();
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < count; i++) {
+                        ring.put($(i));
+                    }
+                    return null;
+                }));
+                for (int c = 0; c < consumers; c++) {
+                    boolean drain = (c % 2) == 0;
+                    futures.add(executor.submit(() -> {
+                        List<Value> values = new ArrayList<>();
+                        while (received.get() < count) {
+                            values.clear();
+                            if (drain) {
+                                ring.drainTo(values, 3);
+                            } else {
+                                Value value = ring.poll(1, TimeUnit.MILLISECONDS);
+                                if (value != null) {
+                                    values.add(value);
+                                }
+                            }
+                            for (Value value : values) {
+                                seen.computeIfAbsent(value.toInteger(), k -> new AtomicInteger()).incrementAndGet();
+                                received.incrementAndGet();
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            });
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(count, received.get());
+        assertEquals(count, seen.size());
+        for (AtomicInteger times : seen.values()) {
+            assertEquals(1, times.get());
+        }
+    }
+
+    @Test
+    public void testIteratorDuringChurn() throws Exception {
+        MappedRingQueue ring = new MappedRingQueue(file(), 4, 64);
+        int count = 20000;
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+                Future<?> churn = executor.submit(() -> {
+                    for (int i = 0; i < count; i++) {
+                        ring.put($(i));
+                        if (i >= 3) {
+                            ring.poll();
+                        }
+                    }
+                    return null;
+                });
+                while (!churn.isDone()) {
+                    //a snapshot is always a run of consecutive values, never one a writer has overwritten
+                    Integer previous = null;
+                    for (Value value : ring) {
+                        if (previous != null) {
+                            assertEquals(previous + 1, value.toInteger());
+                        }
+                        previous = value.toInteger();
+                    }
+                }
+                churn.get();
+            });
+        } finally {
+            executor.shutdownNow();
+        }
+        List<Value> remaining = new ArrayList<>();
+        ring.iterator().forEachRemaining(remaining::add);
+        assertEquals(Arrays.asList($(count - 4), $(count - 3), $(count - 2), $(count - 1)), remaining);
+    }
+
+    @Test
+    public void testReopen() throws IOException {
+        File file = file();
+        MappedRingQueue ring = new MappedRingQueue(file, 4, 64);
+        ring.offer($(1));
+        ring.offer($(2));
+        ring.offer($(3));
+        assertEquals($(1), ring.poll());
+
+        MappedRingQueue reopened = new MappedRingQueue(file, 4, 64);
+        assertEquals(2, reopened.size());
+        assertEquals($(2), reopened.poll());
+        assertEquals($(3), reopened.poll());
+        assertNull(reopened.poll());
+    }
+
+    @Test
+    public void testHeaderMismatch() throws IOException {
+        File file = file();
+        new MappedRingQueue(file, 4, 64).offer($(1));
+        assertThrows(DollarException.class, () -> new MappedRingQueue(file, 8, 64));
+        assertThrows(DollarException.class, () -> new MappedRingQueue(file, 4, 128));
+    }
+
+    @Test
+    public void testValueTooLarge() throws IOException {
+        MappedRingQueue ring = new MappedRingQueue(file(), 4, 16);
+        assertThrows(DollarException.class, () -> ring.offer($("a value which does not fit in sixteen bytes")));
+        assertTrue(ring.isEmpty());
+    }
+
+    @Test
+    public void testRemoveUnsupported() throws IOException {
+        MappedRingQueue ring = new MappedRingQueue(file(), 4, 64);
+        ring.offer($(1));
+        assertThrows(DollarException.class, () -> ring.remove($(1)));
+        assertEquals(1, ring.size());
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.uri.mapdb;
+
+import dollar.api.Value;
+import dollar.api.uri.URI;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static dollar.api.DollarStatic.$;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ValueCacheTest {
+
+    @NotNull
+    private static MapDBMapURI map(@NotNull String path, @NotNull String query) {
+        return new MapDBMapURI("db", URI.parse("map://cached" + path + "?" + query));
+    }
+
+    @NotNull
+    private static String memoryPath() {
+        return "/value-cache-" + UUID.randomUUID();
+    }
+
+    @Test
+    public void testReadsCached() {
+        CountingMap map = new CountingMap();
+        map.put($("a"), $(1));
+        ValueCache cache = new ValueCache(10);
+        assertEquals($(1), cache.get($("a"), map));
+        assertEquals($(1), cache.get($("a"), map));
+        assertEquals(1, map.reads.get());
+        assertNull(cache.get($("b"), map));
+        assertNull(cache.get($("b"), map));
+        assertEquals(3, map.reads.get());
+
+        cache.invalidate($("a"));
+        assertEquals($(1), cache.get($("a"), map));
+        assertEquals(4, map.reads.get());
+
+        cache.invalidateAll();
+        assertEquals($(1), cache.get($("a"), map));
+        assertEquals(5, map.reads.get());
+    }
+
+    @Test
+    public void testRacingWriteNotCached() {
+        ValueCache cache = new ValueCache(10);
+        CountingMap map = new CountingMap() {
+            @Override
+            public Value get(Object key) {
+                Value read = super.get(key);
+                //a writer replaces the value after this read but before the cache stores it
+                if (reads.get() == 1) {
+                    put($("a"), $(2));
+                    cache.invalidate($("a"));
+                }
+                return read;
+            }
+        };
+        map.put($("a"), $(1));
+        assertEquals($(1), cache.get($("a"), map));
+        assertEquals($(2), cache.get($("a"), map));
+        assertEquals($(2), cache.get($("a"), map));
+        assertEquals(2, map.reads.get());
+    }
+
+    @Test
+    public void testWriteThroughAnotherURIInvalidates() {
+        String path = memoryPath();
+        //opened first so it has no cache of its own, its writes only reach the cache through modify()
+        MapDBMapURI writer = map(path, "storage=memory");
+        MapDBMapURI reader = map(path, "storage=memory&cache=10");
+        writer.set($("a"), $(1));
+        assertEquals($(1), reader.get($("a")));
+        writer.set($("a"), $(2));
+        assertEquals($(2), reader.get($("a")));
+        writer.remove($("a"));
+        assertNull(reader.get($("a")));
+    }
+
+    @Test
+    public void testDrainClearsCache() {
+        MapDBMapURI map = map(memoryPath(), "storage=memory&cache=10");
+        map.set($("a"), $(1));
+        map.set($("b"), $(2));
+        assertEquals($(1), map.get($("a")));
+        assertEquals($(2), map.get($("b")));
+        assertEquals(2, map.drain().size());
+        assertNull(map.get($("a")));
+        assertNull(map.get($("b")));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    public void testStorageModes() throws Exception {
+        File dir = Files.createTempDirectory("dollar-mapdb").toFile();
+        dir.deleteOnExit();
+        File file = new File(dir, "mmap.db");
+        file.deleteOnExit();
+        MapDBMapURI mmap = new MapDBMapURI("db", URI.parse("map://cached" + file.getAbsolutePath()
+                                                                   + "?storage=mmap&commit=sync&cache=10"));
+        mmap.set($("a"), $(1));
+        assertEquals($(1), mmap.get($("a")));
+        assertTrue(file.length() > 0);
+
+        MapDBMapURI memory = map(memoryPath(), "storage=memory&commit=sync&cache=10");
+        memory.set($("a"), $(1));
+        assertEquals($(1), memory.get($("a")));
+        assertEquals(1, memory.size());
+    }
+
+    private static class CountingMap extends HashMap<Value, Value> {
+        @NotNull
+        final AtomicInteger reads = new AtomicInteger();
+
+        @Override
+        public Value get(Object key) {
+            reads.incrementAndGet();
+            return super.get(key);
+        }
+    }
+}
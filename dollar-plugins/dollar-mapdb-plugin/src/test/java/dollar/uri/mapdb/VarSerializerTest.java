@@ -0,0 +1,162 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dollar.uri.mapdb;
+
+import com.google.common.collect.BoundType;
+import com.google.common.collect.Range;
+import dollar.api.Type;
+import dollar.api.Value;
+import dollar.api.json.JsonObject;
+import dollar.api.types.DollarFactory;
+import dollar.api.types.DollarRange;
+import dollar.api.types.ErrorType;
+import dollar.internal.mapdb.DataInput2;
+import dollar.internal.mapdb.DataOutput2;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.LinkedBlockingDeque;
+
+import static dollar.api.DollarStatic.$;
+import static dollar.api.DollarStatic.$void;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class VarSerializerTest {
+
+    @NotNull
+    private static Value read(@NotNull byte[] bytes) throws IOException {
+        return new VarSerializer().deserialize(new DataInput2.ByteArray(bytes), bytes.length);
+    }
+
+    private static boolean reversed(@NotNull Value range) {
+        return ((DollarRange) range.$unwrap()).isReversed();
+    }
+
+    @NotNull
+    private static Value roundTrip(@NotNull Value value) throws IOException {
+        DataOutput2 out = new DataOutput2();
+        new VarSerializer().serialize(out, value);
+        return read(out.copyBytes());
+    }
+
+    @Test
+    public void testBoundedRanges() throws IOException {
+        Value closed = roundTrip(DollarFactory.fromRange($(1), $(5)));
+        assertEquals(DollarFactory.fromRange($(1), $(5)), closed);
+        assertFalse(reversed(closed));
+
+        Value reversed = roundTrip(DollarFactory.fromRange($(5), $(1)));
+        assertEquals(Range.closed($(1), $(5)), reversed.toJavaObject());
+        assertTrue(reversed(reversed));
+
+        Value halfOpen = roundTrip(DollarFactory.fromRange(Range.closedOpen($(1), $(5)), true));
+        Range<Value> range = halfOpen.toJavaObject();
+        assertEquals(BoundType.CLOSED, range.lowerBoundType());
+        assertEquals(BoundType.OPEN, range.upperBoundType());
+        assertTrue(reversed(halfOpen));
+    }
+
+    @Test
+    public void testCollections() throws IOException {
+        Value list = $(Arrays.asList(1, "two", 3.0));
+        assertEquals(list, roundTrip(list));
+
+        Value map = $("name", "dollar").$("nested", $("count", 3));
+        assertEquals(map, roundTrip(map));
+
+        LinkedBlockingDeque<Value> deque = new LinkedBlockingDeque<>(Arrays.asList($(1), $(2)));
+        Value queue = roundTrip(DollarFactory.fromQueue(deque));
+        assertTrue(queue.$type().is(Type._QUEUE));
+        assertEquals(Arrays.asList($(1), $(2)), queue.toVarList());
+    }
+
+    @Test
+    public void testDates() throws IOException {
+        for (Instant instant : Arrays.asList(Instant.ofEpochSecond(1500000000L, 123456789),
+                                             Instant.ofEpochSecond(-1500000000L, 1), Instant.EPOCH)) {
+            Value date = DollarFactory.fromValue(instant);
+            Value result = roundTrip(date);
+            assertEquals(date, result);
+            assertEquals(instant.toString(), result.toJavaObject());
+        }
+    }
+
+    @Test
+    public void testErrors() throws IOException {
+        Value error = roundTrip(DollarFactory.failure(ErrorType.EXCEPTION, "went wrong", true));
+        assertTrue(error.$type().is(Type._ERROR));
+        assertEquals("went wrong", ((JsonObject) error.toJsonType()).getString("errorMessage"));
+
+        Value noMessage = roundTrip(DollarFactory.failure(ErrorType.EXCEPTION, new Exception(), true));
+        assertTrue(noMessage.$type().is(Type._ERROR));
+        assertEquals(ErrorType.EXCEPTION.name(), ((JsonObject) noMessage.toJsonType()).getString("errorType"));
+        assertNull(((JsonObject) noMessage.toJsonType()).getString("errorMessage"));
+    }
+
+    @Test
+    public void testLegacyFormat() throws IOException {
+        for (Value value : Arrays.asList($("legacy"), $(42), $("name", "dollar"))) {
+            DataOutput2 out = new DataOutput2();
+            out.writeUTF(value.$type().name());
+            out.writeUTF(DollarFactory.serialize(value));
+            assertEquals(value, read(out.copyBytes()));
+        }
+    }
+
+    @Test
+    public void testScalars() throws IOException {
+        for (Value value : Arrays.asList($(true), $(false), $(0), $(-1), $(Long.MAX_VALUE), $(Long.MIN_VALUE + 1),
+                                         $(3.25), $(""), $("text é"), DollarFactory.fromURI("http://example.com"),
+                                         DollarFactory.fromValue(Instant.ofEpochMilli(1500000000000L)))) {
+            Value result = roundTrip(value);
+            assertEquals(value, result);
+            assertEquals(value.$type(), result.$type());
+        }
+        assertTrue(roundTrip($void()).isVoid());
+        Value nullString = roundTrip(DollarFactory.newNull(Type._STRING));
+        assertTrue(nullString.isNull());
+        assertEquals(Type._STRING, nullString.$type());
+        assertTrue(roundTrip(DollarFactory.infinity(true)).positive());
+        assertFalse(roundTrip(DollarFactory.infinity(false)).positive());
+    }
+
+    @Test
+    public void testUnboundedRanges() throws IOException {
+        Value greaterThan = roundTrip(DollarFactory.fromRange(Range.greaterThan($(1)), false));
+        assertEquals(Range.greaterThan($(1)), greaterThan.toJavaObject());
+
+        Value atMost = roundTrip(DollarFactory.fromRange(Range.atMost($(5)), true));
+        assertEquals(Range.atMost($(5)), atMost.toJavaObject());
+        assertTrue(reversed(atMost));
+
+        Value all = roundTrip(DollarFactory.fromRange(Range.all(), false));
+        assertEquals(Range.all(), all.toJavaObject());
+    }
+
+    @Test
+    public void testUnknownVersionIsRejected() {
+        assertThrows(IOException.class, () -> read(new byte[]{7, 4, 0}));
+        assertThrows(IOException.class, () -> read(new byte[]{2, 4, 0}));
+    }
+}
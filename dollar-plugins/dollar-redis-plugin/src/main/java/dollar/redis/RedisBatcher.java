@@ -0,0 +1,265 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.redis;
+
+import dollar.api.DollarException;
+import dollar.api.Value;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static dollar.api.DollarStatic.$;
+
+/**
+ * Accumulates writes to a single Redis key and sends them as one pipeline, optionally wrapped in MULTI/EXEC.
+ * <p>
+ * A batch is flushed when it reaches the maximum size, when the time window since its first write has passed, or
+ * explicitly via {@link #flush()}, which the handler does before every read so a script always sees its own writes.
+ * Consecutive pushes are sent as a single LPUSH, each set is sent as its own HSET so it gets its own reply.
+ * <p>
+ * Writers only hold the batcher's monitor to queue a write, a batch is taken under the monitor and sent outside it.
+ * If a batch fails its writes' replies fail, and a failure in the background flush is thrown by the next write or
+ * flush.
+ */
+final class RedisBatcher {
+
+    @NotNull
+    private static final ScheduledExecutorService flusher;
+    @NotNull
+    private static final Logger log = LoggerFactory.getLogger(RedisBatcher.class);
+    @NotNull
+    private final String key;
+    private final int maxBatch;
+    @NotNull
+    private final JedisPool pool;
+    /**
+     * Held while a batch is taken and sent, so batches reach Redis in the order they were written.
+     */
+    @NotNull
+    private final Object sending = new Object();
+    private final boolean transactional;
+    private final long windowMillis;
+    private long batches;
+    @Nullable
+    private RuntimeException failure;
+    private long lastBatchSize;
+    private long maxLatencyNanos;
+    @NotNull
+    private List<Op> ops = new ArrayList<>();
+    private long operations;
+    @Nullable
+    private ScheduledFuture<?> scheduled;
+    private long totalLatencyNanos;
+
+    static {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "dollar-redis-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        flusher = executor;
+    }
+
+    RedisBatcher(@NotNull JedisPool pool, @NotNull String key, int maxBatch, long windowMillis,
+                 boolean transactional) {
+        this.pool = pool;
+        this.key = key;
+        this.maxBatch = maxBatch;
+        this.windowMillis = windowMillis;
+        this.transactional = transactional;
+    }
+
+    /**
+     * Sends any pending writes and waits for Redis to acknowledge them.
+     *
+     * @throws DollarException if an earlier background flush failed
+     */
+    void flush() {
+        throwFailure();
+        send();
+    }
+
+    @NotNull
+    synchronized Value metrics() {
+        return $("batches", batches)
+                       .$("operations", operations)
+                       .$("pending", ops.size())
+                       .$("lastBatchSize", lastBatchSize)
+                       .$("meanLatencyMillis", (batches == 0) ? 0.0 : ((totalLatencyNanos / (double) batches) / 1000000.0))
+                       .$("maxLatencyMillis", maxLatencyNanos / 1000000.0);
+    }
+
+    /**
+     * @return the reply to the LPUSH which sends the value, completed once its batch is sent
+     */
+    @NotNull
+    CompletableFuture<Value> push(@NotNull String value) {
+        return add(new Op(null, value));
+    }
+
+    /**
+     * @return the reply to the HSET which sends the value, completed once its batch is sent
+     */
+    @NotNull
+    CompletableFuture<Value> set(@NotNull String field, @NotNull String value) {
+        return add(new Op(field, value));
+    }
+
+    @NotNull
+    private CompletableFuture<Value> add(@NotNull Op op) {
+        throwFailure();
+        boolean full;
+        synchronized (this) {
+            ops.add(op);
+            full = ops.size() >= maxBatch;
+            if (!full && (scheduled == null) && (windowMillis > 0)) {
+                scheduled = flusher.schedule(this::flushQuietly, windowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (full) {
+            send();
+        }
+        return op.reply;
+    }
+
+    private void flushQuietly() {
+        try {
+            send();
+        } catch (RuntimeException e) {
+            log.error("Failed to flush writes to {}: {}", key, e.getMessage(), e);
+            synchronized (this) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+    }
+
+    private void send() {
+        synchronized (sending) {
+            List<Op> batch;
+            synchronized (this) {
+                if (scheduled != null) {
+                    scheduled.cancel(false);
+                    scheduled = null;
+                }
+                if (ops.isEmpty()) {
+                    return;
+                }
+                batch = ops;
+                ops = new ArrayList<>();
+            }
+            long start = System.nanoTime();
+            try {
+                send(batch);
+            } catch (RuntimeException e) {
+                for (Op op : batch) {
+                    op.reply.completeExceptionally(e);
+                }
+                throw e;
+            }
+            long latency = System.nanoTime() - start;
+            synchronized (this) {
+                batches++;
+                operations += batch.size();
+                lastBatchSize = batch.size();
+                totalLatencyNanos += latency;
+                maxLatencyNanos = Math.max(maxLatencyNanos, latency);
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Flushed {} writes to {} in {}ms", batch.size(), key, latency / 1000000.0);
+            }
+        }
+    }
+
+    private void send(@NotNull List<Op> batch) {
+        List<Response<Long>> responses = new ArrayList<>(batch.size());
+        try (Jedis jedis = pool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            if (transactional) {
+                pipeline.multi();
+            }
+            int i = 0;
+            while (i < batch.size()) {
+                if (batch.get(i).field == null) {
+                    List<String> values = new ArrayList<>();
+                    while ((i < batch.size()) && (batch.get(i).field == null)) {
+                        values.add(batch.get(i++).value);
+                    }
+                    Response<Long> response = pipeline.lpush(key, values.toArray(new String[values.size()]));
+                    for (String ignored : values) {
+                        responses.add(response);
+                    }
+                } else {
+                    responses.add(pipeline.hset(key, batch.get(i).field, batch.get(i).value));
+                    i++;
+                }
+            }
+            if (transactional) {
+                pipeline.exec();
+            }
+            pipeline.sync();
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                batch.get(i).reply.complete($(responses.get(i).get()));
+            } catch (RuntimeException e) {
+                batch.get(i).reply.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void throwFailure() {
+        RuntimeException e;
+        synchronized (this) {
+            e = failure;
+            failure = null;
+        }
+        if (e != null) {
+            throw new DollarException(e, "Earlier writes to " + key + " failed: " + e.getMessage());
+        }
+    }
+
+    private static final class Op {
+        @Nullable
+        final String field;
+        @NotNull
+        final CompletableFuture<Value> reply = new CompletableFuture<>();
+        @NotNull
+        final String value;
+
+        Op(@Nullable String field, @NotNull String value) {
+            this.field = field;
+            this.value = value;
+        }
+    }
+}
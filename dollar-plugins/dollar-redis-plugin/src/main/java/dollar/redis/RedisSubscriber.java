@@ -0,0 +1,357 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.redis;
+
+import dollar.api.Pipeable;
+import dollar.api.Value;
+import dollar.api.execution.DollarExecutor;
+import dollar.api.plugin.Plugins;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static dollar.api.DollarStatic.$;
+
+/**
+ * All pub/sub subscriptions to one Redis server, multiplexed over a single connection read by one daemon thread.
+ * <p>
+ * The connection stays subscribed to a private channel of its own so the subscription loop never ends when the last
+ * real subscription is removed. Each subscription has a bounded queue which is drained in order by a task on the
+ * {@link DollarExecutor}, so a slow consumer never holds up the reader. When a queue is full the message is either
+ * dropped and counted, or, for subscriptions created with {@link Overflow#BLOCK}, the reader waits for space, which
+ * pushes back on Redis through the socket.
+ * <p>
+ * There is one subscriber per host, port and password, so handlers with different credentials never share a
+ * connection.
+ */
+final class RedisSubscriber {
+
+    private static final long RECONNECT_MILLIS = 1000;
+    @Nullable
+    private static final DollarExecutor executor = Plugins.sharedInstance(DollarExecutor.class);
+    @NotNull
+    private static final Logger log = LoggerFactory.getLogger(RedisSubscriber.class);
+    @NotNull
+    private static final ConcurrentHashMap<List<Object>, RedisSubscriber> subscribers = new ConcurrentHashMap<>();
+    @NotNull
+    private final Map<String, List<Subscription>> channels = new ConcurrentHashMap<>();
+    @NotNull
+    private final String controlChannel = "__dollar_subscriber__:" + UUID.randomUUID();
+    @NotNull
+    private final Executor drainer;
+    @NotNull
+    private final String host;
+    @Nullable
+    private final String password;
+    @NotNull
+    private final Map<String, List<Subscription>> patterns = new ConcurrentHashMap<>();
+    private final int port;
+    @NotNull
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+    @NotNull
+    private final Thread thread;
+    private volatile boolean closed;
+    @Nullable
+    private volatile JedisPubSub pubSub;
+
+    /**
+     * @param drainer runs the task which drains a subscription's queue into its consumer
+     */
+    RedisSubscriber(@NotNull String host, int port, @Nullable String password, @NotNull Executor drainer) {
+        this.host = host;
+        this.port = port;
+        this.password = password;
+        this.drainer = drainer;
+        thread = new Thread(this::run, "dollar-redis-subscriber-" + host + ":" + port);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @NotNull
+    static RedisSubscriber forServer(@NotNull String host, int port, @Nullable String password) {
+        return subscribers.computeIfAbsent(key(host, port, password),
+                                           key -> new RedisSubscriber(host, port, password,
+                                                                      RedisSubscriber::inBackground));
+    }
+
+    private static void inBackground(@NotNull Runnable task) {
+        executor.executeInBackground(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    @NotNull
+    private static List<Object> key(@NotNull String host, int port, @Nullable String password) {
+        return Arrays.asList(host, port, password);
+    }
+
+    /**
+     * Stop reading and drop every subscription, a later {@link #forServer(String, int, String)} connects afresh.
+     */
+    synchronized void close() {
+        closed = true;
+        subscribers.remove(key(host, port, password), this);
+        for (Subscription subscription : subscriptions.values()) {
+            subscription.queue.clear();
+        }
+        subscriptions.clear();
+        channels.clear();
+        patterns.clear();
+        JedisPubSub current = pubSub;
+        if ((current != null) && current.isSubscribed()) {
+            current.punsubscribe();
+            current.unsubscribe();
+        }
+        thread.interrupt();
+    }
+
+    @NotNull
+    Value metrics(@NotNull String id) {
+        Subscription subscription = subscriptions.get(id);
+        if (subscription == null) {
+            return $("subscribed", false);
+        }
+        return $("subscribed", true)
+                       .$("channel", subscription.channel)
+                       .$("pattern", subscription.pattern)
+                       .$("capacity", subscription.capacity)
+                       .$("queued", subscription.queue.size())
+                       .$("delivered", subscription.delivered.sum())
+                       .$("dropped", subscription.dropped.sum())
+                       .$("failed", subscription.failed.sum());
+    }
+
+    /**
+     * @param id       the id to unsubscribe with
+     * @param channel  a channel name or, if pattern is true, a glob style pattern
+     * @param pattern  whether the channel is a pattern
+     * @param consumer receives each message in order, on the executor
+     * @param capacity the number of messages which may be waiting for the consumer
+     * @param overflow what to do when the queue is full
+     */
+    synchronized void subscribe(@NotNull String id, @NotNull String channel, boolean pattern,
+                                @NotNull Pipeable consumer, int capacity, @NotNull Overflow overflow) {
+        Subscription subscription = new Subscription(id, channel, pattern, consumer, capacity, overflow, drainer);
+        subscriptions.put(id, subscription);
+        List<Subscription> existing = (pattern ? patterns : channels).computeIfAbsent(channel,
+                                                                                      key -> new CopyOnWriteArrayList<>());
+        existing.add(subscription);
+        JedisPubSub current = pubSub;
+        if ((existing.size() == 1) && (current != null) && current.isSubscribed()) {
+            if (pattern) {
+                current.psubscribe(channel);
+            } else {
+                current.subscribe(channel);
+            }
+        }
+    }
+
+    synchronized void unsubscribe(@NotNull String id) {
+        Subscription subscription = subscriptions.remove(id);
+        if (subscription == null) {
+            return;
+        }
+        subscription.queue.clear();
+        Map<String, List<Subscription>> index = subscription.pattern ? patterns : channels;
+        List<Subscription> existing = index.get(subscription.channel);
+        if (existing == null) {
+            return;
+        }
+        existing.remove(subscription);
+        if (existing.isEmpty()) {
+            index.remove(subscription.channel);
+            JedisPubSub current = pubSub;
+            if ((current != null) && current.isSubscribed()) {
+                if (subscription.pattern) {
+                    current.punsubscribe(subscription.channel);
+                } else {
+                    current.unsubscribe(subscription.channel);
+                }
+            }
+        }
+    }
+
+    private void deliver(@Nullable List<Subscription> targets, @NotNull String message) {
+        if (targets == null) {
+            return;
+        }
+        for (Subscription subscription : targets) {
+            subscription.offer(message);
+        }
+    }
+
+    /**
+     * The reader loop, reconnecting and resubscribing if the connection is lost.
+     */
+    private void run() {
+        while (!closed) {
+            try (Jedis jedis = new Jedis(host, port)) {
+                if (password != null) {
+                    jedis.auth(password);
+                }
+                JedisPubSub listener = new JedisPubSub() {
+                    @Override
+                    public void onMessage(String channel, String message) {
+                        deliver(channels.get(channel), message);
+                    }
+
+                    @Override
+                    public void onPMessage(String pattern, String channel, String message) {
+                        deliver(patterns.get(pattern), message);
+                    }
+
+                    @Override
+                    public void onSubscribe(String channel, int subscribedChannels) {
+                        if (controlChannel.equals(channel)) {
+                            resubscribe(this);
+                        }
+                    }
+                };
+                pubSub = listener;
+                jedis.subscribe(listener, controlChannel);
+            } catch (RuntimeException e) {
+                if (closed) {
+                    return;
+                }
+                log.warn("Redis subscriber for {}:{} disconnected, reconnecting: {}", host, port, e.getMessage());
+            } finally {
+                pubSub = null;
+            }
+            try {
+                Thread.sleep(RECONNECT_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Once the control channel subscription is confirmed, subscribe to everything wanted so far.
+     */
+    private synchronized void resubscribe(@NotNull JedisPubSub listener) {
+        if (closed) {
+            listener.unsubscribe();
+            return;
+        }
+        if (!channels.isEmpty()) {
+            listener.subscribe(channels.keySet().toArray(new String[0]));
+        }
+        if (!patterns.isEmpty()) {
+            listener.psubscribe(patterns.keySet().toArray(new String[0]));
+        }
+    }
+
+    enum Overflow {
+        BLOCK, DROP
+    }
+
+    private static final class Subscription {
+        final int capacity;
+        @NotNull
+        final String channel;
+        @NotNull
+        final Pipeable consumer;
+        @NotNull
+        final LongAdder delivered = new LongAdder();
+        @NotNull
+        final AtomicBoolean draining = new AtomicBoolean();
+        @NotNull
+        final Executor drainer;
+        @NotNull
+        final LongAdder dropped = new LongAdder();
+        @NotNull
+        final LongAdder failed = new LongAdder();
+        @NotNull
+        final String id;
+        @NotNull
+        final Overflow overflow;
+        final boolean pattern;
+        @NotNull
+        final BlockingQueue<String> queue;
+
+        Subscription(@NotNull String id, @NotNull String channel, boolean pattern, @NotNull Pipeable consumer,
+                     int capacity, @NotNull Overflow overflow, @NotNull Executor drainer) {
+            this.id = id;
+            this.channel = channel;
+            this.pattern = pattern;
+            this.consumer = consumer;
+            this.capacity = capacity;
+            this.overflow = overflow;
+            this.drainer = drainer;
+            queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        void offer(@NotNull String message) {
+            boolean queued;
+            if (overflow == Overflow.BLOCK) {
+                try {
+                    queued = queue.offer(message, Long.MAX_VALUE, TimeUnit.DAYS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    queued = false;
+                }
+            } else {
+                queued = queue.offer(message);
+            }
+            if (!queued) {
+                dropped.increment();
+                if (log.isDebugEnabled()) {
+                    log.debug("Dropped message for subscription {} to {}, queue full", id, channel);
+                }
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                drainer.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                String message;
+                while ((message = queue.poll()) != null) {
+                    try {
+                        consumer.pipe($(message));
+                        delivered.increment();
+                    } catch (Exception e) {
+                        failed.increment();
+                        log.error("Subscription {} to {} failed: {}", id, channel, e.getMessage(), e);
+                    }
+                }
+                draining.set(false);
+                //A message may have been queued after the poll above but before the flag was cleared
+            } while (!queue.isEmpty() && draining.compareAndSet(false, true));
+        }
+    }
+}
@@ -16,28 +16,62 @@
 
 package dollar.redis;
 
-import dollar.api.DollarException;
 import dollar.api.DollarStatic;
 import dollar.api.Pipeable;
 import dollar.api.Value;
+import dollar.api.types.DollarFactory;
 import dollar.api.uri.URI;
 import dollar.api.uri.URIHandler;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
-import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisDataException;
 
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Handles {@code redis://host:port/key} URIs, the key is used as a list for reads and writes and as a hash for keyed
+ * access.
+ * <p>
+ * Writes may be batched and pipelined, the query parameters {@code batch} (maximum writes per batch, default 1 which
+ * sends each write immediately), {@code window} (milliseconds a write may wait for a batch to fill, default 5) and
+ * {@code multi} (wrap each batch in MULTI/EXEC, default false) control this. Pending writes are always flushed before a
+ * read. A batched set returns its HSET reply as a future, and a batch which fails in the background is reported by the
+ * next write or flush.
+ * <p>
+ * Subscriptions share one connection per server and password, see {@link RedisSubscriber}. The key is treated as a
+ * pattern if it contains a glob character or {@code pattern=true} is given, {@code queue} sets how many messages may
+ * wait for the consumer (default 1024) and {@code overflow} is {@code drop} (the default) or {@code block}.
+ */
 public class RedisURIHandler implements URIHandler {
     private static final int BLOCKING_TIMEOUT = 10;
+    @Nullable
+    private final RedisBatcher batcher;
+    @NotNull
+    private final String host;
     @NotNull
     private final JedisPool jedisPool;
     @NotNull
+    private final RedisSubscriber.Overflow overflow;
+    @Nullable
+    private final String password;
+    @NotNull
     private final String path;
+    private final boolean pattern;
+    private final int port;
     @NotNull
     private final String query;
+    private final int queueCapacity;
+    @NotNull
+    private final Set<String> subscriptions = ConcurrentHashMap.newKeySet();
     private final int timeout = 60000;
 
     public RedisURIHandler(@NotNull URI uri, @NotNull JedisPoolConfig jedisPoolConfig) {
@@ -50,38 +84,74 @@ public class RedisURIHandler implements URIHandler {
         if (userInfo != null) {
             String[] usernamePassword = userInfo.split(":");
             jedisPool = new JedisPool(jedisPoolConfig, host, port, timeout, usernamePassword[1]);
+            password = usernamePassword[1];
         } else {
             jedisPool = new JedisPool(jedisPoolConfig, host, port, timeout);
+            password = null;
         }
+        this.host = host;
+        this.port = port;
+        pattern = Boolean.parseBoolean(uri.paramWithDefault("pattern", String.valueOf(path.matches(".*[*?\\[].*")))
+                                               .get(0));
+        queueCapacity = Integer.parseInt(uri.paramWithDefault("queue", "1024").get(0));
+        overflow = RedisSubscriber.Overflow.valueOf(uri.paramWithDefault("overflow", "drop").get(0)
+                                                            .toUpperCase(Locale.ENGLISH));
+        int batch = Integer.parseInt(uri.paramWithDefault("batch", "1").get(0));
+        long window = Long.parseLong(uri.paramWithDefault("window", "5").get(0));
+        boolean multi = Boolean.parseBoolean(uri.paramWithDefault("multi", "false").get(0));
+        batcher = (batch > 1) ? new RedisBatcher(jedisPool, path, batch, window, multi) : null;
     }
 
     @NotNull
     @Override
     public Value all() {
+        flush();
         try (Jedis jedis = jedisPool.getResource()) {
-            List<String> result = jedis.lrange(path, 0, -1);
-            return DollarStatic.$(result);
+            Pipeline pipeline = jedis.pipelined();
+            Response<List<String>> list = pipeline.lrange(path, 0, -1);
+            Response<Map<String, String>> hash = pipeline.hgetAll(path);
+            pipeline.sync();
+            return bulkResult(list, hash);
         }
     }
 
     @Override
     public void destroy() {
-        //TODO
+        flush();
+        for (String id : subscriptions) {
+            unsubscribe(id);
+        }
     }
 
     @NotNull
     @Override
     public Value drain() {
+        flush();
         try (Jedis jedis = jedisPool.getResource()) {
-            List<String> result = jedis.lrange(path, 0, -1);
-            jedis.ltrim(path, 1, 0);
-            return DollarStatic.$(result);
+            Pipeline pipeline = jedis.pipelined();
+            pipeline.multi();
+            Response<List<String>> list = pipeline.lrange(path, 0, -1);
+            Response<Map<String, String>> hash = pipeline.hgetAll(path);
+            pipeline.del(path);
+            pipeline.exec();
+            pipeline.sync();
+            return bulkResult(list, hash);
+        }
+    }
+
+    /**
+     * Flush any batched writes to Redis.
+     */
+    public void flush() {
+        if (batcher != null) {
+            batcher.flush();
         }
     }
 
     @NotNull
     @Override
     public Value get(@NotNull Value key) {
+        flush();
         try (Jedis jedis = jedisPool.getResource()) {
             return DollarStatic.$(jedis.hget(path, key.$S()));
         }
@@ -97,9 +167,24 @@ public class RedisURIHandler implements URIHandler {
         //TODO
     }
 
+    /**
+     * @return the number of batches and writes sent and the latency of sending them, and for each subscription the
+     * messages delivered, dropped and waiting
+     */
+    @NotNull
+    public Value metrics() {
+        Value subscriptionMetrics = DollarStatic.$();
+        for (String id : subscriptions) {
+            subscriptionMetrics = subscriptionMetrics.$(id, subscriber().metrics(id));
+        }
+        Value writes = (batcher != null) ? batcher.metrics() : DollarStatic.$("batches", 0);
+        return writes.$("subscriptions", subscriptionMetrics);
+    }
+
     @NotNull
     @Override
     public Value read(boolean blocking, boolean mutating) {
+        flush();
         if (blocking && !mutating) {
             return receive();
         } else if (!blocking && mutating) {
@@ -114,6 +199,7 @@ public class RedisURIHandler implements URIHandler {
     @NotNull
     @Override
     public Value remove(@NotNull Value key) {
+        flush();
         try (Jedis jedis = jedisPool.getResource()) {
             return DollarStatic.$(jedis.hdel(path, key.$S()));
         }
@@ -128,6 +214,9 @@ public class RedisURIHandler implements URIHandler {
     @NotNull
     @Override
     public Value set(@NotNull Value key, @NotNull Value value) {
+        if (batcher != null) {
+            return DollarFactory.fromFuture(batcher.set(key.$S(), value.$S()));
+        }
         try (Jedis jedis = jedisPool.getResource()) {
             return DollarStatic.$(jedis.hset(path, key.$S(), value.$S()));
         }
@@ -145,52 +234,13 @@ public class RedisURIHandler implements URIHandler {
 
     @Override
     public void stop() {
-        //TODO
+        flush();
     }
 
     @Override
     public void subscribe(@NotNull Pipeable consumer, @NotNull String id) {
-        try (Jedis jedis = jedisPool.getResource()) {
-            jedis.subscribe(new JedisPubSub() {
-                @Override
-                public void onMessage(String channel, String message) {
-                    try {
-                        consumer.pipe(DollarStatic.$(message));
-                    } catch (Exception e) {
-                        throw new DollarException(e);
-                    }
-                }
-
-                @Override
-                public void onPMessage(String pattern, String channel, String message) {
-                    try {
-                        consumer.pipe(DollarStatic.$(message));
-                    } catch (Exception e) {
-                        throw new DollarException(e);
-                    }
-                }
-
-                @Override
-                public void onSubscribe(String channel, int subscribedChannels) {
-                    //TODO
-                }
-
-                @Override
-                public void onUnsubscribe(String channel, int subscribedChannels) {
-                    //TODO
-                }
-
-                @Override
-                public void onPUnsubscribe(String pattern, int subscribedChannels) {
-                    //TODO
-                }
-
-                @Override
-                public void onPSubscribe(String pattern, int subscribedChannels) {
-                    //TODO
-                }
-            }, path);
-        }
+        subscriber().subscribe(id, path, pattern, consumer, queueCapacity, overflow);
+        subscriptions.add(id);
     }
 
     @Override
@@ -200,7 +250,9 @@ public class RedisURIHandler implements URIHandler {
 
     @Override
     public void unsubscribe(@NotNull String subId) {
-        //TODO
+        if (subscriptions.remove(subId)) {
+            subscriber().unsubscribe(subId);
+        }
     }
 
     @NotNull
@@ -231,9 +283,33 @@ public class RedisURIHandler implements URIHandler {
     }
 
     @NotNull Value send(@NotNull Value value) {
+        if (batcher != null) {
+            batcher.push(value.$S());
+            return value;
+        }
         try (Jedis jedis = jedisPool.getResource()) {
             jedis.lpush(path, value.$S());
         }
         return value;
     }
+
+    /**
+     * The shared subscriber is only looked up, and so only connected, once this handler subscribes.
+     */
+    @NotNull
+    private RedisSubscriber subscriber() {
+        return RedisSubscriber.forServer(host, port, password);
+    }
+
+    /**
+     * The key may hold a list or a hash, both were fetched and the one of the wrong type failed.
+     */
+    @NotNull
+    private Value bulkResult(@NotNull Response<List<String>> list, @NotNull Response<Map<String, String>> hash) {
+        try {
+            return DollarStatic.$(list.get());
+        } catch (JedisDataException e) {
+            return DollarStatic.$(hash.get());
+        }
+    }
 }
@@ -0,0 +1,288 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.redis;
+
+import dollar.api.Pipeable;
+import dollar.api.Value;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static dollar.api.DollarStatic.$;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RedisSubscriberTest {
+
+    private static final long TIMEOUT_MILLIS = 10000;
+    @NotNull
+    private final ExecutorService drainer = Executors.newCachedThreadPool();
+    @NotNull
+    private final List<RedisSubscriber> subscribers = new ArrayList<>();
+
+    private static void await(@NotNull String what, @NotNull BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Timed out waiting for " + what);
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * @return how many times the server has been asked to subscribe to the channel or pattern
+     */
+    private static int requests(@NotNull RespServer server, @NotNull String command, @NotNull String channel) {
+        int count = 0;
+        for (List<String> args : server.commands(command)) {
+            if (args.contains(channel)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static long metric(@NotNull RedisSubscriber subscriber, @NotNull String id, @NotNull String name) {
+        return subscriber.metrics(id).$get($(name)).toLong();
+    }
+
+    @NotNull
+    private static String take(@NotNull BlockingQueue<String> received) throws InterruptedException {
+        String message = received.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        if (message == null) {
+            throw new AssertionError("No message received");
+        }
+        return message;
+    }
+
+    @NotNull
+    private static Pipeable to(@NotNull BlockingQueue<String> received) {
+        return in -> {
+            received.add(in[0].$S());
+            return $(true);
+        };
+    }
+
+    @AfterEach
+    public void close() {
+        subscribers.forEach(RedisSubscriber::close);
+        drainer.shutdownNow();
+    }
+
+    @Test
+    public void testChannel() throws Exception {
+        try (RespServer server = new RespServer()) {
+            RedisSubscriber subscriber = subscriber(server);
+            BlockingQueue<String> received = new LinkedBlockingQueue<>();
+            subscriber.subscribe("a", "news", false, to(received), 16, RedisSubscriber.Overflow.DROP);
+            await("subscription", () -> requests(server, "SUBSCRIBE", "news") > 0);
+            assertEquals(1, server.publish("news", "1"));
+            assertEquals(0, server.publish("other", "x"));
+            assertEquals(1, server.publish("news", "2"));
+            assertEquals("1", take(received));
+            assertEquals("2", take(received));
+            await("delivered count", () -> metric(subscriber, "a", "delivered") == 2);
+            Value metrics = subscriber.metrics("a");
+            assertTrue(metrics.$get($("subscribed")).isTrue());
+            assertEquals("news", metrics.$get($("channel")).$S());
+            assertFalse(metrics.$get($("pattern")).isTrue());
+            assertEquals(16, metrics.$get($("capacity")).toInteger());
+            assertEquals(0, metrics.$get($("queued")).toInteger());
+            assertEquals(0, metrics.$get($("dropped")).toInteger());
+            assertEquals(0, metrics.$get($("failed")).toInteger());
+        }
+    }
+
+    @Test
+    public void testPattern() throws Exception {
+        try (RespServer server = new RespServer()) {
+            RedisSubscriber subscriber = subscriber(server);
+            BlockingQueue<String> received = new LinkedBlockingQueue<>();
+            subscriber.subscribe("a", "news.*", true, to(received), 16, RedisSubscriber.Overflow.DROP);
+            await("subscription", () -> requests(server, "PSUBSCRIBE", "news.*") > 0);
+            assertTrue(server.commands("SUBSCRIBE").stream().noneMatch(args -> args.contains("news.*")));
+            assertEquals(1, server.publish("news.uk", "1"));
+            assertEquals(0, server.publish("sport.uk", "x"));
+            assertEquals(1, server.publish("news.fr", "2"));
+            assertEquals("1", take(received));
+            assertEquals("2", take(received));
+            assertTrue(subscriber.metrics("a").$get($("pattern")).isTrue());
+        }
+    }
+
+    @Test
+    public void testUnsubscribe() throws Exception {
+        try (RespServer server = new RespServer()) {
+            RedisSubscriber subscriber = subscriber(server);
+            BlockingQueue<String> first = new LinkedBlockingQueue<>();
+            BlockingQueue<String> second = new LinkedBlockingQueue<>();
+            subscriber.subscribe("a", "news", false, to(first), 16, RedisSubscriber.Overflow.DROP);
+            subscriber.subscribe("b", "news", false, to(second), 16, RedisSubscriber.Overflow.DROP);
+            await("subscription", () -> requests(server, "SUBSCRIBE", "news") > 0);
+
+            //the connection stays subscribed while anyone still wants the channel
+            subscriber.unsubscribe("a");
+            assertFalse(subscriber.metrics("a").$get($("subscribed")).isTrue());
+            assertEquals(1, server.publish("news", "1"));
+            assertEquals("1", take(second));
+            assertNull(first.poll());
+
+            subscriber.unsubscribe("b");
+            await("unsubscription", () -> requests(server, "UNSUBSCRIBE", "news") == 1);
+            assertEquals(0, server.publish("news", "2"));
+            subscriber.unsubscribe("b");
+            assertEquals(1, server.commands("UNSUBSCRIBE").size());
+        }
+    }
+
+    @Test
+    public void testDropWhenFull() throws Exception {
+        try (RespServer server = new RespServer()) {
+            RedisSubscriber subscriber = subscriber(server);
+            BlockingQueue<String> received = new LinkedBlockingQueue<>();
+            CountDownLatch entered = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            subscriber.subscribe("a", "news", false, in -> {
+                entered.countDown();
+                release.await();
+                received.add(in[0].$S());
+                return $(true);
+            }, 2, RedisSubscriber.Overflow.DROP);
+            await("subscription", () -> requests(server, "SUBSCRIBE", "news") > 0);
+
+            server.publish("news", "1");
+            assertTrue(entered.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+            for (int i = 2; i <= 5; i++) {
+                server.publish("news", String.valueOf(i));
+            }
+            await("dropped count", () -> metric(subscriber, "a", "dropped") == 2);
+            assertEquals(2, metric(subscriber, "a", "queued"));
+
+            release.countDown();
+            await("delivered count", () -> metric(subscriber, "a", "delivered") == 3);
+            assertEquals("1", take(received));
+            assertEquals("2", take(received));
+            assertEquals("3", take(received));
+            assertNull(received.poll());
+            assertEquals(0, metric(subscriber, "a", "queued"));
+        }
+    }
+
+    @Test
+    public void testBlockWhenFull() throws Exception {
+        try (RespServer server = new RespServer()) {
+            RedisSubscriber subscriber = subscriber(server);
+            BlockingQueue<String> slow = new LinkedBlockingQueue<>();
+            BlockingQueue<String> other = new LinkedBlockingQueue<>();
+            CountDownLatch entered = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            subscriber.subscribe("a", "news", false, in -> {
+                entered.countDown();
+                release.await();
+                slow.add(in[0].$S());
+                return $(true);
+            }, 1, RedisSubscriber.Overflow.BLOCK);
+            subscriber.subscribe("b", "sport", false, to(other), 16, RedisSubscriber.Overflow.DROP);
+            await("subscription", () -> (requests(server, "SUBSCRIBE", "news") > 0)
+                                                 && (requests(server, "SUBSCRIBE", "sport") > 0));
+
+            server.publish("news", "1");
+            assertTrue(entered.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+            server.publish("news", "2");
+            server.publish("news", "3");
+            server.publish("sport", "x");
+            //the reader is waiting to queue 3, so nothing behind it on the connection is read
+            await("queue to fill", () -> metric(subscriber, "a", "queued") == 1);
+            assertNull(other.poll(200, TimeUnit.MILLISECONDS));
+
+            release.countDown();
+            assertEquals("x", take(other));
+            assertEquals("1", take(slow));
+            assertEquals("2", take(slow));
+            assertEquals("3", take(slow));
+            assertEquals(0, metric(subscriber, "a", "dropped"));
+        }
+    }
+
+    @Test
+    public void testResubscribeAfterReconnect() throws Exception {
+        try (RespServer server = new RespServer()) {
+            RedisSubscriber subscriber = subscriber(server);
+            BlockingQueue<String> channel = new LinkedBlockingQueue<>();
+            BlockingQueue<String> pattern = new LinkedBlockingQueue<>();
+            subscriber.subscribe("a", "news", false, to(channel), 16, RedisSubscriber.Overflow.DROP);
+            subscriber.subscribe("b", "sport.*", true, to(pattern), 16, RedisSubscriber.Overflow.DROP);
+            await("subscription", () -> (requests(server, "SUBSCRIBE", "news") > 0)
+                                                 && (requests(server, "PSUBSCRIBE", "sport.*") > 0));
+
+            int channels = requests(server, "SUBSCRIBE", "news");
+            int patterns = requests(server, "PSUBSCRIBE", "sport.*");
+            server.disconnect();
+            await("resubscription", () -> (requests(server, "SUBSCRIBE", "news") > channels)
+                                                   && (requests(server, "PSUBSCRIBE", "sport.*") > patterns));
+            assertEquals(1, server.publish("news", "1"));
+            assertEquals(1, server.publish("sport.uk", "2"));
+            assertEquals("1", take(channel));
+            assertEquals("2", take(pattern));
+        }
+    }
+
+    @Test
+    public void testSharedPerServerAndPassword() throws Exception {
+        try (RespServer server = new RespServer()) {
+            RedisSubscriber open = RedisSubscriber.forServer("127.0.0.1", server.port(), null);
+            RedisSubscriber secret = RedisSubscriber.forServer("127.0.0.1", server.port(), "secret");
+            RedisSubscriber other = RedisSubscriber.forServer("127.0.0.1", server.port(), "other");
+            subscribers.add(open);
+            subscribers.add(secret);
+            subscribers.add(other);
+            assertSame(open, RedisSubscriber.forServer("127.0.0.1", server.port(), null));
+            assertSame(secret, RedisSubscriber.forServer("127.0.0.1", server.port(), "secret"));
+            assertNotSame(open, secret);
+            assertNotSame(secret, other);
+            await("authentication", () -> server.commands("AUTH").size() == 2);
+
+            open.close();
+            RedisSubscriber reopened = RedisSubscriber.forServer("127.0.0.1", server.port(), null);
+            subscribers.add(reopened);
+            assertNotSame(open, reopened);
+        }
+    }
+
+    @NotNull
+    private RedisSubscriber subscriber(@NotNull RespServer server) {
+        RedisSubscriber subscriber = new RedisSubscriber("127.0.0.1", server.port(), null, drainer);
+        subscribers.add(subscriber);
+        return subscriber;
+    }
+}
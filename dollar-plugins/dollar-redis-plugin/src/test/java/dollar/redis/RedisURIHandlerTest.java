@@ -0,0 +1,153 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.redis;
+
+import dollar.api.DollarException;
+import dollar.api.Value;
+import dollar.api.types.DollarFuture;
+import dollar.api.uri.URI;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.JedisPoolConfig;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import static dollar.api.DollarStatic.$;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+public class RedisURIHandlerTest {
+
+    @NotNull
+    private static RedisURIHandler handler(@NotNull RespServer server, @NotNull String key, @NotNull String query) {
+        return new RedisURIHandler(URI.parse(server.uri(key, query)), new JedisPoolConfig());
+    }
+
+    @Test
+    public void testUnbatchedByDefault() throws Exception {
+        try (RespServer server = new RespServer()) {
+            RedisURIHandler list = handler(server, "list", "");
+            list.write($("a"), false, false);
+            assertEquals(1, server.commands("LPUSH").size());
+
+            RedisURIHandler hash = handler(server, "hash", "");
+            assertEquals(1, hash.set($("a"), $("1")).toInteger());
+            assertEquals(0, hash.set($("a"), $("2")).toInteger());
+            assertEquals("2", hash.get($("a")).$S());
+        }
+    }
+
+    @Test
+    public void testBatchedWrites() throws Exception {
+        try (RespServer server = new RespServer()) {
+            RedisURIHandler list = handler(server, "list", "batch=10&window=0");
+            list.write($("a"), false, false);
+            list.write($("b"), false, false);
+            list.write($("c"), false, false);
+            assertTrue(server.commands("LPUSH").isEmpty());
+            list.flush();
+            assertEquals(Arrays.asList(Arrays.asList("list", "a", "b", "c")), server.commands("LPUSH"));
+
+            for (int i = 0; i < 10; i++) {
+                list.write($(String.valueOf(i)), false, false);
+            }
+            assertEquals(2, server.commands("LPUSH").size());
+
+            RedisURIHandler hash = handler(server, "hash", "batch=10&window=0");
+            Value first = hash.set($("a"), $("1"));
+            Value second = hash.set($("a"), $("2"));
+            CompletableFuture<Value> reply = DollarFuture.future(first);
+            assertNotNull(reply);
+            assertFalse(reply.isDone());
+            hash.flush();
+            assertEquals(2, server.commands("HSET").size());
+            assertEquals(1, first.toInteger());
+            assertEquals(0, second.toInteger());
+        }
+    }
+
+    @Test
+    public void testTransactionalBatch() throws Exception {
+        try (RespServer server = new RespServer()) {
+            RedisURIHandler hash = handler(server, "hash", "batch=10&window=0&multi=true");
+            Value reply = hash.set($("a"), $("1"));
+            hash.flush();
+            assertEquals(1, server.commands("MULTI").size());
+            assertEquals(1, server.commands("EXEC").size());
+            assertEquals(1, reply.toInteger());
+        }
+    }
+
+    @Test
+    public void testPipelinedBulkReads() throws Exception {
+        try (RespServer server = new RespServer()) {
+            RedisURIHandler list = handler(server, "list", "batch=10&window=0");
+            list.write($("a"), false, false);
+            list.write($("b"), false, false);
+            Value all = list.all();
+            assertEquals(1, server.commands("LPUSH").size());
+            assertEquals(1, server.commands("LRANGE").size());
+            assertEquals(1, server.commands("HGETALL").size());
+            assertEquals(Arrays.asList("b", "a"), all.toJavaObject());
+
+            RedisURIHandler hash = handler(server, "hash", "");
+            hash.set($("a"), $("1"));
+            assertEquals("1", hash.all().$get($("a")).$S());
+
+            Value drained = list.drain();
+            assertEquals(Arrays.asList("b", "a"), drained.toJavaObject());
+            assertEquals(1, server.commands("DEL").size());
+            assertTrue(list.all().toList().isEmpty());
+        }
+    }
+
+    @Test
+    public void testFailedFlush() throws Exception {
+        RespServer server = new RespServer();
+        RedisURIHandler hash = handler(server, "hash", "batch=10&window=0");
+        Value reply = hash.set($("a"), $("1"));
+        server.close();
+        assertThrows(RuntimeException.class, hash::flush);
+        CompletableFuture<Value> future = DollarFuture.future(reply);
+        assertNotNull(future);
+        assertTrue(future.isCompletedExceptionally());
+    }
+
+    @Test
+    public void testBackgroundFailureReportedOnNextWrite() throws Exception {
+        RespServer server = new RespServer();
+        RedisURIHandler list = handler(server, "list", "batch=10&window=5");
+        server.close();
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            while (true) {
+                try {
+                    list.write($("a"), false, false);
+                    Thread.sleep(20);
+                } catch (DollarException e) {
+                    return;
+                }
+            }
+        });
+    }
+}
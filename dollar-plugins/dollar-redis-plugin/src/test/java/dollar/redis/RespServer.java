@@ -0,0 +1,370 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.redis;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+/**
+ * An in-process stand-in for Redis which speaks enough of the protocol for {@link RedisURIHandler} and {@link
+ * RedisSubscriber}: lists, hashes, DEL, MULTI/EXEC and pub/sub. Every command it receives is recorded.
+ */
+final class RespServer implements AutoCloseable {
+
+    private static final String WRONG_TYPE = "-WRONGTYPE Operation against a key holding the wrong kind of value\r\n";
+    @NotNull
+    private final List<List<String>> commands = new CopyOnWriteArrayList<>();
+    @NotNull
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    @NotNull
+    private final Map<String, LinkedHashMap<String, String>> hashes = new HashMap<>();
+    @NotNull
+    private final Map<String, LinkedList<String>> lists = new HashMap<>();
+    @NotNull
+    private final ServerSocket server;
+
+    RespServer() throws IOException {
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::accept, "resp-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        disconnect();
+    }
+
+    /**
+     * @return the commands received with the given name, each as its arguments
+     */
+    @NotNull
+    List<List<String>> commands(@NotNull String name) {
+        List<List<String>> result = new ArrayList<>();
+        for (List<String> command : commands) {
+            if (command.get(0).equalsIgnoreCase(name)) {
+                result.add(command.subList(1, command.size()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Drop every client connection, as a restarted server would, but keep accepting new ones.
+     */
+    void disconnect() throws IOException {
+        for (Connection connection : connections) {
+            connection.socket.close();
+        }
+    }
+
+    int port() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * @return the number of subscriptions, by channel or by pattern, the message was sent to
+     */
+    synchronized long publish(@NotNull String channel, @NotNull String message) {
+        long receivers = 0;
+        for (Connection connection : connections) {
+            if (connection.channels.contains(channel)) {
+                connection.send(array(Arrays.asList("message", channel, message)));
+                receivers++;
+            }
+            for (String pattern : connection.patterns) {
+                if (glob(pattern).matcher(channel).matches()) {
+                    connection.send(array(Arrays.asList("pmessage", pattern, channel, message)));
+                    receivers++;
+                }
+            }
+        }
+        return receivers;
+    }
+
+    @NotNull
+    String uri(@NotNull String key, @NotNull String query) {
+        return "redis://127.0.0.1:" + server.getLocalPort() + "/" + key + (query.isEmpty() ? "" : ("?" + query));
+    }
+
+    @NotNull
+    private static String array(@NotNull List<String> values) {
+        StringBuilder reply = new StringBuilder("*").append(values.size()).append("\r\n");
+        for (String value : values) {
+            reply.append(bulk(value));
+        }
+        return reply.toString();
+    }
+
+    @NotNull
+    private static String bulk(String value) {
+        if (value == null) {
+            return "$-1\r\n";
+        }
+        return "$" + value.getBytes(StandardCharsets.UTF_8).length + "\r\n" + value + "\r\n";
+    }
+
+    @NotNull
+    private static Pattern glob(@NotNull String pattern) {
+        StringBuilder regex = new StringBuilder();
+        for (char c : pattern.toCharArray()) {
+            if (c == '*') {
+                regex.append(".*");
+            } else if (c == '?') {
+                regex.append('.');
+            } else if ((c == '[') || (c == ']')) {
+                regex.append(c);
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    @NotNull
+    private static String integer(long value) {
+        return ":" + value + "\r\n";
+    }
+
+    @NotNull
+    private static String line(@NotNull InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\r') {
+            if (c < 0) {
+                throw new IOException("Connection closed");
+            }
+            line.append((char) c);
+        }
+        in.read();
+        return line.toString();
+    }
+
+    @NotNull
+    private static List<String> read(@NotNull InputStream in) throws IOException {
+        String header = line(in);
+        int count = Integer.parseInt(header.substring(1));
+        List<String> command = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] bytes = new byte[Integer.parseInt(line(in).substring(1))];
+            int read = 0;
+            while (read < bytes.length) {
+                int n = in.read(bytes, read, bytes.length - read);
+                if (n < 0) {
+                    throw new IOException("Connection closed");
+                }
+                read += n;
+            }
+            line(in);
+            command.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        return command;
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Connection connection = new Connection(server.accept());
+                connections.add(connection);
+                Thread thread = new Thread(() -> serve(connection), "resp-connection");
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    @NotNull
+    private synchronized String execute(@NotNull List<String> command) {
+        commands.add(command);
+        String name = command.get(0).toUpperCase();
+        List<String> args = command.subList(1, command.size());
+        switch (name) {
+            case "PING":
+                return "+PONG\r\n";
+            case "AUTH":
+                return "+OK\r\n";
+            case "PUBLISH":
+                return integer(publish(args.get(0), args.get(1)));
+            case "LPUSH": {
+                if (hashes.containsKey(args.get(0))) {
+                    return WRONG_TYPE;
+                }
+                LinkedList<String> list = lists.computeIfAbsent(args.get(0), k -> new LinkedList<>());
+                for (String value : args.subList(1, args.size())) {
+                    list.addFirst(value);
+                }
+                return integer(list.size());
+            }
+            case "LRANGE":
+                if (hashes.containsKey(args.get(0))) {
+                    return WRONG_TYPE;
+                }
+                return array(lists.getOrDefault(args.get(0), new LinkedList<>()));
+            case "HSET": {
+                if (lists.containsKey(args.get(0))) {
+                    return WRONG_TYPE;
+                }
+                Map<String, String> hash = hashes.computeIfAbsent(args.get(0), k -> new LinkedHashMap<>());
+                return integer((hash.put(args.get(1), args.get(2)) == null) ? 1 : 0);
+            }
+            case "HGET":
+                return bulk(hashes.getOrDefault(args.get(0), new LinkedHashMap<>()).get(args.get(1)));
+            case "HGETALL": {
+                if (lists.containsKey(args.get(0))) {
+                    return WRONG_TYPE;
+                }
+                List<String> values = new ArrayList<>();
+                for (Map.Entry<String, String> entry : hashes.getOrDefault(args.get(0),
+                                                                           new LinkedHashMap<>()).entrySet()) {
+                    values.addAll(Arrays.asList(entry.getKey(), entry.getValue()));
+                }
+                return array(values);
+            }
+            case "DEL": {
+                long deleted = 0;
+                for (String key : args) {
+                    if ((lists.remove(key) != null) || (hashes.remove(key) != null)) {
+                        deleted++;
+                    }
+                }
+                return integer(deleted);
+            }
+            default:
+                return "-ERR unknown command '" + name + "'\r\n";
+        }
+    }
+
+    private void serve(@NotNull Connection connection) {
+        try (Socket socket = connection.socket) {
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            List<List<String>> queued = null;
+            while (true) {
+                List<String> command = read(in);
+                String name = command.get(0).toUpperCase();
+                String reply;
+                if ("QUIT".equals(name)) {
+                    connection.send("+OK\r\n");
+                    return;
+                } else if (name.endsWith("SUBSCRIBE")) {
+                    reply = subscription(connection, command);
+                } else if ("MULTI".equals(name)) {
+                    queued = new ArrayList<>();
+                    reply = "+OK\r\n";
+                } else if ("EXEC".equals(name) && (queued != null)) {
+                    StringBuilder replies = new StringBuilder("*").append(queued.size()).append("\r\n");
+                    synchronized (this) {
+                        for (List<String> q : queued) {
+                            replies.append(execute(q));
+                        }
+                    }
+                    queued = null;
+                    reply = replies.toString();
+                } else if (queued != null) {
+                    queued.add(command);
+                    reply = "+QUEUED\r\n";
+                } else {
+                    reply = execute(command);
+                }
+                connection.send(reply);
+            }
+        } catch (IOException ignored) {
+            //the client or the server closed the connection
+        } finally {
+            connections.remove(connection);
+        }
+    }
+
+    /**
+     * SUBSCRIBE, PSUBSCRIBE, UNSUBSCRIBE and PUNSUBSCRIBE, each confirmed once per channel or pattern with the number
+     * of subscriptions the connection still has. Unsubscribing without arguments removes all of them.
+     */
+    @NotNull
+    private synchronized String subscription(@NotNull Connection connection, @NotNull List<String> command) {
+        commands.add(command);
+        String name = command.get(0).toLowerCase();
+        Set<String> targets = name.startsWith("p") ? connection.patterns : connection.channels;
+        List<String> args = new ArrayList<>(command.subList(1, command.size()));
+        boolean subscribe = !name.contains("unsubscribe");
+        if (!subscribe && args.isEmpty()) {
+            args.addAll(targets);
+        }
+        StringBuilder replies = new StringBuilder();
+        for (String arg : args) {
+            if (subscribe) {
+                targets.add(arg);
+            } else {
+                targets.remove(arg);
+            }
+            replies.append("*3\r\n").append(bulk(name)).append(bulk(arg))
+                   .append(integer(connection.channels.size() + connection.patterns.size()));
+        }
+        if (args.isEmpty()) {
+            replies.append("*3\r\n").append(bulk(name)).append(bulk(null))
+                   .append(integer(connection.channels.size() + connection.patterns.size()));
+        }
+        return replies.toString();
+    }
+
+    private static final class Connection {
+        @NotNull
+        final Set<String> channels = ConcurrentHashMap.newKeySet();
+        @NotNull
+        final Set<String> patterns = ConcurrentHashMap.newKeySet();
+        @NotNull
+        final Socket socket;
+
+        Connection(@NotNull Socket socket) {
+            this.socket = socket;
+        }
+
+        /**
+         * Replies and published messages are written from different threads.
+         */
+        synchronized void send(@NotNull String reply) {
+            try {
+                OutputStream out = socket.getOutputStream();
+                out.write(reply.getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            } catch (IOException ignored) {
+                //the client has gone, serve() notices when it next reads
+            }
+        }
+    }
+}
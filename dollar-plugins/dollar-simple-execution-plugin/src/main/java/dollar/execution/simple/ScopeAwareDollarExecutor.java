@@ -32,13 +32,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
@@ -46,23 +48,25 @@ import static dollar.api.DollarStatic.getConfig;
 import static dollar.internal.runtime.script.DollarUtilFactory.util;
 import static dollar.internal.runtime.script.parser.Symbols.FORK;
 import static java.lang.Runtime.getRuntime;
-import static java.util.concurrent.Executors.newFixedThreadPool;
 
+/**
+ * Runs jobs on bounded platform thread pools, each job in the scope it was submitted from.
+ * <p>
+ * The pools, and the shutdown hook which stops them, are only created when the executor is first used. The service
+ * loader constructs every executor on the class path each time one is looked up and keeps only the highest priority
+ * one, so the others must cost nothing.
+ */
 public class ScopeAwareDollarExecutor implements DollarExecutor {
     @NotNull
     private static final Logger log = LoggerFactory.getLogger(ScopeAwareDollarExecutor.class);
     @Nullable
-    private ExecutorService backgroundExecutor;
+    private volatile ThreadPoolExecutor backgroundExecutor;
     @Nullable
-    private ForkJoinPool forkJoinPool;
+    private volatile ForkJoinPool forkJoinPool;
+    private boolean hooked;
     @Nullable
-    private ScheduledExecutorService scheduledExecutor;
-
-
-    public ScopeAwareDollarExecutor() {
-        getRuntime().addShutdownHook(new Thread(this::forceStop));
-        start();
-    }
+    private volatile ScheduledThreadPoolExecutor scheduledExecutor;
+    private volatile boolean started;
 
     @NotNull
     @Override
@@ -73,11 +77,13 @@ public class ScopeAwareDollarExecutor implements DollarExecutor {
     @NotNull
     @Override
     public <T> Future<T> executeInBackground(@NotNull Callable<T> callable) {
-        assert backgroundExecutor != null;
+        ensureStarted();
+        ThreadPoolExecutor executor = backgroundExecutor;
+        assert executor != null;
         if (getConfig().debugExecution()) {
             log.info("Background Execution");
         }
-        return backgroundExecutor.submit(wrap(callable));
+        return executor.submit(wrap(callable));
     }
 
     @NotNull
@@ -96,7 +102,8 @@ public class ScopeAwareDollarExecutor implements DollarExecutor {
     }
 
     @Override
-    public void forceStop() {
+    public synchronized void forceStop() {
+        started = false;
         if (backgroundExecutor != null) {
             backgroundExecutor.shutdownNow();
             backgroundExecutor = null;
@@ -127,20 +134,33 @@ public class ScopeAwareDollarExecutor implements DollarExecutor {
     @NotNull
     @Override
     public Value forkAndReturnId(@NotNull Source source, @NotNull Value in, @NotNull Function<Value, Value> call) {
-        Future<Value> varFuture = submit(() -> call.apply(in));
+        Value future = DollarFactory.fromFuture(submitAsync(() -> call.apply(in)));
         VarKey id = VarKey.random();
-        log.debug("Future obtained, returning future node");
-        util().scope().set(id,
-                           util().node(FORK, false, DollarStatic.context().parser(), source,
-                                       Arrays.asList(in),
-                                       j -> {
-                                           log.debug("Waiting for future ...");
-                                           return varFuture.get();
-                                       }
-                           ), null, null, new VarFlags(true, true, false, false, false, true));
+        log.debug("Future obtained, returning future id");
+        util().scope().set(id, future, null, null, new VarFlags(true, true, false, false, false, true));
         return DollarFactory.fromStringValue(id.asString());
     }
 
+    /**
+     * @return for each pool its threads, how many are busy and how many jobs are waiting, and the jobs completed by
+     *         the background and scheduled pools
+     */
+    @NotNull
+    @Override
+    public Map<String, Long> metrics() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        ForkJoinPool forks = forkJoinPool;
+        if (forks != null) {
+            metrics.put("fork.threads", (long) forks.getPoolSize());
+            metrics.put("fork.active", (long) forks.getActiveThreadCount());
+            metrics.put("fork.queued", forks.getQueuedSubmissionCount() + forks.getQueuedTaskCount());
+            metrics.put("fork.steals", forks.getStealCount());
+        }
+        pool(metrics, "background", backgroundExecutor);
+        pool(metrics, "scheduled", scheduledExecutor);
+        return metrics;
+    }
+
     @Override
     public void restart() {
         stop();
@@ -150,29 +170,41 @@ public class ScopeAwareDollarExecutor implements DollarExecutor {
     @NotNull
     @Override
     public Future<?> scheduleEvery(long millis, @NotNull Runnable runnable) {
-        assert scheduledExecutor != null;
-        return scheduledExecutor.scheduleAtFixedRate(wrap(runnable), millis, millis, TimeUnit.MILLISECONDS);
+        ensureStarted();
+        ScheduledThreadPoolExecutor executor = scheduledExecutor;
+        assert executor != null;
+        return executor.scheduleAtFixedRate(wrap(runnable), millis, millis, TimeUnit.MILLISECONDS);
     }
 
     @NotNull
     @Override
     public <T> Future<T> submit(@NotNull Callable<T> callable) {
-        assert forkJoinPool != null;
+        ensureStarted();
+        ForkJoinPool pool = forkJoinPool;
+        assert pool != null;
         if (getConfig().debugExecution()) {
             log.info("Forking");
         }
-        return forkJoinPool.submit(wrap(callable));
+        return pool.submit(wrap(callable));
     }
 
     @Override
-    public void start() {
-        forkJoinPool = new ForkJoinPool(getRuntime().availableProcessors() * 8);
-        backgroundExecutor = newFixedThreadPool(getRuntime().availableProcessors());
-        scheduledExecutor = Executors.newScheduledThreadPool(getRuntime().availableProcessors());
+    public synchronized void start() {
+        if (!hooked) {
+            getRuntime().addShutdownHook(new Thread(this::forceStop));
+            hooked = true;
+        }
+        int processors = getRuntime().availableProcessors();
+        forkJoinPool = new ForkJoinPool(processors * 8);
+        backgroundExecutor = new ThreadPoolExecutor(processors, processors, 0L, TimeUnit.MILLISECONDS,
+                                                    new LinkedBlockingQueue<>());
+        scheduledExecutor = new ScheduledThreadPoolExecutor(processors);
+        started = true;
     }
 
     @Override
-    public void stop() {
+    public synchronized void stop() {
+        started = false;
         if (backgroundExecutor != null) {
             backgroundExecutor.shutdown();
             backgroundExecutor = null;
@@ -187,7 +219,9 @@ public class ScopeAwareDollarExecutor implements DollarExecutor {
         }
     }
 
-    private Runnable wrap(@NotNull Runnable runnable) {
+    @NotNull
+    @Override
+    public Runnable wrap(@NotNull Runnable runnable) {
         Scope scope = util().scope();
         DollarParser parser = DollarStatic.context().parser();
         return () -> util().inScope(true, scope, newScope -> {
@@ -197,7 +231,31 @@ public class ScopeAwareDollarExecutor implements DollarExecutor {
         });
     }
 
-    private <T> Callable<T> wrap(@NotNull Callable<T> callable) {
+    /**
+     * Starts the pools the first time the executor is used.
+     */
+    protected void ensureStarted() {
+        if (!started) {
+            synchronized (this) {
+                if (!started) {
+                    start();
+                }
+            }
+        }
+    }
+
+    private static void pool(@NotNull Map<String, Long> metrics, @NotNull String name,
+                             @Nullable ThreadPoolExecutor pool) {
+        if (pool != null) {
+            metrics.put(name + ".threads", (long) pool.getPoolSize());
+            metrics.put(name + ".active", (long) pool.getActiveCount());
+            metrics.put(name + ".queued", (long) pool.getQueue().size());
+            metrics.put(name + ".completed", pool.getCompletedTaskCount());
+        }
+    }
+
+    @NotNull
+    protected <T> Callable<T> wrap(@NotNull Callable<T> callable) {
         Scope scope = util().scope();
         DollarParser parser = DollarStatic.context().parser();
         return () -> util().inScope(true, scope, newScope -> {
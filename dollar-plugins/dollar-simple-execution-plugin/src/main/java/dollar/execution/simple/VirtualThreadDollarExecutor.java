@@ -0,0 +1,169 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.execution.simple;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+import static dollar.api.DollarStatic.getConfig;
+
+/**
+ * Runs forks, submitted and background jobs on virtual threads, so that jobs which block (on HTTP, Redis and the like)
+ * do not hold on to, or exhaust, the platform thread pools. Scheduled jobs and the pools inherited from {@link
+ * ScopeAwareDollarExecutor} stay on bounded platform threads.
+ * <p>
+ * Virtual threads need Java 21 or later, on older runtimes this executor has a lower priority than {@link
+ * ScopeAwareDollarExecutor} so it will not be chosen.
+ */
+public class VirtualThreadDollarExecutor extends ScopeAwareDollarExecutor {
+    @NotNull
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadDollarExecutor.class);
+    @Nullable
+    private static final Method newVirtualThreadPerTaskExecutor = virtualThreadFactoryMethod();
+    @NotNull
+    private final LongAdder active = new LongAdder();
+    @NotNull
+    private final LongAdder completed = new LongAdder();
+    @NotNull
+    private final LongAdder failed = new LongAdder();
+    @NotNull
+    private final LongAdder submitted = new LongAdder();
+    @Nullable
+    private volatile ExecutorService virtualExecutor;
+
+    @Nullable
+    private static Method virtualThreadFactoryMethod() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    @NotNull
+    @Override
+    public <T> Future<T> executeInBackground(@NotNull Callable<T> callable) {
+        if (getConfig().debugExecution()) {
+            log.info("Background Execution");
+        }
+        return virtual(callable);
+    }
+
+    @Override
+    public synchronized void forceStop() {
+        super.forceStop();
+        ExecutorService executor = virtualExecutor;
+        if (executor != null) {
+            executor.shutdownNow();
+            virtualExecutor = null;
+        }
+    }
+
+    /**
+     * @return the platform pool metrics and the number of jobs run on virtual threads which are running, completed,
+     *         failed and submitted
+     */
+    @NotNull
+    @Override
+    public Map<String, Long> metrics() {
+        Map<String, Long> metrics = super.metrics();
+        metrics.put("virtual.active", active.sum());
+        metrics.put("virtual.completed", completed.sum());
+        metrics.put("virtual.failed", failed.sum());
+        metrics.put("virtual.submitted", submitted.sum());
+        return metrics;
+    }
+
+    @Override
+    public int priority() {
+        return (newVirtualThreadPerTaskExecutor != null) ? 2 : 0;
+    }
+
+    /**
+     * The virtual thread executor is created first, as the pools are only seen as started once the superclass is done.
+     */
+    @Override
+    public synchronized void start() {
+        virtualExecutor = newExecutor();
+        super.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        super.stop();
+        ExecutorService executor = virtualExecutor;
+        if (executor != null) {
+            executor.shutdown();
+            virtualExecutor = null;
+        }
+        log.debug("Virtual thread jobs {}", metrics());
+    }
+
+    @NotNull
+    @Override
+    public <T> Future<T> submit(@NotNull Callable<T> callable) {
+        if (getConfig().debugExecution()) {
+            log.info("Forking");
+        }
+        return virtual(callable);
+    }
+
+    @NotNull
+    private ExecutorService newExecutor() {
+        if (newVirtualThreadPerTaskExecutor != null) {
+            try {
+                return (ExecutorService) newVirtualThreadPerTaskExecutor.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                log.warn("Could not create virtual thread executor, using platform threads", e);
+            }
+        }
+        return Executors.newCachedThreadPool();
+    }
+
+    @NotNull
+    private <T> Future<T> virtual(@NotNull Callable<T> callable) {
+        ensureStarted();
+        ExecutorService executor = virtualExecutor;
+        assert executor != null;
+        Callable<T> wrapped = wrap(callable);
+        submitted.increment();
+        return executor.submit(() -> {
+            active.increment();
+            try {
+                T result = wrapped.call();
+                completed.increment();
+                return result;
+            } catch (Exception e) {
+                failed.increment();
+                throw e;
+            } finally {
+                active.decrement();
+            }
+        });
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.learner.simple;
+
+import dollar.api.Type;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The result type of an operation for some input types, recorded on the evaluating thread and learnt later.
+ */
+final class Observation {
+    @NotNull
+    private final Type[] inputs;
+    @NotNull
+    private final String name;
+    @NotNull
+    private final Type result;
+
+    Observation(@NotNull String name, @NotNull Type[] inputs, @NotNull Type result) {
+        this.name = name;
+        this.inputs = inputs;
+        this.result = result;
+    }
+
+    /**
+     * @return the key used by {@link SimpleTypeLearner} for the operation and its input types
+     */
+    @NotNull
+    String key() {
+        StringBuilder key = new StringBuilder(name).append('(');
+        for (int i = 0; i < inputs.length; i++) {
+            if (i > 0) {
+                key.append(',');
+            }
+            key.append(inputs[i]);
+        }
+        return key.append(')').toString();
+    }
+
+    @NotNull
+    Type result() {
+        return result;
+    }
+}
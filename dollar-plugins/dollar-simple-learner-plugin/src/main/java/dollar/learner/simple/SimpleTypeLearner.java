@@ -21,6 +21,7 @@ import com.thoughtworks.xstream.converters.SingleValueConverter;
 import dollar.api.Type;
 import dollar.api.TypePrediction;
 import dollar.api.Value;
+import dollar.api.collections.MpscRingBuffer;
 import dollar.api.execution.DollarExecutor;
 import dollar.api.plugin.Plugins;
 import dollar.api.script.Source;
@@ -33,28 +34,53 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 import java.util.stream.Collectors;
 
 public class SimpleTypeLearner implements TypeLearner {
 
-
+    private static final int BATCH_SIZE = 256;
+    /**
+     * How often learnt types are flushed to the store.
+     */
+    private static final long FLUSH_NANOS = TimeUnit.MILLISECONDS.toNanos(
+            Long.parseLong(System.getProperty("dollar.learner.flush.millis", "1000")));
+    /**
+     * The number of observations which can wait to be learnt, any more are dropped.
+     */
+    private static final int BUFFER_SIZE = Integer.parseInt(System.getProperty("dollar.learner.buffer.size", "8192"));
+    private static final int MAX_INPUTS = 10;
+    private static final int MAX_INPUTS_SCANNED = 30;
+    /**
+     * Learn from one in this many results, 1 learns from every result.
+     */
+    private static final int SAMPLE_RATE = Math.max(1, Integer.parseInt(
+            System.getProperty("dollar.learner.sample.rate", "1")));
     @Nullable
     private static final DollarExecutor executor = Plugins.sharedInstance(DollarExecutor.class);
     @NotNull
     private static final Logger log = LoggerFactory.getLogger(SimpleTypeLearner.class);
     @NotNull
-    private static final XStream xstream = new XStream();
+    private final MpscRingBuffer<Observation> observations = new MpscRingBuffer<>(BUFFER_SIZE);
+    @Nullable
+    private Thread consumer;
+    @NotNull
+    private final ConcurrentHashMap<String, TypeScoreMap> map = new ConcurrentHashMap<>();
     @NotNull
-    private ConcurrentHashMap<String, TypeScoreMap> map = new ConcurrentHashMap<>();
+    private final TypeScoreStore store = new TypeScoreStore(storeFile());
+    private boolean loaded;
+    private volatile boolean running;
 
 
     public SimpleTypeLearner() {
@@ -75,38 +101,99 @@ public class SimpleTypeLearner implements TypeLearner {
                 Collectors.joining(",")) + ")";
     }
 
+    /**
+     * Records the observation to be learnt by the consumer thread, so that learning does not slow down the script.
+     * Observations are sampled and dropped if the consumer cannot keep up.
+     */
     @Override
     public void learn(@NotNull String name, @NotNull Source source, @NotNull List<Value> inputs, @NotNull Type type) {
-        String key = key(name, source, inputs);
+        if ((SAMPLE_RATE > 1) && (ThreadLocalRandom.current().nextInt(SAMPLE_RATE) != 0)) {
+            return;
+        }
+        Type[] inputTypes = new Type[Math.min(MAX_INPUTS, inputs.size())];
+        int count = 0;
+        for (int i = 0; (i < inputs.size()) && (i < MAX_INPUTS_SCANNED) && (count < inputTypes.length); i++) {
+            Value input = inputs.get(i);
+            if (input != null) {
+                Type inputType = input.$type();
+                inputTypes[count++] = (inputType != null) ? inputType : Type._ANY;
+            }
+        }
+        if (count < inputTypes.length) {
+            inputTypes = Arrays.copyOf(inputTypes, count);
+        }
+        observations.offer(new Observation(name, inputTypes, type));
+    }
+
+    private void learn(@NotNull Observation observation) {
+        String key = observation.key();
         TypeScoreMap typeScoreMap = map.get(key);
         if (typeScoreMap == null) {
             typeScoreMap = map.getOrDefault(key, new TypeScoreMap(key));
         }
 
-        typeScoreMap.increment(type);
+        typeScoreMap.increment(observation.result());
         map.put(key, typeScoreMap);
+        try {
+            store.increment(key, observation.result().toString(), System.currentTimeMillis());
+        } catch (IOException e) {
+            log.error(e.getMessage(), e);
+        }
     }
 
-    @Nullable
-    @Override
-    public TypePrediction predict(@NotNull String name, @NotNull Source source, @NotNull List<Value> inputs) {
-        String key = key(name, source, inputs);
-        TypeScoreMap typeAtomicLongMap = map.get(key);
-        if (typeAtomicLongMap == null) {
-            return null;
-        } else {
-            return new CountBasedTypePrediction(key, typeAtomicLongMap.map());
+    /**
+     * Loads the learnt types on the consumer thread, so startup is not delayed by a large store, then learns
+     * observations in batches. The store is flushed on a timer rather than after every batch, so a steady trickle of
+     * observations does not turn into a steady trickle of small writes.
+     */
+    private void consume() {
+        load();
+        long saved = System.nanoTime();
+        while (running) {
+            if (observations.drain(this::learn, BATCH_SIZE) == 0) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+            if ((System.nanoTime() - saved) >= FLUSH_NANOS) {
+                save();
+                saved = System.nanoTime();
+            }
         }
-
+        while (observations.drain(this::learn, BATCH_SIZE) > 0) {
+            //learn anything left after stopping
+        }
+        save();
     }
 
-    @NotNull
-    private File mapFile() {
-        return new File(FileUtil.getRuntimeDir("simple.type.learner"), "map.xml");
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        try {
+            if (!storeFile().exists() && mapFile().exists()) {
+                log.info("Converting learnt types from {} to {}", mapFile(), storeFile());
+                map.putAll(loadXml());
+                store.compact(map);
+            } else {
+                log.info("Loading learnt types from {}", storeFile());
+                long records = store.load(map);
+                log.info("Loaded {} entries from {} records", map.size(), records);
+            }
+        } catch (IOException e) {
+            log.error(e.getMessage(), e);
+        }
+        Set<Map.Entry<String, TypeScoreMap>> entries = new HashSet<>(map.entrySet());
+        for (Map.Entry<String, TypeScoreMap> entry : entries) {
+            if (entry.getValue().expired()) {
+                log.debug("Expired {}", entry.getKey());
+                map.remove(entry.getKey());
+            }
+        }
     }
 
-    @Override
-    public void start() {
+    @NotNull
+    private Map<String, TypeScoreMap> loadXml() {
+        XStream xstream = new XStream();
         xstream.alias("count", java.util.concurrent.atomic.AtomicLong.class);
         xstream.alias("scoreMap", TypeScoreMap.class);
         xstream.registerConverter(new SingleValueConverter() {
@@ -127,26 +214,70 @@ public class SimpleTypeLearner implements TypeLearner {
                 return new AtomicLong(Long.parseLong(str));
             }
         });
-        if (mapFile().exists()) {
-            log.info("Loading learnt types from {}", mapFile());
-            map = (ConcurrentHashMap<String, TypeScoreMap>) xstream.fromXML(mapFile());
-            log.info("Loaded {} entries", map.size());
-            Set<Map.Entry<String, TypeScoreMap>> entries = new HashSet<>(map.entrySet());
-            for (Map.Entry<String, TypeScoreMap> entry : entries) {
-                if (entry.getValue().expired()) {
-                    log.debug("Expired {}", entry.getKey());
-                    map.remove(entry.getKey());
-                }
+        return (Map<String, TypeScoreMap>) xstream.fromXML(mapFile());
+    }
+
+    private void save() {
+        try {
+            store.flush();
+            if (store.needsCompaction()) {
+                store.compact(map);
             }
+        } catch (IOException e) {
+            log.error(e.getMessage(), e);
+        }
+    }
+
+    @Nullable
+    @Override
+    public TypePrediction predict(@NotNull String name, @NotNull Source source, @NotNull List<Value> inputs) {
+        String key = key(name, source, inputs);
+        TypeScoreMap typeAtomicLongMap = map.get(key);
+        if (typeAtomicLongMap == null) {
+            return null;
+        } else {
+            return new CountBasedTypePrediction(key, typeAtomicLongMap.map());
+        }
+
+    }
+
+    @NotNull
+    private File mapFile() {
+        return new File(FileUtil.getRuntimeDir("simple.type.learner"), "map.xml");
+    }
+
+    @NotNull
+    private File storeFile() {
+        return new File(FileUtil.getRuntimeDir("simple.type.learner"), "scores.bin");
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!running) {
+            running = true;
+            consumer = new Thread(this::consume, "type-learner");
+            consumer.setDaemon(true);
+            consumer.start();
         }
     }
 
     @Override
-    public void stop() {
+    public synchronized void stop() {
+        running = false;
+        if (consumer != null) {
+            try {
+                consumer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            consumer = null;
+        }
+        if (observations.dropped() > 0) {
+            log.debug("Dropped {} observations", observations.dropped());
+        }
         try {
-            log.info("Saving learnt types to {}", mapFile());
-            xstream.toXML(map, new FileWriter(mapFile()));
-            log.info("Saved {} entries", map.size());
+            store.close();
+            log.info("Saved {} entries to {}", map.size(), storeFile());
         } catch (IOException e) {
             log.error(e.getMessage(), e);
         }
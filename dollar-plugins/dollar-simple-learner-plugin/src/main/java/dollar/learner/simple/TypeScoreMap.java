@@ -46,13 +46,27 @@ public class TypeScoreMap {
         map.put(type.toString(), count);
     }
 
+    void add(@NotNull String type, long count, long timestamp) {
+        map.computeIfAbsent(type, t -> new AtomicLong()).addAndGet(count);
+        lastAccess = Math.max(lastAccess, timestamp);
+    }
+
     public boolean expired() {
         return lastAccess < (System.currentTimeMillis() - TTL);
     }
 
+    long lastAccess() {
+        return lastAccess;
+    }
+
 
     @NotNull
     public Map<String, AtomicLong> map() {
         return map;
     }
+
+    void set(@NotNull String type, long count, long timestamp) {
+        map.put(type, new AtomicLong(count));
+        lastAccess = Math.max(lastAccess, timestamp);
+    }
 }
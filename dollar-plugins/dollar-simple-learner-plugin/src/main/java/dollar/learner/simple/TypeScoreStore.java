@@ -0,0 +1,279 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.learner.simple;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An append only binary log of learnt type scores. Each learnt type is appended as an increment and the log is
+ * periodically compacted into one absolute count per key and type. Loading maps the file into memory rather than
+ * parsing it through a stream.
+ * <p>
+ * Not thread safe, a store should only be used by one thread at a time.
+ */
+public final class TypeScoreStore implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int HEADER_SIZE = 8;
+    private static final byte INCREMENT = 1;
+    private static final int MAGIC = 0x44544C53;
+    /**
+     * The log is not compacted until it has at least this many records.
+     */
+    private static final long MIN_COMPACTION_RECORDS = 10000;
+    private static final byte SET = 2;
+    private static final int VERSION = 1;
+    @NotNull
+    private static final Logger log = LoggerFactory.getLogger(TypeScoreStore.class);
+    @NotNull
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    @NotNull
+    private final Path path;
+    @Nullable
+    private FileChannel channel;
+    /**
+     * The number of records the log would have if it was compacted when it was last compacted or loaded.
+     */
+    private long compactedRecords;
+    private long records;
+
+    public TypeScoreStore(@NotNull File file) {
+        path = file.toPath();
+    }
+
+    private static void put(@NotNull ByteBuffer out, byte kind, @NotNull byte[] key, @NotNull byte[] type, long count,
+                            long timestamp) {
+        out.put(kind);
+        out.putInt(key.length);
+        out.put(key);
+        out.putInt(type.length);
+        out.put(type);
+        out.putLong(count);
+        out.putLong(timestamp);
+    }
+
+    /**
+     * @throws BufferUnderflowException if the length is corrupt, so the record is treated as incomplete
+     */
+    @NotNull
+    private static String string(@NotNull ByteBuffer in) {
+        int length = in.getInt();
+        if ((length < 0) || (length > in.remaining())) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @NotNull
+    private static ByteBuffer header() {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.flip();
+        return header;
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Rewrites the log as one record per key and type.
+     *
+     * @param scores the current scores
+     */
+    public void compact(@NotNull Map<String, TypeScoreMap> scores) throws IOException {
+        flush();
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        long written = 0;
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(out, header());
+            for (Map.Entry<String, TypeScoreMap> entry : scores.entrySet()) {
+                byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                long timestamp = entry.getValue().lastAccess();
+                for (Map.Entry<String, AtomicLong> count : entry.getValue().map().entrySet()) {
+                    byte[] type = count.getKey().getBytes(StandardCharsets.UTF_8);
+                    if (buffer.remaining() < recordSize(key, type)) {
+                        flush(out);
+                    }
+                    put(buffer, SET, key, type, count.getValue().get(), timestamp);
+                    written++;
+                }
+            }
+            flush(out);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        records = written;
+        compactedRecords = written;
+        log.debug("Compacted {} to {} records", path, written);
+    }
+
+    /**
+     * Writes any buffered records to the file.
+     */
+    public void flush() throws IOException {
+        if (buffer.position() > 0) {
+            flush(appender());
+        }
+    }
+
+    /**
+     * Appends an increment of the count of a type for a key.
+     *
+     * @param key       the key
+     * @param type      the type
+     * @param timestamp when the type was learnt
+     */
+    public void increment(@NotNull String key, @NotNull String type, long timestamp) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] typeBytes = type.getBytes(StandardCharsets.UTF_8);
+        if (buffer.remaining() < recordSize(keyBytes, typeBytes)) {
+            flush();
+        }
+        put(buffer, INCREMENT, keyBytes, typeBytes, 1, timestamp);
+        records++;
+    }
+
+    /**
+     * Reads the whole log into the supplied map. A record left incomplete by a crash, or otherwise corrupt, is
+     * discarded along with everything after it.
+     *
+     * @param scores the map to add the scores to
+     * @return the number of records read
+     */
+    public long load(@NotNull Map<String, TypeScoreMap> scores) throws IOException {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        long valid = HEADER_SIZE;
+        long read = 0;
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = in.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Type score store " + path + " is too large (" + size + " bytes)");
+            }
+            if (size < HEADER_SIZE) {
+                valid = 0;
+            } else {
+                MappedByteBuffer mapped = in.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                if ((mapped.getInt() != MAGIC) || (mapped.getInt() != VERSION)) {
+                    throw new IOException("Type score store " + path + " has an unrecognised format");
+                }
+                try {
+                    while (mapped.hasRemaining()) {
+                        byte kind = mapped.get();
+                        if ((kind != INCREMENT) && (kind != SET)) {
+                            throw new BufferUnderflowException();
+                        }
+                        String key = string(mapped);
+                        String type = string(mapped);
+                        long count = mapped.getLong();
+                        long timestamp = mapped.getLong();
+                        TypeScoreMap scoreMap = scores.computeIfAbsent(key, TypeScoreMap::new);
+                        if (kind == SET) {
+                            scoreMap.set(type, count, timestamp);
+                        } else {
+                            scoreMap.add(type, count, timestamp);
+                        }
+                        read++;
+                        valid = mapped.position();
+                    }
+                } catch (BufferUnderflowException e) {
+                    log.warn("Discarding incomplete or corrupt record at {} in {}", valid, path);
+                }
+            }
+        }
+        if (valid < Files.size(path)) {
+            try (FileChannel out = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                out.truncate(valid);
+            }
+        }
+        records = read;
+        compactedRecords = scores.values().stream().mapToLong(scoreMap -> scoreMap.map().size()).sum();
+        return read;
+    }
+
+    /**
+     * @return true if the log has grown enough since it was last compacted that it should be compacted again
+     */
+    public boolean needsCompaction() {
+        return records > Math.max(MIN_COMPACTION_RECORDS, compactedRecords * 2);
+    }
+
+    @NotNull
+    private FileChannel appender() throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                       StandardOpenOption.APPEND);
+            if (channel.size() == 0) {
+                write(channel, header());
+            }
+        }
+        return channel;
+    }
+
+    private void flush(@NotNull FileChannel out) throws IOException {
+        buffer.flip();
+        write(out, buffer);
+        buffer.clear();
+    }
+
+    private int recordSize(@NotNull byte[] key, @NotNull byte[] type) {
+        int size = 1 + 4 + key.length + 4 + type.length + 8 + 8;
+        if (size > buffer.capacity()) {
+            throw new IllegalArgumentException("Key too large to store: " + key.length + " bytes");
+        }
+        return size;
+    }
+
+    private void write(@NotNull FileChannel out, @NotNull ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            out.write(bytes);
+        }
+    }
+}
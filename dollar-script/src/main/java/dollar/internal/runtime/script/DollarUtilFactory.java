@@ -26,6 +26,7 @@ import dollar.api.Value;
 import dollar.api.VarFlags;
 import dollar.api.VarKey;
 import dollar.api.Variable;
+import dollar.api.execution.Propagation;
 import dollar.api.script.DollarParser;
 import dollar.api.script.Source;
 import dollar.api.types.NotificationType;
@@ -39,6 +40,7 @@ import dollar.internal.runtime.script.parser.Op;
 import dollar.internal.runtime.script.parser.SourceImpl;
 import dollar.internal.runtime.script.parser.SourceNode;
 import dollar.internal.runtime.script.parser.SourceNodeOptions;
+import dollar.internal.runtime.script.parser.SourceNodeValue;
 import dollar.internal.runtime.script.parser.scope.PureScope;
 import dollar.internal.runtime.script.parser.scope.ScriptScope;
 import org.jetbrains.annotations.NotNull;
@@ -52,6 +54,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
@@ -246,25 +249,7 @@ public final class DollarUtilFactory implements DollarUtil {
             }
         }
 
-        List<Scope> scopes = new ArrayList<>(DollarUtilFactory.scopes.get());
-        Collections.reverse(scopes);
-        for (Scope scriptScope : scopes) {
-            if (!(scriptScope instanceof PureScope) && pure) {
-                log.debug("Skipping {}", scriptScope);
-            }
-            if (numeric) {
-                if (scriptScope.hasParameter(key)) {
-                    return scriptScope;
-                }
-            } else {
-                if (scriptScope.has(key)) {
-
-                    return scriptScope;
-                }
-            }
-        }
-
-        return null;
+        return enclosingScopeWith(key, numeric);
 
 
     }
@@ -411,11 +396,17 @@ public final class DollarUtilFactory implements DollarUtil {
                       @Nullable Type suggestedType, @NotNull List<Value> inputs,
                       @NotNull Pipeable pipeable) {
 
-        Value result = wrap((Value) Proxy.newProxyInstance(
-                DollarStatic.class.getClassLoader(),
-                new Class<?>[]{Value.class},
-                new SourceNode(pipeable, source, inputs, name, parser,
-                               sourceNodeOptions, createId(name), pure, operation)));
+        SourceNode sourceNode = new SourceNode(pipeable, source, inputs, name, parser,
+                                               sourceNodeOptions, createId(name), pure, operation);
+        Value result;
+        if (parser.options().isDirectDispatch()) {
+            result = wrap(new SourceNodeValue(sourceNode));
+        } else {
+            result = wrap((Value) Proxy.newProxyInstance(
+                    DollarStatic.class.getClassLoader(),
+                    new Class<?>[]{Value.class},
+                    sourceNode));
+        }
 
         try {
             if (suggestedType != null) {
@@ -502,6 +493,8 @@ public final class DollarUtilFactory implements DollarUtil {
 
         rhs.$listen(i -> node.$notify(NotificationType.BINARY_RHS_CHANGE, node));
         lhs.$listen(i -> node.$notify(NotificationType.BINARY_LHS_CHANGE, node));
+        Propagation.dependency(rhs, node);
+        Propagation.dependency(lhs, node);
         return node;
     }
 
@@ -578,6 +571,7 @@ public final class DollarUtilFactory implements DollarUtil {
                                 null, Collections.singletonList(dependent),
                                 callable);
         dependent.$listen(i -> node.$notify(NotificationType.UNARY_VALUE_CHANGE, node));
+        Propagation.dependency(dependent, node);
         return node;
     }
 
@@ -613,18 +607,9 @@ public final class DollarUtilFactory implements DollarUtil {
             return updateVariable(scope, key, value, varFlags, useConstraint, useSource);
         }
         try {
-            List<Scope> scopes = new ArrayList<>(DollarUtilFactory.scopes.get());
-            Collections.reverse(scopes);
-            for (Scope scriptScope : scopes) {
-                if (!(scriptScope instanceof PureScope) && varFlags.isPure()) {
-                    log.debug("Skipping {}", scriptScope);
-                }
-
-                if (scriptScope.has(key)) {
-                    return updateVariable(scriptScope, key, value, varFlags, useConstraint, useSource
-                    );
-                }
-
+            Scope scriptScope = enclosingScopeWith(key, false);
+            if (scriptScope != null) {
+                return updateVariable(scriptScope, key, value, varFlags, useConstraint, useSource);
             }
         } catch (DollarAssertionException e) {
             ErrorHandlerFactory.instance().handle(scope, source, e);
@@ -702,26 +687,19 @@ public final class DollarUtilFactory implements DollarUtil {
 
                            }
 
-                           if (scope.has(key)) {
-                               Scope scopeForKey = scope.scopeForKey(key);
-                               assert scopeForKey != null;
+                           //A single walk up the parent chain finds the defining scope, the thread's scope stack is
+                           //only consulted when the variable isn't lexically visible from the current scope
+                           Scope scopeForKey = scope.scopeForKey(key);
+                           if (scopeForKey != null) {
                                return getVar(key, id, scopeForKey, sourceCode, pure, node[0]);
                            }
 
                            try {
-                               List<Scope> scopes = new ArrayList<>(DollarUtilFactory.scopes.get());
-                               Collections.reverse(scopes);
-                               for (Scope scriptScope : scopes) {
-                                   if (!(scriptScope instanceof PureScope) && pure) {
-                                       log.debug("Skipping {}", scriptScope);
-                                   }
-
-                                   if (scriptScope.has(key)) {
-                                       Scope scopeForKey = scriptScope.scopeForKey(key);
-                                       assert scopeForKey != null;
-                                       return getVar(key, id, scopeForKey, sourceCode, pure, node[0]);
-
-                                   }
+                               Scope scriptScope = enclosingScopeWith(key, false);
+                               if (scriptScope != null) {
+                                   scopeForKey = scriptScope.scopeForKey(key);
+                                   assert scopeForKey != null;
+                                   return getVar(key, id, scopeForKey, sourceCode, pure, node[0]);
                                }
                            } catch (DollarAssertionException e) {
                                throw e;
@@ -746,6 +724,18 @@ public final class DollarUtilFactory implements DollarUtil {
 
     }
 
+    @Nullable
+    private static Scope enclosingScopeWith(@NotNull VarKey key, boolean numeric) {
+        List<Scope> stack = scopes.get();
+        for (ListIterator<Scope> iterator = stack.listIterator(stack.size()); iterator.hasPrevious(); ) {
+            Scope scope = iterator.previous();
+            if (numeric ? scope.hasParameter(key) : scope.has(key)) {
+                return scope;
+            }
+        }
+        return null;
+    }
+
     private StackTraceElement getCaller(StackTraceElement[] stackTrace) {
         for (StackTraceElement stackTraceElement : stackTrace) {
             if (!stackTraceElement.getClassName().endsWith(getClass().getName()) && !stackTraceElement.getClassName().endsWith(
@@ -21,5 +21,13 @@ import org.jetbrains.annotations.NotNull;
 
 public interface Operator {
 
-    void setSource(@NotNull Source source);
+    /**
+     * Operators are part of the grammar, which is shared between parses, so rather than being updated with the
+     * source of each use they are copied.
+     *
+     * @param source the source this use of the operator comes from
+     * @return a copy of this operator for the source
+     */
+    @NotNull
+    Operator withSource(@NotNull Source source);
 }
@@ -36,6 +36,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 
 import static dollar.api.DollarStatic.$;
@@ -62,6 +63,7 @@ public class AssignmentOperator implements Function<Token, Function<? super Valu
     @Override
     @Nullable
     public Function<? super Value, ? extends Value> apply(@NotNull Token token) {
+        BiConsumer<VarKey, Value> exporter = parser.exporter();
         @Nullable Type type;
         Object[] objects = (Object[]) token.value();
         Value constraint = null;
@@ -205,7 +207,7 @@ public class AssignmentOperator implements Function<Token, Function<? super Valu
                         .orElse(null);
             }
             if (objects[0] != null) {
-                parser.export(varName, rhsFixed);
+                exporter.accept(varName, rhsFixed);
             }
             util().setVariable(currentScope, varName, rhsFixed, parser, token, constraint, useSource, varFlags);
             return rhsFixed;
@@ -24,6 +24,7 @@ import dollar.internal.runtime.script.api.exceptions.DollarParserError;
 import dollar.internal.runtime.script.parser.Op;
 import dollar.internal.runtime.script.parser.OpType;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Arrays;
 import java.util.function.BiFunction;
@@ -40,8 +41,8 @@ public class BinaryOp implements BinaryOperator<Value>, Operator {
     @NotNull
     private final DollarParser parser;
     private final boolean pure;
-    @NotNull
-    private Source source;
+    @Nullable
+    private final Source source;
 
 
     public BinaryOp(@NotNull DollarParser parser,
@@ -52,6 +53,7 @@ public class BinaryOp implements BinaryOperator<Value>, Operator {
         this.function = function;
         this.pure = pure;
         immediate = false;
+        source = null;
         validate(operation);
     }
 
@@ -64,9 +66,19 @@ public class BinaryOp implements BinaryOperator<Value>, Operator {
         this.operation = operation;
         this.parser = parser;
         this.pure = pure;
+        source = null;
         validate(operation);
     }
 
+    private BinaryOp(@NotNull BinaryOp op, @NotNull Source source) {
+        function = op.function;
+        immediate = op.immediate;
+        operation = op.operation;
+        parser = op.parser;
+        pure = op.pure;
+        this.source = source;
+    }
+
     @NotNull
     @Override
     public Value apply(@NotNull Value lhs, @NotNull Value rhs) {
@@ -79,9 +91,10 @@ public class BinaryOp implements BinaryOperator<Value>, Operator {
         return util().reactiveNode(operation, pure, parser, source, lhs, rhs, args -> function.apply(lhs, rhs));
     }
 
+    @NotNull
     @Override
-    public void setSource(@NotNull Source source) {
-        this.source = source;
+    public BinaryOp withSource(@NotNull Source source) {
+        return new BinaryOp(this, source);
     }
 
     public void validate(@NotNull Op op) {
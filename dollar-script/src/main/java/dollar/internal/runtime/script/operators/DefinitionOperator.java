@@ -34,6 +34,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 
 import static dollar.api.DollarStatic.$;
@@ -59,6 +60,7 @@ public class DefinitionOperator implements Function<Token, Function<? super Valu
     @Override
     @Nullable
     public Function<? super Value, ? extends Value> apply(@NotNull Token token) {
+        BiConsumer<VarKey, Value> exporter = parser.exporter();
         Object[] objects = (Object[]) token.value();
         Scope scope = DollarUtilFactory.util().scope();
 
@@ -110,7 +112,7 @@ public class DefinitionOperator implements Function<Token, Function<? super Valu
                                                                                                         constraintSource)),
                                                        i -> Func.definitionFunc(token, (exportObj != null), value, variableName,
                                                                                 constraint, constraintSource,
-                                                                                parser, pure, finalReadonly)
+                                                                                parser, exporter, pure, finalReadonly)
             );
 
             node.$listen(i -> scope.notify(VarKey.of(variableName)));
@@ -18,6 +18,7 @@ package dollar.internal.runtime.script.operators;
 
 import dollar.api.Value;
 import dollar.api.VarKey;
+import dollar.api.execution.Propagation;
 import dollar.api.script.DollarParser;
 import dollar.api.types.NotificationType;
 import dollar.internal.runtime.script.Builtins;
@@ -84,10 +85,12 @@ public class ParameterOperator implements Function<Token, Function<? super Value
                                                                 lhs.$listen(i -> node[0].$notify(NotificationType
                                                                                                          .UNARY_VALUE_CHANGE,
                                                                                                  i[0]));
+                                                                Propagation.dependency(lhs, node[0]);
                                                                 for (Value param : parameters) {
                                                                     param.$listen(i -> node[0].$notify(NotificationType
                                                                                                                .PARAM_VALUE_CHANGE,
                                                                                                        i[0]));
+                                                                    Propagation.dependency(param, node[0]);
                                                                 }
                                                                 util().addParameterstoCurrentScope(
                                                                         util().scope(),
@@ -32,6 +32,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 
 import static dollar.api.DollarStatic.$;
@@ -56,6 +57,7 @@ public class PureDefinitionOperator implements Function<Token, Value> {
     @Override
     @Nullable
     public Value apply(@NotNull Token token) {
+        BiConsumer<VarKey, Value> exporter = parser.exporter();
         Object[] objects = (Object[]) token.value();
         if (objects == null) {
             return null;
@@ -98,7 +100,7 @@ public class PureDefinitionOperator implements Function<Token, Value> {
         Value node = util().node(DEFINITION, true, parser, token, singletonList(
                 util().constrain(scope, value, constraint, constraintSource)),
                                  i -> Func.definitionFunc(token, (exportObj != null), value, valueName, constraint,
-                                                          constraintSource, parser,
+                                                          constraintSource, parser, exporter,
                                                           true, true)
         );
 
@@ -24,6 +24,7 @@ import dollar.internal.runtime.script.api.Operator;
 import dollar.internal.runtime.script.parser.Op;
 import dollar.internal.runtime.script.parser.OpType;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.function.BiFunction;
 import java.util.function.UnaryOperator;
@@ -38,9 +39,9 @@ public class UnaryOp implements UnaryOperator<Value>, Operator {
     private final boolean immediate;
     private final boolean pure;
     @NotNull
-    protected DollarParser parser;
-    @NotNull
-    protected Source source;
+    protected final DollarParser parser;
+    @Nullable
+    protected final Source source;
 
     public UnaryOp(@NotNull DollarParser parser,
                    @NotNull Op operation,
@@ -51,6 +52,7 @@ public class UnaryOp implements UnaryOperator<Value>, Operator {
         this.parser = parser;
         this.pure = pure;
         immediate = false;
+        source = null;
         validate(operation);
     }
 
@@ -63,9 +65,19 @@ public class UnaryOp implements UnaryOperator<Value>, Operator {
         this.function = function;
         this.parser = parser;
         this.pure = pure;
+        source = null;
         validate(operation);
     }
 
+    private UnaryOp(@NotNull UnaryOp op, @NotNull Source source) {
+        operation = op.operation;
+        function = op.function;
+        immediate = op.immediate;
+        parser = op.parser;
+        pure = op.pure;
+        this.source = source;
+    }
+
     @NotNull
     @Override
     public Value apply(@NotNull Value from) {
@@ -81,9 +93,10 @@ public class UnaryOp implements UnaryOperator<Value>, Operator {
 
     }
 
+    @NotNull
     @Override
-    public void setSource(@NotNull Source source) {
-        this.source = source;
+    public UnaryOp withSource(@NotNull Source source) {
+        return new UnaryOp(this, source);
     }
 
     public void validate(@NotNull Op operation) {
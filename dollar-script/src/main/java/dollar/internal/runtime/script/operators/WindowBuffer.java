@@ -0,0 +1,295 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.internal.runtime.script.operators;
+
+import dollar.api.Value;
+import dollar.api.types.DollarFactory;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static dollar.api.DollarStatic.$void;
+
+/**
+ * The values of a window, held in a ring of time buckets so that expiring values only touches the oldest bucket.
+ * Each bucket keeps a count, sum, minimum and maximum of its values, so the aggregates of the window are combined from
+ * the buckets rather than recalculated from every value.
+ */
+final class WindowBuffer {
+
+    /**
+     * The number of buckets the window is divided into.
+     */
+    private static final int BUCKETS = 32;
+    private final long bucketMillis;
+    private final int maxElements;
+    @NotNull
+    private final Bucket[] ring;
+    private final long windowMillis;
+    private long newestSlot = -1;
+    private int size;
+
+    /**
+     * @param windowMillis the duration values are held for
+     * @param maxElements  the most values held, the oldest are discarded beyond this
+     */
+    WindowBuffer(long windowMillis, int maxElements) {
+        this.windowMillis = Math.max(1, windowMillis);
+        this.maxElements = Math.max(1, maxElements);
+        bucketMillis = Math.max(1, this.windowMillis / BUCKETS);
+        //more than the buckets in a window, as the oldest buckets are usually partly expired
+        ring = new Bucket[(int) (this.windowMillis / bucketMillis) + 2];
+        for (int i = 0; i < ring.length; i++) {
+            ring[i] = new Bucket();
+        }
+    }
+
+    synchronized void add(@NotNull Value value, long now) {
+        advance(now);
+        ring[(int) (newestSlot % ring.length)].add(now, value);
+        size++;
+        while (size > maxElements) {
+            removeOldest();
+        }
+    }
+
+    /**
+     * @return a map of the count of values and the sum, min, max and avg of the numeric values in the window
+     */
+    @NotNull
+    synchronized Value aggregates(long now) {
+        advance(now);
+        long count = 0;
+        long numbers = 0;
+        Value sum = null;
+        Value min = null;
+        Value max = null;
+        for (Bucket bucket : ring) {
+            count += bucket.values.size();
+            if (bucket.numbers > 0) {
+                numbers += bucket.numbers;
+                sum = (sum == null) ? bucket.sum : sum.$plus(bucket.sum);
+                min = ((min == null) || (bucket.min.compareTo(min) < 0)) ? bucket.min : min;
+                max = ((max == null) || (bucket.max.compareTo(max) > 0)) ? bucket.max : max;
+            }
+        }
+        Map<String, Value> aggregates = new LinkedHashMap<>();
+        aggregates.put("count", DollarFactory.fromValue(count));
+        aggregates.put("sum", (sum == null) ? DollarFactory.fromValue(0) : sum);
+        aggregates.put("min", (min == null) ? $void() : min);
+        aggregates.put("max", (max == null) ? $void() : max);
+        aggregates.put("avg", (sum == null) ? $void() : DollarFactory.fromValue(sum.toDouble() / numbers));
+        return DollarFactory.fromValue(aggregates);
+    }
+
+    /**
+     * @return the values in the window, oldest first
+     */
+    @NotNull
+    synchronized List<Value> collected(long now) {
+        advance(now);
+        List<Value> collected = new ArrayList<>(size);
+        for (int i = 1; i <= ring.length; i++) {
+            for (Entry entry : ring[(int) ((newestSlot + i) % ring.length)].values) {
+                collected.add(entry.value);
+            }
+        }
+        return collected;
+    }
+
+    /**
+     * Takes the aggregates of the window and, for a tumbling window, empties it in the same step, so that values added
+     * while the snapshot is being used belong to the next window rather than being lost.
+     *
+     * @param now   the current time
+     * @param reset true to empty the window
+     * @return the aggregates and the values of the window as it was
+     */
+    @NotNull
+    synchronized Snapshot snapshot(long now, boolean reset) {
+        Value aggregates = aggregates(now);
+        if (!reset) {
+            return new Snapshot(aggregates, () -> collected(now));
+        }
+        List<ArrayDeque<Entry>> detached = new ArrayList<>();
+        for (int i = 1; i <= ring.length; i++) {
+            Bucket bucket = ring[(int) ((newestSlot + i) % ring.length)];
+            if (!bucket.values.isEmpty()) {
+                detached.add(bucket.detach());
+            }
+        }
+        size = 0;
+        return new Snapshot(aggregates, () -> {
+            List<Value> collected = new ArrayList<>();
+            for (ArrayDeque<Entry> values : detached) {
+                for (Entry entry : values) {
+                    collected.add(entry.value);
+                }
+            }
+            return collected;
+        });
+    }
+
+    /**
+     * Moves the newest bucket on to the current time, emptying buckets which have left the window, and expires the
+     * values in the oldest buckets which are older than the window.
+     */
+    private void advance(long now) {
+        long slot = now / bucketMillis;
+        if (newestSlot < 0) {
+            newestSlot = slot;
+        }
+        for (long s = newestSlot + 1; (s <= slot) && (s <= (newestSlot + ring.length)); s++) {
+            Bucket bucket = ring[(int) (s % ring.length)];
+            size -= bucket.values.size();
+            bucket.clear();
+        }
+        newestSlot = Math.max(newestSlot, slot);
+        long expiry = now - windowMillis;
+        for (int i = 1; i <= ring.length; i++) {
+            Bucket bucket = ring[(int) ((newestSlot + i) % ring.length)];
+            while (!bucket.values.isEmpty() && (bucket.values.peekFirst().time <= expiry)) {
+                bucket.removeFirst();
+                size--;
+            }
+            if (!bucket.values.isEmpty()) {
+                break;
+            }
+        }
+    }
+
+    private void removeOldest() {
+        for (int i = 1; i <= ring.length; i++) {
+            Bucket bucket = ring[(int) ((newestSlot + i) % ring.length)];
+            if (!bucket.values.isEmpty()) {
+                bucket.removeFirst();
+                size--;
+                return;
+            }
+        }
+    }
+
+    /**
+     * The window as it was when {@link #snapshot(long, boolean)} was called.
+     */
+    static final class Snapshot {
+        @NotNull
+        final Value aggregates;
+        /**
+         * The values of the window oldest first, only built when asked for.
+         */
+        @NotNull
+        final Supplier<List<Value>> collected;
+
+        Snapshot(@NotNull Value aggregates, @NotNull Supplier<List<Value>> collected) {
+            this.aggregates = aggregates;
+            this.collected = collected;
+        }
+    }
+
+    private static final class Bucket {
+        @NotNull
+        ArrayDeque<Entry> values = new ArrayDeque<>();
+        @Nullable
+        Value max;
+        @Nullable
+        Value min;
+        long numbers;
+        @Nullable
+        Value sum;
+
+        void add(long time, @NotNull Value value) {
+            values.addLast(new Entry(time, value));
+            include(value);
+        }
+
+        void clear() {
+            values.clear();
+            numbers = 0;
+            sum = null;
+            min = null;
+            max = null;
+        }
+
+        /**
+         * Empties the bucket, handing over its values rather than copying them.
+         */
+        @NotNull
+        ArrayDeque<Entry> detach() {
+            ArrayDeque<Entry> detached = values;
+            values = new ArrayDeque<>();
+            clear();
+            return detached;
+        }
+
+        /**
+         * Removes the oldest value, the minimum and maximum are only recalculated if it was the minimum or maximum.
+         */
+        void removeFirst() {
+            Value value = values.removeFirst().value;
+            if (!value.number()) {
+                return;
+            }
+            assert (sum != null) && (min != null) && (max != null);
+            numbers--;
+            if (numbers == 0) {
+                sum = null;
+                min = null;
+                max = null;
+            } else {
+                sum = sum.$minus(value);
+                if ((value.compareTo(min) == 0) || (value.compareTo(max) == 0)) {
+                    min = null;
+                    max = null;
+                    for (Entry entry : values) {
+                        if (entry.value.number()) {
+                            min = ((min == null) || (entry.value.compareTo(min) < 0)) ? entry.value : min;
+                            max = ((max == null) || (entry.value.compareTo(max) > 0)) ? entry.value : max;
+                        }
+                    }
+                }
+            }
+        }
+
+        private void include(@NotNull Value value) {
+            if (value.number()) {
+                numbers++;
+                sum = (sum == null) ? value : sum.$plus(value);
+                min = ((min == null) || (value.compareTo(min) < 0)) ? value : min;
+                max = ((max == null) || (value.compareTo(max) > 0)) ? value : max;
+            }
+        }
+    }
+
+    private static final class Entry {
+        @NotNull
+        final Value value;
+        final long time;
+
+        Entry(long time, @NotNull Value value) {
+            this.time = time;
+            this.value = value;
+        }
+    }
+}
@@ -16,10 +16,9 @@
 
 package dollar.internal.runtime.script.operators;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import dollar.api.Pipeable;
-import dollar.api.Scope;
 import dollar.api.Value;
 import dollar.api.VarKey;
 import dollar.api.script.DollarParser;
@@ -34,13 +33,9 @@ import org.jparsec.Token;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Comparator;
-import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
 import static dollar.api.DollarStatic.$void;
 import static dollar.internal.runtime.script.DollarUtilFactory.util;
@@ -48,6 +43,10 @@ import static dollar.internal.runtime.script.parser.Symbols.WINDOW_OP;
 import static java.util.Collections.singletonList;
 
 public class WindowOperator implements Function<Token, Value> {
+    /**
+     * The most values a window holds, the oldest are discarded beyond this.
+     */
+    private static final int MAX_ELEMENTS = Integer.getInteger("dollar.window.max.elements", Integer.MAX_VALUE);
     @NotNull
     private static final Logger log = LoggerFactory.getLogger(WindowOperator.class);
     @NotNull
@@ -85,10 +84,11 @@ public class WindowOperator implements Function<Token, Value> {
 
                                Double duration = period.toDouble();
                                assert duration != null;
-                               Scope scope = util().scope();
-                               NotifyListener notifyListener = new NotifyListener(unless, until, block,
-                                                                                  (long) (over.toDouble() * Func
-                                                                                                                    .ONE_DAY));
+                               long periodMillis = (long) (duration * Func.ONE_DAY);
+                               long overMillis = (long) (over.toDouble() * Func.ONE_DAY);
+                               //a window which is emitted no more often than its length tumbles, rather than slides
+                               boolean tumbling = periodMillis >= overMillis;
+                               NotifyListener notifyListener = new NotifyListener(unless, until, block, overMillis);
                                log.info("Before expression listen");
                                expression.$fixDeep(false);
                                Value listenerId = expression.$listen(notifyListener,
@@ -103,13 +103,19 @@ public class WindowOperator implements Function<Token, Value> {
                                                                   log.info("Schedule called on WindowOperator");
                                                                   newScope.parameter(VarKey.COUNT, DollarFactory.fromValue(
                                                                           notifyListener.count.get()));
-                                                                  newScope.parameter(VarKey.COLLECTED, DollarFactory.fromList(
-                                                                          notifyListener.collected.asMap().entrySet().stream().sorted(
-                                                                                  Comparator.comparing(Map.Entry::getKey)).map(
-                                                                                  Map.Entry::getValue).collect(
-                                                                                  Collectors.toList())));
+                                                                  long now = System.currentTimeMillis();
+                                                                  //a tumbling window is emptied as it is read so
+                                                                  //nothing added while the block runs is lost
+                                                                  WindowBuffer.Snapshot snapshot = notifyListener.buffer.snapshot(
+                                                                          now, tumbling);
+                                                                  //only build the list if the block uses it
+                                                                  Supplier<Value> collected = Suppliers.memoize(
+                                                                          () -> DollarFactory.fromList(
+                                                                                  snapshot.collected.get()));
+                                                                  newScope.parameter(VarKey.COLLECTED, DollarFactory.fromLambda(
+                                                                          in -> collected.get()));
+                                                                  newScope.parameter(VarKey.AGGREGATES, snapshot.aggregates);
                                                                   block.$fixDeep(false);
-                                                                  log.info("Clearing collected");
                                                                   if (notifyListener.finished) {
                                                                       log.debug("Cancelling");
                                                                       Scheduler.cancel(i[0].$S());
@@ -119,7 +125,7 @@ public class WindowOperator implements Function<Token, Value> {
 
                                                               }).orElseThrow(
                                                () -> new AssertionError("Optional should not be null here")),
-                                       ((long) (duration * Func.ONE_DAY)));
+                                       periodMillis);
                                return $void();
 
                            });
@@ -132,9 +138,7 @@ public class WindowOperator implements Function<Token, Value> {
         @NotNull
         final AtomicLong count = new AtomicLong(-1);
         @NotNull
-        private final Cache<Long, Value> collected;
-        @NotNull
-        private final AtomicLong collectedId = new AtomicLong();
+        private final WindowBuffer buffer;
         @NotNull
         private final Value loop;
         @Nullable
@@ -147,7 +151,7 @@ public class WindowOperator implements Function<Token, Value> {
             this.unless = unless;
             this.until = until;
             this.loop = loop;
-            collected = CacheBuilder.newBuilder().expireAfterWrite(windowLength, TimeUnit.MILLISECONDS).build();
+            buffer = new WindowBuffer(windowLength, MAX_ELEMENTS);
 
         }
 
@@ -157,14 +161,14 @@ public class WindowOperator implements Function<Token, Value> {
             Value value = in2[0].$fixDeep();
             count.incrementAndGet();
             util().scope().parameter(VarKey.IT, value);
-            log.debug("Count is {} value is {} size is {}", count.get(), value, collected.size());
+            log.debug("Count is {} value is {}", count.get(), value);
 
             if (!finished) {
                 if ((unless != null) && unless.isTrue()) {
                     log.debug("Skipping {}", value);
                 } else {
                     log.debug("Adding {}", value);
-                    collected.put(collectedId.incrementAndGet(), value);
+                    buffer.add(value, System.currentTimeMillis());
                 }
             }
             if ((until != null) && until.isTrue()) {
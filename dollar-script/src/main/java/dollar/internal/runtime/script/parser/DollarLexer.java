@@ -41,6 +41,7 @@ import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static dollar.api.DollarStatic.*;
+import static dollar.api.types.DollarFactory.unshared;
 import static dollar.api.types.meta.MetaConstants.IS_BUILTIN;
 import static dollar.internal.runtime.script.Builtins.exists;
 import static dollar.internal.runtime.script.parser.Symbols.*;
@@ -55,7 +56,7 @@ import static org.jparsec.pattern.Patterns.*;
 final class DollarLexer {
     @NotNull
     static final Parser<Value> BUILTIN = token(new TokenTagMap("builtin")).map(s -> {
-        Value v = $(s);
+        Value v = unshared($(s));
         v.metaAttribute(IS_BUILTIN, s);
         return v;
     });
@@ -24,6 +24,7 @@ import dollar.api.Pipeable;
 import dollar.api.Scope;
 import dollar.api.Value;
 import dollar.api.VarKey;
+import dollar.api.execution.Propagation;
 import dollar.api.script.DollarParser;
 import dollar.api.script.ParserOptions;
 import dollar.api.script.Source;
@@ -68,9 +69,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
@@ -78,6 +79,7 @@ import static com.google.common.io.Files.asCharSource;
 import static dollar.api.DollarStatic.$;
 import static dollar.api.DollarStatic.$void;
 import static dollar.api.scripting.ScriptingSupport.compile;
+import static dollar.api.types.DollarFactory.unshared;
 import static dollar.api.types.NotificationType.MULTI_VALUE_CHANGE;
 import static dollar.api.types.NotificationType.UNARY_VALUE_CHANGE;
 import static dollar.api.types.meta.MetaConstants.*;
@@ -97,14 +99,17 @@ public class DollarParserImpl implements DollarParser {
     public static final MetaKey NAMED_PARAMETER_META_ATTR = MetaKey.of("__named_parameter");
     @NotNull
     private static final Logger log = LoggerFactory.getLogger("DollarParser");
+    /**
+     * Building the grammar is far more expensive than parsing a short script with it, so it is built once and then
+     * shared by every parser (and thread). Direct dispatch is the only option the grammar depends on, so it is the only
+     * part of the options in the key.
+     */
     @NotNull
-    private final ClassLoader classLoader;
+    private static final ConcurrentHashMap<Boolean, Parser<Value>> grammars = new ConcurrentHashMap<>();
     @NotNull
-    private final Map<VarKey, Value> exports = new ConcurrentHashMap<>();
+    private final ClassLoader classLoader;
     @NotNull
     private final ParserOptions options;
-    @Nullable
-    private String file;
 
     public DollarParserImpl(@NotNull ParserOptions options) {
         this.options = options;
@@ -148,8 +153,9 @@ public class DollarParserImpl implements DollarParser {
                      IDENTIFIER.between(OP(LT), OP(GT)).optional(null),//2
                      ref.lazy().between(OP(LEFT_PAREN), OP(RIGHT_PAREN)).optional(null).token().map((Token token) -> {
                          if (token.value() != null) {
-                             ((Value) token.value()).meta(CONSTRAINT_SOURCE, new SourceImpl(util().scope(), token));
-                             return token.value();
+                             Value constraint = unshared((Value) token.value());
+                             constraint.meta(CONSTRAINT_SOURCE, new SourceImpl(util().scope(), token));
+                             return constraint;
                          } else {
                              return null;
                          }
@@ -157,16 +163,17 @@ public class DollarParserImpl implements DollarParser {
                      OP(DOLLAR).next(ref.lazy().between(OP(LEFT_PAREN), OP(RIGHT_PAREN))).or(IDENTIFIER).or(BUILTIN), //4
                      or(
                              OP(ASSIGNMENT).map(i -> {
-                                 Value Value = $(i.toString());
+                                 Value Value = unshared($(i.toString()));
                                  Value.metaAttribute(ASSIGNMENT_TYPE, "assign");
                                  return Value;
                              }),
                              OP(WHEN).next(ref.lazy()).followedBy(OP(ASSIGNMENT)).map(var -> {
-                                 var.metaAttribute(ASSIGNMENT_TYPE, "when");
-                                 return var;
+                                 Value when = unshared(var);
+                                 when.metaAttribute(ASSIGNMENT_TYPE, "when");
+                                 return when;
                              }),
                              OP(SUBSCRIBE_ASSIGN).map(i -> {
-                                 Value Value = $(i.toString());
+                                 Value Value = unshared($(i.toString()));
                                  Value.metaAttribute(ASSIGNMENT_TYPE, "subscribe");
                                  return Value;
                              })
@@ -269,8 +276,9 @@ public class DollarParserImpl implements DollarParser {
                         IDENTIFIER.between(OP(LT), OP(GT)).optional(null),//2
                         (OP(DOLLAR).next(ref.lazy().between(OP(LEFT_PAREN), OP(RIGHT_PAREN))).or(IDENTIFIER))
                                 .token().map((Token token) -> {
-                            ((Value) token.value()).meta(CONSTRAINT_SOURCE, new SourceImpl(util().scope(), token));
-                            return token.value();
+                            Value name = unshared((Value) token.value());
+                            name.meta(CONSTRAINT_SOURCE, new SourceImpl(util().scope(), token));
+                            return name;
                         }), //3
                         OP(DEFINITION) //4
 
@@ -346,8 +354,22 @@ public class DollarParserImpl implements DollarParser {
 
     @Override
     public void export(@NotNull VarKey name, @NotNull Value export) {
-        export.meta(SCOPES, new ArrayList<>(util().scopes()));
-        exports.put(name, export);
+        exporter().accept(name, export);
+    }
+
+    @NotNull
+    @Override
+    public BiConsumer<VarKey, Value> exporter() {
+        ParseSession session = ParseSession.current();
+        return (name, export) -> {
+            Value exported = unshared(export);
+            exported.meta(SCOPES, new ArrayList<>(util().scopes()));
+            if (session != null) {
+                session.export(name, exported);
+            } else {
+                log.warn("Export of {} ignored as it happened outside of a parse", name);
+            }
+        };
     }
 
     @NotNull
@@ -359,38 +381,60 @@ public class DollarParserImpl implements DollarParser {
     @Override
     @NotNull
     public Value parse(@NotNull Scope scope, @NotNull String source) {
+        return parse(scope, source, null);
+    }
+
+    @NotNull
+    private Value parse(@NotNull Scope scope, @NotNull String source, @Nullable String file) {
         DollarStatic.context().parser(this);
-        Value v = util().inScope(false, scope, newScope -> {
-            DollarStatic.context().classLoader(classLoader);
-            Parser<?> parser = script();
-            try {
-                parser.from(TOKENIZER, IGNORED).parse(source);
-            } catch (RuntimeException e) {
-                ErrorHandlerFactory.instance().handleTopLevel(e, null, (file != null) ? new File(file) : null);
+        Parser<Value> grammar = grammar();
+        ParseSession session = ParseSession.begin(file);
+        try {
+            Value v = util().inScope(false, scope, newScope -> {
+                DollarStatic.context().classLoader(classLoader);
+                try {
+                    log.debug("Starting Parse Phase");
+                    session.startParsePhase();
+                    grammar.parse(source);
+                } catch (RuntimeException e) {
+                    ErrorHandlerFactory.instance().handleTopLevel(e, null,
+                                                                  (session.file() != null) ? new File(session.file()) : null);
 
+                }
+                HashMap<Value, Value> exportMap = new HashMap<>();
+                session.exports().forEach(
+                        (varKey, var) -> exportMap.put(DollarFactory.fromStringValue(varKey.asString()), var));
+                return $(exportMap);
+            }).orElseThrow(() -> new AssertionError("Optional should not be null here"));
+            if (v != null) {
+                return v;
+            } else {
+                throw new AssertionError("parse should not return null");
             }
-            HashMap<Value, Value> exportMap = new HashMap<>();
-            exports.forEach((varKey, var) -> exportMap.put(DollarFactory.fromStringValue(varKey.asString()), var));
-            return $(exportMap);
-        }).orElseThrow(() -> new AssertionError("Optional should not be null here"));
-        if (v != null) {
-            return v;
-        } else {
-            throw new AssertionError("parse should not return null");
+        } finally {
+            session.end();
         }
 
     }
 
+    @NotNull
+    private Parser<Value> grammar() {
+        return grammars.computeIfAbsent(options.isDirectDispatch(), directDispatch -> {
+            ParserOptions grammarOptions = new ParserOptions();
+            grammarOptions.setDirectDispatch(directDispatch);
+            return new DollarParserImpl(grammarOptions).script().from(TOKENIZER, IGNORED);
+        });
+    }
+
     @Override
     @NotNull
     public Value parse(@NotNull File file, boolean parallel) throws Exception {
 
-        this.file = file.getAbsolutePath();
         if (file.getName().endsWith(".md") || file.getName().endsWith(".markdown")) {
             return parseMarkdown(file);
         } else {
             String source = new String(Files.readAllBytes(file.toPath()));
-            return parse(new FileScope(source, file, true, false), source);
+            return parse(new FileScope(source, file, true, false), source, file.getAbsolutePath());
         }
 
     }
@@ -405,9 +449,8 @@ public class DollarParserImpl implements DollarParser {
     @Override
     @NotNull
     public Value parse(@NotNull InputStream in, @NotNull String file, boolean parallel) throws Exception {
-        this.file = file;
         String source = new String(ByteStreams.toByteArray(in));
-        return parse(new FileScope(source, new File(file), true, false), source);
+        return parse(new FileScope(source, new File(file), true, false), source, file);
     }
 
     @Override
@@ -706,7 +749,10 @@ public class DollarParserImpl implements DollarParser {
                                                        }
                                                    }
                     );
-                    entries.forEach(entry -> entry.$listen(i -> node.$notify(MULTI_VALUE_CHANGE, i[0])));
+                    entries.forEach(entry -> {
+                        entry.$listen(i -> node.$notify(MULTI_VALUE_CHANGE, i[0]));
+                        Propagation.dependency(entry, node);
+                    });
                     return node;
 
                 });
@@ -727,7 +773,10 @@ public class DollarParserImpl implements DollarParser {
             List<Value> o = (List<Value>) objects[1];
             final Value node = util().node(MAP_OP, "map-" + util().shortHash(token), pure, this, token, o,
                                            i -> mapFunc(parallel, o));
-            o.forEach(entry -> entry.$listen(i -> node.$notify(MULTI_VALUE_CHANGE, i[0])));
+            o.forEach(entry -> {
+                entry.$listen(i -> node.$notify(MULTI_VALUE_CHANGE, i[0]));
+                Propagation.dependency(entry, node);
+            });
             return node;
         });
     }
@@ -774,7 +823,7 @@ public class DollarParserImpl implements DollarParser {
 
         final Parser<List<Value>> parameters =
                 KEYWORD(WITH).optional(null).next((param).map(objects -> {
-                    Value result = (Value) objects[1];
+                    Value result = unshared((Value) objects[1]);
                     result.metaAttribute(NAMED_PARAMETER_META_ATTR, objects[0].toString());
                     return result;
                 }).sepBy(OP(COMMA)).between(OP(LEFT_PAREN), OP(RIGHT_PAREN)));
@@ -803,7 +852,7 @@ public class DollarParserImpl implements DollarParser {
                                                          //Is it a named parameter
                                                          if (objects[0] != null) {
                                                              //yes so let's add the name as metadata to the value
-                                                             Value result = (Value) objects[1];
+                                                             Value result = unshared((Value) objects[1]);
                                                              result.metaAttribute(NAMED_PARAMETER_META_ATTR, objects[0].toString());
                                                              return result;
                                                          } else {
@@ -847,7 +896,7 @@ public class DollarParserImpl implements DollarParser {
                             //Is it a named parameter
                             if (objects[0] != null) {
                                 //yes so let's add the name as metadata to the value
-                                Value result = (Value) objects[1];
+                                Value result = unshared((Value) objects[1]);
                                 result.metaAttribute(NAMED_PARAMETER_META_ATTR, objects[0].toString());
                                 return result;
                             } else {
@@ -1033,10 +1082,6 @@ public class DollarParserImpl implements DollarParser {
 
     @NotNull
     private Parser<Value> script() {
-        log.debug("Starting Parse Phase");
-        ScriptScope parseScope = new ScriptScope(util().scope(), "parse-scope", false, false);
-        util().pushScope(parseScope);
-
         Parser.Reference<Value> ref = Parser.newReference();
 //        Parser<Value> block = block(ref.lazy(), false).between(OP_NL(LEFT_BRACE), NL_OP(RIGHT_BRACE));
         Parser<Value> expression = expression(false);
@@ -1044,7 +1089,10 @@ public class DollarParserImpl implements DollarParser {
                                        .next(expression.followedBy(TERMINATOR_SYMBOL).many1())
                                        .map(expressions -> {
                                            log.debug("Ended Parse Phase");
-                                           util().popScope(parseScope);
+                                           ParseSession session = ParseSession.current();
+                                           if (session != null) {
+                                               session.endParsePhase();
+                                           }
                                            return util().inSubScope(true, false, "runtime-scope", scope -> {
                                                log.debug("Starting Runtime Phase");
                                                Value resultValue = Func.blockFunc(2, expressions);
@@ -1274,7 +1322,7 @@ public class DollarParserImpl implements DollarParser {
         @Override
         public T apply(@NotNull Token token) {
             if (value instanceof Operator) {
-                ((Operator) value).setSource(new SourceImpl(util().scope(), token));
+                return (T) ((Operator) value).withSource(new SourceImpl(util().scope(), token));
             }
             return value;
         }
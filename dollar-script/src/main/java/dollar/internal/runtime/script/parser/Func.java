@@ -41,8 +41,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -115,6 +115,7 @@ public final class Func {
                                        @Nullable Value constraint,
                                        @Nullable SubType constraintSource,
                                        @NotNull DollarParser parser,
+                                       @NotNull BiConsumer<VarKey, Value> exporter,
                                        boolean pure,
                                        boolean readonly) {
         VarKey key = VarKey.of(variableName);
@@ -124,7 +125,7 @@ public final class Func {
                            new VarFlags(readonly, false, false, pure, false, true));
 
         if (export) {
-            parser.export(key, util().node(DEFINITION, "export-" + DEFINITION.name(),
+            exporter.accept(key, util().node(DEFINITION, "export-" + DEFINITION.name(),
                                            pure, SCOPE_WITH_CLOSURE, parser,
                                            new SourceImpl(util().scope(), token),
                                            null, singletonList(value), exportArgs -> value.$fix(2, false)));
@@ -205,8 +206,8 @@ public final class Func {
     }
 
     @NotNull
-    static Future<Value> forkFunc(@NotNull Value v) {
-        return executor.executeInBackground(() -> util().fix(v));
+    static Value forkFunc(@NotNull Value v) {
+        return DollarFactory.fromFuture(executor.submitAsync(() -> util().fix(v)));
     }
 
     @NotNull
@@ -0,0 +1,105 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.internal.runtime.script.parser;
+
+import dollar.api.Value;
+import dollar.api.VarKey;
+import dollar.internal.runtime.script.parser.scope.ScriptScope;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static dollar.internal.runtime.script.DollarUtilFactory.util;
+
+/**
+ * The state of a single parse. The grammar built by {@link DollarParserImpl} is shared between parses and threads,
+ * so anything that belongs to one parse (the exports, the file being parsed and the parse scope) is kept here
+ * instead.
+ */
+final class ParseSession {
+    @NotNull
+    private static final ThreadLocal<ParseSession> current = new ThreadLocal<>();
+    @NotNull
+    private final Map<VarKey, Value> exports = new ConcurrentHashMap<>();
+    @Nullable
+    private final String file;
+    @Nullable
+    private final ParseSession previous;
+    @Nullable
+    private ScriptScope parseScope;
+
+    private ParseSession(@Nullable String file, @Nullable ParseSession previous) {
+        this.file = file;
+        this.previous = previous;
+    }
+
+    /**
+     * Starts a new parse on the current thread, parses can be nested (e.g. modules) so the session being replaced is
+     * restored by {@link #end()}.
+     *
+     * @param file the file being parsed if known
+     * @return the new session
+     */
+    @NotNull
+    static ParseSession begin(@Nullable String file) {
+        ParseSession session = new ParseSession(file, current.get());
+        current.set(session);
+        return session;
+    }
+
+    @Nullable
+    static ParseSession current() {
+        return current.get();
+    }
+
+    void end() {
+        if (previous == null) {
+            current.remove();
+        } else {
+            current.set(previous);
+        }
+    }
+
+    void endParsePhase() {
+        if (parseScope != null) {
+            util().popScope(parseScope);
+            parseScope = null;
+        }
+    }
+
+    void export(@NotNull VarKey name, @NotNull Value export) {
+        exports.put(name, export);
+    }
+
+    @NotNull
+    Map<VarKey, Value> exports() {
+        return exports;
+    }
+
+    @Nullable
+    String file() {
+        return file;
+    }
+
+    void startParsePhase() {
+        parseScope = new ScriptScope(util().scope(), "parse-scope", false, false);
+        util().pushScope(parseScope);
+    }
+}
@@ -16,6 +16,7 @@
 
 package dollar.internal.runtime.script.parser;
 
+import dollar.api.DollarException;
 import dollar.api.DollarStatic;
 import dollar.api.MetaKey;
 import dollar.api.Pipeable;
@@ -26,6 +27,7 @@ import dollar.api.TypePrediction;
 import dollar.api.Value;
 import dollar.api.exceptions.LambdaRecursionException;
 import dollar.api.execution.DollarExecutor;
+import dollar.api.execution.Propagation;
 import dollar.api.plugin.Plugins;
 import dollar.api.script.DollarParser;
 import dollar.api.script.Source;
@@ -61,7 +63,7 @@ import static dollar.api.DollarStatic.$;
 import static dollar.api.DollarStatic.getConfig;
 import static dollar.api.types.meta.MetaConstants.*;
 
-public class SourceNode implements java.lang.reflect.InvocationHandler {
+public class SourceNode implements java.lang.reflect.InvocationHandler, Propagation.Node {
     private static final int MAX_STACK_DEPTH = 100;
     @Nullable
     private static final DollarExecutor executor = Plugins.sharedInstance(DollarExecutor.class);
@@ -72,8 +74,6 @@ public class SourceNode implements java.lang.reflect.InvocationHandler {
     private static final List<String> nonScopeOperations = Arrays.asList(
             "dynamic", "$constrain");
     @NotNull
-    private static final ThreadLocal<List<SourceNode>> notifyStack = ThreadLocal.withInitial(ArrayList::new);
-    @NotNull
     private static final ThreadLocal<List<SourceNode>> stack = ThreadLocal.withInitial(ArrayList::new);
     @NotNull
     private static final TypeLearner typeLearner;
@@ -101,6 +101,7 @@ public class SourceNode implements java.lang.reflect.InvocationHandler {
     private final Source source;
     @NotNull
     private final SourceNodeOptions sourceNodeOptions;
+    private volatile int height;
     @Nullable
     private volatile TypePrediction prediction;
 
@@ -217,104 +218,60 @@ public class SourceNode implements java.lang.reflect.InvocationHandler {
             }
 
             if (Objects.equals(method.getName(), "$type")) {
-                if (meta.get(MetaConstants.TYPE_HINT) != null) {
-                    return meta.get(MetaConstants.TYPE_HINT);
-                } else if (prediction != null) {
-                    return prediction.probableType();
-                } else {
-                    return Type._ANY;
-                }
+                return type();
             }
 
             if (Objects.equals(method.getName(), "predictType")) {
-                if (prediction == null) {
-                    prediction = typeLearner.predict(name, source, inputs);
-                }
-                if (meta.get(MetaConstants.TYPE_HINT) != null) {
-                    return new SingleValueTypePrediction((Type) meta.get(MetaConstants.TYPE_HINT));
-                }
-                return prediction;
+                return predictType();
+            }
+        } catch (Exception e) {
+            log.warn(e.getMessage(), e);
+            return ErrorHandlerFactory.instance().handle(DollarUtilFactory.util().scope(), source, e);
+        }
+
+        //Some operations do not require a valid scope
+        boolean scoped = method.getName().startsWith("$fix") || !(nonScopeOperations.contains(
+                method.getName()) || method.getDeclaringClass().equals(Value.class));
+        return dispatch(scoped, method.getName().startsWith("$fixDeep"), () -> invokeMain(proxy, method, args));
+    }
+
+    /**
+     * Apply an operation to the executed value of this node, this is the direct dispatch equivalent of a method call
+     * on the proxy for any method that is not handled by the node itself.
+     *
+     * @param scoped   true if the operation requires the node's scope
+     * @param function the operation
+     * @param <R>      the return type of the operation
+     * @return the result of the operation or the handled error
+     */
+    @Nullable
+    <R> R apply(boolean scoped, @NotNull NodeFunction<R> function) {
+        return (R) dispatch(scoped, false, () -> {
+            checkStackDepth();
+            Value out = execute(false);
+            if (out == null) {
+                return null;
             }
+            return function.apply(out);
+        });
+    }
 
-            Object result = null;
-            //Some operations do not require a valid scope
-            if ((!method.getName().startsWith("$fix") && (nonScopeOperations.contains(
-                    method.getName()) || method.getDeclaringClass().equals(
-                    Value.class) || method.getDeclaringClass().equals(
-                    Value.class)))) {
+    @Nullable
+    Object dispatch(boolean scoped, boolean learn, @NotNull NodeCall call) {
+        DollarStatic.context().source(source);
+        try {
+            Object result;
+            if (!scoped) {
                 //This method does not require a valid scope for execution
                 try {
-                    result = invokeMain(proxy, method, args);
+                    result = call.call();
                 } catch (Exception throwable) {
                     return DollarUtilFactory.util().scope().handleError(throwable, source);
                 } catch (Throwable throwable) {
                     throw new Error(throwable);
                 }
             } else {
-                //This method does require a scope
-
-                List<Scope> scopes = null;
-                List<Scope> attachedScopes = (List<Scope>) meta.get(SCOPES);
-                if (attachedScopes != null) {
-                    scopes = new ArrayList<>(attachedScopes);
-                    for (Scope scope : scopes) {
-                        DollarUtilFactory.util().pushScope(scope);
-                    }
-                }
-                try {
-                    Scope useScope;
-                    if (newScope) {
-                        if (pure || DollarUtilFactory.util().scope().pure()) {
-                            useScope = new PureScope(DollarUtilFactory.util().scope(),
-                                                     DollarUtilFactory.util().scope().source(), name,
-                                                     DollarUtilFactory.util().scope().file());
-                        } else {
-                            if (DollarUtilFactory.util().scope().pure() && (operation.pure() != null) && !operation.pure()) {
-                                throw new DollarScriptException("Attempted to create an impure scope within a pure scope " +
-                                                                        "(" + DollarUtilFactory.util().scope() + ") for " + name,
-                                                                source);
-                            }
-                            useScope = new ScriptScope(DollarUtilFactory.util().scope(), name, false, false);
-                        }
-                    } else {
-                        useScope = DollarUtilFactory.util().scope();
-                    }
-
-                    result = DollarUtilFactory.util().inScope(true, useScope, s -> {
-                        if (DollarStatic.getConfig().debugScope()) {
-                            log.info("EXE: {} {} for {}", name, method.getName(), source.getShortSourceMessage());
-                        }
-                        if (DollarStatic.getConfig().debugParallel()) {
-                            if (false) {
-                                log.info("PARALLEL: {} {}", name, method);
-                            }
-                        }
-                        try {
-                            try {
-                                stack.get().add(this);
-                                return invokeMain(proxy, method, args);
-                            } finally {
-                                stack.get().remove(stack.get().size() - 1);
-                            }
-
-                        } catch (Exception e) {
-                            return DollarUtilFactory.util().scope().handleError(e, source);
-                        } catch (DollarExitError t) {
-                            throw t;
-                        } catch (Throwable t) {
-                            throw new Error(t);
-                        }
-                    }).get();
-                } finally {
-
-                    if (scopes != null) {
-                        Collections.reverse(scopes);
-                        for (Scope scope : scopes) {
-                            DollarUtilFactory.util().popScope(scope);
-                        }
-                    }
-                }
-
+                result = inNodeScope(call);
             }
 
             boolean dynamicVarResult = (result instanceof Value) && ((Value) result).dynamic();
@@ -328,7 +285,7 @@ public class SourceNode implements java.lang.reflect.InvocationHandler {
                 }
             }
 
-            if (method.getName().startsWith("$fixDeep") && (result instanceof Value)) {
+            if (learn && (result instanceof Value)) {
 
                 typeLearner.learn(name, source, inputs, ((Value) result).$type());
             }
@@ -340,11 +297,68 @@ public class SourceNode implements java.lang.reflect.InvocationHandler {
     }
 
     @Nullable
-    private Object invokeMain(@Nullable Object proxy, @NotNull Method method, @Nullable Object[] args) throws Throwable {
-        if (stack.get().size() > MAX_STACK_DEPTH) {
-            throw new LambdaRecursionException(stack.get().size());
+    private Object inNodeScope(@NotNull NodeCall call) {
+        List<Scope> scopes = null;
+        List<Scope> attachedScopes = (List<Scope>) meta.get(SCOPES);
+        if (attachedScopes != null) {
+            scopes = new ArrayList<>(attachedScopes);
+            for (Scope scope : scopes) {
+                DollarUtilFactory.util().pushScope(scope);
+            }
+        }
+        try {
+            Scope useScope;
+            if (newScope) {
+                if (pure || DollarUtilFactory.util().scope().pure()) {
+                    useScope = new PureScope(DollarUtilFactory.util().scope(),
+                                             DollarUtilFactory.util().scope().source(), name,
+                                             DollarUtilFactory.util().scope().file());
+                } else {
+                    if (DollarUtilFactory.util().scope().pure() && (operation.pure() != null) && !operation.pure()) {
+                        throw new DollarScriptException("Attempted to create an impure scope within a pure scope " +
+                                                                "(" + DollarUtilFactory.util().scope() + ") for " + name,
+                                                        source);
+                    }
+                    useScope = new ScriptScope(DollarUtilFactory.util().scope(), name, false, false);
+                }
+            } else {
+                useScope = DollarUtilFactory.util().scope();
+            }
 
+            return DollarUtilFactory.util().inScope(true, useScope, s -> {
+                if (DollarStatic.getConfig().debugScope()) {
+                    log.info("EXE: {} for {}", name, source.getShortSourceMessage());
+                }
+                try {
+                    try {
+                        stack.get().add(this);
+                        return call.call();
+                    } finally {
+                        stack.get().remove(stack.get().size() - 1);
+                    }
+
+                } catch (Exception e) {
+                    return DollarUtilFactory.util().scope().handleError(e, source);
+                } catch (DollarExitError t) {
+                    throw t;
+                } catch (Throwable t) {
+                    throw new Error(t);
+                }
+            }).get();
+        } finally {
+
+            if (scopes != null) {
+                Collections.reverse(scopes);
+                for (Scope scope : scopes) {
+                    DollarUtilFactory.util().popScope(scope);
+                }
+            }
         }
+    }
+
+    @Nullable
+    private Object invokeMain(@Nullable Object proxy, @NotNull Method method, @Nullable Object[] args) throws Throwable {
+        checkStackDepth();
         try {
             if (proxy == null) {
                 return null;
@@ -365,59 +379,39 @@ public class SourceNode implements java.lang.reflect.InvocationHandler {
 //                return lambda.pipe(in).$unwrap();
             } else if ("$fix".equals(method.getName())) {
                 if ((args != null) && (args.length == 1)) {
-                    return executePipe(DollarFactory.fromValue(args[0])).$fix(1, (Boolean) args[0]);
+                    return fix((Boolean) args[0]);
                 } else if ((args != null) && (args.length == 2)) {
-                    if ((int) args[0] > 1) {
-                        return executePipe(DollarFactory.fromValue(args[1])).$fix((int) args[0] - 1, (Boolean) args[1]);
-                    } else {
-                        return executePipe(DollarFactory.fromValue(args[1]));
-                    }
-
-
+                    return fix((int) args[0], (Boolean) args[1]);
                 }
                 throw new IllegalArgumentException();
             } else if ("$fixDeep".equals(method.getName())) {
 
                 if ((args == null) || (args.length == 0)) {
-                    return executePipe(DollarFactory.fromValue(false)).$fixDeep(false);
+                    return fixDeep(false);
                 } else {
-                    return executePipe(DollarFactory.fromValue(args[0])).$fixDeep((Boolean) args[0]);
+                    return fixDeep((Boolean) args[0]);
                 }
 
 
             } else if ("constraintLabel".equals(method.getName())) {
-                return meta.get(CONSTRAINT_FINGERPRINT);
+                return constraintLabel();
             } else if ("metaAttribute".equals(method.getName()) && (((args != null) ? args.length : 0) == 1)) {
                 return meta.get(MetaKey.of(args[0]));
             } else if ("metaAttribute".equals(method.getName()) && (((args != null) ? args.length : 0) == 2)) {
-                meta.put(MetaKey.of(args[0]), String.valueOf(args[1]));
+                meta(MetaKey.of(args[0]), String.valueOf(args[1]));
                 return null;
             } else if ("meta".equals(method.getName()) && (((args != null) ? args.length : 0) == 1)) {
-                return meta.get(MetaKey.of(args[0]));
+                return meta(MetaKey.of(args[0]));
             } else if ("meta".equals(method.getName()) && (((args != null) ? args.length : 0) == 2)) {
-                meta.put(MetaKey.of(args[0]), args[1]);
+                meta(MetaKey.of(args[0]), args[1]);
                 return null;
             } else if ("$listen".equals(method.getName())) {
                 String listenerId = UUID.randomUUID().toString();
                 if ((args != null) && (args.length == 2)) {
                     listenerId = String.valueOf(args[1]);
                 }
-                if (getConfig().debugEvents()) {
-                    log.info("$listen called on a source node, id used is {} source is {} ", listenerId,
-                             source.getShortSourceMessage());
-                }
-                listeners.put(listenerId, (Pipeable) args[0]);
-                return $(listenerId);
+                return listen((Pipeable) args[0], listenerId);
             } else if ("$notify".equals(method.getName())) {
-                if (notifyStack.get().contains(this)) {
-                    throw new IllegalStateException("Recursive notify loop detected " + notifyStack.get());
-//                    return proxy;
-                }
-                if (getConfig().debugEvents()) {
-                    log.info("$notify called on a source node, id used is {} source is {} listener stack size is {}", id,
-                             source.getShortSourceMessage(), listeners.size());
-                }
-                notifyStack.get().add(this);
                 Value updateValue;
 
                 if (args != null && (args.length == 2) && (args[1] != null)) {
@@ -427,18 +421,9 @@ public class SourceNode implements java.lang.reflect.InvocationHandler {
                 } else {
                     updateValue = (Value) proxy;
                 }
-//                Value updateValue = ((Value) proxy).$fix(2, false);
-                try {
-                    for (Pipeable listener : listeners.values()) {
-                        listener.pipe(updateValue);
-                    }
-                } finally {
-                    notifyStack.get().remove(this);
-                }
-                return proxy;
+                return notify((Value) proxy, updateValue);
             } else if ("$cancel".equals(method.getName())) {
-                listeners.remove(String.valueOf(args[0]));
-                return args[0];
+                return cancel(args[0]);
             } else if ("hasErrors".equals(method.getName())) {
                 return false;
             } else if ("$copy".equals(method.getName()) || "copy".equals(method.getName())) {
@@ -456,4 +441,162 @@ public class SourceNode implements java.lang.reflect.InvocationHandler {
             return DollarUtilFactory.util().scope().handleError(e, source);
         }
     }
+
+    void checkStackDepth() {
+        if (stack.get().size() > MAX_STACK_DEPTH) {
+            throw new LambdaRecursionException(stack.get().size());
+
+        }
+    }
+
+    @Nullable
+    Object cancel(@NotNull Object id) {
+        listeners.remove(String.valueOf(id));
+        return id;
+    }
+
+    @NotNull
+    Value constrain(@NotNull Value self, @Nullable Value constraint, @Nullable SubType constraintSource) {
+        DollarStatic.context().source(source);
+        try {
+            return _constrain(self, constraint, constraintSource);
+        } catch (Exception e) {
+            log.warn(e.getMessage(), e);
+            return ErrorHandlerFactory.instance().handle(DollarUtilFactory.util().scope(), source, e);
+        }
+    }
+
+    @Nullable
+    SubType constraintLabel() {
+        return (SubType) meta.get(CONSTRAINT_FINGERPRINT);
+    }
+
+    @NotNull
+    Value fix(boolean parallel) throws Exception {
+        return executePipe(DollarFactory.fromValue(parallel)).$fix(1, parallel);
+    }
+
+    @NotNull
+    Value fix(int depth, boolean parallel) throws Exception {
+        if (depth > 1) {
+            return executePipe(DollarFactory.fromValue(parallel)).$fix(depth - 1, parallel);
+        } else {
+            return executePipe(DollarFactory.fromValue(parallel));
+        }
+    }
+
+    @NotNull
+    Value fixDeep(boolean parallel) throws Exception {
+        return executePipe(DollarFactory.fromValue(parallel)).$fixDeep(parallel);
+    }
+
+    @NotNull
+    Value listen(@NotNull Pipeable pipeable, @NotNull String listenerId) {
+        if (getConfig().debugEvents()) {
+            log.info("$listen called on a source node, id used is {} source is {} ", listenerId,
+                     source.getShortSourceMessage());
+        }
+        listeners.put(listenerId, pipeable);
+        return $(listenerId);
+    }
+
+    @Nullable
+    <T> T meta(@NotNull MetaKey key) {
+        return (T) meta.get(key);
+    }
+
+    void meta(@NotNull MetaKey key, @NotNull Object value) {
+        meta.put(key, value);
+    }
+
+    @Override
+    public int height() {
+        return height;
+    }
+
+    @Override
+    public void height(int height) {
+        this.height = height;
+    }
+
+    @NotNull
+    Value notify(@NotNull Value self, @NotNull Value updateValue) throws Exception {
+        if (getConfig().debugEvents()) {
+            log.info("$notify called on a source node, id used is {} source is {} listener stack size is {}", id,
+                     source.getShortSourceMessage(), listeners.size());
+        }
+        //Listeners run when this node's turn comes in the propagation, which may be after the current scope has
+        //been left, so they are run in the scope the notification was made in
+        Scope scope = DollarUtilFactory.util().scope();
+        boolean scheduled = Propagation.current().schedule(this, () -> {
+            boolean push = DollarUtilFactory.util().scope() != scope;
+            if (push) {
+                DollarUtilFactory.util().pushScope(scope);
+            }
+            try {
+                for (Pipeable listener : listeners.values()) {
+                    listener.pipe(updateValue);
+                }
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new DollarException(e);
+            } finally {
+                if (push) {
+                    DollarUtilFactory.util().popScope(scope);
+                }
+            }
+        });
+        if (!scheduled) {
+            throw new IllegalStateException("Recursive notify loop detected " + this);
+        }
+        return self;
+    }
+
+    @NotNull
+    TypePrediction predictType() {
+        if (prediction == null) {
+            prediction = typeLearner.predict(name, source, inputs);
+        }
+        if (meta.get(MetaConstants.TYPE_HINT) != null) {
+            return new SingleValueTypePrediction((Type) meta.get(MetaConstants.TYPE_HINT));
+        }
+        return prediction;
+    }
+
+    @NotNull
+    Source source() {
+        return source;
+    }
+
+    @NotNull
+    Type type() {
+        if (meta.get(MetaConstants.TYPE_HINT) != null) {
+            return (Type) meta.get(MetaConstants.TYPE_HINT);
+        } else if (prediction != null) {
+            return prediction.probableType();
+        } else {
+            return Type._ANY;
+        }
+    }
+
+    /**
+     * A call made on behalf of a node, which may throw anything.
+     */
+    @FunctionalInterface
+    interface NodeCall {
+        @Nullable
+        Object call() throws Throwable;
+    }
+
+    /**
+     * An operation applied to the executed value of a node.
+     *
+     * @param <R> the result type
+     */
+    @FunctionalInterface
+    interface NodeFunction<R> {
+        @Nullable
+        R apply(@NotNull Value value) throws Exception;
+    }
 }
@@ -0,0 +1,999 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.internal.runtime.script.parser;
+
+import com.github.oxo42.stateless4j.StateMachine;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import dollar.api.MetaKey;
+import dollar.api.Pipeable;
+import dollar.api.Signal;
+import dollar.api.SubType;
+import dollar.api.Type;
+import dollar.api.TypePrediction;
+import dollar.api.Value;
+import dollar.api.execution.Propagation;
+import dollar.api.json.ImmutableJsonObject;
+import dollar.api.json.JsonArray;
+import dollar.api.script.Source;
+import dollar.api.types.NotificationType;
+import dollar.api.types.ResourceState;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.InputStream;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * A {@link Value} backed directly by a {@link SourceNode}, each method is dispatched to the node without going
+ * through a {@link java.lang.reflect.Proxy} and the reflective method lookup that entails. It shares the node's
+ * height, so it can stand for the node in a {@link Propagation}.
+ */
+public final class SourceNodeValue implements Value, Propagation.Node {
+
+    @NotNull
+    private final SourceNode node;
+
+    public SourceNodeValue(@NotNull SourceNode node) {
+        this.node = node;
+    }
+
+    @NotNull
+    @Override
+    public Value $(@NotNull String key, @Nullable Object value) {
+        return node.apply(false, out -> out.$(key, value));
+    }
+
+    @NotNull
+    @Override
+    public String $S() {
+        return node.apply(false, out -> out.$S());
+    }
+
+    @NotNull
+    @Override
+    public Value $abs() {
+        return node.apply(false, out -> out.$abs());
+    }
+
+    @NotNull
+    @Override
+    public Value $all() {
+        return node.apply(false, out -> out.$all());
+    }
+
+    @NotNull
+    @Override
+    public Value $append(@NotNull Value value) {
+        return node.apply(false, out -> out.$append(value));
+    }
+
+    @NotNull
+    @Override
+    public Value $as(@NotNull Type type) {
+        return node.apply(false, out -> out.$as(type));
+    }
+
+    @NotNull
+    @Override
+    public Value $avg(boolean parallel) {
+        return node.apply(false, out -> out.$avg(parallel));
+    }
+
+    @NotNull
+    @Override
+    public Value $cancel(@NotNull Value id) {
+        return local(() -> node.cancel(id));
+    }
+
+    @NotNull
+    @Override
+    public Value $choose(@NotNull Value map) {
+        return node.apply(false, out -> out.$choose(map));
+    }
+
+    @NotNull
+    @Override
+    public Value $constrain(@NotNull Value constraint, @Nullable SubType label) {
+        return node.constrain(this, constraint, label);
+    }
+
+    @NotNull
+    @Override
+    public Value $contains(@NotNull Value value) {
+        return node.apply(false, out -> out.$contains(value));
+    }
+
+    @NotNull
+    @Override
+    public Value $containsKey(@NotNull Value value) {
+        return node.apply(false, out -> out.$containsKey(value));
+    }
+
+    @NotNull
+    @Override
+    public Value $containsValue(@NotNull Value value) {
+        return node.apply(false, out -> out.$containsValue(value));
+    }
+
+    @NotNull
+    @Override
+    public Value $copy() {
+        return local(() -> this);
+    }
+
+    @NotNull
+    @Override
+    public Value $copy(@NotNull ImmutableList<Throwable> errors) {
+        return local(() -> this);
+    }
+
+    @NotNull
+    @Override
+    public Value $create() {
+        return node.apply(true, out -> out.$create());
+    }
+
+    @NotNull
+    @Override
+    public Value $dec() {
+        return node.apply(false, out -> out.$dec());
+    }
+
+    @NotNull
+    @Override
+    public Value $default(@NotNull Value v) {
+        return node.apply(false, out -> out.$default(v));
+    }
+
+    @NotNull
+    @Override
+    public Value $destroy() {
+        return node.apply(true, out -> out.$destroy());
+    }
+
+    @NotNull
+    @Override
+    public Value $dispatch(@NotNull Value lhs) {
+        return node.apply(false, out -> out.$dispatch(lhs));
+    }
+
+    @NotNull
+    @Override
+    public Value $divide(@NotNull Value rhs) {
+        return node.apply(false, out -> out.$divide(rhs));
+    }
+
+    @NotNull
+    @Override
+    public Value $drain() {
+        return node.apply(false, out -> out.$drain());
+    }
+
+    @NotNull
+    @Override
+    public Value $each(@NotNull Pipeable pipe) {
+        return node.apply(false, out -> out.$each(pipe));
+    }
+
+    @NotNull
+    @Override
+    public Value $equals(@Nullable Value other) {
+        return node.apply(false, out -> out.$equals(other));
+    }
+
+    @NotNull
+    @Override
+    public Value $fix(boolean parallel) {
+        return fix(false, () -> node.fix(parallel));
+    }
+
+    @NotNull
+    @Override
+    public Value $fix(int depth, boolean parallel) {
+        return fix(false, () -> node.fix(depth, parallel));
+    }
+
+    @NotNull
+    @Override
+    public Value $fixDeep() {
+        return fix(true, () -> node.fixDeep(false));
+    }
+
+    @NotNull
+    @Override
+    public Value $fixDeep(boolean parallel) {
+        return fix(true, () -> node.fixDeep(parallel));
+    }
+
+    @NotNull
+    @Override
+    public Value $get(@NotNull Value rhs) {
+        return node.apply(false, out -> out.$get(rhs));
+    }
+
+    @NotNull
+    @Override
+    public Value $give(@NotNull Value lhs) {
+        return node.apply(false, out -> out.$give(lhs));
+    }
+
+    @NotNull
+    @Override
+    public Value $has(@NotNull String key) {
+        return node.apply(false, out -> out.$has(key));
+    }
+
+    @NotNull
+    @Override
+    public Value $has(@NotNull Value key) {
+        return node.apply(false, out -> out.$has(key));
+    }
+
+    @NotNull
+    @Override
+    public Value $inc() {
+        return node.apply(false, out -> out.$inc());
+    }
+
+    @NotNull
+    @Override
+    public Value $insert(@NotNull Value value, int position) {
+        return node.apply(false, out -> out.$insert(value, position));
+    }
+
+    @NotNull
+    @Override
+    public Value $isEmpty() {
+        return node.apply(false, out -> out.$isEmpty());
+    }
+
+    @NotNull
+    @Override
+    public Value $list() {
+        return node.apply(false, out -> out.$list());
+    }
+
+    @NotNull
+    @Override
+    public Value $listen(@NotNull Pipeable pipeable) {
+        return local(() -> node.listen(pipeable, UUID.randomUUID().toString()));
+    }
+
+    @NotNull
+    @Override
+    public Value $listen(@NotNull Pipeable pipeable, @NotNull String id) {
+        return local(() -> node.listen(pipeable, id));
+    }
+
+    @NotNull
+    @Override
+    public Value $map() {
+        return node.apply(false, out -> out.$map());
+    }
+
+    @NotNull
+    @Override
+    public Value $max(boolean parallel) {
+        return node.apply(false, out -> out.$max(parallel));
+    }
+
+    @NotNull
+    @Override
+    public Value $mimeType() {
+        return node.apply(false, out -> out.$mimeType());
+    }
+
+    @NotNull
+    @Override
+    public Value $min(boolean parallel) {
+        return node.apply(false, out -> out.$min(parallel));
+    }
+
+    @NotNull
+    @Override
+    public Value $minus(@NotNull Value rhs) {
+        return node.apply(false, out -> out.$minus(rhs));
+    }
+
+    @NotNull
+    @Override
+    public Value $modulus(@NotNull Value rhs) {
+        return node.apply(false, out -> out.$modulus(rhs));
+    }
+
+    @NotNull
+    @Override
+    public Value $multiply(@NotNull Value v) {
+        return node.apply(false, out -> out.$multiply(v));
+    }
+
+    @NotNull
+    @Override
+    public Value $negate() {
+        return node.apply(false, out -> out.$negate());
+    }
+
+    @NotNull
+    @Override
+    public Value $notEquals(@Nullable Value other) {
+        return node.apply(false, out -> out.$notEquals(other));
+    }
+
+    @NotNull
+    @Override
+    public Value $notify(@NotNull NotificationType type, @Nullable Value value) {
+        return local(() -> node.notify(this, (value != null) ? value : this));
+    }
+
+    @NotNull
+    @Override
+    public Value $pairKey() {
+        return node.apply(false, out -> out.$pairKey());
+    }
+
+    @NotNull
+    @Override
+    public Value $pairValue() {
+        return node.apply(false, out -> out.$pairValue());
+    }
+
+    @NotNull
+    @Override
+    public Value $pause() {
+        return node.apply(true, out -> out.$pause());
+    }
+
+    @NotNull
+    @Override
+    public Value $peek() {
+        return node.apply(false, out -> out.$peek());
+    }
+
+    @NotNull
+    @Override
+    public Value $plus(@NotNull Value rhs) {
+        return node.apply(false, out -> out.$plus(rhs));
+    }
+
+    @NotNull
+    @Override
+    public Value $poll() {
+        return node.apply(false, out -> out.$poll());
+    }
+
+    @NotNull
+    @Override
+    public Value $pop() {
+        return node.apply(false, out -> out.$pop());
+    }
+
+    @NotNull
+    @Override
+    public Value $prepend(@NotNull Value value) {
+        return node.apply(false, out -> out.$prepend(value));
+    }
+
+    @NotNull
+    @Override
+    public Value $product(boolean parallel) {
+        return node.apply(false, out -> out.$product(parallel));
+    }
+
+    @NotNull
+    @Override
+    public Value $publish(@NotNull Value lhs) {
+        return node.apply(false, out -> out.$publish(lhs));
+    }
+
+    @NotNull
+    @Override
+    public Value $push(@NotNull Value lhs) {
+        return node.apply(false, out -> out.$push(lhs));
+    }
+
+    @NotNull
+    @Override
+    public Value $read() {
+        return node.apply(false, out -> out.$read());
+    }
+
+    @NotNull
+    @Override
+    public Value $read(boolean blocking, boolean mutating) {
+        return node.apply(false, out -> out.$read(blocking, mutating));
+    }
+
+    @NotNull
+    @Override
+    public Value $remove(@NotNull Value valueToRemove) {
+        return node.apply(false, out -> out.$remove(valueToRemove));
+    }
+
+    @NotNull
+    @Override
+    public Value $removeByKey(@NotNull String key) {
+        return node.apply(false, out -> out.$removeByKey(key));
+    }
+
+    @NotNull
+    @Override
+    public Value $reverse(boolean parallel) {
+        return node.apply(false, out -> out.$reverse(parallel));
+    }
+
+    @NotNull
+    @Override
+    public String $serialized() {
+        return node.apply(false, out -> out.$serialized());
+    }
+
+    @NotNull
+    @Override
+    public Value $set(@NotNull Value key, @NotNull Object value) {
+        return node.apply(false, out -> out.$set(key, value));
+    }
+
+    @Override
+    public void $signal(@NotNull Signal signal) {
+        node.apply(true, out -> {
+            out.$signal(signal);
+            return null;
+        });
+    }
+
+    @NotNull
+    @Override
+    public Value $size() {
+        return node.apply(false, out -> out.$size());
+    }
+
+    @NotNull
+    @Override
+    public Value $sort(boolean parallel) {
+        return node.apply(false, out -> out.$sort(parallel));
+    }
+
+    @NotNull
+    @Override
+    public Value $split(boolean parallel) {
+        return node.apply(false, out -> out.$split(parallel));
+    }
+
+    @NotNull
+    @Override
+    public Value $start() {
+        return node.apply(true, out -> out.$start());
+    }
+
+    @NotNull
+    @Override
+    public Value $state() {
+        return node.apply(true, out -> out.$state());
+    }
+
+    @NotNull
+    @Override
+    public Value $stop() {
+        return node.apply(true, out -> out.$stop());
+    }
+
+    @NotNull
+    @Override
+    public Value $stream(boolean parallel) {
+        return node.apply(false, out -> out.$stream(parallel));
+    }
+
+    @NotNull
+    @Override
+    public Value $subscribe(@NotNull Pipeable subscription) {
+        return node.apply(false, out -> out.$subscribe(subscription));
+    }
+
+    @NotNull
+    @Override
+    public Value $subscribe(@NotNull Pipeable subscription, @NotNull String key) {
+        return node.apply(false, out -> out.$subscribe(subscription, key));
+    }
+
+    @NotNull
+    @Override
+    public Value $sum(boolean parallel) {
+        return node.apply(false, out -> out.$sum(parallel));
+    }
+
+    @NotNull
+    @Override
+    public Type $type() {
+        return node.type();
+    }
+
+    @NotNull
+    @Override
+    public Value $unique(boolean parallel) {
+        return node.apply(false, out -> out.$unique(parallel));
+    }
+
+    @NotNull
+    @Override
+    public Value $unpause() {
+        return node.apply(true, out -> out.$unpause());
+    }
+
+    @Nullable
+    @Override
+    public Value $unwrap() {
+        return local(() -> this);
+    }
+
+    @NotNull
+    @Override
+    public Value $write(@NotNull Value value) {
+        return node.apply(false, out -> out.$write(value));
+    }
+
+    @NotNull
+    @Override
+    public Value $write(@NotNull Value value, boolean blocking, boolean mutating) {
+        return node.apply(false, out -> out.$write(value, blocking, mutating));
+    }
+
+    @Override
+    public boolean collection() {
+        return node.apply(false, out -> out.collection());
+    }
+
+    @Override
+    public int compareTo(@NotNull Value o) {
+        return node.apply(true, out -> out.compareTo(o));
+    }
+
+    @Nullable
+    @Override
+    public SubType constraintLabel() {
+        return local(node::constraintLabel);
+    }
+
+    @NotNull
+    @Override
+    public Value debug() {
+        return node.apply(false, out -> out.debug());
+    }
+
+    @NotNull
+    @Override
+    public Value debug(@NotNull Object message) {
+        return node.apply(false, out -> out.debug(message));
+    }
+
+    @NotNull
+    @Override
+    public Value debugf(@NotNull String message, Object... values) {
+        return node.apply(false, out -> out.debugf(message, values));
+    }
+
+    @Override
+    public boolean decimal() {
+        return node.apply(false, out -> out.decimal());
+    }
+
+    @Override
+    public boolean dynamic() {
+        return true;
+    }
+
+    @Override
+    public boolean equalsString(@NotNull String s) {
+        return node.apply(false, out -> out.equalsString(s));
+    }
+
+    @NotNull
+    @Override
+    public Value err() {
+        return node.apply(false, out -> out.err());
+    }
+
+    @NotNull
+    @Override
+    public Value error() {
+        return node.apply(false, out -> out.error());
+    }
+
+    @NotNull
+    @Override
+    public Value error(@NotNull Throwable exception) {
+        return node.apply(false, out -> out.error(exception));
+    }
+
+    @NotNull
+    @Override
+    public Value error(@NotNull Object message) {
+        return node.apply(false, out -> out.error(message));
+    }
+
+    @NotNull
+    @Override
+    public Value errorf(@NotNull String message, Object... values) {
+        return node.apply(false, out -> out.errorf(message, values));
+    }
+
+    @NotNull
+    @Override
+    public StateMachine<ResourceState, Signal> getStateMachine() {
+        return node.apply(true, out -> out.getStateMachine());
+    }
+
+    @Override
+    public int height() {
+        return node.height();
+    }
+
+    @Override
+    public void height(int height) {
+        node.height(height);
+    }
+
+    @Override
+    public boolean infinite() {
+        return node.apply(false, out -> out.infinite());
+    }
+
+    @NotNull
+    @Override
+    public Value info() {
+        return node.apply(false, out -> out.info());
+    }
+
+    @NotNull
+    @Override
+    public Value info(@NotNull Object message) {
+        return node.apply(false, out -> out.info(message));
+    }
+
+    @NotNull
+    @Override
+    public Value infof(@NotNull String message, Object... values) {
+        return node.apply(false, out -> out.infof(message, values));
+    }
+
+    @Override
+    public boolean integer() {
+        return node.apply(false, out -> out.integer());
+    }
+
+    @Override
+    public boolean is(@NotNull Type... types) {
+        return node.apply(false, out -> out.is(types));
+    }
+
+    @Override
+    public boolean isBoolean() {
+        return node.apply(false, out -> out.isBoolean());
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return node.apply(false, out -> out.isEmpty());
+    }
+
+    @Override
+    public boolean isFalse() {
+        return node.apply(false, out -> out.isFalse());
+    }
+
+    @Override
+    public boolean isNull() {
+        return node.apply(false, out -> out.isNull());
+    }
+
+    @Override
+    public boolean isTrue() {
+        return node.apply(false, out -> out.isTrue());
+    }
+
+    @Override
+    public boolean isVoid() {
+        return node.apply(false, out -> out.isVoid());
+    }
+
+    @NotNull
+    @Override
+    public JsonArray jsonArray() {
+        return node.apply(false, out -> out.jsonArray());
+    }
+
+    @Override
+    public boolean list() {
+        return node.apply(false, out -> out.list());
+    }
+
+    @Override
+    public boolean map() {
+        return node.apply(false, out -> out.map());
+    }
+
+    @Nullable
+    @Override
+    public <T> T meta(@NotNull MetaKey key) {
+        return local(() -> node.meta(key));
+    }
+
+    @Override
+    public <T> void meta(@NotNull MetaKey key, @NotNull T value) {
+        local(() -> {
+            node.meta(key, value);
+            return null;
+        });
+    }
+
+    @Nullable
+    @Override
+    public String metaAttribute(@NotNull MetaKey key) {
+        return local(() -> node.meta(key));
+    }
+
+    @Override
+    public void metaAttribute(@NotNull MetaKey key, @NotNull String value) {
+        local(() -> {
+            node.meta(key, value);
+            return null;
+        });
+    }
+
+    @Override
+    public boolean negative() {
+        return node.apply(false, out -> out.negative());
+    }
+
+    @Override
+    public boolean neitherTrueNorFalse() {
+        return node.apply(false, out -> out.neitherTrueNorFalse());
+    }
+
+    @Override
+    public boolean number() {
+        return node.apply(false, out -> out.number());
+    }
+
+    @NotNull
+    @Override
+    public Value out() {
+        return node.apply(false, out -> out.out());
+    }
+
+    @Override
+    public boolean pair() {
+        return node.apply(false, out -> out.pair());
+    }
+
+    @Override
+    public boolean positive() {
+        return node.apply(false, out -> out.positive());
+    }
+
+    @Nullable
+    @Override
+    public TypePrediction predictType() {
+        return node.predictType();
+    }
+
+    @Override
+    public boolean queue() {
+        return node.apply(false, out -> out.queue());
+    }
+
+    @Override
+    public boolean range() {
+        return node.apply(false, out -> out.range());
+    }
+
+    @Nullable
+    @Override
+    public <R> R remove(@NotNull Object valueToRemove) {
+        return node.apply(false, out -> out.remove(valueToRemove));
+    }
+
+    @Override
+    public int sign() {
+        return node.apply(false, out -> out.sign());
+    }
+
+    @Override
+    public boolean singleValue() {
+        return node.apply(false, out -> out.singleValue());
+    }
+
+    @Override
+    public int size() {
+        return node.apply(false, out -> out.size());
+    }
+
+    @Nullable
+    @Override
+    public Source source() {
+        return node.source();
+    }
+
+    @NotNull
+    @Override
+    public Stream<Value> stream(boolean parallel) {
+        return node.apply(false, out -> out.stream(parallel));
+    }
+
+    @Override
+    public boolean string() {
+        return node.apply(false, out -> out.string());
+    }
+
+    @NotNull
+    @Override
+    public String toDollarScript() {
+        return node.apply(false, out -> out.toDollarScript());
+    }
+
+    @Override
+    public double toDouble() {
+        return node.apply(false, out -> out.toDouble());
+    }
+
+    @NotNull
+    @Override
+    public String toHumanString() {
+        return node.apply(false, out -> out.toHumanString());
+    }
+
+    @Override
+    public int toInteger() {
+        return node.apply(false, out -> out.toInteger());
+    }
+
+    @NotNull
+    @Override
+    public <K extends Comparable<K>, V> ImmutableMap<K, V> toJavaMap() {
+        return node.apply(false, out -> out.toJavaMap());
+    }
+
+    @Nullable
+    @Override
+    public <R> R toJavaObject() {
+        return node.apply(false, out -> out.toJavaObject());
+    }
+
+    @Nullable
+    @Override
+    public ImmutableJsonObject toJsonObject() {
+        return node.apply(false, out -> out.toJsonObject());
+    }
+
+    @NotNull
+    @Override
+    public String toJsonString() {
+        return node.apply(false, out -> out.toJsonString());
+    }
+
+    @Nullable
+    @Override
+    public Object toJsonType() {
+        return node.apply(false, out -> out.toJsonType());
+    }
+
+    @NotNull
+    @Override
+    public <T> ImmutableList<T> toList() {
+        return node.apply(false, out -> out.toList());
+    }
+
+    @NotNull
+    @Override
+    public long toLong() {
+        return node.apply(false, out -> out.toLong());
+    }
+
+    @Nullable
+    @Override
+    public Number toNumber() {
+        return node.apply(false, out -> out.toNumber());
+    }
+
+    @NotNull
+    @Override
+    public InputStream toStream() {
+        return node.apply(false, out -> out.toStream());
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        return node.apply(true, Value::toString);
+    }
+
+    @Nullable
+    @Override
+    public ImmutableList<String> toStrings() {
+        return node.apply(false, out -> out.toStrings());
+    }
+
+    @NotNull
+    @Override
+    public ImmutableList<Value> toVarList() {
+        return node.apply(false, out -> out.toVarList());
+    }
+
+    @NotNull
+    @Override
+    public ImmutableMap<Value, Value> toVarMap() {
+        return node.apply(false, out -> out.toVarMap());
+    }
+
+    @NotNull
+    @Override
+    public String toYaml() {
+        return node.apply(false, out -> out.toYaml());
+    }
+
+    @Override
+    public boolean truthy() {
+        return node.apply(false, out -> out.truthy());
+    }
+
+    @NotNull
+    @Deprecated
+    @Override
+    public Type type() {
+        return node.apply(false, out -> out.type());
+    }
+
+    @Override
+    public boolean uri() {
+        return node.apply(false, out -> out.uri());
+    }
+
+    @Override
+    public boolean zero() {
+        return node.apply(false, out -> out.zero());
+    }
+
+    @Override
+    public boolean equals(@Nullable Object obj) {
+        Boolean result = node.apply(true, out -> out.equals(obj));
+        return (result != null) && result;
+    }
+
+    @Override
+    public int hashCode() {
+        Integer result = node.apply(true, Object::hashCode);
+        return (result != null) ? result : 0;
+    }
+
+    @Nullable
+    private <R> R local(@NotNull SourceNode.NodeCall call) {
+        return (R) node.dispatch(false, false, () -> {
+            node.checkStackDepth();
+            return call.call();
+        });
+    }
+
+    @NotNull
+    private Value fix(boolean learn, @NotNull SourceNode.NodeCall call) {
+        return (Value) node.dispatch(true, learn, () -> {
+            node.checkStackDepth();
+            return call.call();
+        });
+    }
+}
@@ -16,7 +16,6 @@
 
 package dollar.internal.runtime.script.parser.scope;
 
-import com.google.common.base.Objects;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Multimap;
 import dollar.api.ClassName;
@@ -30,6 +29,7 @@ import dollar.api.VarFlags;
 import dollar.api.VarKey;
 import dollar.api.Variable;
 import dollar.api.exceptions.LambdaRecursionException;
+import dollar.api.execution.Propagation;
 import dollar.api.script.Source;
 import dollar.api.types.NotificationType;
 import dollar.internal.runtime.script.ErrorHandlerFactory;
@@ -48,16 +48,14 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import static dollar.api.DollarException.unravel;
@@ -70,26 +68,34 @@ public class ScriptScope implements Scope {
     @NotNull
     private static final AtomicInteger counter = new AtomicInteger();
     @NotNull
+    private static final AtomicLong serials = new AtomicLong();
+    @NotNull
     private static final Logger log = LoggerFactory.getLogger(ScriptScope.class);
     @NotNull
     final String id;
     private final boolean classScope;
-    @NotNull
-    private final ConcurrentHashMap<ClassName, DollarClass> classes = new ConcurrentHashMap<>();
-    @NotNull
-    private final List<Value> errorHandlers = new CopyOnWriteArrayList<>();
-    @NotNull
-    private final Multimap<VarKey, Listener> listeners = ArrayListMultimap.create();
     private final boolean root;
+    /**
+     * Identity of this scope for equality, a copy is given a serial of its own.
+     */
+    private final long serial = serials.incrementAndGet();
     @NotNull
-    private final UUID uuid = UUID.randomUUID();
-    @NotNull
-    private final Map<VarKey, Variable> variables = Collections.<VarKey, Variable>synchronizedMap(new LinkedHashMap());
+    private final VariableFrame variables = new VariableFrame();
     @Nullable
     Scope parent;
     @Nullable
     String source;
+    /**
+     * Most scopes, especially the per iteration scopes of loops, never register a class, an error handler or a
+     * listener so these are only created on first use.
+     */
+    @Nullable
+    private volatile Map<ClassName, DollarClass> classes;
     private boolean destroyed;
+    @Nullable
+    private volatile List<Value> errorHandlers;
+    @Nullable
+    private Multimap<VarKey, Listener> listeners;
     private boolean parameterScope;
     @Nullable
     private Parser<Value> parser;
@@ -153,9 +159,11 @@ public class ScriptScope implements Scope {
         this.parameterScope = parameterScope;
         this.classScope = classScope;
         this.variables.putAll(variables);
-        this.errorHandlers.addAll(errorHandlers);
-        for (Map.Entry<VarKey, Collection<Listener>> entry : listeners.asMap().entrySet()) {
-            this.listeners.putAll(entry.getKey(), entry.getValue());
+        if (!errorHandlers.isEmpty()) {
+            this.errorHandlers = new CopyOnWriteArrayList<>(errorHandlers);
+        }
+        if (!listeners.isEmpty()) {
+            this.listeners = ArrayListMultimap.create(listeners);
         }
         this.source = source;
         this.parser = parser;
@@ -169,14 +177,34 @@ public class ScriptScope implements Scope {
     public Value addErrorHandler(@NotNull Value handler) {
         checkDestroyed();
 
-        errorHandlers.add(handler);
+        List<Value> handlers = errorHandlers;
+        if (handlers == null) {
+            synchronized (this) {
+                handlers = errorHandlers;
+                if (handlers == null) {
+                    handlers = new CopyOnWriteArrayList<>();
+                    errorHandlers = handlers;
+                }
+            }
+        }
+        handlers.add(handler);
         return $void();
 
     }
 
     @Override
     public void addListener(@NotNull VarKey key, @NotNull Scope.Listener listener) {
-        listeners.put(key, listener);
+        synchronized (this) {
+            if (listeners == null) {
+                listeners = ArrayListMultimap.create();
+            }
+            for (Listener existing : listeners.get(key)) {
+                if (existing.getId().equals(listener.getId())) {
+                    return;
+                }
+            }
+            listeners.put(key, listener);
+        }
     }
 
     @Override
@@ -187,7 +215,9 @@ public class ScriptScope implements Scope {
             log.info("Clearing scope {}", this);
         }
         variables.clear();
-        listeners.clear();
+        synchronized (this) {
+            listeners = null;
+        }
     }
 
     @Nullable
@@ -203,11 +233,8 @@ public class ScriptScope implements Scope {
         if (getConfig().debugScope()) {
             log.info("Getting constraint for {} in {}", key, scope);
         }
-        if (scope.variables().containsKey(key) && (scope.variables().get(
-                key).getConstraint() != null)) {
-            return scope.variables().get(key).getConstraint();
-        }
-        return null;
+        Variable variable = scope.variable(key);
+        return (variable != null) ? variable.getConstraint() : null;
     }
 
     @NotNull
@@ -217,7 +244,8 @@ public class ScriptScope implements Scope {
 
         return new ScriptScope(parent, "*" + id.split(":")[0] + ":" + counter.incrementAndGet(),
                                parameterScope,
-                               variables, errorHandlers, listeners, source, parser, root, classScope);
+                               variables.toMap(), errorHandlers(), listenersCopy(), source, parser, root,
+                               classScope);
     }
 
     @Override
@@ -229,7 +257,8 @@ public class ScriptScope implements Scope {
     @NotNull
     @Override
     public DollarClass dollarClassByName(@NotNull ClassName name) {
-        DollarClass clazz = classes.get(name);
+        Map<ClassName, DollarClass> registered = classes;
+        DollarClass clazz = (registered != null) ? registered.get(name) : null;
         if (clazz != null) {
             return clazz;
         }
@@ -266,7 +295,7 @@ public class ScriptScope implements Scope {
                 log.info("{} in {}", util().highlight("FOUND " + key, DollarUtil.ANSI_CYAN), scope);
             }
         }
-        Variable result = scope.variables().get(key);
+        Variable result = scope.variable(key);
 
         if (mustFind) {
             if (result == null) {
@@ -297,7 +326,8 @@ public class ScriptScope implements Scope {
         if (unravelled instanceof DollarAssertionException) {
             throw (DollarAssertionException) unravelled;
         }
-        if (errorHandlers.isEmpty()) {
+        List<Value> handlers = errorHandlers();
+        if (handlers.isEmpty()) {
             log.info("No error handlers in {} so passing up.", this);
             if (parent == null) {
                 log.info("No parent so handling error in {}", this);
@@ -340,7 +370,7 @@ public class ScriptScope implements Scope {
                 parameter(VarKey.TYPE, $(unravelled.getClass().getName()));
                 parameter(VarKey.MSG, $(unravelled.getMessage()));
                 try {
-                    for (Value handler : errorHandlers) {
+                    for (Value handler : handlers) {
                         handler.$fixDeep(false);
                     }
                 } finally {
@@ -391,7 +421,7 @@ public class ScriptScope implements Scope {
             log.info("Checking for {} in {}", key, scope);
         }
 
-        Variable val = scope.variables().get(key);
+        Variable val = scope.variable(key);
         return val != null;
 
     }
@@ -484,13 +514,9 @@ public class ScriptScope implements Scope {
         }
 
 
-        if (listeners.get(key).stream().filter(i -> i.getId().equals(id)).count() == 0) {
-            scopeForKey.addListener(key, listener);
-        } else {
-            if (getConfig().debugEvents()) {
-                log.info("Listener {} for {} in {} already exists", id, key, scopeForKey);
-            }
-        }
+        //addListener ignores a listener whose id is already registered on that scope, so repeated reads of the
+        //same variable node do not pile up listeners on the defining scope
+        scopeForKey.addListener(key, listener);
     }
 
     @Nullable
@@ -514,25 +540,31 @@ public class ScriptScope implements Scope {
 
             log.info("Scope {} notified for {}", this, key);
         }
-        if (listeners.containsKey(key)) {
+        List<Listener> keyListeners;
+        synchronized (this) {
+            keyListeners = ((listeners != null) && listeners.containsKey(key)) ? new ArrayList<>(listeners.get(key)) : null;
+        }
+        if (keyListeners != null) {
             if (getConfig().debugEvents()) {
-                log.debug("Scope {} notified for {} with {} listeners", this, key, listeners.get(key).size());
+                log.debug("Scope {} notified for {} with {} listeners", this, key, keyListeners.size());
             }
-            new ArrayList<>(listeners.get(key)).forEach(
-                    listener -> {
-                        try {
-                            if (getConfig().debugEvents()) {
-                                log.debug("Listener {} notified in scope {} for key {}", listener.getId(), this, key);
-                            }
-                            listener.pipe($(key), value);
-                        } catch (Exception e) {
+            //the listeners' notifications are propagated together, so what depends on several of them updates once
+            try {
+                Propagation.current().batch(() -> keyListeners.forEach(
+                        listener -> {
                             try {
-                                handleError(e);
-                            } catch (Exception e1) {
-                                e1.printStackTrace();
+                                if (getConfig().debugEvents()) {
+                                    log.debug("Listener {} notified in scope {} for key {}", listener.getId(), this,
+                                              key);
+                                }
+                                listener.pipe($(key), value);
+                            } catch (Exception e) {
+                                listenerFailed(e);
                             }
-                        }
-                    });
+                        }));
+            } catch (RuntimeException e) {
+                listenerFailed(e);
+            }
         } else {
             if (getConfig().debugEvents()) {
                 log.info("Scope {} notified for {} NO LISTENERS", this, key);
@@ -540,6 +572,14 @@ public class ScriptScope implements Scope {
         }
     }
 
+    private void listenerFailed(@NotNull Exception e) {
+        try {
+            handleError(e);
+        } catch (Exception e1) {
+            e1.printStackTrace();
+        }
+    }
+
     @NotNull
     @Override
     public Variable parameter(@NotNull VarKey key) {
@@ -577,7 +617,7 @@ public class ScriptScope implements Scope {
     @NotNull
     @Override
     public List<Value> parametersAsVars() {
-        return variables.entrySet().stream()
+        return variables.toMap().entrySet().stream()
                        .filter(i -> i.getValue().isParameter())
                        .filter(i -> i.getKey().isNumeric())
                        .sorted(Comparator.comparing(i -> Integer.parseInt(i.getKey().asString())))
@@ -599,7 +639,17 @@ public class ScriptScope implements Scope {
     @Override
     public void registerClass(@NotNull ClassName name, @NotNull DollarClass dollarClass) {
         log.info("Registering class {} in {}", name, this);
-        classes.put(name, dollarClass);
+        Map<ClassName, DollarClass> registered = classes;
+        if (registered == null) {
+            synchronized (this) {
+                registered = classes;
+                if (registered == null) {
+                    registered = new ConcurrentHashMap<>();
+                    classes = registered;
+                }
+            }
+        }
+        registered.put(name, dollarClass);
     }
 
     @Nullable
@@ -657,12 +707,12 @@ public class ScriptScope implements Scope {
             }
         }
 
-        if (variables.containsKey(key) && variables.get(key).isReadonly()) {
+        final Variable variable = variables.get(key);
+        if ((variable != null) && variable.isReadonly()) {
             throw new DollarScriptException("Cannot change the value of variable " + key + " it is readonly");
         }
 
-        if (variables.containsKey(key)) {
-            final Variable variable = variables.get(key);
+        if (variable != null) {
             if (!variable.isVolatile() && (variable.getThread() != Thread.currentThread().getId())) {
                 handleError(
                         new DollarScriptException("Concurrency Error: Cannot change the variable " +
@@ -713,11 +763,8 @@ public class ScriptScope implements Scope {
         if (getConfig().debugScope()) {
             log.info("Getting constraint for {} in {}", key, scope);
         }
-        if (scope.variables().containsKey(key) && (scope.variables().get(
-                key).getConstraintLabel() != null)) {
-            return scope.variables().get(key).getConstraintLabel();
-        }
-        return null;
+        Variable variable = scope.variable(key);
+        return (variable != null) ? variable.getConstraintLabel() : null;
     }
 
     @NotNull
@@ -729,7 +776,7 @@ public class ScriptScope implements Scope {
     @NotNull
     @Override
     public Map<VarKey, Variable> variables() {
-        return new LinkedHashMap<>(variables);
+        return variables.toMap();
     }
 
 // --Commented out by Inspection START (10/09/2017, 14:29):
@@ -750,6 +797,17 @@ public class ScriptScope implements Scope {
 //    }
 // --Commented out by Inspection STOP (10/09/2017, 14:29)
 
+    @NotNull
+    private List<Value> errorHandlers() {
+        List<Value> handlers = errorHandlers;
+        return (handlers != null) ? handlers : Collections.emptyList();
+    }
+
+    @NotNull
+    private synchronized Multimap<VarKey, Listener> listenersCopy() {
+        return (listeners != null) ? ArrayListMultimap.create(listeners) : ArrayListMultimap.create();
+    }
+
     private void checkDestroyed() {
         if (destroyed) {
             throw new IllegalStateException("Attempted to use a destroyed scope " + this);
@@ -765,7 +823,7 @@ public class ScriptScope implements Scope {
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(uuid);
+        return Long.hashCode(serial);
     }
 
     @Override
@@ -773,7 +831,7 @@ public class ScriptScope implements Scope {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         ScriptScope that = (ScriptScope) o;
-        return Objects.equal(uuid, that.uuid);
+        return serial == that.serial;
     }
 
     @Nullable
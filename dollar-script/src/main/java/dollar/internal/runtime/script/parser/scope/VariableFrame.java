@@ -0,0 +1,150 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.internal.runtime.script.parser.scope;
+
+import dollar.api.VarKey;
+import dollar.api.Variable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The variables of a single {@link ScriptScope} held as parallel arrays of keys and values, in declaration order.
+ * <p>
+ * Most scopes declare only a handful of variables so a lookup is a linear scan over the key array, an index is only
+ * built once a frame grows beyond {@link #INDEX_THRESHOLD} slots. Reads are lock free: writers append under the
+ * frame's monitor into spare capacity and then publish a snapshot holding the new size, so a reader only ever looks at
+ * the slots below the size it read. The arrays are only copied when they fill up, which keeps declarations amortised
+ * constant time however large the frame grows. Assigning to an existing variable does not touch the frame at all as
+ * {@link Variable} is itself mutable.
+ */
+final class VariableFrame {
+
+    private static final int INITIAL_CAPACITY = 4;
+    private static final int INDEX_THRESHOLD = 8;
+    @NotNull
+    private volatile Slots slots = Slots.EMPTY;
+
+    synchronized void clear() {
+        slots = Slots.EMPTY;
+    }
+
+    boolean containsKey(@NotNull VarKey key) {
+        return slots.slotOf(key) >= 0;
+    }
+
+    @Nullable
+    Variable get(@NotNull VarKey key) {
+        Slots current = slots;
+        int slot = current.slotOf(key);
+        return (slot < 0) ? null : current.values.get(slot);
+    }
+
+    synchronized void put(@NotNull VarKey key, @NotNull Variable variable) {
+        Slots current = slots;
+        int slot = current.slotOf(key);
+        if (slot >= 0) {
+            current.values.set(slot, variable);
+            return;
+        }
+        int size = current.size;
+        VarKey[] keys = current.keys;
+        AtomicReferenceArray<Variable> values = current.values;
+        Map<VarKey, Integer> index = current.index;
+        if (size == keys.length) {
+            int capacity = Math.max(INITIAL_CAPACITY, size * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            AtomicReferenceArray<Variable> grown = new AtomicReferenceArray<>(capacity);
+            for (int i = 0; i < size; i++) {
+                grown.lazySet(i, values.get(i));
+            }
+            values = grown;
+        }
+        keys[size] = key;
+        values.lazySet(size, variable);
+        if (index != null) {
+            index.put(key, size);
+        } else if (size >= INDEX_THRESHOLD) {
+            index = new ConcurrentHashMap<>();
+            for (int i = 0; i <= size; i++) {
+                index.put(keys[i], i);
+            }
+        }
+        slots = new Slots(keys, values, size + 1, index);
+    }
+
+    void putAll(@NotNull Map<VarKey, Variable> variables) {
+        variables.forEach(this::put);
+    }
+
+    int size() {
+        return slots.size;
+    }
+
+    @NotNull
+    Map<VarKey, Variable> toMap() {
+        Slots current = slots;
+        Map<VarKey, Variable> result = new LinkedHashMap<>();
+        for (int i = 0; i < current.size; i++) {
+            result.put(current.keys[i], current.values.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * A published view of the frame. The arrays and the index are shared with later snapshots, which only ever write
+     * beyond this snapshot's size, so {@link #slotOf(VarKey)} ignores any slot at or past it.
+     */
+    private static final class Slots {
+        @NotNull
+        static final Slots EMPTY = new Slots(new VarKey[0], new AtomicReferenceArray<>(0), 0, null);
+        @Nullable
+        final Map<VarKey, Integer> index;
+        @NotNull
+        final VarKey[] keys;
+        final int size;
+        @NotNull
+        final AtomicReferenceArray<Variable> values;
+
+        Slots(@NotNull VarKey[] keys, @NotNull AtomicReferenceArray<Variable> values, int size,
+              @Nullable Map<VarKey, Integer> index) {
+            this.keys = keys;
+            this.values = values;
+            this.size = size;
+            this.index = index;
+        }
+
+        int slotOf(@NotNull VarKey key) {
+            if (index != null) {
+                Integer slot = index.get(key);
+                return ((slot == null) || (slot >= size)) ? -1 : slot;
+            }
+            for (int i = 0; i < size; i++) {
+                if ((keys[i] == key) || keys[i].equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -108,6 +108,11 @@ public final class ParserMain {
             options.setFailFast(failFast);
         }
 
+        @Override
+        public int internPoolSize() {
+            return options.getInternPoolSize();
+        }
+
         @Override
         public boolean production() {
             return options.isProduction();
@@ -0,0 +1,112 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.internal.runtime.script.operators;
+
+import dollar.api.Value;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static dollar.api.DollarStatic.$;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class WindowBufferTest {
+
+    private static Value aggregate(WindowBuffer buffer, String name, long now) {
+        return buffer.aggregates(now).$get($(name));
+    }
+
+    @Test
+    public void testExpiry() {
+        //32 buckets of 10ms
+        WindowBuffer buffer = new WindowBuffer(320, 100);
+        buffer.add($(1), 0);
+        buffer.add($("text"), 50);
+        buffer.add($(2), 100);
+        assertEquals($(3), aggregate(buffer, "count", 319));
+        assertEquals($(3), aggregate(buffer, "sum", 319));
+        assertEquals($(2), aggregate(buffer, "count", 330));
+        assertEquals($(2), aggregate(buffer, "sum", 330));
+        assertEquals($(2), aggregate(buffer, "min", 330));
+        assertEquals(Arrays.asList($(2)), buffer.collected(400));
+        assertEquals($(0), aggregate(buffer, "count", 5000));
+        assertEquals($(0), aggregate(buffer, "sum", 5000));
+        assertTrue(aggregate(buffer, "min", 5000).isVoid());
+        assertTrue(aggregate(buffer, "avg", 5000).isVoid());
+        buffer.add($(4), 5000);
+        assertEquals(Arrays.asList($(4)), buffer.collected(5000));
+    }
+
+    @Test
+    public void testMaxElements() {
+        WindowBuffer buffer = new WindowBuffer(10000, 3);
+        for (int i = 1; i <= 5; i++) {
+            buffer.add($(i), i * 1000);
+        }
+        assertEquals(Arrays.asList($(3), $(4), $(5)), buffer.collected(5000));
+        assertEquals($(3), aggregate(buffer, "count", 5000));
+        assertEquals($(12), aggregate(buffer, "sum", 5000));
+        assertEquals($(3), aggregate(buffer, "min", 5000));
+        assertEquals($(5), aggregate(buffer, "max", 5000));
+        assertEquals($(4.0), aggregate(buffer, "avg", 5000));
+    }
+
+    @Test
+    public void testMinMaxRecalculatedOnRemove() {
+        //all in one bucket, so removing its minimum or maximum has to look at the rest of the bucket
+        WindowBuffer buffer = new WindowBuffer(10000, 3);
+        buffer.add($(1), 0);
+        buffer.add($(5), 0);
+        buffer.add($(3), 0);
+        buffer.add($(4), 0);
+        assertEquals($(3), aggregate(buffer, "min", 0));
+        assertEquals($(5), aggregate(buffer, "max", 0));
+        buffer.add($(2), 0);
+        assertEquals($(2), aggregate(buffer, "min", 0));
+        assertEquals($(4), aggregate(buffer, "max", 0));
+        assertEquals($(9), aggregate(buffer, "sum", 0));
+    }
+
+    @Test
+    public void testSlidingSnapshot() {
+        WindowBuffer buffer = new WindowBuffer(1000, 100);
+        buffer.add($(1), 0);
+        buffer.add($(2), 500);
+        WindowBuffer.Snapshot snapshot = buffer.snapshot(500, false);
+        assertEquals($(2), snapshot.aggregates.$get($("count")));
+        assertEquals(Arrays.asList($(1), $(2)), snapshot.collected.get());
+        assertEquals(Arrays.asList($(1), $(2)), buffer.collected(500));
+    }
+
+    @Test
+    public void testTumblingSnapshot() {
+        WindowBuffer buffer = new WindowBuffer(1000, 100);
+        buffer.add($(1), 0);
+        buffer.add($(2), 500);
+        WindowBuffer.Snapshot snapshot = buffer.snapshot(500, true);
+        //added while the block for the last window runs, so belongs to the next window
+        buffer.add($(3), 600);
+        assertEquals($(2), snapshot.aggregates.$get($("count")));
+        assertEquals($(3), snapshot.aggregates.$get($("sum")));
+        assertEquals(Arrays.asList($(1), $(2)), snapshot.collected.get());
+        assertEquals(Arrays.asList($(3)), buffer.collected(600));
+        assertEquals($(1), aggregate(buffer, "count", 600));
+        assertEquals($(3), aggregate(buffer, "sum", 600));
+    }
+}
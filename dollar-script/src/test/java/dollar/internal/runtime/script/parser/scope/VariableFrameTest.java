@@ -0,0 +1,117 @@
+/*
+ *    Copyright (c) 2014-2017 Neil Ellis
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package dollar.internal.runtime.script.parser.scope;
+
+import dollar.api.VarKey;
+import dollar.api.Variable;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static dollar.api.DollarStatic.$;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class VariableFrameTest {
+
+    private static Variable variable(int i) {
+        return new Variable($(i), false, false, false);
+    }
+
+    @Test
+    public void testDeclarationOrder() {
+        VariableFrame frame = new VariableFrame();
+        List<Variable> variables = new ArrayList<>();
+        //well past the point where the frame builds an index
+        for (int i = 0; i < 100; i++) {
+            Variable variable = variable(i);
+            variables.add(variable);
+            frame.put(VarKey.of("v" + i), variable);
+            assertEquals(i + 1, frame.size());
+        }
+        for (int i = 0; i < 100; i++) {
+            assertTrue(frame.containsKey(VarKey.of("v" + i)));
+            assertSame(variables.get(i), frame.get(VarKey.of("v" + i)));
+        }
+        assertFalse(frame.containsKey(VarKey.of("v100")));
+        assertEquals(new ArrayList<>(frame.toMap().values()), variables);
+    }
+
+    @Test
+    public void testRedeclare() {
+        for (int size : new int[]{3, 20}) {
+            VariableFrame frame = new VariableFrame();
+            for (int i = 0; i < size; i++) {
+                frame.put(VarKey.of("v" + i), variable(i));
+            }
+            Variable replacement = variable(-1);
+            frame.put(VarKey.of("v1"), replacement);
+            assertEquals(size, frame.size());
+            assertSame(replacement, frame.get(VarKey.of("v1")));
+            assertEquals(VarKey.of("v1"), new ArrayList<>(frame.toMap().keySet()).get(1));
+        }
+    }
+
+    @Test
+    public void testClear() {
+        VariableFrame frame = new VariableFrame();
+        for (int i = 0; i < 20; i++) {
+            frame.put(VarKey.of("v" + i), variable(i));
+        }
+        frame.clear();
+        assertEquals(0, frame.size());
+        assertNull(frame.get(VarKey.of("v1")));
+        assertTrue(frame.toMap().isEmpty());
+        Variable variable = variable(1);
+        frame.put(VarKey.of("v1"), variable);
+        assertEquals(1, frame.size());
+        assertSame(variable, frame.get(VarKey.of("v1")));
+        assertNull(frame.get(VarKey.of("v2")));
+    }
+
+    @Test
+    public void testReadersSeeEveryDeclaredSlot() throws Exception {
+        VariableFrame frame = new VariableFrame();
+        int count = 20000;
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            int seen = 0;
+            while ((seen < count) && (failure.get() == null)) {
+                int size = frame.size();
+                for (int i = seen; i < size; i++) {
+                    if (frame.get(VarKey.of("v" + i)) == null) {
+                        failure.set("v" + i + " missing at size " + size);
+                    }
+                }
+                seen = size;
+            }
+        });
+        reader.start();
+        for (int i = 0; i < count; i++) {
+            frame.put(VarKey.of("v" + i), variable(i));
+        }
+        reader.join(10000);
+        assertNull(failure.get());
+        assertEquals(count, frame.size());
+    }
+}